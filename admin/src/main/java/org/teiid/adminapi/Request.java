@@ -100,5 +100,25 @@ public interface Request extends AdminObject, DomainAware {
      * @return The thread state
      */
 	ThreadState getThreadState();
+	
+    /**  
+     * @return The estimated size in KB of all of the batches held by the request
+     */
+	long getBufferSizeEstimateKB();
+	
+    /**  
+     * @return The estimated size in KB of the batches held by the request in heap memory
+     */
+	long getHeapMemoryKB();
+	
+    /**  
+     * @return The size in KB of the buffer manager memory blocks, which may be off-heap, used by the request
+     */
+	long getMemoryBufferKB();
+	
+    /**  
+     * @return The total KB the request has written to disk storage
+     */
+	long getSpilledKB();
     
 }
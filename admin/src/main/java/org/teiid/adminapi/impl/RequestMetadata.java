@@ -42,6 +42,10 @@ public class RequestMetadata extends AdminObjectImpl implements Request {
     private String transactionId;
     private ProcessingState processingState = ProcessingState.PROCESSING;
     private ThreadState threadState = ThreadState.RUNNING;
+    private long bufferSizeEstimateKB;
+    private long heapMemoryKB;
+    private long memoryBufferKB;
+    private long spilledKB;
     
     @Override
     public long getExecutionId() {
@@ -124,6 +128,42 @@ public class RequestMetadata extends AdminObjectImpl implements Request {
 		this.transactionId = id;
 	}
 	
+	@Override
+	public long getBufferSizeEstimateKB() {
+		return bufferSizeEstimateKB;
+	}
+	
+	public void setBufferSizeEstimateKB(long bufferSizeEstimateKB) {
+		this.bufferSizeEstimateKB = bufferSizeEstimateKB;
+	}
+	
+	@Override
+	public long getHeapMemoryKB() {
+		return heapMemoryKB;
+	}
+	
+	public void setHeapMemoryKB(long heapMemoryKB) {
+		this.heapMemoryKB = heapMemoryKB;
+	}
+	
+	@Override
+	public long getMemoryBufferKB() {
+		return memoryBufferKB;
+	}
+	
+	public void setMemoryBufferKB(long memoryBufferKB) {
+		this.memoryBufferKB = memoryBufferKB;
+	}
+	
+	@Override
+	public long getSpilledKB() {
+		return spilledKB;
+	}
+	
+	public void setSpilledKB(long spilledKB) {
+		this.spilledKB = spilledKB;
+	}
+	
     @Override
 	public boolean equals(Object obj) {
     	if (!(obj instanceof RequestMetadata)) {
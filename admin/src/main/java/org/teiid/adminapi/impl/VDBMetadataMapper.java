@@ -1296,6 +1296,10 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 		private static final String EXECUTION_ID = "execution-id"; //$NON-NLS-1$
 		private static final String STATE = "processing-state"; //$NON-NLS-1$
 		private static final String THREAD_STATE = "thread-state"; //$NON-NLS-1$
+		private static final String BUFFER_SIZE_ESTIMATE = "buffer-size-estimate-kb"; //$NON-NLS-1$
+		private static final String HEAP_MEMORY = "heap-memory-kb"; //$NON-NLS-1$
+		private static final String MEMORY_BUFFER = "memory-buffer-kb"; //$NON-NLS-1$
+		private static final String SPILLED = "spilled-kb"; //$NON-NLS-1$
 		
 		public static RequestMetadataMapper INSTANCE = new RequestMetadataMapper();
 		
@@ -1317,6 +1321,10 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 			}
 			node.get(STATE).set(request.getState().name());
 			node.get(THREAD_STATE).set(request.getThreadState().name());
+			node.get(BUFFER_SIZE_ESTIMATE).set(request.getBufferSizeEstimateKB());
+			node.get(HEAP_MEMORY).set(request.getHeapMemoryKB());
+			node.get(MEMORY_BUFFER).set(request.getMemoryBufferKB());
+			node.get(SPILLED).set(request.getSpilledKB());
 			
 			wrapDomain(request, node);
 			return node;
@@ -1340,6 +1348,18 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 			}
 			request.setState(ProcessingState.valueOf(node.get(STATE).asString()));
 			request.setThreadState(ThreadState.valueOf(node.get(THREAD_STATE).asString()));
+			if (node.has(BUFFER_SIZE_ESTIMATE)) {
+				request.setBufferSizeEstimateKB(node.get(BUFFER_SIZE_ESTIMATE).asLong());
+			}
+			if (node.has(HEAP_MEMORY)) {
+				request.setHeapMemoryKB(node.get(HEAP_MEMORY).asLong());
+			}
+			if (node.has(MEMORY_BUFFER)) {
+				request.setMemoryBufferKB(node.get(MEMORY_BUFFER).asLong());
+			}
+			if (node.has(SPILLED)) {
+				request.setSpilledKB(node.get(SPILLED).asLong());
+			}
 			
 			unwrapDomain(request, node);
 			return request;
@@ -1355,6 +1375,10 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 			addAttribute(node, TRANSACTION_ID, ModelType.STRING, false);
 			addAttribute(node, STATE, ModelType.STRING, true);
 			addAttribute(node, THREAD_STATE, ModelType.STRING, true);
+			addAttribute(node, BUFFER_SIZE_ESTIMATE, ModelType.LONG, false);
+			addAttribute(node, HEAP_MEMORY, ModelType.LONG, false);
+			addAttribute(node, MEMORY_BUFFER, ModelType.LONG, false);
+			addAttribute(node, SPILLED, ModelType.LONG, false);
 			return node; 		
 		}
 		
@@ -1368,7 +1392,11 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 					new SimpleAttributeDefinition(NODE_ID, ModelType.INT, true),
 					new SimpleAttributeDefinition(TRANSACTION_ID, ModelType.STRING, true),
 					new SimpleAttributeDefinition(STATE, ModelType.STRING, false),
-					new SimpleAttributeDefinition(THREAD_STATE, ModelType.STRING, false)
+					new SimpleAttributeDefinition(THREAD_STATE, ModelType.STRING, false),
+					new SimpleAttributeDefinition(BUFFER_SIZE_ESTIMATE, ModelType.LONG, true),
+					new SimpleAttributeDefinition(HEAP_MEMORY, ModelType.LONG, true),
+					new SimpleAttributeDefinition(MEMORY_BUFFER, ModelType.LONG, true),
+					new SimpleAttributeDefinition(SPILLED, ModelType.LONG, true)
 			};
 		}
 	}
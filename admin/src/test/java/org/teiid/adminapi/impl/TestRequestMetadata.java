@@ -120,6 +120,34 @@ public class TestRequestMetadata {
 			"        },\n" + 
 			"        \"description\" : \"Thread state\",\n" + 
 			"        \"required\" : true\n" + 
+			"    },\n" + 
+			"    \"buffer-size-estimate-kb\" : {\n" + 
+			"        \"type\" : {\n" + 
+			"            \"TYPE_MODEL_VALUE\" : \"LONG\"\n" + 
+			"        },\n" + 
+			"        \"description\" : \"Estimated size of all batches held by the request\",\n" + 
+			"        \"required\" : false\n" + 
+			"    },\n" + 
+			"    \"heap-memory-kb\" : {\n" + 
+			"        \"type\" : {\n" + 
+			"            \"TYPE_MODEL_VALUE\" : \"LONG\"\n" + 
+			"        },\n" + 
+			"        \"description\" : \"Estimated size of the batches held in heap memory\",\n" + 
+			"        \"required\" : false\n" + 
+			"    },\n" + 
+			"    \"memory-buffer-kb\" : {\n" + 
+			"        \"type\" : {\n" + 
+			"            \"TYPE_MODEL_VALUE\" : \"LONG\"\n" + 
+			"        },\n" + 
+			"        \"description\" : \"Size of the buffer manager memory blocks in use\",\n" + 
+			"        \"required\" : false\n" + 
+			"    },\n" + 
+			"    \"spilled-kb\" : {\n" + 
+			"        \"type\" : {\n" + 
+			"            \"TYPE_MODEL_VALUE\" : \"LONG\"\n" + 
+			"        },\n" + 
+			"        \"description\" : \"Total amount written to disk storage\",\n" + 
+			"        \"required\" : false\n" + 
 			"    }\n" + 
 			"}";
 	@Test public void testDescribe() {
@@ -22,6 +22,8 @@
 
 package org.teiid.metadata;
 
+import java.util.List;
+
 import org.teiid.core.types.DataTypeManager;
 
 /**
@@ -64,6 +66,9 @@ public class Column extends BaseColumn implements Comparable<Column> {
     private int charOctetLength;
     private volatile int distinctValues = -1;
     private volatile int nullValues = -1;
+    private volatile List<String> histogram;
+    private volatile List<String> mostCommonValues;
+    private volatile List<Float> mostCommonFrequencies;
     private ColumnSet<?> parent;
     
     @Override
@@ -106,6 +111,40 @@ public class Column extends BaseColumn implements Comparable<Column> {
     public String getMinimumValue() {
         return minimumValue;
     }
+    
+    /**
+     * @return the equi-depth histogram boundaries or null if unknown
+     * @see ColumnStats#getHistogram()
+     */
+    public List<String> getHistogram() {
+		return histogram;
+	}
+    
+    public void setHistogram(List<String> histogram) {
+		this.histogram = histogram;
+	}
+    
+    /**
+     * @return the most common values or null if unknown
+     */
+    public List<String> getMostCommonValues() {
+		return mostCommonValues;
+	}
+    
+    public void setMostCommonValues(List<String> mostCommonValues) {
+		this.mostCommonValues = mostCommonValues;
+	}
+    
+    /**
+     * @return the frequencies of the most common values as a fraction of all rows or null if unknown
+     */
+    public List<Float> getMostCommonFrequencies() {
+		return mostCommonFrequencies;
+	}
+    
+    public void setMostCommonFrequencies(List<Float> mostCommonFrequencies) {
+		this.mostCommonFrequencies = mostCommonFrequencies;
+	}
 
     public SearchType getSearchType() {
     	if (searchType == null) {
@@ -305,6 +344,13 @@ public class Column extends BaseColumn implements Comparable<Column> {
 		if (stats.getMinimumValue() != null) {
 			setMinimumValue(stats.getMinimumValue());
 		}
+		if (stats.getHistogram() != null) {
+			setHistogram(stats.getHistogram());
+		}
+		if (stats.getMostCommonValues() != null) {
+			setMostCommonValues(stats.getMostCommonValues());
+			setMostCommonFrequencies(stats.getMostCommonFrequencies());
+		}
     }
 
 }
\ No newline at end of file
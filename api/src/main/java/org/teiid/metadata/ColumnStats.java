@@ -23,6 +23,7 @@
 package org.teiid.metadata;
 
 import java.io.Serializable;
+import java.util.List;
 
 public class ColumnStats implements Serializable {
 
@@ -32,6 +33,9 @@ public class ColumnStats implements Serializable {
     private Number nullValues;
     private String minimumValue;
     private String maximumValue;
+    private List<String> histogram;
+    private List<String> mostCommonValues;
+    private List<Float> mostCommonFrequencies;
 	
 	public String getMinimumValue() {
 		return minimumValue;
@@ -64,5 +68,42 @@ public class ColumnStats implements Serializable {
 	public void setNullValues(Number numNullValues) {
 		this.nullValues = numNullValues;
 	}
+	
+	/**
+	 * Get the equi-depth histogram boundaries.  The n+1 ascending boundaries define n
+	 * buckets that each hold roughly the same number of the non-null values that 
+	 * are not one of the most common values.
+	 * @return the boundaries or null if unknown
+	 */
+	public List<String> getHistogram() {
+		return histogram;
+	}
+	
+	public void setHistogram(List<String> histogram) {
+		this.histogram = histogram;
+	}
+	
+	/**
+	 * @return the most common values or null if unknown
+	 */
+	public List<String> getMostCommonValues() {
+		return mostCommonValues;
+	}
+	
+	public void setMostCommonValues(List<String> mostCommonValues) {
+		this.mostCommonValues = mostCommonValues;
+	}
+	
+	/**
+	 * Get the frequencies of the most common values as a fraction of all rows.
+	 * @return the frequencies in the same order as the most common values or null if unknown 
+	 */
+	public List<Float> getMostCommonFrequencies() {
+		return mostCommonFrequencies;
+	}
+	
+	public void setMostCommonFrequencies(List<Float> mostCommonFrequencies) {
+		this.mostCommonFrequencies = mostCommonFrequencies;
+	}
     
-}
+}
\ No newline at end of file
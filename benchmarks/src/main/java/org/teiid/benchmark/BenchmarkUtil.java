@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.common.buffer.impl.BufferFrontedFileStoreCache;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.common.buffer.impl.MemoryStorageManager;
+import org.teiid.common.buffer.impl.SplittableStorageManager;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * In-memory sources and buffer managers shared by the benchmarks so that they run
+ * without any external dependencies.
+ */
+public class BenchmarkUtil {
+	
+	/**
+	 * Produces the given rows in processor batches 
+	 */
+	public static class RowsNode extends RelationalNode {
+		
+		private List<List<?>> rows;
+		private int index;
+		
+		public RowsNode(int nodeID, List<List<?>> rows, List<ElementSymbol> elements) {
+			super(nodeID);
+			this.rows = rows;
+			setElements(elements);
+		}
+		
+		@Override
+		public void reset() {
+			super.reset();
+			this.index = 0;
+		}
+		
+		@Override
+		protected TupleBatch nextBatchDirect() throws BlockedException,
+				TeiidComponentException, TeiidProcessingException {
+			while (index < rows.size() && !isBatchFull()) {
+				addBatchRow(rows.get(index++));
+			}
+			if (index == rows.size()) {
+				terminateBatches();
+			}
+			return pullBatch();
+		}
+		
+		@Override
+		public Object clone() {
+			return new RowsNode(getID(), rows, (List<ElementSymbol>) getElements());
+		}
+	}
+	
+	/**
+	 * Create a buffer manager backed by memory storage
+	 * @param memoryKB the processing and reserve memory, larger values avoid use of the storage layer
+	 */
+	public static BufferManagerImpl createBufferManager(int memoryKB) throws TeiidComponentException {
+		BufferManagerImpl bufferManager = new BufferManagerImpl();
+		bufferManager.setMaxProcessingKB(memoryKB);
+		bufferManager.setMaxReserveKB(memoryKB);
+		bufferManager.initialize();
+		bufferManager.setUseWeakReferences(false);
+		MemoryStorageManager storageManager = new MemoryStorageManager();
+		SplittableStorageManager ssm = new SplittableStorageManager(storageManager);
+		ssm.setMaxFileSizeDirect(MemoryStorageManager.MAX_FILE_SIZE);
+		BufferFrontedFileStoreCache fsc = new BufferFrontedFileStoreCache();
+		fsc.setBufferManager(bufferManager);
+		fsc.setDirect(false);
+		fsc.setMaxStorageObjectSize(1<<20);
+		fsc.setMemoryBufferSpace(1<<24);
+		fsc.setStorageManager(ssm);
+		fsc.initialize();
+		bufferManager.setCache(fsc);
+		return bufferManager;
+	}
+	
+	public static CommandContext createContext() {
+		return new CommandContext("pid", "benchmark", null, null, 1); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+	
+	/**
+	 * @return integer, string, and double elements named key, name, and amount
+	 */
+	public static List<ElementSymbol> createElements(String prefix) {
+		ElementSymbol key = new ElementSymbol(prefix + "key"); //$NON-NLS-1$
+		key.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		ElementSymbol name = new ElementSymbol(prefix + "name"); //$NON-NLS-1$
+		name.setType(DataTypeManager.DefaultDataClasses.STRING);
+		ElementSymbol amount = new ElementSymbol(prefix + "amount"); //$NON-NLS-1$
+		amount.setType(DataTypeManager.DefaultDataClasses.DOUBLE);
+		return Arrays.asList(key, name, amount);
+	}
+	
+	/**
+	 * Create rows matching {@link #createElements(String)} with randomly ordered keys 
+	 * @param distinctKeys the number of distinct key values
+	 */
+	public static List<List<?>> createRows(int count, int distinctKeys, long seed) {
+		Random r = new Random(seed);
+		List<List<?>> rows = new ArrayList<List<?>>(count);
+		for (int i = 0; i < count; i++) {
+			int key = r.nextInt(distinctKeys);
+			rows.add(Arrays.asList(key, "name" + (key % 100), r.nextDouble() * 1000)); //$NON-NLS-1$
+		}
+		return rows;
+	}
+	
+	public static TupleSource createTupleSource(final List<List<?>> rows) {
+		return new TupleSource() {
+			int index;
+			
+			@Override
+			public List<?> nextTuple() {
+				if (index < rows.size()) {
+					return rows.get(index++);
+				}
+				return null;
+			}
+			
+			@Override
+			public void closeSource() {
+			}
+		};
+	}
+	
+	/**
+	 * Read all rows from the open node
+	 * @return the row count
+	 */
+	public static int drain(RelationalNode node) throws TeiidComponentException, TeiidProcessingException {
+		int count = 0;
+		while (true) {
+			try {
+				TupleBatch batch = node.nextBatch();
+				count += batch.getRowCount();
+				if (batch.getTerminationFlag()) {
+					break;
+				}
+			} catch (BlockedException e) {
+				//retry
+			}
+		}
+		return count;
+	}
+	
+}
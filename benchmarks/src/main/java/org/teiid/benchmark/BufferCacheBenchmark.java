@@ -0,0 +1,161 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.benchmark;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.lang.ref.WeakReference;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.Cache;
+import org.teiid.common.buffer.CacheEntry;
+import org.teiid.common.buffer.Serializer;
+import org.teiid.common.buffer.impl.BufferFrontedFileStoreCache;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.common.buffer.impl.MemoryStorageManager;
+import org.teiid.common.buffer.impl.SplittableStorageManager;
+
+/**
+ * Writes and reads of serialized objects through the {@link BufferFrontedFileStoreCache}
+ * over memory storage.  The entries exceed the memory buffer space, so reads include 
+ * storage layer access.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BufferCacheBenchmark {
+	
+	private static final int ENTRIES = 512;
+	private static final Long GROUP = 1l;
+	
+	private static final class ByteSerializer implements Serializer<byte[]> {
+		@Override
+		public byte[] deserialize(ObjectInput ois) throws IOException {
+			byte[] result = new byte[ois.readInt()];
+			ois.readFully(result);
+			return result;
+		}
+
+		@Override
+		public Long getId() {
+			return GROUP;
+		}
+
+		@Override
+		public void serialize(byte[] obj, ObjectOutput oos) throws IOException {
+			oos.writeInt(obj.length);
+			oos.write(obj);
+		}
+
+		@Override
+		public boolean useSoftCache() {
+			return false;
+		}
+	}
+	
+	@Param({"8192", "65536"})
+	public int objectSize;
+	
+	private BufferManagerImpl bufferManager;
+	private BufferFrontedFileStoreCache cache;
+	private ByteSerializer serializer = new ByteSerializer();
+	private WeakReference<ByteSerializer> ref = new WeakReference<ByteSerializer>(serializer);
+	private byte[] object;
+	private long nextId = ENTRIES;
+	private Random random = new Random(1);
+	
+	@Setup
+	public void setup() throws Exception {
+		bufferManager = new BufferManagerImpl();
+		bufferManager.initialize();
+		MemoryStorageManager storageManager = new MemoryStorageManager();
+		SplittableStorageManager ssm = new SplittableStorageManager(storageManager);
+		ssm.setMaxFileSizeDirect(MemoryStorageManager.MAX_FILE_SIZE);
+		cache = new BufferFrontedFileStoreCache();
+		cache.setBufferManager(bufferManager);
+		cache.setDirect(false);
+		//half of the entries will fit in the memory buffer
+		cache.setMemoryBufferSpace(Math.max(1 << 20, ENTRIES/2 * objectSize));
+		cache.setStorageManager(ssm);
+		cache.initialize();
+		bufferManager.setCache(cache);
+		cache.createCacheGroup(GROUP);
+		object = new byte[objectSize];
+		random.nextBytes(object);
+		for (long i = 0; i < ENTRIES; i++) {
+			add(i);
+		}
+	}
+	
+	@TearDown
+	public void tearDown() {
+		bufferManager.shutdown();
+	}
+	
+	private void add(Long id) throws Exception {
+		CacheEntry ce = new CacheEntry(id);
+		ce.setObject(object);
+		ce.setSerializer(ref);
+		cache.addToCacheGroup(GROUP, id);
+		cache.add(ce, serializer);
+	}
+	
+	@Benchmark
+	public void write() throws Exception {
+		Long id = nextId++;
+		add(id);
+		cache.remove(GROUP, id);
+	}
+	
+	@Benchmark
+	public Object read() throws Exception {
+		return read(cache, Long.valueOf(random.nextInt(ENTRIES)));
+	}
+
+	private <T> Object read(Cache<T> c, Long id) throws Exception {
+		T info = c.lockForLoad(id, serializer);
+		try {
+			return c.get(info, id, ref).getObject();
+		} finally {
+			c.unlockForLoad(info);
+		}
+	}
+	
+}
@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.CompiledExpression;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.function.SystemFunctionManager;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.NotCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.Function;
+
+/**
+ * Evaluation of a typical selection criteria
+ * <code>key > 500 AND amount IS NOT NULL AND concat(name, 'x') <> 'name5x'</code>
+ * with the interpreting {@link Evaluator} and with a {@link CompiledExpression}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EvaluatorBenchmark {
+	
+	private static final int ROWS = 10000;
+	
+	private List<List<?>> rows;
+	private Criteria criteria;
+	private CompiledExpression compiled;
+	private Evaluator evaluator;
+	
+	@Setup
+	public void setup() throws Exception {
+		List<ElementSymbol> elements = BenchmarkUtil.createElements("x."); //$NON-NLS-1$
+		rows = BenchmarkUtil.createRows(ROWS, 1000, 1);
+		FunctionDescriptor fd = new SystemFunctionManager().getSystemFunctionLibrary().findFunction("concat", new Class<?>[] {DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.STRING}); //$NON-NLS-1$
+		Function concat = new Function("concat", new Expression[] {elements.get(1), new Constant("x")}); //$NON-NLS-1$ //$NON-NLS-2$
+		concat.setFunctionDescriptor(fd);
+		concat.setType(DataTypeManager.DefaultDataClasses.STRING);
+		criteria = new CompoundCriteria(CompoundCriteria.AND, new CompareCriteria(elements.get(0), CompareCriteria.GT, new Constant(500)), 
+				new NotCriteria(new IsNullCriteria(elements.get(2))));
+		((CompoundCriteria)criteria).addCriteria(new CompareCriteria(concat, CompareCriteria.NE, new Constant("name5x"))); //$NON-NLS-1$
+		Map<Expression, Integer> elementMap = RelationalNode.createLookupMap(elements);
+		evaluator = new Evaluator(elementMap, null, BenchmarkUtil.createContext());
+		compiled = CompiledExpression.compile(criteria, elementMap);
+	}
+	
+	@Benchmark
+	public int interpreted() throws Exception {
+		int count = 0;
+		for (List<?> row : rows) {
+			if (evaluator.evaluate(criteria, row)) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	@Benchmark
+	public int compiled() throws Exception {
+		int count = 0;
+		for (List<?> row : rows) {
+			if (compiled.matches(evaluator, row)) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+}
@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.query.processor.relational.GroupingNode;
+import org.teiid.query.sql.lang.OrderBy;
+import org.teiid.query.sql.symbol.AggregateSymbol;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Grouping with count and sum aggregates, with either sort or hash based grouping
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GroupingBenchmark {
+	
+	@Param({"200000"})
+	public int rowCount;
+	
+	@Param({"100", "10000"})
+	public int groupCount;
+	
+	@Param({"false", "true"})
+	public boolean hash;
+	
+	private BufferManagerImpl bufferManager;
+	private List<ElementSymbol> elements;
+	private List<List<?>> rows;
+	
+	@Setup
+	public void setup() throws Exception {
+		bufferManager = BenchmarkUtil.createBufferManager(1 << 16);
+		elements = BenchmarkUtil.createElements("x."); //$NON-NLS-1$
+		rows = BenchmarkUtil.createRows(rowCount, groupCount, 1);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		bufferManager.shutdown();
+	}
+	
+	@Benchmark
+	public int group() throws Exception {
+		GroupingNode node = new GroupingNode(1);
+		ElementSymbol key = elements.get(0);
+		ElementSymbol amount = elements.get(2);
+		List<Expression> outputElements = Arrays.<Expression>asList(key, new AggregateSymbol("COUNT", false, amount), new AggregateSymbol("SUM", false, amount)); //$NON-NLS-1$ //$NON-NLS-2$
+		node.setElements(outputElements);
+		node.setOrderBy(new OrderBy(Arrays.asList(key)).getOrderByItems());
+		node.setUseHash(hash);
+		BenchmarkUtil.RowsNode source = new BenchmarkUtil.RowsNode(0, rows, elements);
+		node.addChild(source);
+		CommandContext context = BenchmarkUtil.createContext();
+		source.initialize(context, bufferManager, null);
+		node.initialize(context, bufferManager, null);
+		node.open();
+		try {
+			return BenchmarkUtil.drain(node);
+		} finally {
+			node.close();
+		}
+	}
+	
+}
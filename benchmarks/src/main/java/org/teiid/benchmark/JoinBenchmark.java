@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.query.processor.relational.EnhancedSortMergeJoinStrategy;
+import org.teiid.query.processor.relational.HashJoinStrategy;
+import org.teiid.query.processor.relational.JoinNode;
+import org.teiid.query.processor.relational.MergeJoinStrategy.SortOption;
+import org.teiid.query.sql.lang.JoinType;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Inner equi-joins of unsorted in-memory sources.  The enhanced sort merge strategy
+ * is compared with the hash strategy over the same inputs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JoinBenchmark {
+	
+	@Param({"10000", "100000"})
+	public int leftCount;
+	
+	@Param({"1000", "100000"})
+	public int rightCount;
+	
+	@Param({"ENHANCED_SORT", "HASH"})
+	public String strategy;
+	
+	private BufferManagerImpl bufferManager;
+	private List<ElementSymbol> leftElements;
+	private List<ElementSymbol> rightElements;
+	private List<List<?>> leftRows;
+	private List<List<?>> rightRows;
+	
+	@Setup
+	public void setup() throws Exception {
+		bufferManager = BenchmarkUtil.createBufferManager(1 << 16);
+		leftElements = BenchmarkUtil.createElements("l."); //$NON-NLS-1$
+		rightElements = BenchmarkUtil.createElements("r."); //$NON-NLS-1$
+		int keys = Math.max(leftCount, rightCount);
+		leftRows = BenchmarkUtil.createRows(leftCount, keys, 1);
+		rightRows = BenchmarkUtil.createRows(rightCount, keys, 2);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		bufferManager.shutdown();
+	}
+	
+	@Benchmark
+	public int join() throws Exception {
+		JoinNode join = new JoinNode(3);
+		if ("HASH".equals(strategy)) { //$NON-NLS-1$
+			join.setJoinStrategy(new HashJoinStrategy());
+		} else {
+			join.setJoinStrategy(new EnhancedSortMergeJoinStrategy(SortOption.SORT, SortOption.SORT));
+		}
+		List<ElementSymbol> elements = new ArrayList<ElementSymbol>(leftElements);
+		elements.addAll(rightElements);
+		join.setElements(elements);
+		join.setJoinType(JoinType.JOIN_INNER);
+		join.setJoinExpressions(Arrays.asList(leftElements.get(0)), Arrays.asList(rightElements.get(0)));
+		BenchmarkUtil.RowsNode left = new BenchmarkUtil.RowsNode(1, leftRows, leftElements);
+		BenchmarkUtil.RowsNode right = new BenchmarkUtil.RowsNode(2, rightRows, rightElements);
+		join.addChild(left);
+		join.addChild(right);
+		CommandContext context = BenchmarkUtil.createContext();
+		left.initialize(context, bufferManager, null);
+		right.initialize(context, bufferManager, null);
+		join.initialize(context, bufferManager, null);
+		join.open();
+		try {
+			return BenchmarkUtil.drain(join);
+		} finally {
+			join.close();
+		}
+	}
+	
+}
@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.STree;
+import org.teiid.common.buffer.STree.InsertMode;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * {@link STree} inserts and key lookups, as used by temp tables and dependent joins
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class STreeBenchmark {
+	
+	private static final int LOOKUPS = 10000;
+	
+	@Param({"10000", "200000"})
+	public int rowCount;
+	
+	private BufferManagerImpl bufferManager;
+	private List<ElementSymbol> elements;
+	private List<List<?>> rows;
+	private STree tree;
+	private List<?>[] keys;
+	
+	@Setup
+	public void setup() throws Exception {
+		bufferManager = BenchmarkUtil.createBufferManager(1 << 16);
+		elements = BenchmarkUtil.createElements("x."); //$NON-NLS-1$
+		rows = BenchmarkUtil.createRows(rowCount, Integer.MAX_VALUE, 1);
+		tree = insert(InsertMode.NEW);
+		Random r = new Random(2);
+		keys = new List<?>[LOOKUPS];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = Arrays.asList(rows.get(r.nextInt(rowCount)).get(0));
+		}
+	}
+	
+	@TearDown
+	public void tearDown() {
+		tree.remove();
+		bufferManager.shutdown();
+	}
+	
+	private STree insert(InsertMode mode) throws Exception {
+		STree result = bufferManager.createSTree(elements, "benchmark", 1); //$NON-NLS-1$
+		int sizeHint = result.getExpectedHeight(rows.size());
+		for (List<?> row : rows) {
+			result.insert(row, mode, sizeHint);
+		}
+		return result;
+	}
+	
+	@Benchmark
+	public int insertUnordered() throws Exception {
+		STree result = insert(InsertMode.NEW);
+		int count = result.getRowCount();
+		result.remove();
+		return count;
+	}
+	
+	@Benchmark
+	public int find() throws Exception {
+		int found = 0;
+		for (List<?> key : keys) {
+			if (tree.find(key) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+	
+}
@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.query.processor.relational.SortUtility;
+import org.teiid.query.sql.lang.OrderBy;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * Full sorts and duplicate removal of randomly ordered rows with {@link SortUtility}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SortBenchmark {
+	
+	@Param({"10000", "200000"})
+	public int rowCount;
+	
+	@Param({"SORT", "DUP_REMOVE"})
+	public String mode;
+	
+	private BufferManagerImpl bufferManager;
+	private List<ElementSymbol> elements;
+	private List<List<?>> rows;
+	
+	@Setup
+	public void setup() throws Exception {
+		bufferManager = BenchmarkUtil.createBufferManager(1 << 16);
+		elements = BenchmarkUtil.createElements("x."); //$NON-NLS-1$
+		rows = BenchmarkUtil.createRows(rowCount, rowCount/10, 1);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		bufferManager.shutdown();
+	}
+	
+	@Benchmark
+	public int sort() throws Exception {
+		SortUtility su = new SortUtility(BenchmarkUtil.createTupleSource(rows), elements.subList(0, 2), Arrays.asList(OrderBy.ASC, OrderBy.ASC), 
+				SortUtility.Mode.valueOf(mode), bufferManager, "benchmark", elements); //$NON-NLS-1$
+		TupleBuffer result = null;
+		while (result == null) {
+			try {
+				result = su.sort();
+			} catch (BlockedException e) {
+				//retry
+			}
+		}
+		int count = result.getRowCount();
+		result.remove();
+		return count;
+	}
+	
+}
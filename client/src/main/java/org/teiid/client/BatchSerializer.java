@@ -22,11 +22,15 @@
 
 package org.teiid.client;
 
+import java.io.ByteArrayInputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
 import java.io.ObjectStreamConstants;
+import java.io.StreamCorruptedException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Array;
@@ -37,9 +41,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.ArrayImpl;
@@ -49,6 +58,7 @@ import org.teiid.core.types.ClobType;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.types.GeometryType;
 import org.teiid.core.types.XMLType;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
 import org.teiid.jdbc.JDBCPlugin;
 
 
@@ -66,12 +76,28 @@ import org.teiid.jdbc.JDBCPlugin;
  *   uses a safer date/time serialization
  * <li>version 3: starts with 8.6 and adds better repeated string performance
  * <li>version 4: starts with 8.10 and adds the geometry type
+ * <li>version 5: starts with 8.11 and adds dictionary/run-length encoding of immutable value columns 
+ *   and optional compression of the column data
  * </ul>
  */
 public class BatchSerializer {
 
 	public static final byte VERSION_GEOMETRY = (byte)4;
+	public static final byte VERSION_ENCODED = (byte)5;
+    /**
+     * The version used for internal serialization (buffer storage, replication).
+     * The encoded version is only used for client results, where it is negotiated
+     * through the client version.
+     */
     static final byte CURRENT_VERSION = VERSION_GEOMETRY;
+    
+    private static final byte BLOCK_NONE = 0;
+    private static final byte BLOCK_RAW = 1;
+    private static final byte BLOCK_DEFLATED = 2;
+    /**
+     * The minimum number of rows to consider compression
+     */
+    private static final int MIN_COMPRESS_ROWS = 64;
 
 	private BatchSerializer() {} // Uninstantiable
 
@@ -101,6 +127,36 @@ public class BatchSerializer {
         serializers.put(DataTypeManager.DefaultDataTypes.OBJECT,     	new ColumnSerializer[] {defaultSerializer, new ObjectColumnSerializer((byte)1)});
         serializers.put(DataTypeManager.DefaultDataTypes.VARBINARY,    	new ColumnSerializer[] {new BinaryColumnSerializer(), new BinaryColumnSerializer1()});
     }
+    
+    private static final Map<String, ColumnSerializer> encodedSerializers = new HashMap<String, ColumnSerializer>(32);
+    static {
+    	//only immutable values are encoded since the decoded values are shared between rows
+    	for (String type : new String[] {DataTypeManager.DefaultDataTypes.STRING, 
+    			DataTypeManager.DefaultDataTypes.CHAR, 
+    			DataTypeManager.DefaultDataTypes.BYTE, 
+    			DataTypeManager.DefaultDataTypes.SHORT, 
+    			DataTypeManager.DefaultDataTypes.INTEGER, 
+    			DataTypeManager.DefaultDataTypes.LONG,
+    			DataTypeManager.DefaultDataTypes.FLOAT, 
+    			DataTypeManager.DefaultDataTypes.DOUBLE, 
+    			DataTypeManager.DefaultDataTypes.BIG_INTEGER, 
+    			DataTypeManager.DefaultDataTypes.BIG_DECIMAL}) {
+    		encodedSerializers.put(type, new EncodedColumnSerializer(getSerializer(type, VERSION_GEOMETRY)));
+    	}
+    }
+    
+    /**
+     * Types that never write objects that need the top level stream, and may be
+     * written into a compressed block
+     */
+    private static final Set<String> blockTypes = new HashSet<String>(serializers.keySet());
+    static {
+    	blockTypes.removeAll(Arrays.asList(DataTypeManager.DefaultDataTypes.CLOB,
+    			DataTypeManager.DefaultDataTypes.BLOB, 
+    			DataTypeManager.DefaultDataTypes.XML, 
+    			DataTypeManager.DefaultDataTypes.GEOMETRY, 
+    			DataTypeManager.DefaultDataTypes.OBJECT));
+    }
 
     private static ColumnSerializer arrayColumnSerializer = new ColumnSerializer() {
 
@@ -557,6 +613,193 @@ public class BatchSerializer {
         }
     }
 
+    /**
+     * Wraps a value serializer to write the column with dictionary or run-length encoding
+     * when there are sufficiently few distinct values or runs.
+     */
+    private static class EncodedColumnSerializer extends ColumnSerializer {
+    	private static final byte PLAIN = 0;
+    	private static final byte DICTIONARY = 1;
+    	private static final byte RUN_LENGTH = 2;
+    	
+    	private ColumnSerializer delegate;
+    	
+    	public EncodedColumnSerializer(ColumnSerializer delegate) {
+    		this.delegate = delegate;
+		}
+    	
+    	@Override
+    	public void writeColumn(ObjectOutput out, int col,
+    			List<? extends List<?>> batch, Map<Object, Integer> cache,
+    			byte version) throws IOException {
+    		writeIsNullData(out, col, batch);
+    		int nonNull = 0;
+    		int runs = 0;
+    		Object last = null;
+    		Map<Object, Integer> dictionary = new HashMap<Object, Integer>();
+    		int maxDictionarySize = batch.size()/2;
+            for (int i = 0; i < batch.size(); i++) {
+                Object obj = batch.get(i).get(col);
+                if (obj == null) {
+                	continue;
+                }
+                nonNull++;
+                if (last == null || !last.equals(obj)) {
+                	runs++;
+                	last = obj;
+                }
+                if (dictionary != null && !dictionary.containsKey(obj)) {
+                	if (dictionary.size() == maxDictionarySize) {
+                		dictionary = null;
+                	} else {
+                		dictionary.put(obj, dictionary.size());
+                	}
+                }
+            }
+            if (runs * 4 <= nonNull) {
+            	out.writeByte(RUN_LENGTH);
+            	int count = 0;
+            	last = null;
+            	for (int i = 0; i < batch.size(); i++) {
+                    Object obj = batch.get(i).get(col);
+                    if (obj == null) {
+                    	continue;
+                    }
+                    if (last != null && last.equals(obj)) {
+                    	count++;
+                    	continue;
+                    }
+                    if (last != null) {
+                    	writeRun(out, last, count, cache, version);
+                    }
+                    last = obj;
+                    count = 1;
+            	}
+            	if (last != null) {
+            		writeRun(out, last, count, cache, version);
+            	}
+            } else if (dictionary != null && dictionary.size() * 2 <= nonNull) {
+            	out.writeByte(DICTIONARY);
+            	int size = dictionary.size();
+            	writeVarInt(out, size);
+            	Object[] values = new Object[size];
+            	for (Map.Entry<Object, Integer> entry : dictionary.entrySet()) {
+            		values[entry.getValue()] = entry.getKey();
+            	}
+            	for (Object value : values) {
+            		delegate.writeObject(out, value, cache, version);
+            	}
+            	for (int i = 0; i < batch.size(); i++) {
+                    Object obj = batch.get(i).get(col);
+                    if (obj == null) {
+                    	continue;
+                    }
+                    int index = dictionary.get(obj);
+                    if (size <= 1 << 8) {
+                    	out.writeByte(index);
+                    } else if (size <= 1 << 16) {
+                    	out.writeShort(index);
+                    } else {
+                    	out.writeInt(index);
+                    }
+            	}
+            } else {
+            	out.writeByte(PLAIN);
+            	for (int i = 0; i < batch.size(); i++) {
+                    Object obj = batch.get(i).get(col);
+                    if (obj != null) {
+                    	delegate.writeObject(out, obj, cache, version);
+                    }
+            	}
+            }
+    	}
+
+		private void writeRun(ObjectOutput out, Object value, int count,
+				Map<Object, Integer> cache, byte version) throws IOException {
+			writeVarInt(out, count);
+			delegate.writeObject(out, value, cache, version);
+		}
+    	
+    	@Override
+    	public void readColumn(ObjectInput in, int col,
+    			List<List<Object>> batch, byte[] isNull, List<Object> cache,
+    			byte version) throws IOException, ClassNotFoundException {
+    		readIsNullData(in, isNull);
+    		byte encoding = in.readByte();
+    		switch (encoding) {
+    		case RUN_LENGTH: {
+    			int remaining = 0;
+    			Object value = null;
+	    		for (int i = 0; i < batch.size(); i++) {
+	                if (isNullObject(isNull, i)) {
+	                	continue;
+	                }
+	                if (remaining == 0) {
+	                	remaining = readVarInt(in);
+	                	value = DataTypeManager.getCanonicalValue(delegate.readObject(in, cache, version));
+	                }
+	                batch.get(i).set(col, value);
+	                remaining--;
+	    		}
+	    		break;
+    		}
+    		case DICTIONARY: {
+    			int size = readVarInt(in);
+    			Object[] values = new Object[size];
+    			for (int i = 0; i < size; i++) {
+    				values[i] = DataTypeManager.getCanonicalValue(delegate.readObject(in, cache, version));
+    			}
+	    		for (int i = 0; i < batch.size(); i++) {
+	                if (isNullObject(isNull, i)) {
+	                	continue;
+	                }
+	                int index = 0;
+	                if (size <= 1 << 8) {
+                    	index = in.readByte() & 0xff;
+                    } else if (size <= 1 << 16) {
+                    	index = in.readShort() & 0xffff;
+                    } else {
+                    	index = in.readInt();
+                    }
+	                batch.get(i).set(col, values[index]);
+	    		}
+	    		break;
+    		}
+    		default:
+	            for (int i = 0; i < batch.size(); i++) {
+	                if (!isNullObject(isNull, i)) {
+	                    batch.get(i).set(col, DataTypeManager.getCanonicalValue(delegate.readObject(in, cache, version)));
+	                }
+	            }
+    		}
+    	}
+    	
+    	@Override
+    	public boolean usesCache(byte version) {
+    		return delegate.usesCache(version);
+    	}
+    }
+    
+    static void writeVarInt(ObjectOutput out, int value) throws IOException {
+    	while ((value & ~0x7f) != 0) {
+    		out.writeByte((value & 0x7f) | 0x80);
+    		value >>>= 7;
+    	}
+    	out.writeByte(value);
+    }
+    
+    static int readVarInt(ObjectInput in) throws IOException {
+    	int result = 0;
+    	for (int shift = 0; shift < 32; shift += 7) {
+    		int b = in.readByte();
+    		result |= (b & 0x7f) << shift;
+    		if ((b & 0x80) == 0) {
+    			return result;
+    		}
+    	}
+    	throw new StreamCorruptedException("invalid var int"); //$NON-NLS-1$
+    }
+
     private static class IntColumnSerializer extends ColumnSerializer {
         @Override
 		protected void writeObject(ObjectOutput out, Object obj, Map<Object, Integer> cache, byte version) throws IOException {
@@ -826,6 +1069,12 @@ public class BatchSerializer {
     }
 
     private static ColumnSerializer getSerializer(String type, byte version) {
+    	if (version >= VERSION_ENCODED) {
+    		ColumnSerializer ser = encodedSerializers.get(type);
+    		if (ser != null) {
+    			return ser;
+    		}
+    	}
     	ColumnSerializer[] sers = serializers.get(type);
     	if (sers == null) {
     		if (DataTypeManager.isArrayType(type)) {
@@ -844,6 +1093,13 @@ public class BatchSerializer {
     }
 
     public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version) throws IOException {
+    	writeBatch(out, types, batch, version, false);
+    }
+    
+    /**
+     * @param compress if the version allows, the column data will be written as a compressed block
+     */
+    public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version, boolean compress) throws IOException {
         if (batch == null) {
             out.writeInt(-1);
         } else {
@@ -856,31 +1112,84 @@ public class BatchSerializer {
             if (batch.size() > 0) {
 	            int columns = types.length;
 	            out.writeInt(columns);
-	            Map<Object, Integer> cache = null;
-	            for(int i = 0; i < columns; i++) {
-	            	ColumnSerializer serializer = getSerializer(types[i], version);
-	            	
-	            	if (cache == null && serializer.usesCache(version)) {
-	            		cache = new HashMap<Object, Integer>();
+	            if (version >= VERSION_ENCODED) {
+	            	if (compress && batch.size() >= MIN_COMPRESS_ROWS && isBlockSafe(types)) {
+	            		writeBlock(out, types, batch, version);
+	            		return;
 	            	}
-	                try {
-	                    serializer.writeColumn(out, i, batch, cache, version);
-	                } catch (ClassCastException e) {
-	                    Object obj = null;
-	                    String objectClass = null;
-	                    objectSearch: for (int row = 0; row < batch.size(); row++) {
-	                        obj = batch.get(row).get(i);
-	                        if (obj != null) {
-	                            objectClass = obj.getClass().getName();
-	                            break objectSearch;
-	                        }
-	                    }
-	                     throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20001, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20001, new Object[] {types[i], new Integer(i), objectClass}));
-	                }
+	            	out.writeByte(BLOCK_NONE);
 	            }
+	            writeColumns(out, types, batch, version);
             }
         }
     }
+    
+    private static boolean isBlockSafe(String[] types) {
+    	for (String type : types) {
+			if (!blockTypes.contains(type)) {
+				return false;
+			}
+		}
+    	return true;
+    }
+    
+    /**
+     * Write the column data to a separate stream and then deflate it if that is smaller
+     */
+    private static void writeBlock(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version) throws IOException {
+    	AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(1 << 13);
+    	ObjectOutputStream oos = new ObjectOutputStream(baos);
+    	writeColumns(oos, types, batch, version);
+    	oos.close();
+    	int rawLength = baos.getCount();
+    	Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    	try {
+    		deflater.setInput(baos.getBuffer(), 0, rawLength);
+    		deflater.finish();
+    		byte[] compressed = new byte[rawLength - (rawLength >> 3)];
+    		int length = deflater.deflate(compressed);
+    		if (deflater.finished()) {
+    			out.writeByte(BLOCK_DEFLATED);
+    			out.writeInt(rawLength);
+    			out.writeInt(length);
+    			out.write(compressed, 0, length);
+    			return;
+    		}
+    	} finally {
+    		deflater.end();
+    	}
+    	//not worth compressing
+    	out.writeByte(BLOCK_RAW);
+		out.writeInt(rawLength);
+		out.write(baos.getBuffer(), 0, rawLength);
+    }
+
+	private static void writeColumns(ObjectOutput out, String[] types,
+			List<? extends List<?>> batch, byte version) throws IOException {
+		int columns = types.length;
+		Map<Object, Integer> cache = null;
+		for(int i = 0; i < columns; i++) {
+			ColumnSerializer serializer = getSerializer(types[i], version);
+			
+			if (cache == null && serializer.usesCache(version)) {
+				cache = new HashMap<Object, Integer>();
+			}
+		    try {
+		        serializer.writeColumn(out, i, batch, cache, version);
+		    } catch (ClassCastException e) {
+		        Object obj = null;
+		        String objectClass = null;
+		        objectSearch: for (int row = 0; row < batch.size(); row++) {
+		            obj = batch.get(row).get(i);
+		            if (obj != null) {
+		                objectClass = obj.getClass().getName();
+		                break objectSearch;
+		            }
+		        }
+		         throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20001, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20001, new Object[] {types[i], new Integer(i), objectClass}));
+		    }
+		}
+	}
 
     public static List<List<Object>> readBatch(ObjectInput in, String[] types) throws IOException, ClassNotFoundException {
     	int rows = 0;
@@ -915,6 +1224,30 @@ public class BatchSerializer {
             batch.add(currentRow, Arrays.asList(new Object[columns]));
         }
         byte[] isNullBuffer = new byte[(extraRows > 0) ? numBytes + 1: numBytes];
+        if (version >= VERSION_ENCODED) {
+        	byte block = in.readByte();
+        	if (block != BLOCK_NONE) {
+        		byte[] raw = new byte[in.readInt()];
+        		if (block == BLOCK_DEFLATED) {
+        			byte[] compressed = new byte[in.readInt()];
+        			in.readFully(compressed);
+        			Inflater inflater = new Inflater();
+        			try {
+        				inflater.setInput(compressed);
+        				if (inflater.inflate(raw) != raw.length) {
+        					throw new StreamCorruptedException("invalid compressed batch"); //$NON-NLS-1$
+        				}
+        			} catch (DataFormatException e) {
+        				throw new StreamCorruptedException(e.getMessage());
+					} finally {
+        				inflater.end();
+        			}
+        		} else {
+        			in.readFully(raw);
+        		}
+        		in = new ObjectInputStream(new ByteArrayInputStream(raw));
+        	}
+        }
         List<Object> cache = null;
         for (int col = 0; col < columns; col++) {
             ColumnSerializer serializer = getSerializer(types[col], version);
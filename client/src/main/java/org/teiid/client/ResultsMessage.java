@@ -93,6 +93,7 @@ public class ResultsMessage implements Externalizable {
     private int updateCount = -1;
     
     private boolean delayDeserialization;
+    private boolean compressBatches;
     byte[] resultBytes;
 
 	private MultiArrayOutputStream serializationBuffer;
@@ -316,7 +317,7 @@ public class ResultsMessage implements Externalizable {
         if (delayDeserialization) {
         	BatchSerializer.writeBatch(out, dataTypes, null, clientSerializationVersion);
     	} else {
-        	BatchSerializer.writeBatch(out, dataTypes, results, clientSerializationVersion);
+        	BatchSerializer.writeBatch(out, dataTypes, results, clientSerializationVersion, compressBatches);
     	}
         
         // Plan descriptions
@@ -365,7 +366,7 @@ public class ResultsMessage implements Externalizable {
 		if (serializationBuffer == null) {
 			serializationBuffer = new MultiArrayOutputStream(1 << 13);
 			CompactObjectOutputStream oos = new CompactObjectOutputStream(serializationBuffer);
-			BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion);
+			BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion, compressBatches);
 			oos.close();
 		}
 		int result = serializationBuffer.getCount();
@@ -442,5 +443,16 @@ public class ResultsMessage implements Externalizable {
 	public void setDelayDeserialization(boolean delayDeserialization) {
 		this.delayDeserialization = delayDeserialization;
 	}
+	
+	public boolean isCompressBatches() {
+		return compressBatches;
+	}
+	
+	/**
+	 * Set if the batch should be sent compressed if the client serialization version allows
+	 */
+	public void setCompressBatches(boolean compressBatches) {
+		this.compressBatches = compressBatches;
+	}
 }
 
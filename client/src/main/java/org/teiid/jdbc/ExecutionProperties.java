@@ -117,6 +117,14 @@ public interface ExecutionProperties {
     
     public static final String JDBC4COLUMNNAMEANDLABELSEMANTICS = "useJDBC4ColumnNameAndLabelSemantics"; //$NON-NLS-1$
     
+    /**
+     * The number of batches that a forward only result set will request ahead of the 
+     * current batch.  Set to 0 to disable prefetching.
+     * 
+     * Default is 1
+     */
+    public static final String PREFETCH_DEPTH = "prefetchDepth"; //$NON-NLS-1$
+    
     
 }
     
\ No newline at end of file
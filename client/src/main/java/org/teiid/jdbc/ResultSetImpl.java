@@ -29,6 +29,7 @@ import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.*;
 import java.util.Calendar;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
@@ -99,12 +100,17 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 	private ResultsFuture<ResultsMessage> asynchResults;
     boolean asynch;
     
-    private ResultsFuture<ResultsMessage> prefetch;
+    //batches requested ahead of the current batch, in row order
+    private LinkedList<ResultsFuture<ResultsMessage>> prefetch = new LinkedList<ResultsFuture<ResultsMessage>>();
     private boolean usePrefetch;
+    private int prefetchDepth;
+    //the highest begin row that has been requested
+    private int requestedRow;
 
 	private int skipTo;
 	
 	private static boolean DISABLE_FETCH_SIZE_DEFAULT = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid." + DISABLE_FETCH_SIZE, false); //$NON-NLS-1$
+	private static int PREFETCH_DEPTH_DEFAULT = PropertiesUtils.getIntProperty(System.getProperties(), "org.teiid." + ExecutionProperties.PREFETCH_DEPTH, 1); //$NON-NLS-1$
 	
 	private Boolean disableFetchSize;
 
@@ -146,8 +152,21 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 		if (logger.isLoggable(Level.FINER)) {
 			logger.finer("Creating ResultSet requestID: " + requestID + " beginRow: " + resultsMsg.getFirstRow() + " resultsColumns: " + resultColumns + " parameters: " + parameters); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 		}
-		this.usePrefetch = cursorType == ResultSet.TYPE_FORWARD_ONLY && !statement.useCallingThread();
 		this.maxRows = statement.getMaxRows();
+		this.prefetchDepth = PREFETCH_DEPTH_DEFAULT;
+		String depth = statement.getExecutionProperty(ExecutionProperties.PREFETCH_DEPTH);
+		if (depth != null) {
+			try {
+				this.prefetchDepth = Integer.parseInt(depth.trim());
+			} catch (NumberFormatException e) {
+				logger.warning(JDBCPlugin.Util.getString("ResultSetImpl.invalid_prefetch_depth", depth)); //$NON-NLS-1$
+			}
+		}
+		if (this.maxRows > 0 || this.parameters > 0) {
+			//the skipTo logic requires the prior batch to be processed 
+			this.prefetchDepth = Math.min(1, this.prefetchDepth);
+		}
+		this.usePrefetch = cursorType == ResultSet.TYPE_FORWARD_ONLY && !statement.useCallingThread() && prefetchDepth > 0;
 		this.batchResults = new BatchResults(this, getCurrentBatch(resultsMsg), this.cursorType == ResultSet.TYPE_FORWARD_ONLY ? 1 : BatchResults.DEFAULT_SAVED_BATCHES);
 	}
 	
@@ -366,13 +385,17 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
     public Batch requestBatch(int beginRow) throws SQLException{
     	checkClosed();
         try {
-        	if (prefetch != null) {
+        	ResultsFuture<ResultsMessage> next = null;
+        	synchronized (this) {
+        		next = prefetch.poll();
+			}
+        	if (next != null) {
     			//TODO: this is not efficient if the user is skipping around the results
     			//but the server logic at this point basically requires us
     			//to read what we have requested before requesting more (no queuing)
-    			ResultsMessage result = getResults(prefetch);
-    			prefetch = null;
+    			ResultsMessage result = getResults(next);
     			Batch nextBatch = processBatch(result);
+    			fillPrefetch();
 				return nextBatch;
         	}
         	ResultsFuture<ResultsMessage> results = submitRequestBatch(beginRow);
@@ -416,8 +439,66 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 		} catch (TeiidProcessingException e) {
 			throw TeiidSQLException.create(e);
 		}
+		synchronized (this) {
+			requestedRow = beginRow;
+		}
 		return results;
 	}
+	
+	/**
+	 * Request the batch following the given results if the prefetch depth allows.
+	 * <br>
+	 * The server will only accept a single outstanding request, so deeper prefetching 
+	 * is performed by chaining the next request to the completion of the prior one.
+	 */
+	private synchronized void prefetch(ResultsMessage results) throws TeiidSQLException {
+		if (!usePrefetch || asynch || isClosed || results == null 
+				|| results.getException() != null || results.getLastRow() == results.getFinalRow()
+				|| prefetch.size() >= prefetchDepth) {
+			return;
+		}
+		int beginRow = results.getLastRow() + 1;
+		if (beginRow <= requestedRow) {
+			return; //already requested
+		}
+		final ResultsFuture<ResultsMessage> next = submitRequestBatch(beginRow);
+		prefetch.add(next);
+		if (prefetchDepth > 1) {
+			next.addCompletionListener(new ResultsFuture.CompletionListener<ResultsMessage>() {
+				@Override
+				public void onCompletion(ResultsFuture<ResultsMessage> future) {
+					try {
+						prefetch(future.get());
+					} catch (Exception e) {
+						//the failure will be seen when the batch is read
+						//or the request will be made again
+					}
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Resume prefetching from the last requested batch if it has been received
+	 */
+	private void fillPrefetch() throws SQLException {
+		if (prefetchDepth < 2) {
+			return;
+		}
+		ResultsFuture<ResultsMessage> last = null;
+		synchronized (this) {
+			last = prefetch.peekLast();
+		}
+		if (last != null && last.isDone()) {
+			try {
+				prefetch(last.get());
+			} catch (InterruptedException e) {
+				throw TeiidSQLException.create(e);
+			} catch (ExecutionException e) {
+				//will be thrown when the batch is read
+			}
+		}
+	}
 
 	private Batch processBatch(
 			ResultsMessage currentResultMsg) throws TeiidSQLException {
@@ -442,11 +523,8 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 
 	private Batch getCurrentBatch(ResultsMessage currentResultMsg) throws TeiidSQLException {
 		this.updatedPlanDescription = currentResultMsg.getPlanDescription();
-		if (usePrefetch && !asynch 
-				&& prefetch == null && currentResultMsg.getLastRow() != currentResultMsg.getFinalRow()) {
-			//fetch before processing the results
-			prefetch = submitRequestBatch(currentResultMsg.getLastRow() + 1);
-		}
+		//fetch before processing the results
+		prefetch(currentResultMsg);
 		currentResultMsg.processResults();
 		List<?> lastTuple = null;
 		List<List<?>> resultsList = (List<List<?>>) currentResultMsg.getResultsList();
@@ -1766,8 +1844,12 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 		return DataTypeTransformer.transform(getObject(columnLabel), type);
 	}
 	
-	ResultsFuture<ResultsMessage> getPrefetch() {
-		return prefetch;
+	synchronized ResultsFuture<ResultsMessage> getPrefetch() {
+		return prefetch.peek();
+	}
+	
+	synchronized int getPrefetchCount() {
+		return prefetch.size();
 	}
 
 }
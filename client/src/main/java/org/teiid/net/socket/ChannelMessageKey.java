@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.net.socket;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+
+/**
+ * A message key that identifies the logical channel, and thus the server side 
+ * session context, of a message sent over a socket shared by multiple connections.
+ * <br>
+ * The server will echo the key back with the result. 
+ */
+public final class ChannelMessageKey implements Externalizable {
+	private static final long serialVersionUID = -3361470539387461585L;
+	
+	private int channel;
+	private Serializable key;
+	
+	public ChannelMessageKey() {
+		
+	}
+	
+	public ChannelMessageKey(int channel, Serializable key) {
+		this.channel = channel;
+		this.key = key;
+	}
+	
+	public int getChannel() {
+		return channel;
+	}
+	
+	public Serializable getKey() {
+		return key;
+	}
+	
+	@Override
+	public int hashCode() {
+		return channel * 31 + (key == null ? 0 : key.hashCode());
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof ChannelMessageKey)) {
+			return false;
+		}
+		ChannelMessageKey other = (ChannelMessageKey)obj;
+		return channel == other.channel && (key == null ? other.key == null : key.equals(other.key));
+	}
+	
+	@Override
+	public void readExternal(ObjectInput in) throws IOException,
+			ClassNotFoundException {
+		this.channel = in.readInt();
+		this.key = (Serializable)in.readObject();
+	}
+	
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeInt(channel);
+		out.writeObject(key);
+	}
+	
+	@Override
+	public String toString() {
+		return channel + ":" + key; //$NON-NLS-1$
+	}
+
+}
@@ -24,14 +24,17 @@ package org.teiid.net.socket;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.util.*;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -39,7 +42,10 @@ import java.util.logging.Logger;
 import org.teiid.client.security.ILogon;
 import org.teiid.client.security.InvalidSessionException;
 import org.teiid.client.security.SessionToken;
+import org.teiid.client.util.ResultsFuture;
+import org.teiid.client.util.ResultsReceiver;
 import org.teiid.core.TeiidException;
+import org.teiid.core.crypto.Cryptor;
 import org.teiid.core.util.PropertiesUtils;
 import org.teiid.core.util.ReflectionHelper;
 import org.teiid.jdbc.JDBCPlugin;
@@ -136,6 +142,122 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 		}
 	}
 	
+	/**
+	 * A socket that is shared by multiple logical connections.  Each
+	 * logical connection is assigned its own channel. 
+	 */
+	private static class SharedInstance {
+		SocketServerInstanceImpl actual;
+		BitSet channels = new BitSet();
+		int channelCount;
+		
+		public SharedInstance(SocketServerInstanceImpl actual) {
+			this.actual = actual;
+		}
+	}
+	
+	/**
+	 * The view of a {@link SharedInstance} used by a single logical connection.
+	 * Messages are sent with a {@link ChannelMessageKey} so that the server will use
+	 * the session context of the channel.
+	 */
+	private final class ChannelInstance implements SocketServerInstance {
+		private SharedInstance shared;
+		private int channel;
+		private boolean closed;
+		private HashMap<Class<?>, Object> serviceMap = new HashMap<Class<?>, Object>();
+		
+		public ChannelInstance(SharedInstance shared, int channel) {
+			this.shared = shared;
+			this.channel = channel;
+		}
+		
+		@Override
+		public synchronized <T> T getService(Class<T> iface) {
+			Object service = this.serviceMap.get(iface);
+			if (service == null) {
+				service = Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class[] {iface}, new SocketServerInstanceImpl.RemoteInvocationHandler(iface, false) {
+					@Override
+					protected SocketServerInstance getInstance() {
+						return ChannelInstance.this;
+					}
+				});
+				this.serviceMap.put(iface, service);
+			}
+			return iface.cast(service);
+		}
+		
+		/**
+		 * Release the channel.  The socket is closed once it has no channels left.
+		 */
+		@Override
+		public void shutdown() {
+			synchronized (sharedInstances) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				shared.channels.clear(channel);
+				shared.channelCount--;
+				if (shared.channelCount > 0) {
+					return;
+				}
+				List<SharedInstance> instances = sharedInstances.get(shared.actual.getHostInfo());
+				if (instances != null) {
+					instances.remove(shared);
+					if (instances.isEmpty()) {
+						sharedInstances.remove(shared.actual.getHostInfo());
+					}
+				}
+			}
+			shared.actual.shutdown();
+		}
+		
+		@Override
+		public void send(Message message, ResultsReceiver<Object> receiver,
+				Serializable key) throws CommunicationException,
+				InterruptedException {
+			shared.actual.send(message, receiver, new ChannelMessageKey(channel, key));
+		}
+		
+		@Override
+		public void read(long timeout, TimeUnit unit,
+				ResultsFuture<?> resultsFuture) throws TimeoutException,
+				InterruptedException {
+			shared.actual.read(timeout, unit, resultsFuture);
+		}
+
+		@Override
+		public HostInfo getHostInfo() {
+			return shared.actual.getHostInfo();
+		}
+
+		@Override
+		public boolean isOpen() {
+			return shared.actual.isOpen();
+		}
+
+		@Override
+		public Cryptor getCryptor() {
+			return shared.actual.getCryptor();
+		}
+
+		@Override
+		public long getSynchTimeout() {
+			return shared.actual.getSynchTimeout();
+		}
+
+		@Override
+		public String getServerVersion() {
+			return shared.actual.getServerVersion();
+		}
+
+		@Override
+		public InetAddress getLocalAddress() {
+			return shared.actual.getLocalAddress();
+		}
+	}
+	
     private ObjectChannelFactory channelFactory;
 	private Timer pingTimer;
 	
@@ -144,10 +266,14 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 	//instance pooling
 	private AtomicInteger instanceCount = new AtomicInteger();
 	private Map<CachedInstance, CachedInstance> instancePool = new LinkedHashMap<CachedInstance, CachedInstance>();
+	
+	//socket sharing
+	private Map<HostInfo, List<SharedInstance>> sharedInstances = new HashMap<HostInfo, List<SharedInstance>>();
 
 	//config properties
 	private long synchronousTtl = 240000l;
 	private int maxCachedInstances=16;
+	private int maxConnectionsPerSocket=1;
 
 	private boolean disablePing;
 
@@ -238,6 +364,9 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 	
 	@Override
 	public SocketServerInstance getServerInstance(HostInfo info) throws CommunicationException, IOException {
+		if (this.maxConnectionsPerSocket > 1) {
+			return getChannelInstance(info);
+		}
 		CachedInstance key = null;
 		boolean useCache = this.maxCachedInstances > 0; 
 		if (useCache) {
@@ -285,6 +414,51 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 		return ssii;
 	}
 	
+	/**
+	 * Get a channel on an existing socket to the host with capacity, or open a new socket.
+	 * Servers prior to 8.11 do not support channels and will get an unshared instance.
+	 */
+	private SocketServerInstance getChannelInstance(HostInfo info) throws CommunicationException, IOException {
+		synchronized (sharedInstances) {
+			List<SharedInstance> instances = sharedInstances.get(info);
+			if (instances != null) {
+				for (Iterator<SharedInstance> iter = instances.iterator(); iter.hasNext();) {
+					SharedInstance shared = iter.next();
+					if (!shared.actual.isOpen()) {
+						iter.remove();
+						continue;
+					}
+					if (shared.channelCount < this.maxConnectionsPerSocket) {
+						return allocateChannel(shared);
+					}
+				}
+			}
+		}
+		SocketServerInstanceImpl ssii = new SocketServerInstanceImpl(info, getSynchronousTtl(), this.channelFactory.getSoTimeout());
+		ssii.connect(this.channelFactory);
+		if ("08.11".compareTo(ssii.getServerVersion()) > 0) { //$NON-NLS-1$
+			log.log(Level.FINE, "Server version does not support shared sockets", ssii.getServerVersion()); //$NON-NLS-1$
+			return ssii;
+		}
+		SharedInstance shared = new SharedInstance(ssii);
+		synchronized (sharedInstances) {
+			List<SharedInstance> instances = sharedInstances.get(info);
+			if (instances == null) {
+				instances = new LinkedList<SharedInstance>();
+				sharedInstances.put(info, instances);
+			}
+			instances.add(shared);
+			return allocateChannel(shared);
+		}
+	}
+
+	private ChannelInstance allocateChannel(SharedInstance shared) {
+		int channel = shared.channels.nextClearBit(0);
+		shared.channels.set(channel);
+		shared.channelCount++;
+		return new ChannelInstance(shared, channel);
+	}
+	
 	/**
 	 * @param connectionProperties will be updated with additional information before logon
 	 */
@@ -332,6 +506,18 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 		this.maxCachedInstances = maxCachedInstances;
 	}
 	
+	public int getMaxConnectionsPerSocket() {
+		return maxConnectionsPerSocket;
+	}
+	
+	/**
+	 * Set the maximum number of logical connections that will share a socket.  
+	 * The default of 1 uses a socket per connection. 
+	 */
+	public void setMaxConnectionsPerSocket(int maxConnectionsPerSocket) {
+		this.maxConnectionsPerSocket = maxConnectionsPerSocket;
+	}
+	
 	@Override
 	public void connected(SocketServerInstance instance, SessionToken session) {
 		synchronized (sessions) {
@@ -50,14 +50,21 @@ import org.teiid.query.unittest.TimestampUtil;
 public class TestBatchSerializer {
 
     private static List<List<Object>> helpTestSerialization(String[] types, List<?>[] batch, byte version) throws IOException, ClassNotFoundException {
+    	return helpTestSerialization(types, batch, version, false, null);
+    }
+    
+    private static List<List<Object>> helpTestSerialization(String[] types, List<?>[] batch, byte version, boolean compress, int[] size) throws IOException, ClassNotFoundException {
         ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
         ObjectOutputStream out = new ObjectOutputStream(byteStream);
         List<List<?>> batchList = Arrays.asList(batch);
         
-        BatchSerializer.writeBatch(out, types, batchList, version);
+        BatchSerializer.writeBatch(out, types, batchList, version, compress);
         out.flush();
         
         byte[] bytes = byteStream.toByteArray();
+        if (size != null) {
+        	size[0] = bytes.length;
+        }
         
         ByteArrayInputStream bytesIn = new ByteArrayInputStream(bytes);
         ObjectInputStream in = new ObjectInputStream(bytesIn);
@@ -173,5 +180,53 @@ public class TestBatchSerializer {
     	val = helpTestSerialization(new String[] {DataTypeManager.DefaultDataTypes.OBJECT}, new List[] {Arrays.asList(geometryType)}, (byte)1); //blob serialization
     	assertFalse(val instanceof GeometryType);
     }
+    
+    private static List<?>[] sampleEncodableBatch(int rows) {
+        List<?>[] batch = new List[rows];
+        for (int i = 0; i < rows; i++) {
+        	batch[i] = Arrays.asList(i%7 == 0 ? null : "status" + (i%5), //dictionary
+        			i/100, //run length
+        			Long.valueOf(i), //plain
+        			i%3 == 0 ? null : new BigDecimal(i%2)); 
+        }
+        return batch;
+    }
+    
+    private static final String[] encodableTypes = {DataTypeManager.DefaultDataTypes.STRING, 
+    	DataTypeManager.DefaultDataTypes.INTEGER, 
+    	DataTypeManager.DefaultDataTypes.LONG, 
+    	DataTypeManager.DefaultDataTypes.BIG_DECIMAL}; 
+    
+    @Test public void testEncodedColumns() throws Exception {
+    	int[] encodedSize = new int[1];
+    	int[] plainSize = new int[1];
+    	helpTestSerialization(encodableTypes, sampleEncodableBatch(1000), BatchSerializer.VERSION_ENCODED, false, encodedSize);
+    	helpTestSerialization(encodableTypes, sampleEncodableBatch(1000), BatchSerializer.VERSION_GEOMETRY, false, plainSize);
+    	assertTrue(encodedSize[0] < plainSize[0]);
+    	
+    	helpTestSerialization(encodableTypes, sampleEncodableBatch(3), BatchSerializer.VERSION_ENCODED);
+    	helpTestSerialization(encodableTypes, sampleEncodableBatch(1000), BatchSerializer.VERSION_ENCODED);
+    }
+    
+    @Test public void testLargeDictionary() throws Exception {
+        List<?>[] batch = new List[1000];
+        for (int i = 0; i < batch.length; i++) {
+        	batch[i] = Arrays.asList(i%300);
+        }
+    	helpTestSerialization(new String[] {DataTypeManager.DefaultDataTypes.INTEGER}, batch, BatchSerializer.VERSION_ENCODED);
+    }
+    
+    @Test public void testCompressed() throws Exception {
+    	int[] compressedSize = new int[1];
+    	int[] encodedSize = new int[1];
+    	helpTestSerialization(encodableTypes, sampleEncodableBatch(1000), BatchSerializer.VERSION_ENCODED, true, compressedSize);
+    	helpTestSerialization(encodableTypes, sampleEncodableBatch(1000), BatchSerializer.VERSION_ENCODED, false, encodedSize);
+    	assertTrue(compressedSize[0] < encodedSize[0]);
+    	
+    	//not eligible
+    	helpTestSerialization(sampleBatchTypes, sampleBatchWithNulls(833), BatchSerializer.VERSION_ENCODED, true, null);
+    	//ignored for older versions
+    	helpTestSerialization(encodableTypes, sampleEncodableBatch(1000), BatchSerializer.VERSION_GEOMETRY, true, null);
+    }
 
 }
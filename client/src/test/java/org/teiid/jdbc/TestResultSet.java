@@ -703,6 +703,27 @@ public class TestResultSet {
         cs.close();      
     }
     
+    @Test public void testForwardOnlyPrefetchDepth() throws Exception {
+    	StatementImpl statement = createMockStatement(ResultSet.TYPE_FORWARD_ONLY);
+    	stub(statement.getExecutionProperty(ExecutionProperties.PREFETCH_DEPTH)).toReturn("3"); //$NON-NLS-1$
+    	ResultSetImpl cs = TestAllResultsImpl.helpTestBatching(statement, 10, 10, 100);
+    	//the completed requests are chained up to the depth
+    	assertEquals(3, cs.getPrefetchCount());
+    	Mockito.verify(statement.getDQP(), Mockito.times(1)).processCursorRequest(TestAllResultsImpl.REQUEST_ID, 31, 10);
+    	Mockito.verify(statement.getDQP(), Mockito.never()).processCursorRequest(TestAllResultsImpl.REQUEST_ID, 41, 10);
+    	for (int i = 1; i <= 100; i++) {
+    		assertTrue(cs.next());
+    		assertEquals(i, cs.getObject(1));
+    		assertTrue(cs.getPrefetchCount() <= 3);
+    	}
+    	assertFalse(cs.next());
+    	for (int i = 11; i <= 91; i+=10) {
+    		Mockito.verify(statement.getDQP(), Mockito.times(1)).processCursorRequest(TestAllResultsImpl.REQUEST_ID, i, 10);
+    	}
+    	assertEquals(0, cs.getPrefetchCount());
+    	cs.close();
+    }
+    
     @Test public void testOutputParameter() throws Exception {
         StatementImpl statement = createMockStatement(ResultSet.TYPE_FORWARD_ONLY);
         ResultsMessage resultsMsg = new ResultsMessage();
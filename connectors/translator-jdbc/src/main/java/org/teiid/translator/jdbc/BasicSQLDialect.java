@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.translator.jdbc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A simple {@link SQLDialect} used to provide temporary table support
+ * when the Hibernate dialect is not available.
+ * <br>
+ * Type templates may use $l, $p, and $s for the length, precision, and scale.
+ */
+public class BasicSQLDialect implements SQLDialect {
+	
+	private String createTemporaryTableString;
+	private String createTemporaryTablePostfix;
+	private String dropTemporaryTableString;
+	private Map<Integer, String> typeNames = new HashMap<Integer, String>();
+	
+	public BasicSQLDialect(String createTemporaryTableString, String createTemporaryTablePostfix, String dropTemporaryTableString) {
+		this.createTemporaryTableString = createTemporaryTableString;
+		this.createTemporaryTablePostfix = createTemporaryTablePostfix;
+		this.dropTemporaryTableString = dropTemporaryTableString;
+	}
+	
+	public void registerTypeName(int code, String template) {
+		this.typeNames.put(code, template);
+	}
+
+	@Override
+	public boolean supportsTemporaryTables() {
+		return true;
+	}
+
+	@Override
+	public String getTypeName(int code, long length, int precision, int scale) {
+		String template = this.typeNames.get(code);
+		if (template == null) {
+			return null;
+		}
+		return template.replace("$l", String.valueOf(length)) //$NON-NLS-1$
+				.replace("$p", String.valueOf(precision)) //$NON-NLS-1$
+				.replace("$s", String.valueOf(scale)); //$NON-NLS-1$
+	}
+
+	@Override
+	public String getCreateTemporaryTableString() {
+		return createTemporaryTableString;
+	}
+
+	@Override
+	public String getCreateTemporaryTablePostfix() {
+		return createTemporaryTablePostfix;
+	}
+
+	@Override
+	public String getDropTemporaryTableString() {
+		return dropTemporaryTableString;
+	}
+
+}
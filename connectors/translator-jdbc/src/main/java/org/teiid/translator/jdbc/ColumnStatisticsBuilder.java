@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.translator.jdbc;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
+import org.teiid.metadata.ColumnStats;
+
+/**
+ * Accumulates a sample of column values and builds the {@link ColumnStats} - the 
+ * distinct value estimate, the most common values, and an equi-depth histogram
+ * of the remaining values.
+ */
+class ColumnStatisticsBuilder {
+	
+	static final int MAX_MOST_COMMON_VALUES = 10;
+	static final int HISTOGRAM_BUCKETS = 10;
+	
+	private static final Comparator<Map.Entry<Object, int[]>> COUNT_COMPARATOR = new Comparator<Map.Entry<Object, int[]>>() {
+		@Override
+		public int compare(Map.Entry<Object, int[]> o1, Map.Entry<Object, int[]> o2) {
+			return o2.getValue()[0] - o1.getValue()[0];
+		}
+	};
+	
+	private static final Comparator<Map.Entry<Object, int[]>> VALUE_COMPARATOR = new Comparator<Map.Entry<Object, int[]>>() {
+		@SuppressWarnings("unchecked")
+		@Override
+		public int compare(Map.Entry<Object, int[]> o1, Map.Entry<Object, int[]> o2) {
+			return ((Comparable<Object>)o1.getKey()).compareTo(o2.getKey());
+		}
+	};
+	
+	private Class<?> type;
+	private Map<Object, int[]> counts = new HashMap<Object, int[]>();
+	private int sampleRows;
+	private int sampleValues;
+	
+	/**
+	 * @param runtimeType the Teiid runtime type of the column
+	 */
+	ColumnStatisticsBuilder(String runtimeType) {
+		this.type = DataTypeManager.getDataTypeClass(runtimeType);
+	}
+	
+	/**
+	 * Add a sampled value, which may be null
+	 * @throws TransformationException if the value cannot be converted to the column type
+	 */
+	void addValue(Object value) throws TransformationException {
+		sampleRows++;
+		value = DataTypeManager.transformValue(value, type);
+		if (value == null) {
+			return;
+		}
+		sampleValues++;
+		int[] count = counts.get(value);
+		if (count == null) {
+			counts.put(value, new int[] {1});
+		} else {
+			count[0]++;
+		}
+	}
+	
+	/**
+	 * Convert the value to its string form using the timestamp format for dates
+	 * to match the convention for minimum and maximum values.
+	 */
+	String toString(Object value, boolean minMax) throws TransformationException {
+		value = DataTypeManager.transformValue(value, type);
+		if (minMax && value instanceof java.sql.Date) {
+			return new Timestamp(((java.sql.Date)value).getTime()).toString();
+		}
+		return (String)DataTypeManager.transformValue(value, DataTypeManager.DefaultDataClasses.STRING);
+	}
+	
+	/**
+	 * Build the statistics from the sample.
+	 * @param nonNullCount the number of non-null values in the table, or -1 if unknown
+	 */
+	ColumnStats build(long nonNullCount) throws TransformationException {
+		ColumnStats stats = new ColumnStats();
+		if (sampleValues == 0) {
+			return stats;
+		}
+		int distinct = counts.size();
+		int singletons = 0;
+		for (int[] count : counts.values()) {
+			if (count[0] == 1) {
+				singletons++;
+			}
+		}
+		double ndv = distinct;
+		if (nonNullCount > sampleValues) {
+			//Duj1 estimator from Haas et al.
+			ndv = sampleValues * (double)distinct / (sampleValues - singletons + singletons * (double)sampleValues / nonNullCount);
+			ndv = Math.min(nonNullCount, Math.max(distinct, ndv));
+		}
+		stats.setDistinctValues((long)Math.ceil(ndv));
+		
+		List<Map.Entry<Object, int[]>> entries = new ArrayList<Map.Entry<Object, int[]>>(counts.entrySet());
+		Collections.sort(entries, COUNT_COMPARATOR);
+		boolean all = distinct <= MAX_MOST_COMMON_VALUES && singletons == 0;
+		double threshold = 1.25 * sampleValues / distinct;
+		List<String> mostCommonValues = new ArrayList<String>();
+		List<Float> frequencies = new ArrayList<Float>();
+		Set<Object> mostCommon = new HashSet<Object>();
+		for (Map.Entry<Object, int[]> entry : entries) {
+			int count = entry.getValue()[0];
+			if (mostCommonValues.size() >= MAX_MOST_COMMON_VALUES || (!all && (count < 2 || count <= threshold))) {
+				break;
+			}
+			mostCommonValues.add(toString(entry.getKey(), false));
+			frequencies.add(count / (float)sampleRows);
+			mostCommon.add(entry.getKey());
+		}
+		if (!mostCommonValues.isEmpty()) {
+			stats.setMostCommonValues(mostCommonValues);
+			stats.setMostCommonFrequencies(frequencies);
+		}
+		
+		List<Map.Entry<Object, int[]>> remaining = new ArrayList<Map.Entry<Object, int[]>>(entries.size() - mostCommon.size());
+		int remainingValues = 0;
+		for (Map.Entry<Object, int[]> entry : entries) {
+			if (!mostCommon.contains(entry.getKey())) {
+				remaining.add(entry);
+				remainingValues += entry.getValue()[0];
+			}
+		}
+		if (remaining.size() < 2 || !Comparable.class.isAssignableFrom(type)) {
+			return stats;
+		}
+		Collections.sort(remaining, VALUE_COMPARATOR);
+		int buckets = Math.min(HISTOGRAM_BUCKETS, remaining.size() - 1);
+		List<String> histogram = new ArrayList<String>(buckets + 1);
+		int index = 0;
+		int position = remaining.get(0).getValue()[0] - 1;
+		for (int i = 0; i <= buckets; i++) {
+			//the position of the boundary in the sorted expansion of the remaining values
+			long target = Math.round(i * (remainingValues - 1) / (double)buckets);
+			while (position < target) {
+				index++;
+				position += remaining.get(index).getValue()[0];
+			}
+			histogram.add(toString(remaining.get(index).getKey(), false));
+		}
+		stats.setHistogram(histogram);
+		return stats;
+	}
+
+}
@@ -1413,6 +1413,9 @@ public class JDBCExecutionFactory extends ExecutionFactory<DataSource, Connectio
 					LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, name, "could not be loaded"); //$NON-NLS-1$
 				}
 			}
+			if (dialect == null) {
+				dialect = createBasicDialect();
+			}
 			if (dialect == null) {
 				dialect = new DefaultSQLDialect();
 			}
@@ -1420,6 +1423,16 @@ public class JDBCExecutionFactory extends ExecutionFactory<DataSource, Connectio
 		return dialect;
 	}
 	
+	/**
+	 * Create the dialect to use when the hibernate dialect is not available.
+	 * Translators may return a {@link BasicSQLDialect} with the type names of 
+	 * the source to retain temporary table support.
+	 * @return the dialect or null if temporary tables are not supported
+	 */
+	protected SQLDialect createBasicDialect() {
+		return null;
+	}
+	
 	public String getHibernateDialectClassName() {
 		return null;
 	}
@@ -22,10 +22,13 @@
 
 package org.teiid.translator.jdbc;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -38,6 +41,8 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.regex.Pattern;
 
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
 import org.teiid.core.util.StringUtil;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
@@ -102,6 +107,8 @@ public class JDBCMetdataProcessor implements MetadataProcessor<Connection>{
 	
 	private boolean useAnyIndexCardinality;
 	private boolean importStatistics;
+	private boolean importColumnStatistics;
+	private int columnStatisticsSampleSize = 10000;
 	
 	private String columnNamePattern;
 	
@@ -161,6 +168,18 @@ public class JDBCMetdataProcessor implements MetadataProcessor<Connection>{
 			}
 		}
 		
+		if (importColumnStatistics) {
+			for (TableInfo tableInfo : tables) {
+				try {
+					getColumnStatistics(conn, tableInfo.table);
+				} catch (SQLException e) {
+					LogManager.logWarning(LogConstants.CTX_CONNECTOR, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID11023, tableInfo.table.getFullName()));
+				} catch (TransformationException e) {
+					LogManager.logWarning(LogConstants.CTX_CONNECTOR, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID11023, tableInfo.table.getFullName()));
+				}
+			}
+		}
+		
 		if (importProcedures) {
 			getProcedures(metadataFactory, metadata);
 		}
@@ -180,6 +199,149 @@ public class JDBCMetdataProcessor implements MetadataProcessor<Connection>{
 		
 	}
 
+	/**
+	 * Determine the cardinality, the null and distinct value counts, the min/max, the most common values, 
+	 * and an equi-depth histogram of the comparable columns of the table.  
+	 * <br>
+	 * Exact counts and min/max are obtained with a single aggregate query and the 
+	 * remaining statistics are built from a sample of up to columnStatisticsSampleSize rows.
+	 * If the table is larger than the sample size and the source does not provide a 
+	 * {@link #getColumnStatisticsSampleQuery(String, String, long, int)}, only the exact statistics are set.
+	 * @param conn
+	 * @param table
+	 * @throws SQLException
+	 * @throws TransformationException 
+	 */
+	protected void getColumnStatistics(Connection conn, Table table) throws SQLException, TransformationException {
+		List<Column> columns = new ArrayList<Column>();
+		for (Column column : table.getColumns()) {
+			if (column.getRuntimeType() != null && !DataTypeManager.isNonComparable(column.getRuntimeType()) 
+					&& !DataTypeManager.DefaultDataTypes.BOOLEAN.equals(column.getRuntimeType())) {
+				columns.add(column);
+			}
+		}
+		if (columns.isEmpty()) {
+			return;
+		}
+		String tableName = table.getNameInSource() != null ? table.getNameInSource() : quoteName(table.getName());
+		StringBuilder aggregates = new StringBuilder("SELECT COUNT(*)"); //$NON-NLS-1$
+		StringBuilder sample = new StringBuilder();
+		for (int i = 0; i < columns.size(); i++) {
+			Column column = columns.get(i);
+			String columnName = column.getNameInSource() != null ? column.getNameInSource() : quoteName(column.getName());
+			aggregates.append(", COUNT(").append(columnName).append("), MIN(").append(columnName).append("), MAX(").append(columnName).append(")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			if (i > 0) {
+				sample.append(", "); //$NON-NLS-1$
+			}
+			sample.append(columnName);
+		}
+		aggregates.append(" FROM ").append(tableName); //$NON-NLS-1$
+		
+		ColumnStatisticsBuilder[] builders = new ColumnStatisticsBuilder[columns.size()];
+		for (int i = 0; i < builders.length; i++) {
+			builders[i] = new ColumnStatisticsBuilder(columns.get(i).getRuntimeType());
+		}
+		long[] nonNullCounts = new long[columns.size()];
+		String[] minValues = new String[columns.size()];
+		String[] maxValues = new String[columns.size()];
+		long cardinality = -1;
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = conn.createStatement();
+			rs = stmt.executeQuery(aggregates.toString());
+			if (rs.next()) {
+				cardinality = rs.getLong(1);
+				for (int i = 0; i < builders.length; i++) {
+					nonNullCounts[i] = rs.getLong(3*i + 2);
+					Object min = rs.getObject(3*i + 3);
+					if (min != null) {
+						minValues[i] = builders[i].toString(min, true);
+					}
+					Object max = rs.getObject(3*i + 4);
+					if (max != null) {
+						maxValues[i] = builders[i].toString(max, true);
+					}
+				}
+			}
+			rs.close();
+			rs = null;
+			if (cardinality <= 0) {
+				return;
+			}
+			String sampleQuery = null;
+			if (cardinality <= columnStatisticsSampleSize) {
+				sampleQuery = "SELECT " + sample + " FROM " + tableName; //$NON-NLS-1$ //$NON-NLS-2$
+			} else {
+				//reading a prefix of the table would skew the most common values and the histogram
+				sampleQuery = getColumnStatisticsSampleQuery(sample.toString(), tableName, cardinality, columnStatisticsSampleSize);
+			}
+			if (sampleQuery != null) {
+				stmt.setMaxRows(columnStatisticsSampleSize);
+				rs = stmt.executeQuery(sampleQuery);
+				while (rs.next()) {
+					for (int i = 0; i < builders.length; i++) {
+						builders[i].addValue(rs.getObject(i + 1));
+					}
+				}
+			} else {
+				LogManager.logDetail(LogConstants.CTX_CONNECTOR, "JDBCMetadataProcessor - No random sample is available for", table.getFullName(), "only exact column statistics will be imported"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} finally {
+			if (rs != null) {
+				rs.close();
+			}
+			if (stmt != null) {
+				stmt.close();
+			}
+		}
+		if (table.getCardinality() == Table.UNKNOWN_CARDINALITY) {
+			table.setCardinality(cardinality);
+		}
+		for (int i = 0; i < builders.length; i++) {
+			ColumnStats stats = builders[i].build(nonNullCounts[i]);
+			stats.setNullValues(cardinality - nonNullCounts[i]);
+			stats.setMinimumValue(minValues[i]);
+			stats.setMaximumValue(maxValues[i]);
+			columns.get(i).setColumnStats(stats);
+		}
+	}
+
+	/**
+	 * Get a query that returns a random sample of roughly sampleSize rows of the table.  
+	 * The result is also limited to sampleSize rows by {@link Statement#setMaxRows(int)}.
+	 * <br>
+	 * The sample should be taken with the source's table sampling, see {@link #getSamplePercent(long, int)}, 
+	 * rather than by ordering the whole table randomly.
+	 * @param columns the comma separated select columns
+	 * @param tableName
+	 * @param cardinality the row count of the table, which is greater than the sample size
+	 * @param sampleSize
+	 * @return the query or null if the source does not support random sampling
+	 */
+	protected String getColumnStatisticsSampleQuery(String columns, String tableName, long cardinality, int sampleSize) {
+		return null;
+	}
+	
+	/**
+	 * Get the percent of the table to sample for twice the sample size, or for just 
+	 * the sample size if the table is not large enough.
+	 * @param cardinality the row count of the table, which is greater than the sample size
+	 * @param sampleSize
+	 * @return the percent, which is greater than 0 and less than 100, as a plain string 
+	 */
+	protected static String getSamplePercent(long cardinality, int sampleSize) {
+		double percent = 200d * sampleSize / cardinality;
+		if (percent >= 100) {
+			percent = 100d * sampleSize / cardinality;
+		}
+		BigDecimal result = BigDecimal.valueOf(percent).setScale(6, RoundingMode.DOWN);
+		if (result.signum() == 0) {
+			return "0.000001"; //$NON-NLS-1$
+		}
+		return result.toPlainString();
+	}
+
 	private void getProcedures(MetadataFactory metadataFactory,
 			DatabaseMetaData metadata) throws SQLException {
 		LogManager.logDetail(LogConstants.CTX_CONNECTOR, "JDBCMetadataProcessor - Importing procedures"); //$NON-NLS-1$
@@ -773,6 +935,14 @@ public class JDBCMetdataProcessor implements MetadataProcessor<Connection>{
 		this.importStatistics = importStatistics;
 	}
 	
+	public void setImportColumnStatistics(boolean importColumnStatistics) {
+		this.importColumnStatistics = importColumnStatistics;
+	}
+	
+	public void setColumnStatisticsSampleSize(int columnStatisticsSampleSize) {
+		this.columnStatisticsSampleSize = columnStatisticsSampleSize;
+	}
+	
 	public void setImportForeignKeys(boolean importForeignKeys) {
 		this.importForeignKeys = importForeignKeys;
 	}
@@ -871,6 +1041,16 @@ public class JDBCMetdataProcessor implements MetadataProcessor<Connection>{
         return importStatistics;
     }
     
+    @TranslatorProperty(display="Import Column Statistics", category=PropertyType.IMPORT, description="true will query the source tables to determine the cardinality and the column null counts, distinct value counts, min/max values, most common values, and histograms.  The counts and min/max values are exact, the rest are determined from a sample of the rows.")
+    public boolean isImportColumnStatistics() {
+        return importColumnStatistics;
+    }
+    
+    @TranslatorProperty(display="Column Statistics Sample Size", category=PropertyType.IMPORT, description="The maximum number of rows per table to sample when importColumnStatistics is true.  For larger tables the sample is random, which requires source table sampling - currently Oracle, PostgreSQL 9.5+, and SQL Server.  Otherwise only the exact statistics are imported.")
+    public int getColumnStatisticsSampleSize() {
+        return columnStatisticsSampleSize;
+    }
+    
     @TranslatorProperty(display="Column Name Pattern", category=PropertyType.IMPORT, description="a column name pattern; must match the column name as it is stored in the database. Used to import columns of tables")
     public String getColumnNamePattern() {
         return columnNamePattern;
@@ -32,6 +32,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -1042,6 +1043,31 @@ public class OracleExecutionFactory extends JDBCExecutionFactory {
     	return "org.hibernate.dialect.Oracle9iDialect"; //$NON-NLS-1$
     }
     
+    @Override
+    protected SQLDialect createBasicDialect() {
+    	BasicSQLDialect d = new BasicSQLDialect("create global temporary table", "on commit delete rows", "drop table"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    	d.registerTypeName(Types.BIT, "number(1,0)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.BOOLEAN, "number(1,0)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.TINYINT, "number(3,0)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.SMALLINT, "number(5,0)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.INTEGER, "number(10,0)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.BIGINT, "number(19,0)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.REAL, "float"); //$NON-NLS-1$
+    	d.registerTypeName(Types.FLOAT, "float"); //$NON-NLS-1$
+    	d.registerTypeName(Types.DOUBLE, "double precision"); //$NON-NLS-1$
+    	d.registerTypeName(Types.NUMERIC, "number($p,$s)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.DECIMAL, "number($p,$s)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.CHAR, "char(1 char)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.VARCHAR, "varchar2($l char)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.DATE, "date"); //$NON-NLS-1$
+    	d.registerTypeName(Types.TIME, "date"); //$NON-NLS-1$
+    	d.registerTypeName(Types.TIMESTAMP, "timestamp"); //$NON-NLS-1$
+    	d.registerTypeName(Types.VARBINARY, "raw($l)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.BLOB, "blob"); //$NON-NLS-1$
+    	d.registerTypeName(Types.CLOB, "clob"); //$NON-NLS-1$
+    	return d;
+    }
+    
     @Override
     public boolean supportsGroupByRollup() {
     	return true;
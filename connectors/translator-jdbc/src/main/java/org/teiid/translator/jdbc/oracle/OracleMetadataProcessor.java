@@ -135,5 +135,13 @@ public final class OracleMetadataProcessor extends
     		}
     	}
     }
+	
+	/**
+	 * Use a row sample, the result is limited to the sample size. 
+	 */
+	@Override
+	protected String getColumnStatisticsSampleQuery(String columns, String tableName, long cardinality, int sampleSize) {
+		return "SELECT " + columns + " FROM " + tableName + " SAMPLE (" + getSamplePercent(cardinality, sampleSize) + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
 
 }
\ No newline at end of file
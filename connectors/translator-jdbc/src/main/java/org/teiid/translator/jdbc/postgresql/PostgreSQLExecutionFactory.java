@@ -32,6 +32,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -102,6 +103,7 @@ public class PostgreSQLExecutionFactory extends JDBCExecutionFactory {
 	public static final Version EIGHT_3 = Version.getVersion("8.3"); //$NON-NLS-1$
 	public static final Version EIGHT_4 = Version.getVersion("8.4"); //$NON-NLS-1$
 	public static final Version NINE_0 = Version.getVersion("9.0"); //$NON-NLS-1$
+	public static final Version NINE_5 = Version.getVersion("9.5"); //$NON-NLS-1$
 	private OracleFormatFunctionModifier formatModifier = new PostgreSQLFormatFunctionModifier("TO_TIMESTAMP("); //$NON-NLS-1$
 	
 	//postgis versions
@@ -705,6 +707,31 @@ public class PostgreSQLExecutionFactory extends JDBCExecutionFactory {
 		return "org.hibernate.dialect.PostgreSQL81Dialect"; //$NON-NLS-1$
     }
     
+    @Override
+    protected SQLDialect createBasicDialect() {
+    	BasicSQLDialect d = new BasicSQLDialect("create temporary table", "on commit drop", "drop table"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    	d.registerTypeName(Types.BIT, "bool"); //$NON-NLS-1$
+    	d.registerTypeName(Types.BOOLEAN, "bool"); //$NON-NLS-1$
+    	d.registerTypeName(Types.TINYINT, "int2"); //$NON-NLS-1$
+    	d.registerTypeName(Types.SMALLINT, "int2"); //$NON-NLS-1$
+    	d.registerTypeName(Types.INTEGER, "int4"); //$NON-NLS-1$
+    	d.registerTypeName(Types.BIGINT, "int8"); //$NON-NLS-1$
+    	d.registerTypeName(Types.REAL, "float4"); //$NON-NLS-1$
+    	d.registerTypeName(Types.FLOAT, "float4"); //$NON-NLS-1$
+    	d.registerTypeName(Types.DOUBLE, "float8"); //$NON-NLS-1$
+    	d.registerTypeName(Types.NUMERIC, "numeric($p, $s)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.DECIMAL, "numeric($p, $s)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.CHAR, "char(1)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.VARCHAR, "varchar($l)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.DATE, "date"); //$NON-NLS-1$
+    	d.registerTypeName(Types.TIME, "time"); //$NON-NLS-1$
+    	d.registerTypeName(Types.TIMESTAMP, "timestamp"); //$NON-NLS-1$
+    	d.registerTypeName(Types.VARBINARY, "bytea"); //$NON-NLS-1$
+    	d.registerTypeName(Types.BLOB, "bytea"); //$NON-NLS-1$
+    	d.registerTypeName(Types.CLOB, "text"); //$NON-NLS-1$
+    	return d;
+    }
+    
     @Override
     public String getCreateTemporaryTablePostfix(boolean inTransaction) {
     	if (!inTransaction) {
@@ -830,6 +857,15 @@ public class PostgreSQLExecutionFactory extends JDBCExecutionFactory {
             		}
             	}
             }
+            
+            @Override
+            protected String getColumnStatisticsSampleQuery(String columns, String tableName, long cardinality, int sampleSize) {
+            	//block sampling is not available prior to 9.5
+            	if (getVersion().compareTo(NINE_5) < 0) {
+            		return null;
+            	}
+            	return "SELECT " + columns + " FROM " + tableName + " TABLESAMPLE SYSTEM (" + getSamplePercent(cardinality, sampleSize) + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            }
     	};
     }
     
@@ -30,6 +30,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -50,9 +51,11 @@ import org.teiid.translator.SourceSystemFunctions;
 import org.teiid.translator.Translator;
 import org.teiid.translator.TranslatorException;
 import org.teiid.translator.TypeFacility;
+import org.teiid.translator.jdbc.BasicSQLDialect;
 import org.teiid.translator.jdbc.FunctionModifier;
 import org.teiid.translator.jdbc.JDBCExecutionFactory;
 import org.teiid.translator.jdbc.JDBCMetdataProcessor;
+import org.teiid.translator.jdbc.SQLDialect;
 import org.teiid.translator.jdbc.Version;
 import org.teiid.translator.jdbc.sybase.SybaseExecutionFactory;
 
@@ -381,6 +384,15 @@ public class SQLServerExecutionFactory extends SybaseExecutionFactory {
                 }
                 return c;
             }
+            
+            @Override
+            protected String getColumnStatisticsSampleQuery(String columns, String tableName, long cardinality, int sampleSize) {
+            	//TABLESAMPLE was added in 2005
+            	if (getVersion().compareTo(NINE_0) < 0) {
+            		return null;
+            	}
+            	return "SELECT " + columns + " FROM " + tableName + " TABLESAMPLE SYSTEM (" + getSamplePercent(cardinality, sampleSize) + " PERCENT)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            }
         };
     }
     
@@ -411,6 +423,32 @@ public class SQLServerExecutionFactory extends SybaseExecutionFactory {
     	return "org.hibernate.dialect.SQLServerDialect"; //$NON-NLS-1$
     }
     
+    @Override
+    protected SQLDialect createBasicDialect() {
+    	BasicSQLDialect d = new BasicSQLDialect("create table", "", "drop table"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    	boolean dateTypes = getVersion().compareTo(TEN_0) >= 0;
+    	d.registerTypeName(Types.BIT, "bit"); //$NON-NLS-1$
+    	d.registerTypeName(Types.BOOLEAN, "bit"); //$NON-NLS-1$
+    	d.registerTypeName(Types.TINYINT, "smallint"); //$NON-NLS-1$
+    	d.registerTypeName(Types.SMALLINT, "smallint"); //$NON-NLS-1$
+    	d.registerTypeName(Types.INTEGER, "int"); //$NON-NLS-1$
+    	d.registerTypeName(Types.BIGINT, "bigint"); //$NON-NLS-1$
+    	d.registerTypeName(Types.REAL, "real"); //$NON-NLS-1$
+    	d.registerTypeName(Types.FLOAT, "float"); //$NON-NLS-1$
+    	d.registerTypeName(Types.DOUBLE, "double precision"); //$NON-NLS-1$
+    	d.registerTypeName(Types.NUMERIC, "numeric($p,$s)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.DECIMAL, "numeric($p,$s)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.CHAR, "char(1)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.VARCHAR, "varchar($l)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.DATE, dateTypes?"date":"datetime"); //$NON-NLS-1$ //$NON-NLS-2$
+    	d.registerTypeName(Types.TIME, dateTypes?"time":"datetime"); //$NON-NLS-1$ //$NON-NLS-2$
+    	d.registerTypeName(Types.TIMESTAMP, "datetime"); //$NON-NLS-1$
+    	d.registerTypeName(Types.VARBINARY, "varbinary($l)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.BLOB, "varbinary(max)"); //$NON-NLS-1$
+    	d.registerTypeName(Types.CLOB, "varchar(max)"); //$NON-NLS-1$
+    	return d;
+    }
+    
     @Override
     public boolean supportsGroupByRollup() {
     	return getVersion().compareTo(NINE_0) >= 0;
@@ -27,6 +27,7 @@ import java.sql.Array;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Struct;
+import java.sql.Types;
 import java.util.Calendar;
 
 import org.junit.Test;
@@ -90,4 +91,14 @@ public class TestJDBCExecutionFactory {
 		Mockito.stub(rs.wasNull()).toReturn(true);
 		assertNull(jef.retrieveValue(rs, 1, TypeFacility.RUNTIME_TYPES.BOOLEAN));
 	}
+	
+	@Test public void testBasicDialect() {
+		BasicSQLDialect dialect = new BasicSQLDialect("create temporary table", "", "drop table");
+		dialect.registerTypeName(Types.VARCHAR, "varchar($l)");
+		dialect.registerTypeName(Types.NUMERIC, "numeric($p,$s)");
+		assertTrue(dialect.supportsTemporaryTables());
+		assertEquals("varchar(100)", dialect.getTypeName(Types.VARCHAR, 100, 0, 0));
+		assertEquals("numeric(20,2)", dialect.getTypeName(Types.NUMERIC, 20, 20, 2));
+		assertNull(dialect.getTypeName(Types.BLOB, 0, 0, 0));
+	}
 }
@@ -24,19 +24,26 @@ package org.teiid.translator.jdbc;
 
 import static org.junit.Assert.*;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.teiid.metadata.Column;
 import org.teiid.metadata.MetadataFactory;
 import org.teiid.metadata.Table;
 import org.teiid.query.metadata.SystemMetadata;
+import org.teiid.translator.TypeFacility;
 
 @SuppressWarnings("nls")
 public class TestMetadataProcessor {
@@ -71,6 +78,111 @@ public class TestMetadataProcessor {
 		assertTrue(t.getIndexes().isEmpty());
 	}
 	
+	@Test public void testColumnStatistics() throws Exception {
+		JDBCMetdataProcessor processor = new JDBCMetdataProcessor();
+		MetadataFactory mf = new MetadataFactory("vdb", 1, "x", SystemMetadata.getInstance().getRuntimeTypeMap(), new Properties(), null);
+		Table t = mf.addTable("c");
+		t.setNameInSource("c");
+		Column c = mf.addColumn("e1", TypeFacility.RUNTIME_NAMES.INTEGER, t);
+		c.setNameInSource("e1");
+		mf.addColumn("e2", TypeFacility.RUNTIME_NAMES.BLOB, t);
+		
+		ResultSet aggregates = Mockito.mock(ResultSet.class);
+		Mockito.stub(aggregates.next()).toReturn(true);
+		Mockito.stub(aggregates.getLong(1)).toReturn(100l);
+		Mockito.stub(aggregates.getLong(2)).toReturn(90l);
+		Mockito.stub(aggregates.getObject(3)).toReturn(1);
+		Mockito.stub(aggregates.getObject(4)).toReturn(50);
+		
+		final List<Integer> values = new ArrayList<Integer>();
+		for (int i = 0; i < 10; i++) {
+			values.add(1);
+		}
+		values.add(null);
+		for (int i = 2; i <= 10; i++) {
+			values.add(i);
+		}
+		ResultSet sample = Mockito.mock(ResultSet.class);
+		final Iterator<Integer> iter = values.iterator();
+		final Integer[] current = new Integer[1];
+		Mockito.stub(sample.next()).toAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				if (iter.hasNext()) {
+					current[0] = iter.next();
+					return true;
+				}
+				return false;
+			}
+		});
+		Mockito.stub(sample.getObject(1)).toAnswer(new Answer<Integer>() {
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				return current[0];
+			}
+		});
+		
+		Statement stmt = Mockito.mock(Statement.class);
+		Mockito.stub(stmt.executeQuery("SELECT COUNT(*), COUNT(e1), MIN(e1), MAX(e1) FROM c")).toReturn(aggregates);
+		Mockito.stub(stmt.executeQuery("SELECT e1 FROM c")).toReturn(sample);
+		Connection conn = Mockito.mock(Connection.class);
+		Mockito.stub(conn.createStatement()).toReturn(stmt);
+		
+		processor.getColumnStatistics(conn, t);
+		
+		Mockito.verify(stmt).setMaxRows(10000);
+		assertEquals(100, t.getCardinality());
+		assertEquals(10, c.getNullValues());
+		assertEquals(16, c.getDistinctValues());
+		assertEquals("1", c.getMinimumValue());
+		assertEquals("50", c.getMaximumValue());
+		assertEquals(Arrays.asList("1"), c.getMostCommonValues());
+		assertEquals(Arrays.asList(.5f), c.getMostCommonFrequencies());
+		assertEquals(Arrays.asList("2", "3", "4", "5", "6", "7", "8", "9", "10"), c.getHistogram());
+	}
+	
+	@Test public void testColumnStatisticsWithoutRandomSample() throws Exception {
+		JDBCMetdataProcessor processor = new JDBCMetdataProcessor();
+		processor.setColumnStatisticsSampleSize(10);
+		MetadataFactory mf = new MetadataFactory("vdb", 1, "x", SystemMetadata.getInstance().getRuntimeTypeMap(), new Properties(), null);
+		Table t = mf.addTable("c");
+		t.setNameInSource("c");
+		Column c = mf.addColumn("e1", TypeFacility.RUNTIME_NAMES.INTEGER, t);
+		c.setNameInSource("e1");
+		
+		ResultSet aggregates = Mockito.mock(ResultSet.class);
+		Mockito.stub(aggregates.next()).toReturn(true);
+		Mockito.stub(aggregates.getLong(1)).toReturn(100l);
+		Mockito.stub(aggregates.getLong(2)).toReturn(90l);
+		Mockito.stub(aggregates.getObject(3)).toReturn(1);
+		Mockito.stub(aggregates.getObject(4)).toReturn(50);
+		
+		Statement stmt = Mockito.mock(Statement.class);
+		Mockito.stub(stmt.executeQuery("SELECT COUNT(*), COUNT(e1), MIN(e1), MAX(e1) FROM c")).toReturn(aggregates);
+		Connection conn = Mockito.mock(Connection.class);
+		Mockito.stub(conn.createStatement()).toReturn(stmt);
+		
+		processor.getColumnStatistics(conn, t);
+		
+		//the table is larger than the sample, so a prefix is not read
+		Mockito.verify(stmt, Mockito.times(1)).executeQuery(Mockito.anyString());
+		assertEquals(100, t.getCardinality());
+		assertEquals(10, c.getNullValues());
+		assertEquals("1", c.getMinimumValue());
+		assertEquals("50", c.getMaximumValue());
+		assertEquals(-1, c.getDistinctValues());
+		assertNull(c.getMostCommonValues());
+		assertNull(c.getHistogram());
+	}
+
+	@Test public void testSamplePercent() {
+		assertEquals("2.000000", JDBCMetdataProcessor.getSamplePercent(100000, 1000));
+		//too small to double the sample
+		assertEquals("66.666666", JDBCMetdataProcessor.getSamplePercent(1500, 1000));
+		assertEquals("99.999800", JDBCMetdataProcessor.getSamplePercent(1000001, 999999));
+		assertEquals("0.000001", JDBCMetdataProcessor.getSamplePercent(Long.MAX_VALUE, 1));
+	}
+
 	/**
 	 * JDBC says to return an empty string, but some sources return null and we need to handle the null case anyways
 	 */
@@ -1170,6 +1170,23 @@ public class TestOracleTranslator {
     	assertEquals("DECLARE PRAGMA AUTONOMOUS_TRANSACTION; BEGIN EXECUTE IMMEDIATE 'create global temporary table foo (COL1 number(10,0), COL2 varchar2(100 char)) on commit delete rows; END;", TranslationHelper.helpTestTempTable(TRANSLATOR, true));
     	assertEquals("create global temporary table foo (COL1 number(10,0), COL2 varchar2(100 char)) ON COMMIT PRESERVE ROWS", TranslationHelper.helpTestTempTable(TRANSLATOR, false));
     }
+    
+    @Test public void testTempTableWithoutHibernate() throws Exception {
+    	OracleExecutionFactory ef = new OracleExecutionFactory() {
+    		@Override
+    		public String getHibernateDialectClassName() {
+    			return null;
+    		}
+    	};
+    	ef.setDatabaseVersion(Version.DEFAULT_VERSION);
+    	ef.start();
+    	assertFalse(ef.supportsDependentJoins());
+    	ef.setEnableDependentJoins(true);
+    	assertTrue(ef.supportsDependentJoins());
+    	assertEquals("DECLARE PRAGMA AUTONOMOUS_TRANSACTION; BEGIN EXECUTE IMMEDIATE 'create global temporary table foo (COL1 number(10,0), COL2 varchar2(100 char)) on commit delete rows; END;", TranslationHelper.helpTestTempTable(ef, true));
+    	assertEquals("create global temporary table foo (COL1 number(10,0), COL2 varchar2(100 char)) ON COMMIT PRESERVE ROWS", TranslationHelper.helpTestTempTable(ef, false));
+    	assertEquals("drop table", ef.getDialect().getDropTemporaryTableString());
+    }
 
     @Test
     public void testGeometrySelectConvert() throws Exception {
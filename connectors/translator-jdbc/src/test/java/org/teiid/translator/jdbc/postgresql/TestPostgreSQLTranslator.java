@@ -564,6 +564,23 @@ public class TestPostgreSQLTranslator {
     	assertEquals("create temporary table foo (COL1 int4, COL2 varchar(100)) on commit drop", TranslationHelper.helpTestTempTable(TRANSLATOR, true));
     	assertEquals("create temporary table foo (COL1 int4, COL2 varchar(100)) ON COMMIT PRESERVE ROWS", TranslationHelper.helpTestTempTable(TRANSLATOR, false));
     }
+    
+    @Test public void testTempTableWithoutHibernate() throws Exception {
+    	PostgreSQLExecutionFactory ef = new PostgreSQLExecutionFactory() {
+    		@Override
+    		public String getHibernateDialectClassName() {
+    			return null;
+    		}
+    	};
+    	ef.setDatabaseVersion(Version.DEFAULT_VERSION);
+    	ef.start();
+    	assertFalse(ef.supportsDependentJoins());
+    	ef.setEnableDependentJoins(true);
+    	assertTrue(ef.supportsDependentJoins());
+    	assertEquals("create temporary table foo (COL1 int4, COL2 varchar(100)) on commit drop", TranslationHelper.helpTestTempTable(ef, true));
+    	assertEquals("create temporary table foo (COL1 int4, COL2 varchar(100)) ON COMMIT PRESERVE ROWS", TranslationHelper.helpTestTempTable(ef, false));
+    	assertEquals("drop table", ef.getDialect().getDropTemporaryTableString());
+    }
         
     @Test public void testFormatTimestampFrac() throws Exception {
         String input = "SELECT formattimestamp(now(), 'SSS'), formattimestamp(now(), 'SSSSSSS') FROM PARTS"; //$NON-NLS-1$
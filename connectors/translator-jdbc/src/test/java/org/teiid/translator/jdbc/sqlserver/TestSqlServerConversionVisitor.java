@@ -267,6 +267,22 @@ public class TestSqlServerConversionVisitor {
     	assertEquals("create table foo (COL1 int, COL2 varchar(100)) ", TranslationHelper.helpTestTempTable(trans, true));
     }
     
+    @Test public void testTempTableWithoutHibernate() throws Exception {
+    	SQLServerExecutionFactory ef = new SQLServerExecutionFactory() {
+    		@Override
+    		public String getHibernateDialectClassName() {
+    			return null;
+    		}
+    	};
+    	ef.setDatabaseVersion(SQLServerExecutionFactory.V_2005);
+    	ef.start();
+    	assertFalse(ef.supportsDependentJoins());
+    	ef.setEnableDependentJoins(true);
+    	assertTrue(ef.supportsDependentJoins());
+    	assertEquals("create table foo (COL1 int, COL2 varchar(100)) ", TranslationHelper.helpTestTempTable(ef, true));
+    	assertEquals("drop table", ef.getDialect().getDropTemporaryTableString());
+    }
+    
     @Test public void testUnicodeLiteral() throws Exception {
         String input = "select N'\u0FFF'"; //$NON-NLS-1$
         String output = "SELECT N'\u0FFF'"; //$NON-NLS-1$
@@ -31,4 +31,14 @@ public interface Cachable {
 	boolean restore(TupleBufferCache bufferManager);
 
 	AccessInfo getAccessInfo();
+	
+	/**
+	 * @return the estimated memory/disk footprint in bytes, or 0 if not known
+	 */
+	long getSizeEstimate();
+	
+	/**
+	 * @return the cost in milliseconds to produce the value, or 0 if not known
+	 */
+	long getCost();
 }
@@ -49,4 +49,10 @@ public interface BatchManager {
 	String[] getTypes();
 	
 	int getRowSizeEstimate();
+	
+	/**
+	 * Stop accounting for the batches against the buffer account of the creating request.
+	 * Used when ownership is handed to a cache or table store that outlives the request.
+	 */
+	void detachAccount();
 }
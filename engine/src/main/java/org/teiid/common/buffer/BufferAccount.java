@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the buffer usage of a request or session.  Updates to a request account
+ * are also applied to the parent session account.
+ * <br>
+ * All values are estimates based upon the batch size estimates and the blocks 
+ * used by the memory buffer.
+ */
+public class BufferAccount {
+	
+	private final BufferAccount parent;
+	private final AtomicLong sizeEstimate = new AtomicLong();
+	private final AtomicLong maxSizeEstimate = new AtomicLong();
+	private final AtomicLong heapBytes = new AtomicLong();
+	private final AtomicLong memoryBufferBytes = new AtomicLong();
+	private final AtomicLong spilledBytes = new AtomicLong();
+	
+	public BufferAccount(BufferAccount parent) {
+		this.parent = parent;
+	}
+	
+	public BufferAccount getParent() {
+		return parent;
+	}
+	
+	/**
+	 * Update the estimated size of all of the live batches, regardless of where they are held
+	 * @return the new size estimate
+	 */
+	public long addSizeEstimate(long bytes) {
+		if (parent != null) {
+			parent.addSizeEstimate(bytes);
+		}
+		long result = sizeEstimate.addAndGet(bytes);
+		if (bytes > 0) {
+			long max = maxSizeEstimate.get();
+			while (result > max && !maxSizeEstimate.compareAndSet(max, result)) {
+				max = maxSizeEstimate.get();
+			}
+		}
+		return result;
+	}
+	
+	public void addHeapBytes(long bytes) {
+		if (parent != null) {
+			parent.addHeapBytes(bytes);
+		}
+		heapBytes.addAndGet(bytes);
+	}
+	
+	public void addMemoryBufferBytes(long bytes) {
+		if (parent != null) {
+			parent.addMemoryBufferBytes(bytes);
+		}
+		memoryBufferBytes.addAndGet(bytes);
+	}
+	
+	public void addSpilledBytes(long bytes) {
+		if (parent != null) {
+			parent.addSpilledBytes(bytes);
+		}
+		spilledBytes.addAndGet(bytes);
+	}
+	
+	/**
+	 * @return the estimated size of all live batches
+	 */
+	public long getSizeEstimate() {
+		return sizeEstimate.get();
+	}
+	
+	/**
+	 * @return the highest value of {@link #getSizeEstimate()}
+	 */
+	public long getMaxSizeEstimate() {
+		return maxSizeEstimate.get();
+	}
+	
+	/**
+	 * @return the estimated size of batches held on heap
+	 */
+	public long getHeapBytes() {
+		return heapBytes.get();
+	}
+	
+	/**
+	 * @return the bytes of the memory buffer blocks, which may be off-heap
+	 */
+	public long getMemoryBufferBytes() {
+		return memoryBufferBytes.get();
+	}
+	
+	/**
+	 * @return the total bytes written to disk storage
+	 */
+	public long getSpilledBytes() {
+		return spilledBytes.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "BufferAccount size=" + getSizeEstimate() + " max=" + getMaxSizeEstimate() + " heap=" + getHeapBytes() + " memoryBuffer=" + getMemoryBufferBytes() + " spilled=" + getSpilledBytes(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+
+}
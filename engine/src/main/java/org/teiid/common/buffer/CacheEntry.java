@@ -29,6 +29,7 @@ public class CacheEntry extends BaseCacheEntry {
 	private Object object;
 	private final int sizeEstimate;
 	private WeakReference<? extends Serializer<?>> serializer;
+	private Long groupId;
 	
 	public CacheEntry(Long oid) {
 		this(new CacheKey(oid, 0, 0), 0, null, null, false);
@@ -80,5 +81,17 @@ public class CacheEntry extends BaseCacheEntry {
 		}
 		return ref.get();
 	}
+	
+	/**
+	 * Set the cache group of the entry, which unlike the serializer remains available 
+	 * after the owning manager has been collected 
+	 */
+	public void setGroupId(Long groupId) {
+		this.groupId = groupId;
+	}
+	
+	public Long getGroupId() {
+		return groupId;
+	}
 
 }
\ No newline at end of file
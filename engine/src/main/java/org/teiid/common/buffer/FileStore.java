@@ -229,6 +229,33 @@ public abstract class FileStore implements Removable {
 				}
 				return null;
 			}
+			
+			/**
+			 * Large reads with nothing buffered go directly to the store to avoid 
+			 * an intermediate copy.
+			 */
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if ((buf == null || !buf.hasRemaining()) && len >= bb.capacity()) {
+					if (this.streamLength != -1) {
+						if (this.streamLength == 0) {
+							return -1;
+						}
+						len = (int)Math.min(len, this.streamLength);
+					}
+					int bytes = FileStore.this.read(offset, b, off, len);
+					if (bytes == -1) {
+						return -1;
+					}
+					buf = null;
+					this.offset += bytes;
+					if (this.streamLength != -1) {
+						this.streamLength -= bytes;
+					}
+					return bytes;
+				}
+				return super.read(b, off, len);
+			}
 		};
 	}
 	
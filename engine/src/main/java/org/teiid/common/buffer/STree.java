@@ -545,6 +545,14 @@ public class STree implements Cloneable {
 		return this.leafManager.prefersMemory();
 	}
 	
+	/**
+	 * @see BatchManager#detachAccount()
+	 */
+	public void detachAccount() {
+		this.keyManager.detachAccount();
+		this.leafManager.detachAccount();
+	}
+	
 	public ListNestedSortComparator getComparator() {
 		return comparator;
 	}
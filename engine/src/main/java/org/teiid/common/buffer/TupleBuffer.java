@@ -397,6 +397,13 @@ public class TupleBuffer {
 		this.manager.setPrefersMemory(prefersMemory);
 	}
 	
+	/**
+	 * @see BatchManager#detachAccount()
+	 */
+	public void detachAccount() {
+		this.manager.detachAccount();
+	}
+	
 	public String[] getTypes() {
 		return manager.getTypes();
 	}
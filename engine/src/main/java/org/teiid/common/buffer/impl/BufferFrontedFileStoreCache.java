@@ -50,6 +50,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.teiid.common.buffer.AutoCleanupUtil;
+import org.teiid.common.buffer.BufferAccount;
 import org.teiid.common.buffer.Cache;
 import org.teiid.common.buffer.CacheEntry;
 import org.teiid.common.buffer.CacheKey;
@@ -57,6 +58,7 @@ import org.teiid.common.buffer.ExtensibleBufferedInputStream;
 import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.Serializer;
 import org.teiid.common.buffer.StorageManager;
+import org.teiid.common.buffer.impl.BufferManagerImpl.GroupAccount;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.util.ExecutorUtils;
@@ -670,6 +672,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
             			info.setSize(bos.getBytesWritten());
             			info.inode = blockManager.getInode();
         				memoryBufferEntries.add(info);
+        				accountMemoryBuffer(info, true);
 					}
             		success = true;
             	}
@@ -842,6 +845,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		    synchronized (info) {
 		        info.inode = manager.getInode();
 				memoryBufferEntries.add(info);
+				accountMemoryBuffer(info, true);
 				is = new BlockInputStream(manager, info.memoryBlockCount);
 			}
 			success = true;
@@ -1018,6 +1022,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 				if (info.inode != EMPTY_ADDRESS) {
 					info.inode = EMPTY_ADDRESS;
 					memoryBufferEntries.remove(info);
+					accountMemoryBuffer(info, false);
 				}
 				if (block != EMPTY_ADDRESS) {
 					if (demote) {
@@ -1025,6 +1030,12 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 							LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Assigning storage data block", block, "of size", sizeBasedStores[info.sizeIndex].blockSize); //$NON-NLS-1$ //$NON-NLS-2$
 						}
 						info.block = block;
+						if (this.bufferManager != null) {
+							BufferAccount account = this.bufferManager.getBufferAccount(info.gid);
+							if (account != null) {
+								account.addSpilledBytes(sizeBasedStores[info.sizeIndex].blockSize);
+							}
+						}
 					} else {
 						BlockStore blockStore = sizeBasedStores[info.sizeIndex];
 						blockStore.blocksInUse.clear(info.block);
@@ -1057,6 +1068,20 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		return result;
 	}
 
+	/**
+	 * Update the account of the owning group for the memory blocks held by the entry
+	 */
+	private void accountMemoryBuffer(PhysicalInfo info, boolean add) {
+		if (this.bufferManager == null) {
+			return;
+		}
+		GroupAccount account = this.bufferManager.getGroupAccount(info.gid);
+		if (account != null) {
+			long bytes = ((long)info.memoryBlockCount)<<LOG_BLOCK_SIZE;
+			account.addMemoryBufferBytes(add?bytes:-bytes);
+		}
+	}
+
 	boolean shouldDefrag(BlockStore blockStore, int segment, boolean all) {
 		int highestBitSet = blockStore.blocksInUse.getHighestBitSet(segment);
 		int bitsSet = blockStore.blocksInUse.getBitsSet(segment);
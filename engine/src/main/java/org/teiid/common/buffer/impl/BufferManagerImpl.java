@@ -56,6 +56,7 @@ import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.types.DataTypeManager.WeakReferenceHashedValueCache;
 import org.teiid.core.types.Streamable;
 import org.teiid.core.util.Assertion;
+import org.teiid.core.util.PropertiesUtils;
 import org.teiid.dqp.internal.process.DQPConfiguration;
 import org.teiid.dqp.internal.process.RequestWorkItem;
 import org.teiid.logging.LogConstants;
@@ -141,6 +142,78 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		}
 	}
 
+	/**
+	 * Tracks the batches of a cache group against a {@link BufferAccount}.
+	 * Held separately from the {@link BatchManagerImpl} so that the group may still be 
+	 * accounted for after the manager has been collected.
+	 */
+	static final class GroupAccount {
+		final BufferAccount account;
+		private long bytes;
+		private int batches;
+		private long heapBytes;
+		private long memoryBufferBytes;
+		private boolean removed;
+		
+		GroupAccount(BufferAccount account) {
+			this.account = account;
+		}
+		
+		synchronized void add(long size) {
+			if (removed) {
+				return;
+			}
+			bytes += size;
+			batches++;
+			account.addSizeEstimate(size);
+		}
+		
+		/**
+		 * Remove a batch, if the size is not known the average batch size is used 
+		 */
+		synchronized void remove(long size) {
+			if (removed || batches == 0) {
+				return;
+			}
+			if (size < 0) {
+				size = bytes/batches;
+			}
+			bytes -= size;
+			batches--;
+			account.addSizeEstimate(-size);
+		}
+		
+		synchronized void addHeapBytes(long size) {
+			if (removed) {
+				return;
+			}
+			heapBytes += size;
+			account.addHeapBytes(size);
+		}
+		
+		synchronized void addMemoryBufferBytes(long size) {
+			if (removed) {
+				return;
+			}
+			memoryBufferBytes += size;
+			account.addMemoryBufferBytes(size);
+		}
+		
+		/**
+		 * Reverse all of the usage of the group.  Later changes are ignored.
+		 */
+		synchronized void removeAll() {
+			account.addSizeEstimate(-bytes);
+			account.addHeapBytes(-heapBytes);
+			account.addMemoryBufferBytes(-memoryBufferBytes);
+			bytes = 0;
+			batches = 0;
+			heapBytes = 0;
+			memoryBufferBytes = 0;
+			removed = true;
+		}
+	}
+	
 	/**
 	 * This estimate is based upon adding the value to 2/3 maps and having CacheEntry/PhysicalInfo keys
 	 */
@@ -156,6 +229,8 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		private LobManager lobManager;
 		private long totalSize;
 		private long rowsSampled;
+		private GroupAccount groupAccount;
+		private boolean detached;
 
 		private BatchManagerImpl(Long newID, Class<?>[] types) {
 			this.id = newID;
@@ -208,6 +283,11 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			if (cleanup == null) {
 				cache.createCacheGroup(id);
 				cleanup = AutoCleanupUtil.setCleanupReference(this, new Remover(id, prefersMemory));
+				CommandContext context = CommandContext.getThreadLocalContext();
+				if (context != null && !detached) {
+					groupAccount = new GroupAccount(context.getBufferAccount());
+					groupAccounts.put(id, groupAccount);
+				}
 			}
 			CacheEntry old = null;
 			int sizeEstimate = 0;
@@ -227,11 +307,18 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 						updateEstimates = true;
 					}
 					BufferManagerImpl.this.remove(old, prefersMemory.get());
+					if (groupAccount != null) {
+						groupAccount.remove(old.getSizeEstimate());
+					}
 				}
 			} else {
 				updateEstimates = true;
 			}
 			sizeEstimate = getSizeEstimate(batch);
+			if (groupAccount != null) {
+				checkQuota(groupAccount.account, sizeEstimate);
+				groupAccount.add(sizeEstimate);
+			}
 			if (updateEstimates) {
 				totalSize += sizeEstimate;
 				rowsSampled += batch.size();
@@ -239,6 +326,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			Long oid = batchAdded.getAndIncrement();
 			CacheKey key = new CacheKey(oid, readAttempts.get(), old!=null?old.getKey().getOrderingValue():0);
 			CacheEntry ce = new CacheEntry(key, sizeEstimate, batch, this.ref, false);
+			ce.setGroupId(id);
 			if (!cache.addToCacheGroup(id, ce.getId())) {
 				this.remove();
 				throw new TeiidComponentException(QueryPlugin.Event.TEIID31138, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31138, id));
@@ -322,6 +410,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 				if (ce == null) {
 					throw new AssertionError("Batch not found in storage " + batch); //$NON-NLS-1$
 				}
+				ce.setGroupId(this.id);
 				if (!retain) {
 					removeFromCache(this.id, batch);
 					persistBatchReferences(ce.getSizeEstimate());
@@ -336,7 +425,20 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 
 		@Override
 		public void remove(Long batch) {
-			BufferManagerImpl.this.remove(id, batch, prefersMemory.get());
+			CacheEntry ce = BufferManagerImpl.this.remove(id, batch, prefersMemory.get());
+			if (groupAccount != null) {
+				groupAccount.remove(ce != null?ce.getSizeEstimate():-1);
+			}
+		}
+
+		@Override
+		public void detachAccount() {
+			detached = true;
+			if (groupAccount != null) {
+				groupAccounts.remove(id);
+				groupAccount.removeAll();
+				groupAccount = null;
+			}
 		}
 
 		@Override
@@ -393,6 +495,10 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     private int targetBytesPerRow = TARGET_BYTES_PER_ROW;
     private int maxSoftReferences;
     private int nominalProcessingMemoryMax = maxProcessingBytes;
+    private long maxRequestBufferSizeEstimate = PropertiesUtils.getLongProperty(System.getProperties(), "org.teiid.maxRequestBufferSizeEstimate", Long.MAX_VALUE); //$NON-NLS-1$
+    private long maxSessionBufferSizeEstimate = PropertiesUtils.getLongProperty(System.getProperties(), "org.teiid.maxSessionBufferSizeEstimate", Long.MAX_VALUE); //$NON-NLS-1$
+    
+    private ConcurrentHashMap<Long, GroupAccount> groupAccounts = new ConcurrentHashMap<Long, GroupAccount>();
 
     private ReentrantLock lock = new ReentrantLock();
     private Condition batchesFreed = lock.newCondition();
@@ -891,6 +997,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 						if (memoryEntries.remove(ce.getId()) != null) {
 							freed += ce.getSizeEstimate();
 							activeBatchBytes.addAndGet(-ce.getSizeEstimate());
+							addHeapBytes(ce, -ce.getSizeEstimate());
 							queue.remove(ce); //ensures that an intervening get will still be cleaned
 						}
 					}
@@ -1022,6 +1129,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 	private void remove(CacheEntry ce, boolean inMemory) {
 		if (inMemory) {
 			activeBatchBytes.addAndGet(-ce.getSizeEstimate());
+			addHeapBytes(ce, -ce.getSizeEstimate());
 		}
 		Serializer<?> s = ce.getSerializer();
 		if (s != null) {
@@ -1042,6 +1150,48 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			}
 		}
 		activeBatchBytes.getAndAdd(ce.getSizeEstimate());
+		addHeapBytes(ce, ce.getSizeEstimate());
+	}
+	
+	private void addHeapBytes(CacheEntry ce, long bytes) {
+		Long gid = ce.getGroupId();
+		if (gid == null) {
+			return;
+		}
+		GroupAccount groupAccount = groupAccounts.get(gid);
+		if (groupAccount != null) {
+			groupAccount.addHeapBytes(bytes);
+		}
+	}
+	
+	/**
+	 * Get the {@link GroupAccount} for the given cache group
+	 * @return the account or null if the group is not being accounted for
+	 */
+	GroupAccount getGroupAccount(Long gid) {
+		return groupAccounts.get(gid);
+	}
+	
+	/**
+	 * Get the {@link BufferAccount} for the given cache group
+	 * @return the account or null if the group is not being accounted for
+	 */
+	BufferAccount getBufferAccount(Long gid) {
+		GroupAccount groupAccount = groupAccounts.get(gid);
+		if (groupAccount == null) {
+			return null;
+		}
+		return groupAccount.account;
+	}
+	
+	void checkQuota(BufferAccount account, long sizeEstimate) throws TeiidComponentException {
+		if (account.getSizeEstimate() + sizeEstimate > maxRequestBufferSizeEstimate) {
+			throw new TeiidComponentException(QueryPlugin.Event.TEIID31165, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31165, "request", maxRequestBufferSizeEstimate>>10)); //$NON-NLS-1$
+		}
+		BufferAccount sessionAccount = account.getParent();
+		if (sessionAccount != null && sessionAccount.getSizeEstimate() + sizeEstimate > maxSessionBufferSizeEstimate) {
+			throw new TeiidComponentException(QueryPlugin.Event.TEIID31165, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31165, "session", maxSessionBufferSizeEstimate>>10)); //$NON-NLS-1$
+		}
 	}
 	
 	void removeCacheGroup(Long id, Boolean prefersMemory) {
@@ -1058,6 +1208,10 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 				fastGet(val, prefersMemory, false);
 			}
 		}
+		GroupAccount groupAccount = groupAccounts.remove(id);
+		if (groupAccount != null) {
+			groupAccount.removeAll();
+		}
 	}
 	
 	void cleanSoftReferences() {
@@ -1262,6 +1416,22 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 	public void setInlineLobs(boolean inlineLobs) {
 		this.inlineLobs = inlineLobs;
 	}
+	
+	/**
+	 * Set the maximum size estimate of the batches held by a single request
+	 * @param maxRequestBufferSizeEstimate in bytes, -1 or {@link Long#MAX_VALUE} for no limit
+	 */
+	public void setMaxRequestBufferSizeEstimate(long maxRequestBufferSizeEstimate) {
+		this.maxRequestBufferSizeEstimate = maxRequestBufferSizeEstimate < 0?Long.MAX_VALUE:maxRequestBufferSizeEstimate;
+	}
+	
+	/**
+	 * Set the maximum size estimate of the batches held by all requests of a session
+	 * @param maxSessionBufferSizeEstimate in bytes, -1 or {@link Long#MAX_VALUE} for no limit
+	 */
+	public void setMaxSessionBufferSizeEstimate(long maxSessionBufferSizeEstimate) {
+		this.maxSessionBufferSizeEstimate = maxSessionBufferSizeEstimate < 0?Long.MAX_VALUE:maxSessionBufferSizeEstimate;
+	}
 
 	public int getMaxReserveKB() {
 		return (int)maxReserveBytes>>10;
@@ -51,10 +51,18 @@ public class ByteLobChunkStream implements LobChunkProducer {
             throw new IllegalStateException(CorePlugin.Util.getString("stream_closed")); //$NON-NLS-1$
         }
                 
-        // read contents from the stream
+        // read contents from the stream - filling the chunk so that partial reads 
+        // do not produce small chunks
         byte[] cbuf = new byte[this.chunkSize];
-        int read = this.stream.read(cbuf);
-        if (read == -1) {
+        int read = 0;
+        while (read < this.chunkSize) {
+        	int count = this.stream.read(cbuf, read, this.chunkSize - read);
+        	if (count == -1) {
+        		break;
+        	}
+        	read += count;
+        }
+        if (read == 0) {
             return new LobChunk(new byte[0], true);
         }
         boolean isLast = false;
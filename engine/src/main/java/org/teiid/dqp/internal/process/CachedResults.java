@@ -52,6 +52,8 @@ public class CachedResults implements Serializable, Cachable {
 	private String uuid;
 	private boolean hasLobs;
 	private int rowLimit;
+	private long sizeEstimate;
+	private long cost;
 	
 	private AccessInfo accessInfo = new AccessInfo();
 	
@@ -125,4 +127,25 @@ public class CachedResults implements Serializable, Cachable {
 		this.rowLimit = rowLimit;
 	}
 	
+	@Override
+	public long getSizeEstimate() {
+		return sizeEstimate;
+	}
+	
+	public void setSizeEstimate(long sizeEstimate) {
+		this.sizeEstimate = sizeEstimate;
+	}
+	
+	@Override
+	public long getCost() {
+		return cost;
+	}
+	
+	/**
+	 * Set the time in milliseconds taken to produce the results
+	 */
+	public void setCost(long cost) {
+		this.cost = cost;
+	}
+	
 }
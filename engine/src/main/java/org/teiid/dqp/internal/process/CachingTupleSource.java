@@ -97,6 +97,7 @@ final class CachingTupleSource extends
 		        }
 		        tb.setPrefersMemory(Boolean.TRUE.equals(cd.getPrefersMemory()));
 		    	Determinism determinismLevel = getDeterminismLevel(this.dtts.scope);
+		        tb.detachAccount();
 		        this.dataTierManagerImpl.requestMgr.getRsCache().put(cid, determinismLevel, cr, cd.getTtl()); 
 		        tb = null;
 			}
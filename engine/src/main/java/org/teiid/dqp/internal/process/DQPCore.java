@@ -58,6 +58,7 @@ import org.teiid.client.util.ResultsFuture;
 import org.teiid.client.util.ResultsReceiver;
 import org.teiid.client.xa.XATransactionException;
 import org.teiid.client.xa.XidImpl;
+import org.teiid.common.buffer.BufferAccount;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
@@ -199,6 +200,14 @@ public class DQPCore implements DQP {
             	if (holder.getTransactionContext() != null && holder.getTransactionContext().getTransactionType() != Scope.NONE) {
             		req.setTransactionId(holder.getTransactionContext().getTransactionId());
             	}
+            	QueryProcessor processor = holder.getProcessor();
+            	if (processor != null) {
+            		BufferAccount account = processor.getContext().getBufferAccount();
+            		req.setBufferSizeEstimateKB(account.getSizeEstimate()>>10);
+            		req.setHeapMemoryKB(account.getHeapBytes()>>10);
+            		req.setMemoryBufferKB(account.getMemoryBufferBytes()>>10);
+            		req.setSpilledKB(account.getSpilledBytes()>>10);
+            	}
 
                 for (DataTierTupleSource conInfo : holder.getConnectorRequests()) {
                     String connectorName = conInfo.getConnectorName();
@@ -22,13 +22,18 @@
 
 package org.teiid.dqp.internal.process;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.teiid.cache.Cachable;
 import org.teiid.common.buffer.TupleBufferCache;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.optimizer.relational.PlanFeedbackStore;
+import org.teiid.query.optimizer.relational.rules.NewCalculateCostUtil;
 import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.processor.relational.AccessNode;
+import org.teiid.query.processor.relational.RelationalNode;
 import org.teiid.query.processor.relational.RelationalPlan;
 import org.teiid.query.sql.lang.Command;
 import org.teiid.query.sql.symbol.Reference;
@@ -40,6 +45,9 @@ public class PreparedPlan implements Cachable {
 	private Command command;
 	private List<Reference> refs;
 	private AnalysisRecord analysisRecord;
+	private long cost;
+	private Map<String, Float> estimates;
+	private long planTime;
 	
 	private AccessInfo accessInfo = new AccessInfo();
 	
@@ -84,9 +92,49 @@ public class PreparedPlan implements Cachable {
 			if (rp.getRootNode() instanceof AccessNode) {
 				this.accessInfo.setSensitiveToMetadataChanges(false);
 			}
+			this.estimates = null;
+			this.planTime = System.currentTimeMillis();
+			collectEstimates(rp.getRootNode());
+		}
+	}
+	
+	private void collectEstimates(RelationalNode node) {
+		if (node == null) {
+			return;
+		}
+		if (node instanceof AccessNode) {
+			String key = ((AccessNode)node).getFeedbackKey();
+			if (key != null) {
+				if (this.estimates == null) {
+					this.estimates = new HashMap<String, Float>();
+				}
+				Number estimate = node.getEstimateNodeCardinality();
+				this.estimates.put(key, estimate == null ? NewCalculateCostUtil.UNKNOWN_VALUE : estimate.floatValue());
+			}
+		}
+		for (RelationalNode child : node.getChildren()) {
+			collectEstimates(child);
 		}
 	}
 	
+	/**
+	 * @return true if the observed cardinalities no longer match the access
+	 * estimates used to create this plan.  A plan is not considered stale until it is 
+	 * at least {@link PlanFeedbackStore#getMinReplanInterval()} old.
+	 */
+	public boolean isStale(PlanFeedbackStore feedback) {
+		if (feedback == null || this.estimates == null 
+				|| System.currentTimeMillis() - this.planTime < feedback.getMinReplanInterval()) {
+			return false;
+		}
+		for (Map.Entry<String, Float> entry : this.estimates.entrySet()) {
+			if (feedback.isMisestimated(entry.getKey(), entry.getValue())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	/**
 	 * Set the plan description.
 	 */
@@ -123,6 +171,23 @@ public class PreparedPlan implements Cachable {
 		return true; //no remotable actions
 	}
 	
+	@Override
+	public long getSizeEstimate() {
+		return 0;
+	}
+	
+	@Override
+	public long getCost() {
+		return cost;
+	}
+	
+	/**
+	 * Set the planning time in milliseconds
+	 */
+	public void setCost(long cost) {
+		this.cost = cost;
+	}
+	
 	public boolean validate() {
 		return this.accessInfo.validate(false, 0);
 	}
@@ -106,6 +106,10 @@ public class PreparedStatementRequest extends Request {
         		LogManager.logDetail(LogConstants.CTX_DQP, requestId, "AuthorizationValidator indicates that the prepared plan for command will not be used"); //$NON-NLS-1$
             	prepPlan = null;
             	analysisRecord = null;
+            } else if (prepPlan.isStale(this.context.getPlanFeedbackStore())) {
+        		LogManager.logDetail(LogConstants.CTX_DQP, requestId, "Observed cardinalities differ from the prepared plan estimates, the plan will be recreated"); //$NON-NLS-1$
+            	prepPlan = null;
+            	analysisRecord = null;
             } else {
 	        	LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Query exist in cache: ", sqlQuery }); //$NON-NLS-1$
 	            processPlan = cachedPlan.clone();
@@ -116,7 +120,9 @@ public class PreparedStatementRequest extends Request {
             //if prepared plan does not exist, create one
             prepPlan = new PreparedPlan();
             LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Query does not exist in cache: ", sqlQuery}); //$NON-NLS-1$
+            long start = System.currentTimeMillis();
             super.generatePlan(false);
+            prepPlan.setCost(System.currentTimeMillis() - start);
         	prepPlan.setCommand(this.userCommand);
         	
         	//there's no need to cache the plan if it's a stored procedure, since we already do that in the optimizer
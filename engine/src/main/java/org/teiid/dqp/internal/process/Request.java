@@ -61,6 +61,7 @@ import org.teiid.query.metadata.TempCapabilitiesFinder;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.optimizer.QueryOptimizer;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
+import org.teiid.query.optimizer.relational.PlanFeedbackStore;
 import org.teiid.query.parser.ParseInfo;
 import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.ProcessorDataManager;
@@ -127,6 +128,7 @@ public class Request {
     protected Command userCommand;
     protected boolean returnsUpdateCount;
 	private GlobalTableStore globalTables;
+	private PlanFeedbackStore planFeedback;
 	private SessionAwareCache<PreparedPlan> planCache;
 	private boolean resultSetCacheEnabled = true;
 	private int userRequestConcurrency;
@@ -190,6 +192,15 @@ public class Request {
         VDBMetaData vdbMetadata = workContext.getVDB();
         metadata = vdbMetadata.getAttachment(QueryMetadataInterface.class);
         globalTables = vdbMetadata.getAttachment(GlobalTableStore.class);
+        if (options == null || options.isPlanFeedback()) {
+        	synchronized (vdbMetadata) {
+	        	planFeedback = vdbMetadata.getAttachment(PlanFeedbackStore.class);
+	        	if (planFeedback == null) {
+	        		planFeedback = new PlanFeedbackStore();
+	        		vdbMetadata.addAttchment(PlanFeedbackStore.class, planFeedback);
+	        	}
+        	}
+        }
 
         if (metadata == null) {
              throw new TeiidComponentException(QueryPlugin.Event.TEIID30489, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30489, this.vdbName, this.vdbVersion));
@@ -220,6 +231,7 @@ public class Request {
                 || LogManager.isMessageToBeRecorded(LogConstants.CTX_COMMANDLOGGING, MessageLevel.TRACE));
         this.context.setProcessorBatchSize(bufferManager.getProcessorBatchSize());
         this.context.setGlobalTableStore(this.globalTables);
+        this.context.setPlanFeedbackStore(this.planFeedback);
         boolean autoCleanLobs = true;
         if (this.workContext.getSession().isEmbedded()) {
 	        Object value = this.workContext.getSession().getSessionVariables().get(CLEAN_LOBS_ONCLOSE);
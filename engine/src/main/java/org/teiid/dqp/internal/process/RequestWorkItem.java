@@ -36,6 +36,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.teiid.api.exception.query.QueryParserException;
 import org.teiid.client.BatchSerializer;
 import org.teiid.client.RequestMessage;
 import org.teiid.client.RequestMessage.ShowPlan;
@@ -48,7 +49,9 @@ import org.teiid.client.util.ExceptionUtil;
 import org.teiid.client.util.ResultsReceiver;
 import org.teiid.client.xa.XATransactionException;
 import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.IndexedTupleSource;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
@@ -56,6 +59,7 @@ import org.teiid.core.TeiidException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.PropertiesUtils;
 import org.teiid.dqp.internal.process.AuthorizationValidator.CommandType;
 import org.teiid.dqp.internal.process.DQPCore.CompletionListener;
 import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
@@ -67,6 +71,7 @@ import org.teiid.dqp.service.TransactionContext.Scope;
 import org.teiid.dqp.service.TransactionService;
 import org.teiid.jdbc.EnhancedTimer.Task;
 import org.teiid.jdbc.SQLStates;
+import org.teiid.language.SortSpecification.NullOrdering;
 import org.teiid.logging.CommandLogMessage.Event;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
@@ -79,10 +84,17 @@ import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.BatchCollector;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.processor.QueryProcessor.ExpiredTimeSliceException;
+import org.teiid.query.processor.relational.SortUtility;
+import org.teiid.query.processor.relational.SortUtility.Mode;
 import org.teiid.query.sql.lang.CacheHint;
 import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.Limit;
+import org.teiid.query.sql.lang.OrderBy;
+import org.teiid.query.sql.lang.OrderByItem;
+import org.teiid.query.sql.lang.Query;
 import org.teiid.query.sql.lang.SPParameter;
 import org.teiid.query.sql.lang.StoredProcedure;
+import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.Symbol;
 import org.teiid.query.util.CommandContext;
@@ -100,6 +112,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	//TODO: this could be configurable
 	private static final int OUTPUT_BUFFER_MAX_BATCHES = 8;
 	private static final int CLIENT_FETCH_MAX_BATCHES = 3;
+	private static final boolean COMPRESS_RESULTS = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid.compressResults", false); //$NON-NLS-1$
 	
 	public static final class MoreWorkTask implements Runnable {
 
@@ -174,6 +187,9 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
     private Options options;
     private final int processorTimeslice;
 	private CacheID cid;
+	private CacheID producingCacheId;
+	private boolean waitedForCachedResults;
+	private String normalizedSql;
 	private final TransactionService transactionService;
 	private final DQPWorkContext dqpWorkContext;
 	boolean active;
@@ -187,6 +203,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
     private AnalysisRecord analysisRecord;
     private TransactionContext transactionContext;
     TupleBuffer resultsBuffer;
+    private boolean ownsDerivedResults;
     private boolean returnsUpdateCount;
     
     /*
@@ -461,6 +478,8 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 			if (!doneProducingBatches) {
 				done();
 			}
+			//wait until the results are final to allow other requests to use them
+			doneProducingCacheEntry();
 		}
 		if (this.transactionState == TransactionState.ACTIVE) {
 			this.transactionState = TransactionState.DONE;
@@ -491,6 +510,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	protected void close() {
 		int rowcount = -1;
 		try {
+			doneProducingCacheEntry();
 			cancelCancelTask();
 			if (moreWorkTask != null) {
 				moreWorkTask.cancel(false);
@@ -514,6 +534,11 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 					
 					CommandContext cc = this.processor.getContext();
 					cc.close();
+					if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+						LogManager.logDetail(LogConstants.CTX_DQP, "Request", requestID, cc.getBufferAccount()); //$NON-NLS-1$
+					}
+				} else if (this.ownsDerivedResults) {
+					resultsBuffer.remove();
 				}
 	
 				this.resultsBuffer = null;
@@ -612,7 +637,24 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 							return;
 						}
 						LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Cached result command to be modified, will not use the cached results", cacheId); //$NON-NLS-1$
-					} 
+					} else if (useDerivedCachedResults(rsCache, pi)) {
+						doneProducingBatches();
+						return;
+					}
+					if (!this.waitedForCachedResults && this.transactionState == TransactionState.NONE && !this.useCallingThread && !this.isCanceled) {
+						//only a single request needs to produce the results, the others wait for the cache entry
+						if (rsCache.isBeingProduced(cacheId, new Runnable() {
+							@Override
+							public void run() {
+								moreWork();
+							}
+						})) {
+							this.waitedForCachedResults = true;
+							this.state = ProcessingState.NEW;
+							throw BlockedException.block(requestID, "Waiting for the results being produced by another request", cacheId); //$NON-NLS-1$
+						}
+						this.producingCacheId = cacheId;
+					}
 				} else {
 					LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Parameters are not serializable - cache cannot be used for", cacheId); //$NON-NLS-1$
 				}
@@ -628,8 +670,10 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		originalCommand = request.userCommand;
         if (cachable && (requestMsg.useResultSetCache() || originalCommand.getCacheHint() != null) && rsCache != null && originalCommand.areResultsCachable()) {
         	this.cid = cacheId;
-        	//turn on the collection of data objects used
-        	request.processor.getContext().setDataObjects(new HashSet<Object>(4));
+        	//turn on the collection of data objects used - synchronized since access nodes may be opened by parallel union children
+        	request.processor.getContext().setDataObjects(Collections.synchronizedSet(new HashSet<Object>(4)));
+        } else {
+        	doneProducingCacheEntry();
         }
         request.processor.getContext().setWorkItem(this);
 		processor = request.processor;
@@ -776,6 +820,13 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
     	CachedResults cr = new CachedResults();
     	cr.setCommand(originalCommand);
         cr.setResults(resultsBuffer, processor.getProcessorPlan());
+        cr.setCost(System.currentTimeMillis() - this.processingTimestamp);
+        int rowSize = resultsBuffer.getRowSizeEstimate();
+        if (rowSize == 0) {
+        	BufferManager bm = dqpCore.getBufferManager();
+        	rowSize = bm.getSchemaSize(resultsBuffer.getSchema())/bm.getProcessorBatchSize(resultsBuffer.getSchema());
+        }
+        cr.setSizeEstimate((long)rowSize * resultsBuffer.getRowCount());
         if (requestMsg.getRowLimit() > 0 && resultsBuffer.getRowCount() == requestMsg.getRowLimit() + (collector.isSaveLastRow()?1:0)) {
         	cr.setRowLimit(requestMsg.getRowLimit());
         }
@@ -805,7 +856,163 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		} catch (TeiidException e) {
 			LogManager.logDetail(LogConstants.CTX_DQP, e, QueryPlugin.Util.getString("failed_to_cache")); //$NON-NLS-1$
 		}
-        dqpCore.getRsCache().put(cid, determinismLevel, cr, originalCommand.getCacheHint() != null?originalCommand.getCacheHint().getTtl():null);
+        Long ttl = originalCommand.getCacheHint() != null?originalCommand.getCacheHint().getTtl():null;
+        this.resultsBuffer.detachAccount();
+        dqpCore.getRsCache().put(cid, determinismLevel, cr, ttl);
+        if (this.normalizedSql != null) {
+        	//allow for requests that differ by limit or order by to find these results
+        	dqpCore.getRsCache().put(new CacheID(this.dqpWorkContext, Request.createParseInfo(requestMsg), this.normalizedSql), determinismLevel, cr, ttl);
+        }
+	}
+	
+	private void doneProducingCacheEntry() {
+		if (this.producingCacheId != null) {
+			dqpCore.getRsCache().doneProducing(this.producingCacheId);
+			this.producingCacheId = null;
+		}
+	}
+	
+	/**
+	 * Check for cached results of the same query without the limit and/or order by.  If found,
+	 * the results are sorted and limited into a buffer owned by this request.
+	 * @return true if the derived results should be used 
+	 */
+	private boolean useDerivedCachedResults(SessionAwareCache<CachedResults> rsCache, ParseInfo pi) throws TeiidComponentException, TeiidProcessingException {
+		if (requestMsg.getParameterValues() != null && !requestMsg.getParameterValues().isEmpty()) {
+			return false;
+		}
+		Command command = null;
+		try {
+			command = QueryParser.getQueryParser().parseCommand(requestMsg.getCommandString(), pi);
+		} catch (QueryParserException e) {
+			return false;
+		}
+		if (!(command instanceof Query) || ((Query)command).getInto() != null) {
+			return false;
+		}
+		Query query = (Query)command;
+		Limit limit = query.getLimit();
+		OrderBy orderBy = query.getOrderBy();
+		if (limit == null) {
+			String sql = query.toString();
+			if (!sql.equals(requestMsg.getCommandString())) {
+				this.normalizedSql = sql;
+			}
+			if (orderBy == null) {
+				return false;
+			}
+		}
+		int offset = 0;
+		int rowLimit = -1;
+		if (limit != null) {
+			if (!(limit.getRowLimit() instanceof Constant) || (limit.getOffset() != null && !(limit.getOffset() instanceof Constant))) {
+				return false;
+			}
+			rowLimit = (Integer)((Constant)limit.getRowLimit()).getValue();
+			if (limit.getOffset() != null) {
+				offset = (Integer)((Constant)limit.getOffset()).getValue();
+			}
+		}
+		Query base = (Query)query.clone();
+		base.setLimit(null);
+		for (int i = 0; i < 2; i++) {
+			if (i == 1) {
+				if (orderBy == null) {
+					break;
+				}
+				base.setOrderBy(null);
+			} else if (limit == null) {
+				continue;
+			}
+			String baseSql = base.toString();
+			CachedResults cr = rsCache.get(new CacheID(this.dqpWorkContext, pi, baseSql));
+			if (cr == null || cr.getRowLimit() != 0 || !cr.getResults().isFinal() || cr.getResults().isLobs()) {
+				continue;
+			}
+			request.initMetadata();
+			Command baseCommand = cr.getCommand(baseSql, request.metadata, pi);
+			if (request.validateAccess(requestMsg.getCommands(), baseCommand, CommandType.CACHED)) {
+				return false;
+			}
+			TupleBuffer results = cr.getResults();
+			SortUtility sort = null;
+			if (base.getOrderBy() == null && orderBy != null) {
+				sort = createSort(orderBy, baseCommand.getProjectedSymbols(), results);
+				if (sort == null) {
+					continue;
+				}
+				results = sort.sort();
+			}
+			LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Using result set cached results for", baseSql); //$NON-NLS-1$
+			try {
+				this.resultsBuffer = copyRows(results, offset, rowLimit);
+			} finally {
+				if (sort != null) {
+					sort.remove();
+				}
+			}
+			this.originalCommand = baseCommand;
+			this.ownsDerivedResults = true;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Create a sort over the cached results if all of the order by items are projected columns
+	 */
+	private SortUtility createSort(OrderBy orderBy, List<Expression> projected, TupleBuffer results) {
+		int[] cols = new int[orderBy.getOrderByItems().size()];
+		List<Boolean> sortTypes = new ArrayList<Boolean>(cols.length);
+		List<NullOrdering> nullOrderings = new ArrayList<NullOrdering>(cols.length);
+		for (int i = 0; i < cols.length; i++) {
+			OrderByItem item = orderBy.getOrderByItems().get(i);
+			Expression ex = item.getSymbol();
+			int index = -1;
+			if (ex instanceof Constant) {
+				index = (Integer)((Constant)ex).getValue() - 1;
+			} else if (ex instanceof Symbol) {
+				String name = Symbol.getShortName(ex);
+				for (int j = 0; j < projected.size(); j++) {
+					if (Symbol.getShortName(projected.get(j)).equalsIgnoreCase(name)) {
+						if (index != -1) {
+							return null; //ambiguous
+						}
+						index = j;
+					}
+				}
+			}
+			if (index < 0 || index >= projected.size()) {
+				return null;
+			}
+			cols[i] = index;
+			sortTypes.add(item.isAscending());
+			nullOrderings.add(item.getNullOrdering());
+		}
+		SortUtility sort = new SortUtility(results.createIndexedTupleSource(), Mode.SORT, dqpCore.getBufferManager(), 
+				this.dqpWorkContext.getSessionId(), results.getSchema(), sortTypes, nullOrderings, cols);
+		sort.setNonBlocking(true);
+		return sort;
+	}
+
+	private TupleBuffer copyRows(TupleBuffer source, int offset, int rowLimit) throws TeiidComponentException, TeiidProcessingException {
+		TupleBuffer result = dqpCore.getBufferManager().createTupleBuffer(source.getSchema(), this.dqpWorkContext.getSessionId(), TupleSourceType.FINAL);
+		boolean success = false;
+		try {
+			IndexedTupleSource its = source.createIndexedTupleSource();
+			its.setPosition(offset + 1);
+			while ((rowLimit < 0 || result.getRowCount() < rowLimit) && its.hasNext()) {
+				result.addTuple(its.nextTuple());
+			}
+			its.closeSource();
+			result.close();
+			success = true;
+			return result;
+		} finally {
+			if (!success) {
+				result.remove();
+			}
+		}
 	}
 	
 	public SessionAwareCache<CachedResults> getRsCache() {
@@ -1013,6 +1220,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         ResultsMessage result = new ResultsMessage(batch, columnNames, dataTypes);
         
 		result.setClientSerializationVersion(clientSerializationVersion);
+		result.setCompressBatches(COMPRESS_RESULTS && !this.dqpWorkContext.getSession().isEmbedded());
         result.setDelayDeserialization(this.requestMsg.isDelaySerialization() && this.originalCommand.returnsResultSet());
         return result;
     }
@@ -1279,7 +1487,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		return work;
 	}
 	
-    <T> FutureWork<T> addWork(Callable<T> callable, CompletionListener<T> listener, int priority) {
+    public <T> FutureWork<T> addWork(Callable<T> callable, CompletionListener<T> listener, int priority) {
     	FutureWork<T> work = new FutureWork<T>(callable, priority);
     	WorkWrapper<T> wl = new WorkWrapper<T>(work);
     	work.addCompletionListener(wl);
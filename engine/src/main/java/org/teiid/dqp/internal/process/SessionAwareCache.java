@@ -25,8 +25,14 @@ package org.teiid.dqp.internal.process;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.teiid.adminapi.Admin;
@@ -47,10 +53,17 @@ import org.teiid.vdb.runtime.VDBKey;
 
 /**
  * This class is used to cache session aware objects
+ * <br>
+ * In addition to the eviction performed by the underlying {@link Cache}, entries are 
+ * weighed by their estimated size and the cost to produce them.  When either the 
+ * max entries or the max size is exceeded the entries with the lowest 
+ * hits * cost / size (adjusted by the priority of the last eviction) are removed first - 
+ * so that large results that are cheap to recompute are evicted before small expensive ones.
  */
 public class SessionAwareCache<T> {
 	public static final String REPL = "-repl"; //$NON-NLS-1$
 	public static final int DEFAULT_MAX_SIZE_TOTAL = 512;
+	public static final long DEFAULT_MAX_RESULTSET_SIZE = 1l << 30;
 	public enum Type {
 		RESULTSET,
 		PREPAREDPLAN;
@@ -68,6 +81,67 @@ public class SessionAwareCache<T> {
 	
 	private TupleBufferCache bufferManager;
 	
+	private Map<CacheID, List<Runnable>> inProgress = new HashMap<CacheID, List<Runnable>>();
+	
+	private int maxEntries = DEFAULT_MAX_SIZE_TOTAL;
+	private long maxSizeTotal = -1;
+	private long sizeTotal;
+	private double inflation;
+	private Map<CacheID, EntryStatistics> entryStats = new HashMap<CacheID, EntryStatistics>();
+	private Map<T, EntryStatistics> valueStats = new WeakHashMap<T, EntryStatistics>();
+	
+	/**
+	 * Statistics for a cached value, which may be held under several keys 
+	 */
+	public static class EntryStatistics {
+		private List<CacheID> ids = new ArrayList<CacheID>(1);
+		private long sizeEstimate;
+		private long cost;
+		private int hits;
+		private long lastAccess;
+		private long expiration;
+		private double priority;
+		
+		EntryStatistics(long sizeEstimate, long cost) {
+			this.sizeEstimate = sizeEstimate;
+			this.cost = cost;
+		}
+		
+		void access(double inflation) {
+			this.lastAccess = System.currentTimeMillis();
+			this.priority = inflation + (double)(hits + 1) * Math.max(1, cost) / Math.max(1, sizeEstimate);
+		}
+		
+		boolean isExpired(long now) {
+			return expiration != 0 && expiration < now;
+		}
+		
+		public long getSizeEstimate() {
+			return sizeEstimate;
+		}
+		
+		public long getCost() {
+			return cost;
+		}
+		
+		public int getHitCount() {
+			return hits;
+		}
+		
+		public long getLastAccess() {
+			return lastAccess;
+		}
+		
+		public List<CacheID> getIds() {
+			return ids;
+		}
+		
+		@Override
+		public String toString() {
+			return "size=" + sizeEstimate + " cost=" + cost + " hits=" + hits + " " + ids; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+	}
+	
 	public SessionAwareCache (String cacheName, final CacheFactory cacheFactory, final Type type, int maxStaleness) {
 		assert (cacheFactory != null);
 		
@@ -84,6 +158,9 @@ public class SessionAwareCache<T> {
 		}
 		this.modTime = maxStaleness * 1000;
 		this.type = type;
+		if (type == Type.RESULTSET) {
+			this.maxSizeTotal = DEFAULT_MAX_RESULTSET_SIZE;
+		}
 		
 		assert (this.localCache != null);
 		assert (this.distributedCache != null);
@@ -97,14 +174,20 @@ public class SessionAwareCache<T> {
 		T result = localCache.get(id);
 		
 		if (result == null) {
+			//the entry may have been dropped by the ttl or eviction of the underlying cache
+			removeMissedStatistics(id);
 			id.setSessionId(null);
 			
 			id.setUserName(id.originalUserName);
 			result = distributedCache.get(id);
 			
 			if (result == null) {
+				removeMissedStatistics(id);
 				id.setUserName(null);
 				result = distributedCache.get(id);
+				if (result == null) {
+					removeMissedStatistics(id);
+				}
 			}
 			
 			if (result instanceof Cachable) {
@@ -126,17 +209,58 @@ public class SessionAwareCache<T> {
 					} else {
 						this.localCache.remove(id);
 					}
+					synchronized (entryStats) {
+						removeStatistics(id);
+					}
 					return null;
 				}
 			}
 			LogManager.logTrace(LogConstants.CTX_DQP, "Cache hit for", id); //$NON-NLS-1$
 			cacheHit.getAndIncrement();
+			synchronized (entryStats) {
+				EntryStatistics stats = entryStats.get(id);
+				if (stats != null) {
+					stats.hits++;
+					stats.access(inflation);
+				}
+			}
 		} else {
 			LogManager.logTrace(LogConstants.CTX_DQP, "Cache miss for", id); //$NON-NLS-1$
 		}
 		return result;
 	}
 	
+	/**
+	 * Allow only a single request to produce an entry.
+	 * @param onCompletion run once the entry is no longer being produced if another request is the producer
+	 * @return true if another request is producing the entry.  If false the caller is 
+	 * now the producer and must call {@link #doneProducing(CacheID)}
+	 */
+	public boolean isBeingProduced(CacheID id, Runnable onCompletion) {
+		CacheID key = id.getProducerKey();
+		synchronized (inProgress) {
+			List<Runnable> waiting = inProgress.get(key);
+			if (waiting != null) {
+				waiting.add(onCompletion);
+				return true;
+			}
+			inProgress.put(key, new ArrayList<Runnable>(2));
+		}
+		return false;
+	}
+	
+	public void doneProducing(CacheID id) {
+		List<Runnable> waiting = null;
+		synchronized (inProgress) {
+			waiting = inProgress.remove(id.getProducerKey());
+		}
+		if (waiting != null) {
+			for (Runnable runnable : waiting) {
+				runnable.run();
+			}
+		}
+	}
+	
 	public int getCacheHitCount() {
 		return cacheHit.get();
 	}
@@ -160,6 +284,9 @@ public class SessionAwareCache<T> {
 		if (determinismLevel.compareTo(Determinism.SESSION_DETERMINISTIC) <= 0) {
 			id.setSessionId(id.originalSessionId);
 			LogManager.logTrace(LogConstants.CTX_DQP, "Removing from session/local cache", id); //$NON-NLS-1$
+			synchronized (entryStats) {
+				removeStatistics(id);
+			}
 			return this.localCache.remove(id);
 		} 
 		id.setSessionId(null);
@@ -172,15 +299,30 @@ public class SessionAwareCache<T> {
 		}
 		
 		LogManager.logTrace(LogConstants.CTX_DQP, "Removing from global/distributed cache", id); //$NON-NLS-1$
+		synchronized (entryStats) {
+			removeStatistics(id);
+		}
 		return this.distributedCache.remove(id);
 	}
 	
 	public void put(CacheID id, Determinism determinismLevel, T t, Long ttl){
 		cachePuts.incrementAndGet();
+		long sizeEstimate = 0;
+		long cost = 0;
+		if (t instanceof Cachable) {
+			Cachable c = (Cachable)t;
+			sizeEstimate = c.getSizeEstimate();
+			cost = c.getCost();
+			if (maxSizeTotal >= 0 && sizeEstimate > maxSizeTotal) {
+				LogManager.logDetail(LogConstants.CTX_DQP, "Not caching as the estimated size", sizeEstimate, "exceeds the max cache size", id); //$NON-NLS-1$ //$NON-NLS-2$
+				return;
+			}
+		}
 		if (determinismLevel.compareTo(Determinism.SESSION_DETERMINISTIC) <= 0) {
 			id.setSessionId(id.originalSessionId);
 			LogManager.logTrace(LogConstants.CTX_DQP, "Adding to session/local cache", id); //$NON-NLS-1$
 			this.localCache.put(id, t, ttl);
+			track(id, t, ttl, sizeEstimate, cost);
 		} 
 		else {
 			
@@ -203,10 +345,148 @@ public class SessionAwareCache<T> {
 			if (insert) {
 				LogManager.logTrace(LogConstants.CTX_DQP, "Adding to global/distributed cache", id); //$NON-NLS-1$
 				this.distributedCache.put(id, t, ttl);
+				track(id, t, ttl, sizeEstimate, cost);
+			}
+		}
+	}
+	
+	private void track(CacheID id, T t, Long ttl, long sizeEstimate, long cost) {
+		List<CacheID> evicted = null;
+		synchronized (entryStats) {
+			CacheID key = id.getScopedKey();
+			removeStatistics(key);
+			EntryStatistics stats = valueStats.get(t);
+			if (stats == null || stats.ids.isEmpty()) {
+				stats = new EntryStatistics(sizeEstimate, cost);
+				valueStats.put(t, stats);
+				sizeTotal += sizeEstimate;
+			}
+			stats.ids.add(key);
+			entryStats.put(key, stats);
+			if (ttl != null) {
+				stats.expiration = Math.max(stats.expiration, System.currentTimeMillis() + ttl);
+			}
+			stats.access(inflation);
+			evicted = selectEvictions(stats);
+		}
+		if (evicted == null) {
+			return;
+		}
+		for (CacheID key : evicted) {
+			if (key.getSessionId() != null) {
+				this.localCache.remove(key);
+			} else {
+				this.distributedCache.remove(key);
+			}
+		}
+	}
+	
+	private boolean isOverLimit() {
+		return (maxSizeTotal >= 0 && sizeTotal > maxSizeTotal) || (maxEntries >= 0 && entryStats.size() > maxEntries);
+	}
+	
+	/**
+	 * Select the keys to evict, which are for expired entries and then those with the lowest priority.
+	 * Must be called holding the entryStats lock. 
+	 */
+	private List<CacheID> selectEvictions(EntryStatistics added) {
+		if (!isOverLimit()) {
+			return null;
+		}
+		final long now = System.currentTimeMillis();
+		Map<EntryStatistics, Boolean> distinct = new IdentityHashMap<EntryStatistics, Boolean>();
+		for (EntryStatistics stats : entryStats.values()) {
+			distinct.put(stats, Boolean.TRUE);
+		}
+		List<EntryStatistics> candidates = new ArrayList<EntryStatistics>(distinct.keySet());
+		Collections.sort(candidates, new Comparator<EntryStatistics>() {
+			@Override
+			public int compare(EntryStatistics o1, EntryStatistics o2) {
+				boolean expired = o1.isExpired(now);
+				if (expired != o2.isExpired(now)) {
+					return expired?-1:1;
+				}
+				return Double.compare(o1.priority, o2.priority);
+			}
+		});
+		List<CacheID> result = new ArrayList<CacheID>();
+		for (EntryStatistics stats : candidates) {
+			if (!isOverLimit()) {
+				break;
+			}
+			if (stats == added) {
+				continue;
+			}
+			if (!stats.isExpired(now)) {
+				inflation = Math.max(inflation, stats.priority);
+			}
+			LogManager.logDetail(LogConstants.CTX_DQP, "Evicting cache entry", stats); //$NON-NLS-1$
+			for (CacheID key : stats.ids) {
+				entryStats.remove(key);
+			}
+			sizeTotal -= stats.sizeEstimate;
+			result.addAll(stats.ids);
+			stats.ids.clear();
+		}
+		return result;
+	}
+	
+	private void removeMissedStatistics(CacheID id) {
+		synchronized (entryStats) {
+			removeStatistics(id);
+		}
+	}
+	
+	/**
+	 * Must be called holding the entryStats lock. 
+	 */
+	private void removeStatistics(CacheID id) {
+		EntryStatistics stats = entryStats.remove(id);
+		if (stats == null) {
+			return;
+		}
+		stats.ids.remove(id);
+		if (stats.ids.isEmpty()) {
+			sizeTotal -= stats.sizeEstimate;
+		}
+	}
+	
+	/**
+	 * @return a snapshot of the statistics for the entries added to this cache
+	 */
+	public List<EntryStatistics> getEntryStatistics() {
+		synchronized (entryStats) {
+			Map<EntryStatistics, Boolean> distinct = new IdentityHashMap<EntryStatistics, Boolean>();
+			for (EntryStatistics stats : entryStats.values()) {
+				distinct.put(stats, Boolean.TRUE);
 			}
+			return new ArrayList<EntryStatistics>(distinct.keySet());
+		}
+	}
+	
+	/**
+	 * @return the total estimated size in bytes of the entries added to this cache
+	 */
+	public long getSizeEstimateTotal() {
+		synchronized (entryStats) {
+			return sizeTotal;
 		}
 	}
 	
+	/**
+	 * Set the max number of entries, -1 to rely only upon the underlying cache 
+	 */
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+	
+	/**
+	 * Set the max total estimated size in bytes, -1 for no limit 
+	 */
+	public void setMaxSizeTotal(long maxSizeTotal) {
+		this.maxSizeTotal = maxSizeTotal;
+	}
+	
 	/**
 	 * Clear all the cached plans for all the clientConns
 	 * @param clientConn ClientConnection
@@ -214,6 +494,12 @@ public class SessionAwareCache<T> {
 	public void clearAll(){
 		this.localCache.clear();
 		this.distributedCache.clear();
+		synchronized (entryStats) {
+			this.entryStats.clear();
+			this.valueStats.clear();
+			this.sizeTotal = 0;
+			this.inflation = 0;
+		}
 		this.totalRequests.set(0);
 		this.cacheHit.set(0);
 		this.cachePuts.set(0);
@@ -229,6 +515,9 @@ public class SessionAwareCache<T> {
 		VDBKey vdbKey = new VDBKey(vdbName, version);
 		for (CacheID key:keys) {
 			if (key.vdbInfo.equals(vdbKey)) {
+				synchronized (entryStats) {
+					removeStatistics(key);
+				}
 				cache.remove(key);
 			}
 		}
@@ -257,6 +546,32 @@ public class SessionAwareCache<T> {
 			this.originalSessionId = sessionId;
 			this.originalUserName = userName;
 		}
+		
+		private CacheID(CacheID id) {
+			this.sql = id.sql;
+			this.vdbInfo = id.vdbInfo;
+			this.ansiIdentifiers = id.ansiIdentifiers;
+			this.parameters = id.parameters;
+		}
+		
+		/**
+		 * @return a key for the sql and parameters that does not change with the session/user scope
+		 */
+		CacheID getProducerKey() {
+			return new CacheID(this);
+		}
+		
+		/**
+		 * @return a copy of this key with the current session/user scope
+		 */
+		CacheID getScopedKey() {
+			CacheID result = new CacheID(this);
+			result.sessionId = this.sessionId;
+			result.userName = this.userName;
+			result.originalSessionId = this.originalSessionId;
+			result.originalUserName = this.originalUserName;
+			return result;
+		}
 
 		
 		public String getSessionId() {
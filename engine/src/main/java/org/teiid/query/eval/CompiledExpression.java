@@ -0,0 +1,340 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.eval;
+
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.metadata.FunctionMethod.PushDown;
+import org.teiid.query.QueryPlugin;
+import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.function.FunctionLibrary;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.NotCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.DerivedExpression;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.ExpressionSymbol;
+import org.teiid.query.sql.symbol.Function;
+
+/**
+ * A resolved {@link Expression} or {@link Criteria} converted into a tree of evaluation
+ * nodes with the element lookups, function descriptors, and operators determined once
+ * rather than for each row.
+ * <br>
+ * Only the common expression forms are compiled, everything else is delegated
+ * back to the {@link Evaluator}.  Compiled expressions hold no state and may be shared
+ * by plan clones that use the same element map.
+ */
+public abstract class CompiledExpression {
+
+	private static class ColumnReference extends CompiledExpression {
+		private int index;
+
+		ColumnReference(Expression expression, int index) {
+			super(expression);
+			this.index = index;
+		}
+
+		@Override
+		Object internalEvaluate(Evaluator eval, List<?> tuple) {
+			return tuple.get(index);
+		}
+	}
+
+	private static class ConstantValue extends CompiledExpression {
+		private Object value;
+
+		ConstantValue(Constant expression) {
+			super(expression);
+			this.value = expression.getValue();
+		}
+
+		@Override
+		Object internalEvaluate(Evaluator eval, List<?> tuple) {
+			return value;
+		}
+	}
+
+	private static class FunctionCall extends CompiledExpression {
+		private FunctionDescriptor fd;
+		private CompiledExpression[] args;
+		private boolean requiresContext;
+
+		FunctionCall(Function expression, CompiledExpression[] args) {
+			super(expression);
+			this.fd = expression.getFunctionDescriptor();
+			this.requiresContext = fd.requiresContext();
+			this.args = args;
+		}
+
+		@Override
+		Object internalEvaluate(Evaluator eval, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Object[] values = null;
+			int start = 0;
+			if (requiresContext) {
+				values = new Object[args.length + 1];
+				values[0] = eval.context;
+				start = 1;
+			} else {
+				values = new Object[args.length];
+			}
+			for (int i = 0; i < args.length; i++) {
+				values[i + start] = args[i].internalEvaluate(eval, tuple);
+			}
+			return fd.invokeFunction(values, eval.context, null);
+		}
+	}
+
+	private static class Compare extends CompiledExpression {
+		private CompiledExpression left;
+		private CompiledExpression right;
+
+		Compare(CompareCriteria expression, CompiledExpression left, CompiledExpression right) {
+			super(expression);
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			CompareCriteria criteria = (CompareCriteria)getExpression();
+			Object leftValue = null;
+			try {
+				leftValue = left.internalEvaluate(eval, tuple);
+			} catch(ExpressionEvaluationException e) {
+				 throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30312, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30312, "left", criteria)); //$NON-NLS-1$
+			}
+			if (leftValue == null) {
+				return null;
+			}
+			Object rightValue = null;
+			try {
+				rightValue = right.internalEvaluate(eval, tuple);
+			} catch(ExpressionEvaluationException e) {
+				 throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30312, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30312, "right", criteria)); //$NON-NLS-1$
+			}
+			if (rightValue == null) {
+				return null;
+			}
+			return Evaluator.compare(criteria, leftValue, rightValue);
+		}
+	}
+
+	private static class Compound extends CompiledExpression {
+		private CompiledExpression[] crits;
+		private boolean and;
+
+		Compound(CompoundCriteria expression, CompiledExpression[] crits) {
+			super(expression);
+			this.crits = crits;
+			this.and = expression.getOperator() == CompoundCriteria.AND;
+		}
+
+		@Override
+		Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Boolean result = and?Boolean.TRUE:Boolean.FALSE;
+			for (int i = 0; i < crits.length; i++) {
+				Boolean value = crits[i].evaluateTVL(eval, tuple);
+				if (value == null) {
+					result = null;
+				} else if (!value.booleanValue()) {
+					if (and) {
+						return Boolean.FALSE;
+					}
+				} else if (!and) {
+					return Boolean.TRUE;
+				}
+			}
+			return result;
+		}
+	}
+
+	private static class Not extends CompiledExpression {
+		private CompiledExpression crit;
+
+		Not(NotCriteria expression, CompiledExpression crit) {
+			super(expression);
+			this.crit = crit;
+		}
+
+		@Override
+		Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Boolean result = crit.evaluateTVL(eval, tuple);
+			if (result == null) {
+				return null;
+			}
+			return !result.booleanValue();
+		}
+	}
+
+	private static class IsNull extends CompiledExpression {
+		private CompiledExpression value;
+		private boolean negated;
+
+		IsNull(IsNullCriteria expression, CompiledExpression value) {
+			super(expression);
+			this.value = value;
+			this.negated = expression.isNegated();
+		}
+
+		@Override
+		Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Object result = null;
+			try {
+				result = value.internalEvaluate(eval, tuple);
+			} catch(ExpressionEvaluationException e) {
+				 throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30323, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30323, getExpression()));
+			}
+			return (result == null ^ negated);
+		}
+	}
+
+	/**
+	 * Delegates to the {@link Evaluator}
+	 */
+	private static class Interpreted extends CompiledExpression {
+
+		Interpreted(Expression expression) {
+			super(expression);
+		}
+
+		@Override
+		Object internalEvaluate(Evaluator eval, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			return eval.internalEvaluate(getExpression(), tuple);
+		}
+
+		@Override
+		Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			return eval.evaluateTVL((Criteria)getExpression(), tuple);
+		}
+	}
+
+	/**
+	 * Compile the given expression.
+	 * @param expression a resolved expression or criteria
+	 * @param elements the same element lookup map that would be used by the {@link Evaluator}
+	 * @return
+	 */
+	public static CompiledExpression compile(Expression expression, Map<? extends Expression, Integer> elements) {
+		if (expression instanceof DerivedExpression) {
+			if (elements != null) {
+				Integer index = elements.get(expression);
+				if (index != null) {
+					return new ColumnReference(expression, index);
+				}
+			}
+			if (expression instanceof ExpressionSymbol) {
+				return compile(((ExpressionSymbol)expression).getExpression(), elements);
+			}
+		} else if (expression instanceof Constant) {
+			return new ConstantValue((Constant)expression);
+		} else if (expression instanceof Function) {
+			Function function = (Function)expression;
+			FunctionDescriptor fd = function.getFunctionDescriptor();
+			if (fd != null && fd.getPushdown() != PushDown.MUST_PUSHDOWN && !function.getName().equalsIgnoreCase(FunctionLibrary.LOOKUP)) {
+				Expression[] args = function.getArgs();
+				CompiledExpression[] compiledArgs = new CompiledExpression[args.length];
+				for (int i = 0; i < args.length; i++) {
+					compiledArgs[i] = compile(args[i], elements);
+				}
+				return new FunctionCall(function, compiledArgs);
+			}
+		} else if (expression instanceof CompareCriteria) {
+			CompareCriteria crit = (CompareCriteria)expression;
+			return new Compare(crit, compile(crit.getLeftExpression(), elements), compile(crit.getRightExpression(), elements));
+		} else if (expression instanceof CompoundCriteria) {
+			List<Criteria> crits = ((CompoundCriteria)expression).getCriteria();
+			CompiledExpression[] compiled = new CompiledExpression[crits.size()];
+			for (int i = 0; i < compiled.length; i++) {
+				compiled[i] = compile(crits.get(i), elements);
+			}
+			return new Compound((CompoundCriteria)expression, compiled);
+		} else if (expression instanceof NotCriteria) {
+			NotCriteria crit = (NotCriteria)expression;
+			return new Not(crit, compile(crit.getCriteria(), elements));
+		} else if (expression instanceof IsNullCriteria) {
+			IsNullCriteria crit = (IsNullCriteria)expression;
+			return new IsNull(crit, compile(crit.getExpression(), elements));
+		}
+		return new Interpreted(expression);
+	}
+
+	private Expression expression;
+
+	CompiledExpression(Expression expression) {
+		this.expression = expression;
+	}
+
+	public Expression getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Evaluate as an expression.
+	 */
+	public Object evaluate(Evaluator eval, List<?> tuple)
+			throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+		try {
+			return internalEvaluate(eval, tuple);
+		} catch (ExpressionEvaluationException e) {
+	         throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30328, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30328, new Object[] {expression, e.getMessage()}));
+		}
+	}
+
+	/**
+	 * Evaluate as a criteria.
+	 * @return true only if the criteria evaluates to true
+	 */
+	public boolean matches(Evaluator eval, List<?> tuple)
+			throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+		return Boolean.TRUE.equals(evaluateTVL(eval, tuple));
+	}
+
+	/**
+	 * Criteria used as expressions evaluate to true/false, see {@link Evaluator#internalEvaluate(Expression, List)}
+	 */
+	Object internalEvaluate(Evaluator eval, List<?> tuple)
+			throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+		return Boolean.TRUE.equals(evaluateTVL(eval, tuple));
+	}
+
+	Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+			throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+		return (Boolean)internalEvaluate(eval, tuple);
+	}
+
+}
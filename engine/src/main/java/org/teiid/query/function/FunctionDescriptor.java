@@ -66,6 +66,8 @@ public class FunctionDescriptor implements Serializable, Cloneable {
     // a different VM.  This function descriptor can be used to look up 
     // the real VM descriptor for execution.
     private transient Method invocationMethod;
+    // Determined once rather than on each invocation, as getParameterTypes returns a copy
+    private transient Class<?>[] parameterTypes;
     
     private ClassLoader classLoader;
 	
@@ -81,6 +83,15 @@ public class FunctionDescriptor implements Serializable, Cloneable {
         this.requiresContext = requiresContext;
         this.method = method;
         this.classLoader = classloader;
+        if (invocationMethod != null) {
+        	this.parameterTypes = invocationMethod.getParameterTypes();
+        	try {
+        		//skip the access check on each invocation
+        		invocationMethod.setAccessible(true);
+        	} catch (SecurityException e) {
+        		//ignore
+        	}
+        }
 	}
 	
 	public Object newInstance() {
@@ -234,7 +245,7 @@ public class FunctionDescriptor implements Serializable, Cloneable {
 	        				}
 	        				values[values.length - 1] = vals;
 	        			}
-	    				Class<?> arrayType = invocationMethod.getParameterTypes()[types.length - 1];
+	    				Class<?> arrayType = parameterTypes[types.length - 1];
 						if (arrayType.getComponentType() != Object.class
 	    						&& vals.getClass() != arrayType) {
 	    					Object varArgs = Array.newInstance(arrayType.getComponentType(), vals.length);
@@ -245,12 +256,13 @@ public class FunctionDescriptor implements Serializable, Cloneable {
 	    				}
         			}
         		} else {
-	        		int i = invocationMethod.getParameterTypes().length;
+	        		int i = parameterTypes.length;
 	        		Object[] newValues = Arrays.copyOf(values, i);
 	        		Object varArgs = null;
-	        		if (invocationMethod.getParameterTypes()[i - 1].getComponentType() != Object.class) {
+	        		Class<?> componentType = parameterTypes[i - 1].getComponentType();
+	        		if (componentType != Object.class) {
 		        		int varArgCount = values.length - i + 1;
-		        		varArgs = Array.newInstance(invocationMethod.getParameterTypes()[i - 1].getComponentType(), varArgCount);
+		        		varArgs = Array.newInstance(componentType, varArgCount);
 		        		for (int j = 0; j < varArgCount; j++) {
 		        			Array.set(varArgs, j, values[i-1+j]);
 		        		}
@@ -262,14 +274,17 @@ public class FunctionDescriptor implements Serializable, Cloneable {
         		}
         	}
         	Object result = null;
-        	ClassLoader originalCL = Thread.currentThread().getContextClassLoader();
-        	try {
-        	    if (this.classLoader != null) {
-        	        Thread.currentThread().setContextClassLoader(this.classLoader);
-        	    }
-        	    result = invocationMethod.invoke(functionTarget, values);
-        	} finally {
-        	    Thread.currentThread().setContextClassLoader(originalCL);
+        	Thread thread = Thread.currentThread();
+        	ClassLoader originalCL = thread.getContextClassLoader();
+        	if (this.classLoader == null || this.classLoader == originalCL) {
+        		result = invocationMethod.invoke(functionTarget, values);
+        	} else {
+	        	try {
+	        		thread.setContextClassLoader(this.classLoader);
+	        	    result = invocationMethod.invoke(functionTarget, values);
+	        	} finally {
+	        		thread.setContextClassLoader(originalCL);
+	        	}
         	}
             if (context != null && getDeterministic().ordinal() <= Determinism.USER_DETERMINISTIC.ordinal()) {
             	context.setDeterminismLevel(getDeterministic());
@@ -34,6 +34,7 @@ import javax.script.ScriptEngine;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.metadata.ColumnStats;
 import org.teiid.query.eval.TeiidScriptEngine;
 import org.teiid.query.function.FunctionLibrary;
 import org.teiid.query.mapping.relational.QueryNode;
@@ -150,6 +151,14 @@ public class BasicQueryMetadata implements QueryMetadataInterface {
                                                   QueryMetadataException {
         return -1;
     }
+    
+    /** 
+     * @see org.teiid.query.metadata.QueryMetadataInterface#getColumnStats(java.lang.Object)
+     */
+    public ColumnStats getColumnStats(Object elementID) throws TeiidComponentException,
+    												QueryMetadataException {
+    	return null;
+    }
     /** 
      * @see org.teiid.query.metadata.QueryMetadataInterface#getNullValues(java.lang.Object)
      * @since 4.3
@@ -492,9 +492,29 @@ public class DDLStringVisitor {
 			addOption(options, DISTINCT_VALUES, column.getDistinctValues());
 		}		
 		
+		if (column.getHistogram() != null) {
+			addOption(options, HISTOGRAM, toStatisticsValues(column.getHistogram()));
+		}
+		
+		if (column.getMostCommonValues() != null && column.getMostCommonFrequencies() != null) {
+			addOption(options, MOST_COMMON_VALUES, toStatisticsValues(column.getMostCommonValues()));
+			addOption(options, MOST_COMMON_FREQUENCIES, StringUtil.toString(column.getMostCommonFrequencies().toArray(), COMMA, false));
+		}
+		
 		buildOptions(column, options);
 	}
 	
+	private static String toStatisticsValues(List<String> values) {
+		StringBuilder sb = new StringBuilder();
+		for (String value : values) {
+			if (sb.length() > 0) {
+				sb.append(COMMA);
+			}
+			sb.append('\'').append(StringUtil.replaceAll(value, "'", "''")).append('\''); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return sb.toString();
+	}
+	
 	private void appendOptions(AbstractMetadataRecord record) {
 		StringBuilder options = new StringBuilder();
 		addCommonOptions(options, record);
@@ -51,6 +51,20 @@ public class MaterializationMetadataRepository extends MetadataRepository {
 	public static final String MATVIEW_UPDATABLE = "{http://www.teiid.org/ext/relational/2012}MATVIEW_UPDATABLE"; //$NON-NLS-1$
 	public static final String MATVIEW_PREFER_MEMORY = "{http://www.teiid.org/ext/relational/2012}MATVIEW_PREFER_MEMORY"; //$NON-NLS-1$
 	public static final String MATVIEW_SCOPE = "{http://www.teiid.org/ext/relational/2012}MATVIEW_SCOPE"; //$NON-NLS-1$
+	/**
+	 * Comma separated list of view column names to store with an index of an internal materialized view 
+	 */
+	public static final String MATVIEW_INDEX_INCLUDE = "{http://www.teiid.org/ext/relational/2012}MATVIEW_INDEX_INCLUDE"; //$NON-NLS-1$
+	/**
+	 * Query returning the changed rows of an internal materialized view in the column order of the view.
+	 * An additional trailing boolean column may be returned with true indicating that the row with the given key has been deleted.
+	 * If {@link #MATVIEW_DELTA_COLUMN} is set, the query must have a single parameter reference that is bound to the last value of that column seen.
+	 */
+	public static final String MATVIEW_DELTA_QUERY = "{http://www.teiid.org/ext/relational/2012}MATVIEW_DELTA_QUERY"; //$NON-NLS-1$
+	/**
+	 * The timestamp or version view column used to track the high-water mark for the {@link #MATVIEW_DELTA_QUERY}
+	 */
+	public static final String MATVIEW_DELTA_COLUMN = "{http://www.teiid.org/ext/relational/2012}MATVIEW_DELTA_COLUMN"; //$NON-NLS-1$
 	
 	public enum LoadStates {NEEDS_LOADING, LOADING, LOADED, FAILED_LOAD};
 	public enum Scope {NONE, VDB, SCHEMA};
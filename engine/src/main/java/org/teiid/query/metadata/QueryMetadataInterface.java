@@ -33,6 +33,7 @@ import javax.script.ScriptEngine;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.metadata.ColumnStats;
 import org.teiid.query.function.FunctionLibrary;
 import org.teiid.query.mapping.relational.QueryNode;
 import org.teiid.query.mapping.xml.MappingNode;
@@ -248,6 +249,17 @@ public interface QueryMetadataInterface {
      */
     float getDistinctValues(Object elementID)
         throws TeiidComponentException, QueryMetadataException;        
+    
+    /**
+     * Get the detailed statistics for this column, such as the histogram and most common values.  
+     * Only applicable for physical columns.
+     * @param elementID The element ID
+     * @return The statistics or null if none are available
+     * @throws QueryMetadataException Metadata implementation detected a problem during the request
+     * @throws TeiidComponentException Unexpected internal system problem during request
+     */
+    ColumnStats getColumnStats(Object elementID)
+        throws TeiidComponentException, QueryMetadataException;
 
     /**
      * Get the number of distinct values for this column.  Negative values (typically -1)
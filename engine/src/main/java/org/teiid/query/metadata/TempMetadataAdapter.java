@@ -35,6 +35,7 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.StringUtil;
 import org.teiid.metadata.Column;
+import org.teiid.metadata.ColumnStats;
 import org.teiid.metadata.Procedure;
 import org.teiid.metadata.Table;
 import org.teiid.query.QueryPlugin;
@@ -300,6 +301,16 @@ public class TempMetadataAdapter extends BasicQueryMetadataWrapper {
         }         
         return this.actualMetadata.getDistinctValues(elementID);
     }
+    
+    /**
+     * @see org.teiid.query.metadata.QueryMetadataInterface#getColumnStats(java.lang.Object)
+     */
+    public ColumnStats getColumnStats(Object elementID) throws TeiidComponentException, QueryMetadataException {
+    	if(elementID instanceof TempMetadataID) {
+    		return null;
+    	}
+    	return this.actualMetadata.getColumnStats(elementID);
+    }
 
     /**
      * @see org.teiid.query.metadata.QueryMetadataInterface#getNullValues(java.lang.Object)
@@ -823,7 +834,7 @@ public class TempMetadataAdapter extends BasicQueryMetadataWrapper {
     @Override
     public String getExtensionProperty(Object metadataID, String key,
     		boolean checkUnqualified) {
-    	if (metadataID instanceof TempMetadataID) {
+    	if (metadataID instanceof TempMetadataID || metadataID instanceof List) {
     		return null;
     	}
     	return super.getExtensionProperty(metadataID, key, checkUnqualified);
@@ -911,6 +911,30 @@ public class TransformationMetadata extends BasicQueryMetadata implements Serial
         }
     }
 
+    @Override
+    public ColumnStats getColumnStats(final Object elementID) throws TeiidComponentException, QueryMetadataException {
+    	if(elementID instanceof Column) {
+    		Column column = (Column) elementID;
+    		ColumnStats stats = new ColumnStats();
+    		if (column.getDistinctValues() != -1) {
+    			stats.setDistinctValues(column.getDistinctValuesAsFloat());
+    		}
+    		if (column.getNullValues() != -1) {
+    			stats.setNullValues(column.getNullValuesAsFloat());
+    		}
+    		stats.setMinimumValue(column.getMinimumValue());
+    		stats.setMaximumValue(column.getMaximumValue());
+    		stats.setHistogram(column.getHistogram());
+    		stats.setMostCommonValues(column.getMostCommonValues());
+    		stats.setMostCommonFrequencies(column.getMostCommonFrequencies());
+    		return stats;
+    	} else if(elementID instanceof ProcedureParameter) {
+    		return null;            
+    	} else {
+    		throw createInvalidRecordTypeException(elementID);            
+    	}
+    }
+
     @Override
     public float getNullValues(final Object elementID) throws TeiidComponentException, QueryMetadataException {
         if(elementID instanceof Column) {
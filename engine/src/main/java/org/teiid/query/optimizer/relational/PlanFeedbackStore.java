@@ -0,0 +1,259 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.optimizer.relational;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.core.util.LRUCache;
+import org.teiid.metadata.AbstractMetadataRecord;
+import org.teiid.metadata.Column;
+import org.teiid.metadata.Table;
+import org.teiid.query.optimizer.relational.plantree.NodeConstants;
+import org.teiid.query.optimizer.relational.plantree.PlanNode;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.DependentSetCriteria;
+import org.teiid.query.sql.lang.FromClause;
+import org.teiid.query.sql.lang.Query;
+import org.teiid.query.sql.lang.UnaryFromClause;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.GroupSymbol;
+import org.teiid.query.sql.symbol.Reference;
+import org.teiid.query.sql.visitor.ElementCollectorVisitor;
+import org.teiid.query.sql.visitor.SQLStringVisitor;
+import org.teiid.query.sql.visitor.ValueIteratorProviderCollectorVisitor;
+
+/**
+ * Holds the observed cardinalities of simple source queries so that the planner 
+ * can use them in place of estimates.
+ * <br>
+ * Observations are keyed by the physical group and the shape of the predicates, with 
+ * literal and parameter values removed, so that the same key is produced from an
+ * access node during planning and from the pushdown command during processing.
+ * <br>
+ * Since a single observation is kept for all values, predicates against columns with 
+ * most common values or a histogram are not keyed and are left to the per value estimates. 
+ */
+public class PlanFeedbackStore {
+	
+	public static final int DEFAULT_MAX_ENTRIES = 4096;
+	
+	/**
+	 * The factor between an estimate and the observed cardinality at which a cached plan should be replanned
+	 */
+	public static final float STALE_RATIO = 10;
+	
+	/**
+	 * Differences below this cardinality are not worth replanning for
+	 */
+	public static final float MIN_STALE_CARDINALITY = 100;
+	
+	/**
+	 * The default minimum age in milliseconds of a cached plan before it may be replanned 
+	 */
+	public static final long DEFAULT_MIN_REPLAN_INTERVAL = 60000;
+	
+	private static final class FeedbackStringVisitor extends SQLStringVisitor {
+		@Override
+		public void visit(Constant obj) {
+			append("?"); //$NON-NLS-1$
+		}
+		
+		@Override
+		public void visit(Reference obj) {
+			append("?"); //$NON-NLS-1$
+		}
+		
+		@Override
+		public void visit(ElementSymbol obj) {
+			if (obj.getMetadataID() instanceof AbstractMetadataRecord) {
+				append(((AbstractMetadataRecord)obj.getMetadataID()).getFullName());
+			} else {
+				super.visit(obj);
+			}
+		}
+	}
+	
+	private Map<String, Float> observed = Collections.synchronizedMap(new LRUCache<String, Float>(DEFAULT_MAX_ENTRIES));
+	private volatile long minReplanInterval = DEFAULT_MIN_REPLAN_INTERVAL;
+	
+	/**
+	 * Record an observed cardinality.  Repeated observations are averaged 
+	 * to favor recent values. 
+	 */
+	public void recordCardinality(String key, float cardinality) {
+		synchronized (observed) {
+			Float previous = observed.get(key);
+			if (previous != null) {
+				cardinality = (previous + cardinality) / 2;
+			}
+			observed.put(key, cardinality);
+		}
+	}
+	
+	/**
+	 * @return the observed cardinality or null if there is no observation
+	 */
+	public Float getCardinality(String key) {
+		if (key == null) {
+			return null;
+		}
+		return observed.get(key);
+	}
+	
+	/**
+	 * @param estimate the cardinality estimate used in planning, negative if unknown
+	 * @return true if the observed cardinality differs enough from the estimate to warrant replanning
+	 */
+	public boolean isMisestimated(String key, float estimate) {
+		Float actual = getCardinality(key);
+		if (actual == null) {
+			return false;
+		}
+		if (estimate < 0) {
+			return true;
+		}
+		float max = Math.max(actual, estimate);
+		float min = Math.max(1, Math.min(actual, estimate));
+		return max >= MIN_STALE_CARDINALITY && max / min >= STALE_RATIO;
+	}
+	
+	public int size() {
+		return observed.size();
+	}
+	
+	public long getMinReplanInterval() {
+		return minReplanInterval;
+	}
+	
+	/**
+	 * Limits how often a cached plan may be replanned, so that executions with 
+	 * differing observations do not thrash the plan cache.
+	 */
+	public void setMinReplanInterval(long minReplanInterval) {
+		this.minReplanInterval = minReplanInterval;
+	}
+	
+	/**
+	 * Get the key for an access node in the plan tree.  Only access nodes over a single 
+	 * physical source that is not dependent and is only filtered, projected, or sorted have a key.
+	 * @return the key or null if the access node is not eligible
+	 */
+	public static String getKey(PlanNode accessNode) {
+		List<Criteria> crits = new ArrayList<Criteria>();
+		PlanNode node = accessNode.getFirstChild();
+		while (node != null) {
+			switch (node.getType()) {
+			case NodeConstants.Types.SELECT:
+				if (node.hasBooleanProperty(NodeConstants.Info.IS_DEPENDENT_SET)) {
+					return null;
+				}
+				if (!node.hasBooleanProperty(NodeConstants.Info.IS_PHANTOM)) {
+					crits.add((Criteria)node.getProperty(NodeConstants.Info.SELECT_CRITERIA));
+				}
+				break;
+			case NodeConstants.Types.PROJECT:
+			case NodeConstants.Types.SORT:
+				break;
+			case NodeConstants.Types.SOURCE:
+				if (node.getChildCount() != 0 || node.getGroups().size() != 1 
+						|| node.getProperty(NodeConstants.Info.NESTED_COMMAND) != null) {
+					return null;
+				}
+				return getKey(node.getGroups().iterator().next(), crits);
+			default:
+				return null;
+			}
+			if (node.getChildCount() != 1) {
+				return null;
+			}
+			node = node.getFirstChild();
+		}
+		return null;
+	}
+	
+	/**
+	 * Get the key for a pushdown command.  Only a non-dependent query against a 
+	 * single physical source without grouping, distinct, or limit has a key.
+	 * @return the key or null if the command is not eligible
+	 */
+	public static String getKey(Command command) {
+		if (!(command instanceof Query)) {
+			return null;
+		}
+		Query query = (Query)command;
+		if (query.getFrom() == null || query.getFrom().getClauses().size() != 1 || query.getGroupBy() != null 
+				|| query.getHaving() != null || query.getLimit() != null || query.getInto() != null 
+				|| query.getSelect().isDistinct() || query.hasAggregates() || query.getWith() != null) {
+			return null;
+		}
+		FromClause clause = query.getFrom().getClauses().get(0);
+		if (!(clause instanceof UnaryFromClause) || ((UnaryFromClause)clause).getExpandedCommand() != null) {
+			return null;
+		}
+		List<Criteria> crits = Criteria.separateCriteriaByAnd(query.getCriteria());
+		for (Criteria crit : crits) {
+			if (crit instanceof DependentSetCriteria) {
+				return null;
+			}
+		}
+		return getKey(((UnaryFromClause)clause).getGroup(), crits);
+	}
+
+	private static String getKey(GroupSymbol group, Collection<Criteria> crits) {
+		if (!(group.getMetadataID() instanceof Table) || ((Table)group.getMetadataID()).isVirtual() 
+				|| !ValueIteratorProviderCollectorVisitor.getValueIteratorProviders(crits).isEmpty()) {
+			return null;
+		}
+		List<ElementSymbol> elements = new ArrayList<ElementSymbol>();
+		ElementCollectorVisitor.getElements(crits, elements);
+		for (ElementSymbol element : elements) {
+			if (element.getMetadataID() instanceof Column) {
+				Column column = (Column)element.getMetadataID();
+				if (column.getMostCommonValues() != null || column.getHistogram() != null) {
+					return null;
+				}
+			}
+		}
+		List<String> predicates = new ArrayList<String>();
+		for (Criteria crit : crits) {
+			for (Criteria conjunct : Criteria.separateCriteriaByAnd(crit)) {
+				FeedbackStringVisitor visitor = new FeedbackStringVisitor();
+				conjunct.acceptVisitor(visitor);
+				predicates.add(visitor.getSQLString());
+			}
+		}
+		Collections.sort(predicates);
+		StringBuilder key = new StringBuilder(((Table)group.getMetadataID()).getFullName());
+		for (int i = 0; i < predicates.size(); i++) {
+			key.append(i == 0 ? " WHERE " : " AND ").append(predicates.get(i)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return key.toString();
+	}
+
+}
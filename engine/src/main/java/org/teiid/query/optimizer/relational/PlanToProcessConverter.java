@@ -262,6 +262,12 @@ public class PlanToProcessConverter {
                     List rightExpressions = (List) node.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS);
                     jnode.setJoinExpressions(leftExpressions, rightExpressions);
                     joinCrits = (List) node.getProperty(NodeConstants.Info.NON_EQUI_JOIN_CRITERIA);
+                } else if (stype == JoinStrategyType.HASH) {
+                	jnode.setJoinStrategy(new HashJoinStrategy());
+                    List leftExpressions = (List) node.getProperty(NodeConstants.Info.LEFT_EXPRESSIONS);
+                    List rightExpressions = (List) node.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS);
+                    jnode.setJoinExpressions(leftExpressions, rightExpressions);
+                    joinCrits = (List) node.getProperty(NodeConstants.Info.NON_EQUI_JOIN_CRITERIA);
                 } else if (stype == JoinStrategyType.NESTED_TABLE) {
                 	NestedTableJoinStrategy ntjStrategy = new NestedTableJoinStrategy();
                 	jnode.setJoinStrategy(ntjStrategy);
@@ -435,7 +441,9 @@ public class PlanToProcessConverter {
 			case NodeConstants.Types.SORT:
 			case NodeConstants.Types.DUP_REMOVE:
 				if (node.getType() == NodeConstants.Types.DUP_REMOVE) {
-					processNode = new DupRemoveNode(getID());
+					DupRemoveNode dupRemoveNode = new DupRemoveNode(getID());
+					dupRemoveNode.setUseHash(node.hasBooleanProperty(Info.USE_HASH));
+					processNode = dupRemoveNode;
 				} else {
 	                SortNode sortNode = new SortNode(getID());
 	                OrderBy orderBy = (OrderBy) node.getProperty(NodeConstants.Info.SORT_ORDER);
@@ -455,6 +463,7 @@ public class PlanToProcessConverter {
 				SymbolMap groupingMap = (SymbolMap)node.getProperty(NodeConstants.Info.SYMBOL_MAP);
 				gnode.setOutputMapping(groupingMap);
 				gnode.setRemoveDuplicates(node.hasBooleanProperty(NodeConstants.Info.IS_DUP_REMOVAL));
+				gnode.setUseHash(node.hasBooleanProperty(NodeConstants.Info.USE_HASH));
 				List<Expression> gCols = (List) node.getProperty(NodeConstants.Info.GROUP_COLS);
 				OrderBy orderBy = (OrderBy) node.getProperty(Info.SORT_ORDER);
 				if (orderBy == null) {
@@ -567,7 +576,9 @@ public class PlanToProcessConverter {
                     } else {
                     	boolean onlyDupRemoval = node.hasBooleanProperty(NodeConstants.Info.IS_DUP_REMOVAL);
                     	if (onlyDupRemoval) {
-                    		processNode = new DupRemoveNode(getID());
+                    		DupRemoveNode dupRemoveNode = new DupRemoveNode(getID());
+                    		dupRemoveNode.setUseHash(node.hasBooleanProperty(Info.USE_HASH));
+                    		processNode = dupRemoveNode;
                     	} else {
                         	SortNode sNode = new SortNode(getID());
                         	sNode.setMode(Mode.DUP_REMOVE_SORT);
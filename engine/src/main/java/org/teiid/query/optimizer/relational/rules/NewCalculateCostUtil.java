@@ -33,13 +33,16 @@ import org.teiid.api.exception.query.QueryPlannerException;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
 import org.teiid.language.Like.MatchMode;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.metadata.ColumnStats;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
+import org.teiid.query.optimizer.relational.PlanFeedbackStore;
 import org.teiid.query.optimizer.relational.RelationalPlanner;
 import org.teiid.query.optimizer.relational.plantree.NodeConstants;
 import org.teiid.query.optimizer.relational.plantree.NodeConstants.Info;
@@ -65,6 +68,11 @@ public class NewCalculateCostUtil {
 
     public static final int UNKNOWN_JOIN_SCALING = 20;
 	public static final float UNKNOWN_VALUE = -1;
+	
+	/**
+	 * The number of batches of groups allowed for hash aggregation
+	 */
+	static final int MAX_HASH_GROUP_BATCHES = 64;
     
     // the following variables are used to hold cost estimates (roughly in milliseconds)
     private final static float compareTime = .0001f; //TODO: a better estimate would be based upon the number of conjuncts
@@ -174,6 +182,17 @@ public class NewCalculateCostUtil {
             	}
                 break;
             case NodeConstants.Types.ACCESS:
+            {
+                PlanNode child = node.getFirstChild();
+                Float childCost = (Float)child.getProperty(NodeConstants.Info.EST_CARDINALITY);
+                //prefer the cardinality observed from prior executions
+                Float observed = getObservedCardinality(node);
+                if (observed != null) {
+                	childCost = observed;
+                }
+                setCardinalityEstimate(node, childCost, true, metadata);
+                break;
+            }
             case NodeConstants.Types.SORT:
             {
                 //Simply record the cost of the only child
@@ -232,6 +251,18 @@ public class NewCalculateCostUtil {
         }
     }
 
+	private static Float getObservedCardinality(PlanNode accessNode) {
+		CommandContext context = CommandContext.getThreadLocalContext();
+		if (context == null) {
+			return null;
+		}
+		PlanFeedbackStore feedback = context.getPlanFeedbackStore();
+		if (feedback == null || feedback.size() == 0) {
+			return null;
+		}
+		return feedback.getCardinality(PlanFeedbackStore.getKey(accessNode));
+	}
+
 	private static void estimateSetOpCost(PlanNode node,
 			QueryMetadataInterface metadata) throws QueryMetadataException,
 			TeiidComponentException {
@@ -826,6 +857,12 @@ public class NewCalculateCostUtil {
                     return UNKNOWN_VALUE;
                 }
                 cost = childCost / ndv;
+                if (!unknownChildCost) {
+                	float selectivity = estimateSelectivity(compCrit.getLeftExpression(), CompareCriteria.EQ, Arrays.asList(compCrit.getRightExpression()), metadata);
+                	if (selectivity != UNKNOWN_VALUE) {
+                		cost = Math.max(childCost * selectivity, Math.min(childCost, 1));
+                	}
+                }
                 if (compCrit.getOperator() == CompareCriteria.NE) {
                     isNegatedPredicateCriteria = true;
                 }
@@ -847,6 +884,10 @@ public class NewCalculateCostUtil {
                 return UNKNOWN_VALUE;
             }
             cost = childCost * setCriteria.getNumberOfValues() / ndv;
+            float selectivity = estimateSelectivity(setCriteria.getExpression(), CompareCriteria.EQ, setCriteria.getValues(), metadata);
+            if (selectivity != UNKNOWN_VALUE) {
+            	cost = Math.max(childCost * selectivity, Math.min(childCost, 1));
+            }
             
             isNegatedPredicateCriteria = setCriteria.isNegated();
             
@@ -939,6 +980,13 @@ public class NewCalculateCostUtil {
         }
         ElementSymbol element = (ElementSymbol)compCrit.getLeftExpression();
         Class<?> dataType = compCrit.getRightExpression().getType();
+        
+        if (!unknownChildCost) {
+        	float selectivity = estimateSelectivity(element, compCrit.getOperator(), Arrays.asList(compCrit.getRightExpression()), metadata);
+        	if (selectivity != UNKNOWN_VALUE) {
+        		return Math.max(childCost * selectivity, Math.min(childCost, 1));
+        	}
+        }
     
         String max = (String)metadata.getMaximumValue(element.getMetadataID());
         String min = (String)metadata.getMinimumValue(element.getMetadataID());
@@ -1013,6 +1061,163 @@ public class NewCalculateCostUtil {
         return cost;
     }
     
+    /**
+     * Estimate the fraction of rows where the column compares to one of the constant values 
+     * using the most common values and the equi-depth histogram of the column.
+     * @param operator one of the {@link CompareCriteria} EQ, LT, LE, GT, or GE operators
+     * @return the selectivity or {@link #UNKNOWN_VALUE} if the statistics are not available
+     */
+    static float estimateSelectivity(Expression expr, int operator, Collection<?> values, QueryMetadataInterface metadata) 
+    		throws QueryMetadataException, TeiidComponentException {
+    	if (!(expr instanceof ElementSymbol)) {
+    		return UNKNOWN_VALUE;
+    	}
+    	ElementSymbol element = (ElementSymbol)expr;
+    	ColumnStats stats = metadata.getColumnStats(element.getMetadataID());
+    	if (stats == null || (stats.getHistogram() == null && stats.getMostCommonValues() == null)) {
+    		return UNKNOWN_VALUE;
+    	}
+    	Class<?> type = element.getType();
+    	List<Object> mcvs = Collections.emptyList();
+    	List<Float> frequencies = Collections.emptyList();
+    	List<Object> histogram = null;
+    	float mcvTotal = 0;
+    	try {
+	    	if (stats.getMostCommonValues() != null && stats.getMostCommonFrequencies() != null 
+	    			&& stats.getMostCommonValues().size() == stats.getMostCommonFrequencies().size()) {
+	    		mcvs = transformValues(stats.getMostCommonValues(), type);
+	    		frequencies = stats.getMostCommonFrequencies();
+	    		for (Float frequency : frequencies) {
+	    			mcvTotal += frequency;
+	    		}
+	    	}
+	    	if (stats.getHistogram() != null && stats.getHistogram().size() > 1) {
+	    		histogram = transformValues(stats.getHistogram(), type);
+	    	}
+    	} catch (TransformationException e) {
+    		return UNKNOWN_VALUE;
+    	}
+    	float nullFraction = 0;
+    	if (stats.getNullValues() != null) {
+    		float cardinality = metadata.getCardinality(element.getGroupSymbol().getMetadataID());
+    		if (cardinality > 0) {
+    			nullFraction = Math.min(1, stats.getNullValues().floatValue() / cardinality);
+    		}
+    	}
+    	//the fraction of rows not represented by the most common values
+    	float remaining = Math.max(0, 1 - nullFraction - mcvTotal);
+    	float result = 0;
+    	for (Object object : values) {
+    		if (!(object instanceof Constant)) {
+    			return UNKNOWN_VALUE;
+    		}
+    		Object value = ((Constant)object).getValue();
+    		if (value == null) {
+    			continue;
+    		}
+    		if (value.getClass() != type) {
+    			try {
+					value = DataTypeManager.transformValue(value, type);
+				} catch (TransformationException e) {
+					return UNKNOWN_VALUE;
+				}
+    		}
+    		boolean mcvMatch = false;
+    		for (int i = 0; i < mcvs.size(); i++) {
+    			if (compare(operator, Constant.COMPARATOR.compare(mcvs.get(i), value))) {
+    				result += frequencies.get(i);
+    				mcvMatch = true;
+    			}
+    		}
+    		if (remaining == 0 || (operator == CompareCriteria.EQ && mcvMatch)) {
+    			continue;
+    		}
+    		if (histogram != null 
+    				&& (Constant.COMPARATOR.compare(value, histogram.get(0)) < 0 || Constant.COMPARATOR.compare(value, histogram.get(histogram.size() - 1)) > 0)) {
+    			//outside of the range of the remaining values
+    			if (operator == CompareCriteria.EQ) {
+    				continue;
+    			}
+    		}
+    		if (operator == CompareCriteria.EQ) {
+    			if (stats.getDistinctValues() == null || stats.getDistinctValues().floatValue() - mcvs.size() < 1) {
+    				return UNKNOWN_VALUE;
+    			}
+    			result += remaining / (stats.getDistinctValues().floatValue() - mcvs.size()); 
+    		} else if (histogram == null) {
+    			return UNKNOWN_VALUE;
+    		} else {
+    			float lessThan = getHistogramFraction(histogram, value);
+    			if (operator == CompareCriteria.LT || operator == CompareCriteria.LE) {
+    				result += remaining * lessThan;
+    			} else {
+    				result += remaining * (1 - lessThan);
+    			}
+    		}
+    	}
+    	return Math.min(1, result);
+    }
+    
+    private static List<Object> transformValues(List<String> values, Class<?> type) throws TransformationException {
+    	List<Object> result = new ArrayList<Object>(values.size());
+    	for (String value : values) {
+    		result.add(DataTypeManager.transformValue(value, type));
+    	}
+    	return result;
+    }
+
+    private static boolean compare(int operator, int compare) {
+    	switch (operator) {
+    	case CompareCriteria.EQ:
+    		return compare == 0;
+    	case CompareCriteria.LT:
+    		return compare < 0;
+    	case CompareCriteria.LE:
+    		return compare <= 0;
+    	case CompareCriteria.GT:
+    		return compare > 0;
+    	case CompareCriteria.GE:
+    		return compare >= 0;
+    	}
+    	return false;
+    }
+
+    /**
+     * @return the fraction of the histogram values less than the given value, 
+     * interpolating within a bucket for numeric and temporal values
+     */
+    private static float getHistogramFraction(List<Object> histogram, Object value) {
+    	int buckets = histogram.size() - 1;
+    	if (Constant.COMPARATOR.compare(value, histogram.get(0)) <= 0) {
+    		return 0;
+    	}
+    	if (Constant.COMPARATOR.compare(value, histogram.get(buckets)) >= 0) {
+    		return 1;
+    	}
+    	int i = 0;
+    	while (i < buckets - 1 && Constant.COMPARATOR.compare(histogram.get(i + 1), value) <= 0) {
+    		i++;
+    	}
+    	float fraction = .5f;
+    	double low = asDouble(histogram.get(i));
+    	double high = asDouble(histogram.get(i + 1));
+    	double val = asDouble(value);
+    	if (!Double.isNaN(low) && !Double.isNaN(high) && !Double.isNaN(val) && high > low) {
+    		fraction = (float)Math.min(1, Math.max(0, (val - low) / (high - low)));
+    	}
+    	return (i + fraction) / buckets;
+    }
+    
+    private static double asDouble(Object value) {
+    	if (value instanceof Number) {
+    		return ((Number)value).doubleValue();
+    	}
+    	if (value instanceof java.util.Date) {
+    		return ((java.util.Date)value).getTime();
+    	}
+    	return Double.NaN;
+    }
+    
     static boolean usesKey(PlanNode planNode, Collection<? extends Expression> allElements, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
     	//TODO: key preserved joins should be marked
     	return isSingleTable(planNode)
@@ -1108,7 +1313,54 @@ public class NewCalculateCostUtil {
     private static float safeLog(float x) {
         return (float)Math.max(1, Math.log(x));
     }
-    
+
+    /**
+     * Determines if a hash join is expected to be cheaper than the enhanced sort merge join
+     * for a join where neither side will be sorted by the source.
+     *
+     * The enhanced sort merge join will use an in memory index for small sides, so the hash
+     * join is only considered when the build side is larger than a batch.
+     */
+    static boolean useHashJoin(PlanNode joinNode, QueryMetadataInterface metadata, int batchSize)
+    		throws QueryMetadataException, TeiidComponentException {
+    	float leftCardinality = computeCostForTree(joinNode.getFirstChild(), metadata);
+    	float rightCardinality = computeCostForTree(joinNode.getLastChild(), metadata);
+    	if (leftCardinality == UNKNOWN_VALUE || rightCardinality == UNKNOWN_VALUE) {
+    		return false;
+    	}
+    	float buildCardinality = rightCardinality;
+    	float probeCardinality = leftCardinality;
+    	if (joinNode.getProperty(NodeConstants.Info.JOIN_TYPE) == JoinType.JOIN_INNER && leftCardinality < rightCardinality) {
+    		buildCardinality = leftCardinality;
+    		probeCardinality = rightCardinality;
+    	}
+    	if (buildCardinality <= batchSize) {
+    		return false;
+    	}
+    	//the enhanced join will index the smaller side if it's sufficiently small, otherwise both sides are sorted
+    	float probeSortCardinality = buildCardinality * 4 <= probeCardinality ? buildCardinality : probeCardinality;
+    	float sortCost = (buildCardinality * safeLog(buildCardinality) + probeCardinality * safeLog(probeSortCardinality)) * compareTime;
+    	//hashing and the equality check are roughly two comparisons per row
+    	float hashCost = 2 * (buildCardinality + probeCardinality) * compareTime;
+    	return hashCost < sortCost;
+    }
+
+    /**
+     * Determines if hash aggregation should be used for a grouping node.
+     * 
+     * The groups are held in memory, so it's only considered when the number of groups
+     * is known to be small and much smaller than the number of input rows.
+     */
+    static boolean useHashAggregation(PlanNode groupNode, QueryMetadataInterface metadata, int batchSize) 
+    		throws QueryMetadataException, TeiidComponentException {
+    	float childCardinality = computeCostForTree(groupNode.getFirstChild(), metadata);
+    	float groupCardinality = computeCostForTree(groupNode, metadata);
+    	if (childCardinality == UNKNOWN_VALUE || groupCardinality == UNKNOWN_VALUE) {
+    		return false;
+    	}
+    	return groupCardinality <= batchSize * MAX_HASH_GROUP_BATCHES && groupCardinality * 4 <= childCardinality;
+    }
+
     /**
      * Computes the cost of a Dependent Join
      * 
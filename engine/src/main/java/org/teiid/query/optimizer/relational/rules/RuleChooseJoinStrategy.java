@@ -38,6 +38,7 @@ import org.teiid.query.optimizer.relational.RuleStack;
 import org.teiid.query.optimizer.relational.plantree.NodeConstants;
 import org.teiid.query.optimizer.relational.plantree.NodeEditor;
 import org.teiid.query.optimizer.relational.plantree.PlanNode;
+import org.teiid.query.processor.relational.HashJoinStrategy;
 import org.teiid.query.processor.relational.JoinNode.JoinStrategyType;
 import org.teiid.query.sql.lang.CompareCriteria;
 import org.teiid.query.sql.lang.Criteria;
@@ -51,7 +52,8 @@ import org.teiid.query.util.CommandContext;
 
 
 /**
- * Marks join as a candidate merge join if conditions are met
+ * Marks join as a candidate merge join if conditions are met.
+ * The merge join candidates may later be implemented as an enhanced sort or hash join.
  */
 public class RuleChooseJoinStrategy implements OptimizerRule {
     
@@ -167,6 +169,24 @@ public class RuleChooseJoinStrategy implements OptimizerRule {
         }
 	}
     
+    /**
+     * Determines if a merge join candidate may instead be processed as a hash join.
+     * The hash join is limited to inner and left outer equi-joins with hashable
+     * expression types that are not dependent.
+     */
+    static boolean canUseHashJoin(PlanNode joinNode) {
+    	JoinType jtype = (JoinType) joinNode.getProperty(NodeConstants.Info.JOIN_TYPE);
+    	if (jtype != JoinType.JOIN_INNER && jtype != JoinType.JOIN_LEFT_OUTER) {
+    		return false;
+    	}
+    	if (joinNode.getProperty(NodeConstants.Info.DEPENDENT_VALUE_SOURCE) != null || joinNode.hasBooleanProperty(NodeConstants.Info.IS_SEMI_DEP)) {
+    		return false;
+    	}
+    	List<Expression> leftExpressions = (List<Expression>) joinNode.getProperty(NodeConstants.Info.LEFT_EXPRESSIONS);
+    	List<Expression> rightExpressions = (List<Expression>) joinNode.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS);
+    	return HashJoinStrategy.isHashable(leftExpressions, rightExpressions);
+    }
+    
     public static List<Expression> createExpressionSymbols(List<? extends Expression> expressions) {
         List<Expression> result = new ArrayList<Expression>();
         for (Expression expression : expressions) {
@@ -29,6 +29,7 @@ import java.util.List;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.api.exception.query.QueryPlannerException;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
@@ -133,7 +134,10 @@ public class RulePlanSorts implements OptimizerRule {
 			} 
 			break;
 		case NodeConstants.Types.DUP_REMOVE:
-			if (parentBlocking) {
+			if (isHashable(node)) {
+				//hashing is cheaper than either sorting or the tree and retains the streaming behavior
+				node.setProperty(Info.USE_HASH, true);
+			} else if (parentBlocking) {
 				node.setType(NodeConstants.Types.SORT);
 				node.setProperty(NodeConstants.Info.IS_DUP_REMOVAL, true);
 			} 
@@ -170,12 +174,19 @@ public class RulePlanSorts implements OptimizerRule {
 					}
 				}
 			}
+			if (!node.hasBooleanProperty(Info.IS_DUP_REMOVAL) && !node.hasBooleanProperty(Info.ROLLUP) 
+					&& node.getProperty(Info.SORT_ORDER) == null && context != null && isHashable((List<Expression>)node.getProperty(Info.GROUP_COLS))
+					&& NewCalculateCostUtil.useHashAggregation(node, metadata, context.getProcessorBatchSize())) {
+				//the output is not needed in grouping order
+				node.setProperty(Info.USE_HASH, true);
+			}
 			//TODO: check the join interesting order
 			parentBlocking = true;
 			break;
 		case NodeConstants.Types.JOIN:
 			if (node.getProperty(NodeConstants.Info.JOIN_STRATEGY) == JoinStrategyType.NESTED_LOOP 
-					|| node.getProperty(NodeConstants.Info.JOIN_STRATEGY) == JoinStrategyType.NESTED_TABLE) {
+					|| node.getProperty(NodeConstants.Info.JOIN_STRATEGY) == JoinStrategyType.NESTED_TABLE
+					|| node.getProperty(NodeConstants.Info.JOIN_STRATEGY) == JoinStrategyType.HASH) {
 				break;
 			}
 			/*
@@ -205,9 +216,14 @@ public class RulePlanSorts implements OptimizerRule {
 			// assumes the use of the merge algorithm
 			if (node.getProperty(NodeConstants.Info.SET_OPERATION) != SetQuery.Operation.UNION) {
 				parentBlocking = true;
-			} else if (!node.hasBooleanProperty(NodeConstants.Info.USE_ALL) && !parentBlocking) {
-				//do the incremental dup removal for lower latency
-			    node.setProperty(NodeConstants.Info.IS_DUP_REMOVAL, true);
+			} else if (!node.hasBooleanProperty(NodeConstants.Info.USE_ALL)) {
+				if (isHashable(node)) {
+					node.setProperty(NodeConstants.Info.IS_DUP_REMOVAL, true);
+					node.setProperty(Info.USE_HASH, true);
+				} else if (!parentBlocking) {
+					//do the incremental dup removal for lower latency
+				    node.setProperty(NodeConstants.Info.IS_DUP_REMOVAL, true);
+				}
 		    }
 			break;
 		}
@@ -217,6 +233,20 @@ public class RulePlanSorts implements OptimizerRule {
 		return root;
 	}
 
+	private static boolean isHashable(PlanNode node) {
+		List<Expression> outputCols = (List<Expression>) node.getProperty(Info.OUTPUT_COLS);
+		return outputCols != null && isHashable(outputCols);
+	}
+
+	static boolean isHashable(List<Expression> exprs) {
+		for (Expression ex : exprs) {
+			if (!DataTypeManager.isHashable(ex.getType())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private PlanNode checkForProjectOptimization(PlanNode node, PlanNode root, 
 			QueryMetadataInterface metadata, CapabilitiesFinder capFinder, AnalysisRecord record, CommandContext context) throws QueryMetadataException, TeiidComponentException, QueryPlannerException {
 		PlanNode projectNode = node.getFirstChild();
@@ -409,6 +409,12 @@ public class SQLParserUtil {
     		c.setNullValues(-1);
     	} else if (key.equals(DDLConstants.DISTINCT_VALUES)) {
     		c.setDistinctValues(-1);
+    	} else if (key.equals(DDLConstants.HISTOGRAM)) {
+    		c.setHistogram(null);
+    	} else if (key.equals(DDLConstants.MOST_COMMON_VALUES)) {
+    		c.setMostCommonValues(null);
+    	} else if (key.equals(DDLConstants.MOST_COMMON_FREQUENCIES)) {
+    		c.setMostCommonFrequencies(null);
     	} else if (key.equals(DDLConstants.UDT)) {
 			c.setDatatype(null);
 			c.setLength(0);
@@ -477,6 +483,26 @@ public class SQLParserUtil {
     	if (v != null) {
     		c.setDistinctValues(Integer.parseInt(v));
     	}
+    	
+    	v = props.remove(DDLConstants.HISTOGRAM); 
+    	if (v != null) {
+    		c.setHistogram(parseStatisticsValues(v));
+    	}
+    	
+    	v = props.remove(DDLConstants.MOST_COMMON_VALUES); 
+    	if (v != null) {
+    		c.setMostCommonValues(parseStatisticsValues(v));
+    	}
+    	
+    	v = props.remove(DDLConstants.MOST_COMMON_FREQUENCIES); 
+    	if (v != null) {
+    		List<String> values = StringUtil.split(v, ","); //$NON-NLS-1$
+    		List<Float> frequencies = new ArrayList<Float>(values.size());
+    		for (String value : values) {
+    			frequencies.add(Float.valueOf(value.trim()));
+    		}
+    		c.setMostCommonFrequencies(frequencies);
+    	}
 
     	v = props.remove(DDLConstants.UDT); 
     	if (v != null) {
@@ -494,6 +520,36 @@ public class SQLParserUtil {
     	}
     }
 
+	/**
+	 * Parse a list of single quoted values, such as 'a', 'b''c'
+	 */
+	static List<String> parseStatisticsValues(String v) throws MetadataException {
+		List<String> result = new ArrayList<String>();
+		StringBuilder current = null;
+		for (int i = 0; i < v.length(); i++) {
+			char c = v.charAt(i);
+			if (current != null) {
+				if (c != '\'') {
+					current.append(c);
+				} else if (i + 1 < v.length() && v.charAt(i + 1) == '\'') {
+					current.append(c);
+					i++;
+				} else {
+					result.add(current.toString());
+					current = null;
+				}
+			} else if (c == '\'') {
+				current = new StringBuilder();
+			} else if (c != ',' && !Character.isWhitespace(c)) {
+				throw new MetadataException(QueryPlugin.Util.getString("SQLParser.invalid_statistics_values", v)); //$NON-NLS-1$
+			}
+		}
+		if (current != null) {
+			throw new MetadataException(QueryPlugin.Util.getString("SQLParser.invalid_statistics_values", v)); //$NON-NLS-1$
+		}
+		return result;
+	}
+
 	void setCommonProperties(AbstractMetadataRecord c, Map<String, String> props) {
 		String v = props.remove(DDLConstants.UUID); 
 		if (v != null) {
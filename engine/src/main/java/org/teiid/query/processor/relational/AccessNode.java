@@ -42,10 +42,15 @@ import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.dqp.internal.process.multisource.MultiSourceElementReplacementVisitor;
 import org.teiid.language.SQLConstants.NonReserved;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.optimizer.relational.PlanFeedbackStore;
 import org.teiid.query.optimizer.relational.RowBasedSecurityHelper;
+import org.teiid.query.optimizer.relational.rules.NewCalculateCostUtil;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.processor.RegisterRequestParameter;
@@ -69,6 +74,7 @@ public class AccessNode extends SubqueryAwareRelationalNode {
 
     private static final Object[] NO_PROJECTION = new Object[0];
 	private static final int MAX_CONCURRENT = 10; //TODO: this could be settable via a property
+	private static final int JOIN_FILTER_SAMPLE = 1024;
 	// Initialization state
     private Command command;
     private String modelName;
@@ -97,6 +103,17 @@ public class AccessNode extends SubqueryAwareRelationalNode {
 	public RegisterRequestParameter.SharedAccessInfo info;
 	private Map<GroupSymbol, RelationalPlan> subPlans;
 	private Map<GroupSymbol, SubqueryState> evaluatedPlans;
+	
+	//plan feedback state
+	private String feedbackKey;
+	private int rowCount;
+	private int requestCount;
+	
+	//join filter state
+	private BloomFilter joinFilter;
+	private int[] joinFilterIndexes;
+	private int joinFilterProbes;
+	private int joinFilterRejected;
     
     protected AccessNode() {
 		super();
@@ -125,10 +142,32 @@ public class AccessNode extends SubqueryAwareRelationalNode {
         processingCommand = null;
         shouldExecute = true;
         this.evaluatedPlans = null;
+        this.rowCount = 0;
+        this.requestCount = 0;
+        this.joinFilter = null;
+        this.joinFilterIndexes = null;
+        this.joinFilterProbes = 0;
+        this.joinFilterRejected = 0;
     }
 
 	public void setCommand(Command command) {
 		this.command = command;
+		this.feedbackKey = null;
+	}
+	
+	/**
+	 * @return the key used to record the observed cardinality of this node
+	 * or null if this node is not eligible for plan feedback
+	 */
+	public String getFeedbackKey() {
+		if (feedbackKey == null) {
+			String key = PlanFeedbackStore.getKey(this.command);
+			feedbackKey = key == null ? "" : key; //$NON-NLS-1$
+		}
+		if (feedbackKey.length() == 0) {
+			return null;
+		}
+		return feedbackKey;
 	}
 
     public Command getCommand() {
@@ -429,18 +468,70 @@ public class AccessNode extends SubqueryAwareRelationalNode {
             // Add tuple to current batch
             addBatchRow(tuple);
         }
+        recordFeedback();
         terminateBatches();
         return pullBatch();
 	}
 	
+	/**
+	 * Record the actual cardinality of a single, complete source execution
+	 * so that subsequent planning may use it in place of the estimate.
+	 */
+	private void recordFeedback() {
+		if (isUpdate || requestCount != 1 || connectorBindingExpression != null || getParent() instanceof LimitNode) {
+			return;
+		}
+		PlanFeedbackStore store = getContext().getPlanFeedbackStore();
+		if (store == null) {
+			return;
+		}
+		String key = getFeedbackKey();
+		if (key == null) {
+			return;
+		}
+		Number estimate = getEstimateNodeCardinality();
+		float estimated = estimate == null ? NewCalculateCostUtil.UNKNOWN_VALUE : estimate.floatValue();
+		store.recordCardinality(key, rowCount);
+		if (store.isMisestimated(key, estimated) && LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+			LogManager.logDetail(LogConstants.CTX_DQP, "Access node", getID(), "cardinality estimate", estimated, "differs from the observed", rowCount, "for", key); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+	}
+	
 	@Override
 	protected void addBatchRow(List<?> row) {
 		if (this.getOutputElements().isEmpty()) {
 			//a dummy column was added to the query, just remove it now
 			row = Collections.emptyList();
 		}
+		rowCount++;
+		if (this.joinFilter != null && !acceptJoinFilter(row)) {
+			return;
+		}
 		super.addBatchRow(row);
 	}
+	
+	/**
+	 * Set a filter of the join key values from the other side of the parent join.
+	 * Rows that cannot match are discarded before they are buffered by the join.
+	 */
+	void setJoinFilter(BloomFilter filter, int[] indexes) {
+		this.joinFilter = filter;
+		this.joinFilterIndexes = indexes;
+	}
+	
+	private boolean acceptJoinFilter(List<?> row) {
+		Object key = BloomFilter.getKey(row, this.joinFilterIndexes);
+		boolean accept = key != null && this.joinFilter.mightContain(key);
+		if (!accept) {
+			joinFilterRejected++;
+		}
+		if (++joinFilterProbes == JOIN_FILTER_SAMPLE && joinFilterRejected < JOIN_FILTER_SAMPLE / 10) {
+			//not selective enough to be worth the check
+			LogManager.logDetail(LogConstants.CTX_DQP, "Access node", getID(), "removing the join filter since it rejected only", joinFilterRejected, "of", joinFilterProbes, "rows"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			this.joinFilter = null;
+		}
+		return accept;
+	}
 
 	private void registerNext() throws TeiidComponentException,
 			TeiidProcessingException {
@@ -473,6 +564,7 @@ public class AccessNode extends SubqueryAwareRelationalNode {
 		param.fetchSize = this.getBatchSize();
 		RowBasedSecurityHelper.checkConstraints(atomicCommand, getEvaluator(Collections.emptyMap()));
 		tupleSources.add(getDataManager().registerRequest(getContext(), atomicCommand, modelName, param));
+		requestCount++;
 		if (tupleSources.size() > 1) {
         	reserved += getBufferManager().reserveBuffers(schemaSize, BufferReserveMode.FORCE);
 		}
@@ -535,6 +627,7 @@ public class AccessNode extends SubqueryAwareRelationalNode {
 			target.originalSelect = originalSelect;
 		}
 		target.command = command;
+		target.feedbackKey = feedbackKey;
 		target.info = info;
 		target.connectorBindingExpression = this.connectorBindingExpression;
 		target.multiSource = multiSource;
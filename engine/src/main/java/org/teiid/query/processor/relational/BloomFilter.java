@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.processor.relational;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A simple bloom filter over join key values used to discard rows from one side of 
+ * a join that cannot match any key from the other side.
+ * <br>
+ * Keys must have hashCodes consistent with equality comparison.
+ */
+final class BloomFilter {
+	
+	private static final int BITS_PER_ENTRY = 8;
+	private static final int HASHES = 4;
+	
+	private BitSet bits;
+	private int size;
+	
+	BloomFilter(int expectedEntries) {
+		long bitCount = Math.max(64, (long)expectedEntries * BITS_PER_ENTRY);
+		this.size = (int)Math.min(Integer.MAX_VALUE, bitCount);
+		this.bits = new BitSet(this.size);
+	}
+	
+	/**
+	 * @return the key for the given indexes or null if any key value is null
+	 */
+	static Object getKey(List<?> tuple, int[] indexes) {
+		if (indexes.length == 1) {
+			return tuple.get(indexes[0]);
+		}
+		List<Object> key = new ArrayList<Object>(indexes.length);
+		for (int index : indexes) {
+			Object value = tuple.get(index);
+			if (value == null) {
+				return null;
+			}
+			key.add(value);
+		}
+		return key;
+	}
+	
+	void add(Object key) {
+		int hash = key.hashCode();
+		int h1 = mix(hash);
+		int h2 = mix(h1 ^ hash);
+		for (int i = 0; i < HASHES; i++) {
+			this.bits.set(((h1 + i * h2) & Integer.MAX_VALUE) % this.size);
+		}
+	}
+	
+	boolean mightContain(Object key) {
+		int hash = key.hashCode();
+		int h1 = mix(hash);
+		int h2 = mix(h1 ^ hash);
+		for (int i = 0; i < HASHES; i++) {
+			if (!this.bits.get(((h1 + i * h2) & Integer.MAX_VALUE) % this.size)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * murmur3 finalization mix
+	 */
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+}
@@ -66,6 +66,8 @@ public class DependentCriteriaProcessor {
         
         boolean overMax;
         
+        boolean hinted;
+        
         long replacementSize() {
     		return replacement.size() * valueCount;
     	}
@@ -131,9 +133,44 @@ public class DependentCriteriaProcessor {
                 		setState.overMax = true;
                 	}
     			}
+            	checkQueryCount();
             }
         }
         
+        /**
+         * If the actual independent values would be split into more than the allowed number 
+         * of source queries, then fall back to a full scan of the dependent side and let the
+         * join node process the join. 
+         */
+        private void checkQueryCount() {
+        	if (pushdown || maxSetSize <= 0) {
+        		return;
+        	}
+        	int maxQueries = dependentNode.getContext().getOptions().getDependentJoinMaxQueries();
+        	if (maxQueries <= 0) {
+        		return;
+        	}
+        	long valueCount = 0;
+        	for (SetState setState : dependentSetStates) {
+        		if (setState.hinted) {
+        			return;
+        		}
+        		if (!setState.overMax) {
+        			valueCount += setState.valueCount;
+        		}
+        	}
+        	long values = valueCount * dvs.getTupleBuffer().getRowCount();
+        	long perQuery = (long)maxSetSize * Math.max(1, maxPredicates);
+        	long queries = values / perQuery + (values % perQuery != 0 ? 1 : 0);
+        	if (queries <= maxQueries) {
+        		return;
+        	}
+        	LogManager.logInfo(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31171, valueSource, dvs.getTupleBuffer().getRowCount(), queries, maxQueries));
+        	for (SetState setState : dependentSetStates) {
+        		setState.overMax = true;
+        	}
+        }
+        
         public void close() {
         	if (this.sortUtility != null) {
         		this.sortUtility.remove();
@@ -222,6 +259,7 @@ public class DependentCriteriaProcessor {
                 }
                 ts.getDepedentSetStates().add(state);
                 state.maxNdv = dsc.getMaxNdv();
+                state.hinted = dsc.getMakeDepOptions() != null;
             } 
         }        
     }
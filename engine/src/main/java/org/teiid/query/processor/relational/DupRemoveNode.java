@@ -22,21 +22,46 @@
 
 package org.teiid.query.processor.relational;
 
+import java.util.HashSet;
 import java.util.List;
 
+import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
 import org.teiid.common.buffer.STree;
 import org.teiid.common.buffer.STree.InsertMode;
 import org.teiid.common.buffer.TupleBatch;
+import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.processor.BatchCollector.BatchProducerTupleSource;
 
+/**
+ * Removes duplicates in a streaming fashion - the first occurrence of each row is output immediately.
+ * <br/>
+ * By default the seen rows are tracked in an {@link STree}.  In hash mode they are tracked 
+ * in a hash set instead, with the memory reserved a batch of rows at a time.  If the memory 
+ * is not available, rows not already seen are spilled to {@link HashPartitions} which are then 
+ * processed after the rest of the input.
+ */
 public class DupRemoveNode extends RelationalNode {
 
 	private STree stree = null;
 	private TupleBatch batch;
 	private int counter;
 	
+	private boolean useHash;
+	private HashSet<List<?>> rows;
+	private int rowsReserved;
+	private int schemaSize;
+	private HashPartitions partitions;
+	private TupleSource source;
+	
 	public DupRemoveNode(int nodeID) {
 		super(nodeID);
 	}
@@ -46,17 +71,40 @@ public class DupRemoveNode extends RelationalNode {
         stree = null;
         counter = 0;
         batch = null;
+        source = null;
     }
     
+    /**
+     * Set to use a hash set rather than an {@link STree} to track the seen rows.
+     * Only used if all of the types are {@link DataTypeManager#isHashable(Class)}
+     */
+    public void setUseHash(boolean useHash) {
+		this.useHash = useHash;
+	}
+    
+    public boolean isUseHash() {
+		return useHash;
+	}
+    
     @Override
     public void open() throws TeiidComponentException, TeiidProcessingException {
     	super.open();
     	
-    	stree = getBufferManager().createSTree(this.getElements(), this.getConnectionID(), this.getElements().size());
+    	if (useHash && HashPartitions.isHashable(this.getElements())) {
+    		rows = new HashSet<List<?>>();
+    		schemaSize = getBufferManager().getSchemaSize(this.getElements());
+    		partitions = new HashPartitions(getBufferManager(), this.getElements(), this.getConnectionID());
+    		source = new BatchProducerTupleSource(this.getChildren()[0]);
+    	} else {
+    		stree = getBufferManager().createSTree(this.getElements(), this.getConnectionID(), this.getElements().size());
+    	}
     }
-
+    
 	public TupleBatch nextBatchDirect()
 		throws BlockedException, TeiidComponentException, TeiidProcessingException {
+		if (rows != null) {
+			return nextBatchHash();
+		}
 		while (true) {
 			if (batch == null) {
 				batch = this.getChildren()[0].nextBatch();
@@ -83,16 +131,88 @@ public class DupRemoveNode extends RelationalNode {
 		}
     }
 
+	
+	private TupleBatch nextBatchHash() throws TeiidComponentException, TeiidProcessingException {
+		int batchSize = this.getBatchSize();
+		while (true) {
+			List<?> tuple = source.nextTuple();
+			if (tuple == null) {
+				source.closeSource();
+				releaseRows();
+				source = partitions.next();
+				if (source == null) {
+					terminateBatches();
+					return pullBatch();
+				}
+				rows = new HashSet<List<?>>();
+				continue;
+			}
+			if (rows.contains(tuple)) {
+				continue;
+			}
+			if (!partitions.isSpilling() && rows.size() % batchSize == 0 && !reserveRowSpace()) {
+				if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+					LogManager.logDetail(LogConstants.CTX_DQP, "hash duplicate removal spilling after", rows.size(), "rows", getID()); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				partitions.spill();
+			}
+			if (partitions.isSpilling()) {
+				//can't be a duplicate of a row in memory, but may be a duplicate of another spilled row
+				partitions.add(tuple, tuple);
+				continue;
+			}
+			rows.add(tuple);
+			this.addBatchRow(tuple);
+			if (this.isBatchFull()) {
+				return pullBatch();
+			}
+		}
+	}
+	
+	/**
+	 * Reserve the memory for another batch of rows.  The first batch of 
+	 * each pass is forced to ensure progress is made.
+	 * @return false if the memory is not available
+	 */
+	private boolean reserveRowSpace() {
+		int reserved = getBufferManager().reserveBuffers(schemaSize, rows.isEmpty()?BufferReserveMode.FORCE:BufferReserveMode.NO_WAIT);
+		rowsReserved += reserved;
+		return reserved == schemaSize;
+	}
+	
+	private void releaseRows() {
+		rows = null;
+		getBufferManager().releaseBuffers(rowsReserved);
+		rowsReserved = 0;
+	}
+
     public void closeDirect() {
     	if (stree != null) {
     		stree.remove();
     	}
+    	if (rows != null) {
+    		releaseRows();
+    	}
+    	if (partitions != null) {
+    		partitions.remove();
+    		partitions = null;
+    	}
     }
 
 	public Object clone(){
 		DupRemoveNode clonedNode = new DupRemoveNode(super.getID());
 		copyTo(clonedNode);
+		clonedNode.useHash = useHash;
 		return clonedNode;
 	}
+	
+	@Override
+	public PlanNode getDescriptionProperties() {
+		PlanNode props = super.getDescriptionProperties();
+		if (useHash) {
+			props.addProperty(AnalysisRecord.PROP_HASH_MODE, Boolean.TRUE.toString());
+		}
+		return props;
+	}
     
 }
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
@@ -38,6 +39,7 @@ import org.teiid.api.exception.query.FunctionExecutionException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
 import org.teiid.common.buffer.STree;
 import org.teiid.common.buffer.STree.InsertMode;
 import org.teiid.common.buffer.TupleBatch;
@@ -47,6 +49,9 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.language.SortSpecification.NullOrdering;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.function.aggregate.*;
 import org.teiid.query.processor.BatchCollector;
@@ -135,12 +140,23 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     private int[] accumulatorStateCount;
     private TupleSource groupSortTupleSource;
     private int[] projection;
+    
+    // Group hash
+    private boolean useHash;
+    private HashMap<List<?>, List<Object>> groups;
+    private int groupsReserved;
+    private int groupSchemaSize;
+    private HashPartitions partitions;
+    private Iterator<List<Object>> groupIterator;
 
     private static final int COLLECTION = 1;
     private static final int SORT = 2;
     private static final int GROUP = 3;
     private static final int GROUP_SORT = 4;
     private static final int GROUP_SORT_OUTPUT = 5;
+    private static final int GROUP_HASH = 6;
+    private static final int GROUP_HASH_OUTPUT = 7;
+    
 	private int[] indexes;
 	private boolean rollup;
 	private HashMap<Integer, Integer> indexMap;
@@ -160,6 +176,8 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         lastRow = null;
         currentGroupTuple = null;
         
+        closeHash();
+        
         if (this.functions != null) {
 	    	for (AggregateFunction[] functions : this.functions) {
 	    		for (AggregateFunction function : functions) {
@@ -180,6 +198,18 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     public void setOutputMapping(SymbolMap outputMapping) {
 		this.outputMapping = outputMapping;
 	}
+    
+    /**
+     * Set to use hash rather than sort based aggregation when possible.
+     * The output will then not be ordered by the grouping columns.
+     */
+    public void setUseHash(boolean useHash) {
+		this.useHash = useHash;
+	}
+    
+    public boolean isUseHash() {
+		return useHash;
+	}
 
 	@Override
 	public void initialize(CommandContext context, BufferManager bufferManager,
@@ -370,6 +400,16 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         	return groupSortOutputPhase();
         }
         
+        while (this.phase == GROUP_HASH || this.phase == GROUP_HASH_OUTPUT) {
+        	if (this.phase == GROUP_HASH) {
+        		groupHashPhase();
+        	}
+        	TupleBatch batch = groupHashOutputPhase();
+        	if (batch != null) {
+        		return batch;
+        	}
+        }
+        
         this.terminateBatches();
         return pullBatch();
     }
@@ -463,12 +503,21 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 			    		schema.add(es);
 		    		}
 		    		
+		    		this.groupSortTupleSource = this.getGroupSortTupleSource();
+		    		
+		    		if (useHash && HashPartitions.isHashable(schema.subList(0, orderBy.size()))) {
+		    			this.groups = new HashMap<List<?>, List<Object>>();
+		    			this.groupSchemaSize = this.getBufferManager().getSchemaSize(schema);
+		    			this.partitions = new HashPartitions(getBufferManager(), new ArrayList<Expression>(collectedExpressions.keySet()), getConnectionID());
+		    			this.phase = GROUP_HASH;
+		    			return;
+		    		}
+		    		
 		    		tree = this.getBufferManager().createSTree(schema, this.getConnectionID(), orderBy.size());
 		    		//non-default order needs to update the comparator
 		    		tree.getComparator().setNullOrdering(nullOrdering);
 		    		tree.getComparator().setOrderTypes(sortTypes);
 		    				
-		    		this.groupSortTupleSource = this.getGroupSortTupleSource();
 		    		this.phase = GROUP_SORT;
 		    		return;
         		}
@@ -476,6 +525,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         	
             this.sortUtility = new SortUtility(getGroupSortTupleSource(), removeDuplicates?Mode.DUP_REMOVE_SORT:Mode.SORT, getBufferManager(),
                     getConnectionID(), new ArrayList<Expression>(collectedExpressions.keySet()), sortTypes, nullOrdering, sortIndexes);
+            this.sortUtility.setCommandContext(getContext());
             this.phase = SORT;
         }
     }
@@ -531,24 +581,144 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		int size = orderBy.size();
 		List<Object> vals = Arrays.asList(new Object[size + groupSortfunctions.length]);
 		while ((tuple = groupSortTupleSource.nextTuple()) != null) {
-			for (int i = 0; i < size; i++) {
-				vals.set(i, tuple.get(i));
+			addGroupSortRow(tuple, vals);
+			if (isBatchFull()) {
+				return pullBatch();
 			}
+		}
+		terminateBatches();
+		return pullBatch();
+	}
+
+	/**
+	 * Add an output row from the key and accumulator state values 
+	 */
+	private void addGroupSortRow(List<?> tuple, List<Object> vals)
+			throws TeiidComponentException, TeiidProcessingException {
+		int size = orderBy.size();
+		for (int i = 0; i < size; i++) {
+			vals.set(i, tuple.get(i));
+		}
+		int index = size;
+		for (int i = 0; i < this.groupSortfunctions.length; i++) {
+			AggregateFunction aggregateFunction = this.groupSortfunctions[i];
+			aggregateFunction.setState(tuple, index);
+			index+=this.accumulatorStateCount[i];
+			vals.set(size + i, aggregateFunction.getResult(getContext()));
+		}
+		List<?> result = RelationalNode.projectTuple(projection, vals);
+		addBatchRow(result);
+	}
+	
+	/**
+	 * Process the input keeping the partial accumulator values in a hash table.
+	 * <br/>
+	 * Memory for the table is reserved a batch worth of groups at a time.  If the reservation 
+	 * fails, the existing groups continue to be updated in memory, but the rows for new groups 
+	 * are spilled to partitions that are processed once the current table has been output.
+	 * @throws TeiidComponentException
+	 * @throws TeiidProcessingException
+	 */
+	private void groupHashPhase() throws TeiidComponentException, TeiidProcessingException {
+		int size = orderBy.size();
+		int batchSize = this.getBatchSize();
+		List<Object> states = new ArrayList<Object>();
+		List<?> tuple = null;
+		while ((tuple = groupSortTupleSource.nextTuple()) != null) {
+			//not all collected expressions are needed for the key
+			List<?> key = tuple.subList(0, size);
+			List<Object> current = this.groups.get(key);
+			if (current == null) {
+				if (!this.partitions.isSpilling() && this.groups.size() % batchSize == 0 && !reserveGroupSpace()) {
+					if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+						LogManager.logDetail(LogConstants.CTX_DQP, "hash aggregation spilling after", this.groups.size(), "groups", getID()); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+					this.partitions.spill();
+				}
+				if (this.partitions.isSpilling()) {
+					this.partitions.add(key, tuple);
+					continue;
+				}
+			}
+			states.clear();
 			int index = size;
 			for (int i = 0; i < this.groupSortfunctions.length; i++) {
 				AggregateFunction aggregateFunction = this.groupSortfunctions[i];
-				aggregateFunction.setState(tuple, index);
+				if (current != null) {
+					aggregateFunction.setState(current, index);
+				} else {
+					aggregateFunction.reset();
+				}
 				index+=this.accumulatorStateCount[i];
-				vals.set(size + i, aggregateFunction.getResult(getContext()));
+				aggregateFunction.addInput(tuple, getContext());
+				aggregateFunction.getState(states);
 			}
-			List<?> result = RelationalNode.projectTuple(projection, vals);
-			addBatchRow(result);
+			if (current == null) {
+				current = new ArrayList<Object>(size + states.size());
+				current.addAll(key);
+				current.addAll(states);
+				this.groups.put(current.subList(0, size), current);
+			} else {
+				for (int i = 0; i < states.size(); i++) {
+					current.set(size + i, states.get(i));
+				}
+			}
+		}
+		this.groupSortTupleSource.closeSource();
+		this.groupIterator = this.groups.values().iterator();
+		this.phase = GROUP_HASH_OUTPUT;
+	}
+	
+	/**
+	 * Reserve the memory for another batch of groups.  The first batch of 
+	 * each table is forced to ensure progress is made.
+	 * @return false if the memory is not available
+	 */
+	private boolean reserveGroupSpace() {
+		int reserved = this.getBufferManager().reserveBuffers(this.groupSchemaSize, this.groups.isEmpty()?BufferReserveMode.FORCE:BufferReserveMode.NO_WAIT);
+		this.groupsReserved += reserved;
+		return reserved == this.groupSchemaSize;
+	}
+
+	/**
+	 * Output the groups in the hash table, then move to the next pending partition
+	 * @return the next batch or null if the next partition should be processed
+	 */
+	private TupleBatch groupHashOutputPhase() throws TeiidComponentException, TeiidProcessingException {
+		List<Object> vals = Arrays.asList(new Object[orderBy.size() + groupSortfunctions.length]);
+		while (this.groupIterator.hasNext()) {
+			addGroupSortRow(this.groupIterator.next(), vals);
 			if (isBatchFull()) {
 				return pullBatch();
 			}
 		}
-		terminateBatches();
-		return pullBatch();
+		releaseGroups();
+		TupleSource next = this.partitions.next();
+		if (next == null) {
+			terminateBatches();
+			return pullBatch();
+		}
+		this.groupSortTupleSource = next;
+		this.groups = new HashMap<List<?>, List<Object>>();
+		this.phase = GROUP_HASH;
+		return null;
+	}
+	
+	private void releaseGroups() {
+		this.groups = null;
+		this.groupIterator = null;
+		this.getBufferManager().releaseBuffers(this.groupsReserved);
+		this.groupsReserved = 0;
+	}
+	
+	private void closeHash() {
+		if (this.groups != null) {
+			releaseGroups();
+		}
+		if (this.partitions != null) {
+			this.partitions.remove();
+			this.partitions = null;
+		}
 	}
 
     private void sortPhase() throws BlockedException, TeiidComponentException, TeiidProcessingException {
@@ -674,6 +844,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     		this.tree.remove();
     		this.tree = null;
     	}
+    	closeHash();
     }
 
 	protected void getNodeString(StringBuffer str) {
@@ -691,6 +862,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		clonedNode.outputMapping = outputMapping;
 		clonedNode.orderBy = orderBy;
 		clonedNode.rollup = rollup;
+		clonedNode.useHash = useHash;
 		return clonedNode;
 	}
 
@@ -710,6 +882,9 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         if (rollup) {
         	props.addProperty(PROP_ROLLUP, Boolean.TRUE.toString());
         }
+        if (useHash) {
+        	props.addProperty(PROP_HASH_MODE, Boolean.TRUE.toString());
+        }
         return props;
     }
 
@@ -0,0 +1,406 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+import org.teiid.query.processor.relational.SourceState.ImplicitBuffer;
+import org.teiid.query.sql.lang.JoinType;
+import org.teiid.query.sql.symbol.Expression;
+
+
+/**
+ * A hybrid hash join for inner and left outer equi-joins.
+ * <br/>
+ * The smaller side (always the right for left outer joins) is fully buffered and loaded
+ * into an in-memory hash table keyed on the join expressions.  The other side is then
+ * probed in a streaming fashion.
+ * <br/>
+ * If the memory needed for the hash table cannot be reserved, both sides are partitioned
+ * by the key hash into {@link TupleBuffer}s.  The first partition is still kept in memory and
+ * probed while the other side is streamed, the remaining partitions are then joined one at a time.
+ * <br/>
+ * Should only be used when the join expressions are {@link DataTypeManager#isHashable(Class)},
+ * see {@link #isHashable(List, List)}
+ */
+public class HashJoinStrategy extends JoinStrategy {
+
+	/**
+	 * Upper bound on the number of partitions to limit the number of open buffers
+	 */
+	static int MAX_PARTITIONS = 64;
+
+	private SourceState buildSource;
+	private SourceState probeSource;
+	private boolean buildLeft;
+
+	private Map<List<?>, List<List<?>>> table;
+	private int tableReserved;
+
+	private int partitionCount = 1;
+	private int currentPartition;
+	private TupleBuffer[] buildPartitions;
+	private TupleBuffer[] probePartitions;
+
+	//probe state
+	private TupleSource probeTs;
+	private List<?> currentTuple;
+	private List<List<?>> matches;
+	private int matchIndex;
+	private boolean matched;
+
+	/**
+	 * Determine if the join expressions may be compared for equality via hashing
+	 */
+	public static boolean isHashable(List<? extends Expression> leftExpressions, List<? extends Expression> rightExpressions) {
+		if (leftExpressions == null || leftExpressions.isEmpty() || leftExpressions.size() != rightExpressions.size()) {
+			return false;
+		}
+		for (int i = 0; i < leftExpressions.size(); i++) {
+			Class<?> type = leftExpressions.get(i).getType();
+			if (type != rightExpressions.get(i).getType() || !DataTypeManager.isHashable(type)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public HashJoinStrategy clone() {
+		return new HashJoinStrategy();
+	}
+
+	@Override
+	public void close() {
+		if (joinNode == null) {
+			return;
+		}
+		try {
+			super.close();
+		} finally {
+			releaseTable();
+			removePartitions(this.buildPartitions);
+			removePartitions(this.probePartitions);
+			this.buildPartitions = null;
+			this.probePartitions = null;
+			this.buildSource = null;
+			this.probeSource = null;
+			this.probeTs = null;
+			this.currentTuple = null;
+			this.matches = null;
+		}
+	}
+
+	private void releaseTable() {
+		this.table = null;
+		this.joinNode.getBufferManager().releaseBuffers(this.tableReserved);
+		this.tableReserved = 0;
+	}
+
+	private static void removePartitions(TupleBuffer[] partitions) {
+		if (partitions == null) {
+			return;
+		}
+		for (TupleBuffer tb : partitions) {
+			if (tb != null) {
+				tb.remove();
+			}
+		}
+	}
+
+	@Override
+	protected void loadLeft() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.joinNode.isDependent()) {
+			this.leftSource.getTupleBuffer();
+		}
+	}
+
+	@Override
+	protected void loadRight() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.buildSource == null) {
+			chooseBuildSide();
+		}
+		if (this.table == null && this.buildPartitions == null) {
+			build();
+		}
+	}
+
+	/**
+	 * Determine the smaller side in an incremental fashion so that the larger side is not fully buffered
+	 */
+	private void chooseBuildSide() throws TeiidComponentException,
+			TeiidProcessingException {
+		boolean left = false;
+		if (this.joinNode.getJoinType() == JoinType.JOIN_INNER) {
+			long size = this.joinNode.getBatchSize();
+			while (true) {
+				if (this.rightSource.rowCountLE(size)) {
+					break;
+				}
+				if (this.leftSource.rowCountLE(size)) {
+					left = true;
+					break;
+				}
+				size *= 2;
+			}
+		}
+		this.buildLeft = left;
+		if (left) {
+			this.buildSource = this.leftSource;
+			this.probeSource = this.rightSource;
+		} else {
+			this.buildSource = this.rightSource;
+			this.probeSource = this.leftSource;
+		}
+	}
+
+	/**
+	 * Load the hash table, or the build partitions if the memory is not available
+	 */
+	private void build() throws TeiidComponentException,
+			TeiidProcessingException {
+		BufferManager bm = this.joinNode.getBufferManager();
+		TupleBuffer buffer = this.buildSource.getTupleBuffer();
+		long memorySpaceNeeded = buffer.getRowCount() * (long)buffer.getRowSizeEstimate();
+		this.tableReserved = bm.reserveBuffers((int)Math.min(memorySpaceNeeded, Integer.MAX_VALUE), BufferReserveMode.NO_WAIT);
+		if (this.tableReserved < memorySpaceNeeded) {
+			long partitionSize = Math.max(Math.max(this.tableReserved, bm.getMaxProcessingSize()), 1);
+			this.partitionCount = (int)Math.min(MAX_PARTITIONS, memorySpaceNeeded / partitionSize + 1);
+			int needed = (int)Math.min(memorySpaceNeeded / this.partitionCount, Integer.MAX_VALUE);
+			if (this.tableReserved < needed) {
+				this.tableReserved += bm.reserveBuffers(needed - this.tableReserved, BufferReserveMode.FORCE);
+			} else {
+				bm.releaseBuffers(this.tableReserved - needed);
+				this.tableReserved = needed;
+			}
+		}
+		if (this.partitionCount > 1) {
+			if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+				LogManager.logDetail(LogConstants.CTX_DQP, "partitioning the hash join into", this.partitionCount, "partitions", this.joinNode.getID()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			this.buildPartitions = createPartitions(this.buildSource);
+			this.probePartitions = createPartitions(this.probeSource);
+		}
+		this.table = new HashMap<List<?>, List<List<?>>>();
+		TupleSource ts = buffer.createIndexedTupleSource(!this.joinNode.isDependent());
+		int[] indexes = this.buildSource.getExpressionIndexes();
+		try {
+			List<?> tuple = null;
+			while ((tuple = ts.nextTuple()) != null) {
+				List<?> key = getKey(tuple, indexes);
+				if (key == null) {
+					continue; //can't match
+				}
+				if (this.partitionCount > 1) {
+					int partition = partition(key);
+					if (partition != 0) {
+						this.buildPartitions[partition].addTuple(tuple);
+						continue;
+					}
+				}
+				addToTable(key, tuple);
+			}
+		} finally {
+			ts.closeSource();
+		}
+		if (this.buildPartitions != null) {
+			for (TupleBuffer tb : this.buildPartitions) {
+				if (tb != null) {
+					tb.close();
+				}
+			}
+		}
+	}
+
+	private TupleBuffer[] createPartitions(SourceState state) throws TeiidComponentException {
+		TupleBuffer[] result = new TupleBuffer[this.partitionCount];
+		for (int i = 1; i < result.length; i++) {
+			result[i] = state.createSourceTupleBuffer();
+			result[i].setForwardOnly(true);
+		}
+		return result;
+	}
+
+	private void addToTable(List<?> key, List<?> tuple) {
+		List<List<?>> values = this.table.get(key);
+		if (values == null) {
+			values = new ArrayList<List<?>>(2);
+			this.table.put(key, values);
+		}
+		values.add(tuple);
+	}
+
+	/**
+	 * @return the key values or null if any value is null
+	 */
+	static List<?> getKey(List<?> tuple, int[] indexes) {
+		List<Object> key = new ArrayList<Object>(indexes.length);
+		for (int i : indexes) {
+			Object value = tuple.get(i);
+			if (value == null) {
+				return null;
+			}
+			key.add(value);
+		}
+		return key;
+	}
+
+	/**
+	 * Use a multiplicative hash of the key hash code so that the
+	 * partition does not correlate with the hash table buckets
+	 */
+	int partition(List<?> key) {
+		long hash = (key.hashCode() * 0x9E3779B9L) & 0xffffffffL;
+		return (int)((hash * this.partitionCount) >>> 32);
+	}
+
+	@Override
+	protected void process() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.table.isEmpty() && this.partitionCount == 1 && this.joinNode.getJoinType() != JoinType.JOIN_LEFT_OUTER) {
+			return;
+		}
+		if (this.probeTs == null) {
+			this.probeSource.setImplicitBuffer(ImplicitBuffer.NONE);
+			this.probeTs = this.probeSource.getIterator();
+		}
+		while (true) {
+			if (this.currentTuple == null) {
+				List<?> tuple = this.probeTs.nextTuple();
+				if (tuple == null) {
+					if (!nextPartition()) {
+						return;
+					}
+					continue;
+				}
+				this.matched = false;
+				this.matchIndex = 0;
+				this.matches = null;
+				List<?> key = getKey(tuple, this.probeSource.getExpressionIndexes());
+				if (key != null) {
+					if (this.currentPartition == 0 && this.partitionCount > 1) {
+						int partition = partition(key);
+						if (partition != 0) {
+							this.probePartitions[partition].addTuple(tuple);
+							continue;
+						}
+					}
+					this.matches = this.table.get(key);
+				}
+				this.currentTuple = tuple;
+			}
+			if (this.matches != null) {
+				while (this.matchIndex < this.matches.size()) {
+					List<?> buildTuple = this.matches.get(this.matchIndex);
+					List outputTuple = this.buildLeft?outputTuple(buildTuple, this.currentTuple):outputTuple(this.currentTuple, buildTuple);
+					boolean match = this.joinNode.matchesCriteria(outputTuple);
+					this.matchIndex++;
+					if (match) {
+						this.matched = true;
+						this.joinNode.addBatchRow(outputTuple);
+					}
+				}
+			}
+			List<?> tuple = this.currentTuple;
+			this.currentTuple = null;
+			if (!this.matched && this.joinNode.getJoinType() == JoinType.JOIN_LEFT_OUTER) {
+				this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+			}
+		}
+	}
+
+	/**
+	 * Move to the next non-empty partition pair
+	 * @return false if there are no more partitions
+	 */
+	private boolean nextPartition() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.currentPartition == 0) {
+			if (this.probePartitions == null) {
+				return false;
+			}
+			for (TupleBuffer tb : this.probePartitions) {
+				if (tb != null) {
+					tb.close();
+				}
+			}
+		} else {
+			this.probePartitions[this.currentPartition].remove();
+			this.probePartitions[this.currentPartition] = null;
+		}
+		releaseTable();
+		while (++this.currentPartition < this.partitionCount) {
+			TupleBuffer probe = this.probePartitions[this.currentPartition];
+			TupleBuffer build = this.buildPartitions[this.currentPartition];
+			this.buildPartitions[this.currentPartition] = null;
+			if (probe.getRowCount() == 0 || (build.getRowCount() == 0 && this.joinNode.getJoinType() != JoinType.JOIN_LEFT_OUTER)) {
+				build.remove();
+				probe.remove();
+				this.probePartitions[this.currentPartition] = null;
+				continue;
+			}
+			if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.TRACE)) {
+				LogManager.logTrace(LogConstants.CTX_DQP, "hash join processing partition", this.currentPartition, "with", build.getRowCount(), "build rows", this.joinNode.getID()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+			//if a partition is too large to fit, we'll still force the reservation
+			long memorySpaceNeeded = build.getRowCount() * (long)build.getRowSizeEstimate();
+			this.tableReserved = this.joinNode.getBufferManager().reserveBuffers((int)Math.min(memorySpaceNeeded, Integer.MAX_VALUE), BufferReserveMode.FORCE);
+			this.table = new HashMap<List<?>, List<List<?>>>();
+			TupleSource ts = build.createIndexedTupleSource(true);
+			int[] indexes = this.buildSource.getExpressionIndexes();
+			try {
+				List<?> tuple = null;
+				while ((tuple = ts.nextTuple()) != null) {
+					addToTable(getKey(tuple, indexes), tuple);
+				}
+			} finally {
+				ts.closeSource();
+				build.remove();
+			}
+			this.probeTs = probe.createIndexedTupleSource(true);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "HASH JOIN"; //$NON-NLS-1$
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.processor.relational;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * Manages the spill partitions for hash based processing when the hash table 
+ * no longer fits in memory.
+ * <br/>
+ * Rows are partitioned by the hash of their key into {@link TupleBuffer}s.  A different salt 
+ * is used for each spill, so that a partition that has to be spilled again will be split further.
+ * Pending partitions are processed in the order they were created.
+ */
+class HashPartitions {
+	
+	/**
+	 * The number of partitions used for each spill
+	 */
+	static int PARTITION_COUNT = 16;
+	
+	private BufferManager bufferManager;
+	private List<? extends Expression> schema;
+	private String connectionId;
+	
+	private int salt;
+	private TupleBuffer[] partitions;
+	private LinkedList<TupleBuffer> pending = new LinkedList<TupleBuffer>();
+	private TupleBuffer current;
+	
+	HashPartitions(BufferManager bufferManager, List<? extends Expression> schema, String connectionId) {
+		this.bufferManager = bufferManager;
+		this.schema = schema;
+		this.connectionId = connectionId;
+	}
+	
+	boolean isSpilling() {
+		return this.partitions != null;
+	}
+	
+	/**
+	 * Start spilling for the current pass
+	 */
+	void spill() throws TeiidComponentException {
+		this.partitions = new TupleBuffer[PARTITION_COUNT];
+		for (int i = 0; i < this.partitions.length; i++) {
+			this.partitions[i] = this.bufferManager.createTupleBuffer(this.schema, this.connectionId, TupleSourceType.PROCESSOR);
+			this.partitions[i].setForwardOnly(true);
+		}
+		this.salt++;
+	}
+	
+	void add(List<?> key, List<?> tuple) throws TeiidComponentException {
+		this.partitions[partition(key.hashCode(), this.salt, this.partitions.length)].addTuple(tuple);
+	}
+	
+	/**
+	 * Finish the current pass and move to the next pending partition
+	 * @return a single use {@link TupleSource} for the next partition or null if there are none 
+	 */
+	TupleSource next() throws TeiidComponentException {
+		if (this.current != null) {
+			this.current.remove();
+			this.current = null;
+		}
+		if (this.partitions != null) {
+			for (TupleBuffer partition : this.partitions) {
+				if (partition.getRowCount() == 0) {
+					partition.remove();
+				} else {
+					partition.close();
+					this.pending.add(partition);
+				}
+			}
+			this.partitions = null;
+		}
+		if (this.pending.isEmpty()) {
+			return null;
+		}
+		this.current = this.pending.removeFirst();
+		return this.current.createIndexedTupleSource(true);
+	}
+	
+	void remove() {
+		if (this.partitions != null) {
+			for (TupleBuffer partition : this.partitions) {
+				partition.remove();
+			}
+			this.partitions = null;
+		}
+		for (TupleBuffer partition : this.pending) {
+			partition.remove();
+		}
+		this.pending.clear();
+		if (this.current != null) {
+			this.current.remove();
+			this.current = null;
+		}
+	}
+	
+	/**
+	 * @return true if all of the expression types are {@link DataTypeManager#isHashable(Class)}
+	 */
+	static boolean isHashable(List<? extends Expression> expressions) {
+		for (Expression ex : expressions) {
+			if (!DataTypeManager.isHashable(ex.getType())) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Mix the salted hash so that the partition does not correlate with 
+	 * the hash table buckets or with a previous spill
+	 */
+	static int partition(int hash, int salt, int count) {
+		int h = hash ^ (salt * 0x9E3779B9);
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return (int)(((h & 0xffffffffL) * count) >>> 32);
+	}
+
+}
@@ -35,8 +35,11 @@ import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.relational.SourceState.ImplicitBuffer;
 import org.teiid.query.sql.LanguageObject;
@@ -58,7 +61,8 @@ public class JoinNode extends SubqueryAwareRelationalNode {
 	    MERGE,
 	    ENHANCED_SORT,
 	    NESTED_LOOP,
-	    NESTED_TABLE
+	    NESTED_TABLE,
+	    HASH
 	}
         
     private enum State { LOAD_LEFT, LOAD_RIGHT, EXECUTE }    
@@ -78,6 +82,7 @@ public class JoinNode extends SubqueryAwareRelationalNode {
     private int[] projectionIndexes;
     
     private DependentValueSource dvs;
+    private boolean joinFilterChecked;
     
     public JoinNode(int nodeID) {
         super(nodeID);
@@ -196,7 +201,8 @@ public class JoinNode extends SubqueryAwareRelationalNode {
 	                dvs.setDistinct(this.joinStrategy.rightSource.isExpresssionDistinct());
 	                this.getContext().getVariableContext().setGlobalValue(this.dependentValueSource, dvs);
 	    		}
-	        	if (this.joinType != JoinType.JOIN_FULL_OUTER || this.getJoinCriteria() == null) {
+	    		boolean joinFilter = !isDependent() && useJoinFilter();
+	        	if (!joinFilter && (this.joinType != JoinType.JOIN_FULL_OUTER || this.getJoinCriteria() == null)) {
 	            	this.joinStrategy.leftSource.setImplicitBuffer(ImplicitBuffer.NONE);
 	            }
 	        	this.joinStrategy.openLeft();
@@ -207,14 +213,19 @@ public class JoinNode extends SubqueryAwareRelationalNode {
 	                dvs = new DependentValueSource(buffer, this.joinStrategy.leftSource.getSource().getElements());
 	                dvs.setDistinct(this.joinStrategy.leftSource.isExpresssionDistinct());
 	                this.getContext().getVariableContext().setGlobalValue(this.dependentValueSource, dvs);
+	            } else if (joinFilter) {
+	            	createJoinFilter();
 	            }
 	            state = State.LOAD_RIGHT;
 	        }
     	} catch (BlockedException e) {
     		if (!isDependent()) {
     			this.joinStrategy.openRight();
-                this.joinStrategy.loadRight();
-                prefetch(this.joinStrategy.rightSource, this.joinStrategy.leftSource);
+    			//don't read ahead on the right until the join filter has been applied
+    			if (!useJoinFilter()) {
+	                this.joinStrategy.loadRight();
+	                prefetch(this.joinStrategy.rightSource, this.joinStrategy.leftSource);
+    			}
     		}
     		throw e;
     	}
@@ -242,6 +253,72 @@ public class JoinNode extends SubqueryAwareRelationalNode {
         return pullBatch();
     }
 
+	/**
+	 * @return true if the left side is expected to be small enough that a filter 
+	 * of its join keys should be applied to the right access node
+	 */
+	private boolean useJoinFilter() {
+		if (this.joinFilterChecked) {
+			return false;
+		}
+		int maxRows = getContext().getOptions().getJoinFilterMaxRows();
+		if (maxRows <= 0 || !isJoinFilterEligible()) {
+			this.joinFilterChecked = true;
+			return false;
+		}
+		Number estimate = getChildren()[0].getEstimateNodeCardinality();
+		if (estimate == null || estimate.floatValue() < 0 || estimate.floatValue() > maxRows) {
+			this.joinFilterChecked = true;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Fully read the left side and build a bloom filter of its join keys so that the 
+	 * right access node can discard rows that cannot match before they are buffered.
+	 */
+	private void createJoinFilter() throws TeiidComponentException, TeiidProcessingException {
+		SourceState left = this.joinStrategy.leftSource;
+		TupleBuffer buffer = left.getTupleBuffer();
+		this.joinFilterChecked = true;
+		if (!buffer.isFinal() || buffer.isForwardOnly() || buffer.getRowCount() > getContext().getOptions().getJoinFilterMaxRows()) {
+			return;
+		}
+		BloomFilter filter = new BloomFilter(buffer.getRowCount());
+		int[] indexes = left.getExpressionIndexes();
+		TupleSource ts = buffer.createIndexedTupleSource();
+		try {
+			List<?> tuple = null;
+			while ((tuple = ts.nextTuple()) != null) {
+				Object key = BloomFilter.getKey(tuple, indexes);
+				if (key != null) {
+					filter.add(key);
+				}
+			}
+		} finally {
+			ts.closeSource();
+		}
+		LogManager.logDetail(LogConstants.CTX_DQP, "Join node", getID(), "applying a join filter of", buffer.getRowCount(), "left rows to the right access node"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		((AccessNode)getChildren()[1]).setJoinFilter(filter, this.joinStrategy.rightSource.getExpressionIndexes());
+	}
+
+	/**
+	 * The filter is only valid when unmatched right rows cannot contribute to the result
+	 * and when the key values have hashCodes consistent with equality.
+	 */
+	private boolean isJoinFilterEligible() {
+		if (!(this.joinStrategy instanceof MergeJoinStrategy) || this.leftExpressions == null || this.leftExpressions.isEmpty() 
+				|| !(getChildren()[1] instanceof AccessNode)) {
+			return false;
+		}
+		if (this.joinType != JoinType.JOIN_INNER && this.joinType != JoinType.JOIN_LEFT_OUTER && this.joinType != JoinType.JOIN_SEMI) {
+			return false;
+		}
+		//the same check as the hash join, which accounts for pad space and collation comparison of strings
+		return HashJoinStrategy.isHashable(this.leftExpressions, this.rightExpressions);
+	}
+
 	private void prefetch(SourceState toFetch, SourceState other) throws TeiidComponentException,
 			TeiidProcessingException {
 		toFetch.prefetch(Math.max(1l, other.getIncrementalRowCount(false)/other.getSource().getBatchSize())*toFetch.getSource().getBatchSize());
@@ -335,6 +412,7 @@ public class JoinNode extends SubqueryAwareRelationalNode {
     	super.reset();
     	this.joinStrategy = this.joinStrategy.clone();
     	this.dvs = null;
+    	this.joinFilterChecked = false;
     }
 
     public JoinType getJoinType() {
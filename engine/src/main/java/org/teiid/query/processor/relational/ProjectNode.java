@@ -39,6 +39,7 @@ import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.CompiledExpression;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.symbol.AliasSymbol;
 import org.teiid.query.sql.symbol.Expression;
@@ -53,6 +54,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     private Map<Expression, Integer> elementMap;
     private boolean needsProject = true;
     private List<Expression> expressions;
+    private CompiledExpression[] compiledExpressions;
     private int[] projectionIndexes;
 
     // Saved state when blocked on evaluating a row - must be reset
@@ -92,6 +94,16 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     	for (Expression ses : this.selectSymbols) {
 			this.expressions.add(SymbolMap.getExpression(ses));
 		}
+    	compile();
+	}
+	
+	private void compile() {
+		this.compiledExpressions = new CompiledExpression[this.expressions.size()];
+		for (int i = 0; i < this.compiledExpressions.length; i++) {
+			if (this.projectionIndexes[i] == -1) {
+				this.compiledExpressions[i] = CompiledExpression.compile(this.expressions.get(i), this.elementMap);
+			}
+		}
 	}
 	
 	@Override
@@ -132,6 +144,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
             	projectionIndexes[i] = index;
             }
         }
+        compile();
 	}
 	
 	public TupleBatch nextBatchDirect()
@@ -162,9 +175,8 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
 			List<Object> projectedTuple = new ArrayList<Object>(selectSymbols.size());
 
 			// Walk through symbols
-            for(int i=0; i<expressions.size(); i++) {
-				Expression symbol = expressions.get(i);
-				updateTuple(symbol, i, tuple, projectedTuple);
+            for(int i=0; i<compiledExpressions.length; i++) {
+				updateTuple(i, tuple, projectedTuple);
 			}
 
             // Add to batch
@@ -182,14 +194,14 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     	return pullBatch();
 	}
 
-	private void updateTuple(Expression symbol, int projectionIndex, List<?> values, List<Object> tuple)
+	private void updateTuple(int projectionIndex, List<?> values, List<Object> tuple)
 		throws BlockedException, TeiidComponentException, ExpressionEvaluationException {
 
         int index = this.projectionIndexes[projectionIndex];
         if(index != -1) {
 			tuple.add(values.get(index));
         } else { 
-			tuple.add(getEvaluator(this.elementMap).evaluate(symbol, values));
+			tuple.add(this.compiledExpressions[projectionIndex].evaluate(getEvaluator(this.elementMap), values));
 		}
 	}
 
@@ -210,6 +222,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         target.needsProject = needsProject;
         target.elementMap = elementMap;
         target.expressions = expressions;
+        target.compiledExpressions = compiledExpressions;
         target.projectionIndexes = projectionIndexes;
     }
 
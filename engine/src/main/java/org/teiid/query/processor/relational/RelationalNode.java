@@ -345,6 +345,14 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
 		
 	}
 
+	/**
+	 * Mark this node as closed so that it is skipped by its parent's close.
+	 * The caller is then responsible for the close of this node and its children.
+	 */
+	final void markClosed() {
+		this.getProcessingState().closed = true;
+	}
+
     /**
      * Check if the node has been already closed
      * @return
@@ -36,6 +36,7 @@ import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.CompiledExpression;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.lang.Criteria;
@@ -46,6 +47,7 @@ import org.teiid.query.util.CommandContext;
 public class SelectNode extends SubqueryAwareRelationalNode {
 
 	private Criteria criteria;
+	private CompiledExpression compiledCriteria;
 	private List<Expression> projectedExpressions;
     
     // Derived element lookup map
@@ -73,6 +75,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 
 	public void setCriteria(Criteria criteria) { 
 		this.criteria = criteria;
+		this.compiledCriteria = null;
 	}
 
 	public Criteria getCriteria() { // made public to support change in ProcedurePlanner
@@ -92,6 +95,9 @@ public class SelectNode extends SubqueryAwareRelationalNode {
             this.elementMap = createLookupMap(this.getChildren()[0].getElements());
             this.projectionIndexes = getProjectionIndexes(this.elementMap, projectedExpressions!=null?projectedExpressions:getElements());
         }
+        if (this.compiledCriteria == null) {
+        	this.compiledCriteria = CompiledExpression.compile(this.criteria, this.elementMap);
+        }
 	}
 	
     /**
@@ -107,7 +113,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
     		List<?> tuple = currentBatch.getTuple(currentRow);
 
-            if(getEvaluator(this.elementMap).evaluate(this.criteria, tuple)) {
+            if(this.compiledCriteria.matches(getEvaluator(this.elementMap), tuple)) {
                 addBatchRow(projectTuple(this.projectionIndexes, tuple));
             }
             currentRow++;
@@ -137,6 +143,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 	protected void copyTo(SelectNode target){
 		super.copyTo(target);
 		target.criteria = criteria;
+		target.compiledCriteria = compiledCriteria;
 		target.elementMap = elementMap;
 		target.projectionIndexes = projectionIndexes;
 		target.projectedExpressions = projectedExpressions;
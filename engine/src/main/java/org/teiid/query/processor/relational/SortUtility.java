@@ -28,6 +28,11 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
@@ -47,10 +52,14 @@ import org.teiid.logging.MessageLevel;
 import org.teiid.query.sql.lang.OrderBy;
 import org.teiid.query.sql.lang.OrderByItem;
 import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
 
 
 /**
  * Implements several modes of a multi-pass sort.
+ * <br>
+ * If a {@link CommandContext} is set, then the in memory sorting of large sublists and 
+ * the intermediate merge passes may be performed in parallel using the context executor.
  * 
  * TODO: could consider using an index for dup_removal and maintaining a separate output buffer
  * TODO: release the tuple buffer in the last merge pass if sublists will fit in processing batch size
@@ -111,8 +120,14 @@ public class SortUtility {
 	private boolean nonBlocking;
 	
 	private static boolean STABLE_SORT = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid.requireStableSort", false); //$NON-NLS-1$
+	private static int MAX_SORT_THREADS = PropertiesUtils.getIntProperty(System.getProperties(), "org.teiid.maxSortThreads", Runtime.getRuntime().availableProcessors()); //$NON-NLS-1$
+	//the minimum number of batches to sort with each thread 
+	private static final int PARALLEL_MIN_BATCHES = 8;
 	
 	private boolean stableSort = STABLE_SORT;
+	private CommandContext context;
+	private Executor executor;
+	private int parallelism = 1;
     
     public SortUtility(TupleSource sourceID, List<OrderByItem> items, Mode mode, BufferManager bufferMgr,
                         String groupName, List<? extends Expression> schema) {
@@ -346,6 +361,15 @@ public class SortUtility {
                     workingTuples.add(tuple);
 		        } 
 		
+		        int segments = 1;
+		        if (this.mode == Mode.SORT && !stableSort) {
+		        	segments = Math.min(parallelism, workingTuples.size()/(PARALLEL_MIN_BATCHES * batchSize));
+		        }
+		        if (segments > 1) {
+		        	activeTupleBuffers.addAll(parallelSort((List<List<?>>)workingTuples, segments));
+		        	workingTuples.clear();
+		        	continue;
+		        }
 		        TupleBuffer sublist = createTupleBuffer();
 		        activeTupleBuffers.add(sublist);
 		        if (this.mode == Mode.SORT) {
@@ -380,6 +404,100 @@ public class SortUtility {
 		this.workingBuffer = workingBuffer;
 	}
     
+    /**
+     * Sort segments of the working tuples as separate sublists in parallel
+     */
+    private List<TupleBuffer> parallelSort(final List<List<?>> workingTuples, int segments) throws TeiidComponentException, TeiidProcessingException {
+    	int segmentSize = workingTuples.size()/segments + (workingTuples.size()%segments==0?0:1);
+    	List<Callable<TupleBuffer>> tasks = new ArrayList<Callable<TupleBuffer>>(segments);
+    	for (int i = 0; i < workingTuples.size(); i += segmentSize) {
+    		final List<List<?>> segment = workingTuples.subList(i, Math.min(workingTuples.size(), i + segmentSize));
+    		tasks.add(new Callable<TupleBuffer>() {
+    			@Override
+    			public TupleBuffer call() throws TeiidComponentException {
+    				Collections.sort(segment, comparator);
+    				TupleBuffer sublist = createTupleBuffer();
+    				for (List<?> list : segment) {
+    					sublist.addTuple(list);
+    				}
+    				sublist.saveBatch();
+    				return sublist;
+    			}
+    		});
+		}
+    	return invokeAll(tasks);
+    }
+    
+    /**
+     * Run the tasks with the executor.  The calling thread runs the first task and any other 
+     * task that has not yet started, so that progress does not depend upon available threads.
+     * All of the tasks will be completed upon return.  If any task fails, the results of the 
+     * others are removed.
+     */
+    private List<TupleBuffer> invokeAll(List<Callable<TupleBuffer>> tasks) throws TeiidComponentException, TeiidProcessingException {
+    	this.comparator.initialize();
+    	List<FutureTask<TupleBuffer>> futures = new ArrayList<FutureTask<TupleBuffer>>(tasks.size());
+    	for (int i = 0; i < tasks.size(); i++) {
+    		final Callable<TupleBuffer> task = tasks.get(i);
+    		FutureTask<TupleBuffer> future = new FutureTask<TupleBuffer>(new Callable<TupleBuffer>() {
+    			@Override
+    			public TupleBuffer call() throws Exception {
+    				if (context == null) {
+    					return task.call();
+    				}
+    				CommandContext.pushThreadLocalContext(context);
+    				try {
+    					return task.call();
+    				} finally {
+    					CommandContext.popThreadLocalContext();
+    				}
+    			}
+    		});
+    		futures.add(future);
+    		if (i > 0 && executor != null) {
+    			try {
+    				executor.execute(future);
+    			} catch (RejectedExecutionException e) {
+    				//the calling thread will run the task
+    			}
+    		}
+		}
+    	List<TupleBuffer> result = new ArrayList<TupleBuffer>(tasks.size());
+    	Throwable failure = null;
+    	for (FutureTask<TupleBuffer> future : futures) {
+    		//does nothing if the task has already been run
+    		future.run();
+    		try {
+				result.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				if (failure == null) {
+					failure = e;
+				}
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause();
+				}
+			}
+		}
+    	if (failure == null) {
+    		return result;
+    	}
+    	for (TupleBuffer tb : result) {
+			tb.remove();
+		}
+    	if (failure instanceof TeiidComponentException) {
+			throw (TeiidComponentException)failure;
+		}
+		if (failure instanceof TeiidProcessingException) {
+			throw (TeiidProcessingException)failure;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException)failure;
+		}
+		throw new TeiidComponentException(failure);
+    }
+    
     protected void mergePhase() throws TeiidComponentException, TeiidProcessingException {
         long desiredSpace = activeTupleBuffers.size() * (long)schemaSize;
         int toForce = (int)Math.min(desiredSpace, Math.max(2*schemaSize, this.bufferManager.getMaxProcessingSize()));
@@ -422,10 +540,6 @@ public class SortUtility {
         
         try {
         	while(this.activeTupleBuffers.size() > 1) {    		
-	    		ArrayList<SortedSublist> sublists = new ArrayList<SortedSublist>(activeTupleBuffers.size());
-	            
-	            TupleBuffer merged = createTupleBuffer();
-
 	            desiredSpace = activeTupleBuffers.size() * (long)schemaSize;
 	            if (desiredSpace < reserved) {
 	            	bufferManager.releaseBuffers(reserved - (int)desiredSpace);
@@ -433,32 +547,37 @@ public class SortUtility {
 	            }
 	            int maxSortIndex = Math.max(2, reserved / schemaSize); //always allow progress
 	            
-            	if (LogManager.isMessageToBeRecorded(org.teiid.logging.LogConstants.CTX_DQP, MessageLevel.TRACE)) {
-	            	LogManager.logTrace(org.teiid.logging.LogConstants.CTX_DQP, "Merging", maxSortIndex, "sublists out of", activeTupleBuffers.size()); //$NON-NLS-1$ //$NON-NLS-2$
+	            int groups = 1;
+	            if (activeTupleBuffers.size() > maxSortIndex && !stableSort) {
+	            	//intermediate passes are independent, so the fan-in allowed by the reserved memory may be split between threads
+	            	groups = Math.min(parallelism, maxSortIndex/2);
 	            }
-	        	// initialize the sublists with the min value
-	            for(int i = 0; i<maxSortIndex; i++) { 
-	             	TupleBuffer activeID = activeTupleBuffers.get(i);
-	             	SortedSublist sortedSublist = new SortedSublist();
-	            	sortedSublist.its = activeID.createIndexedTupleSource();
-	            	sortedSublist.its.setNoBlocking(true);
-	            	sortedSublist.index = i;
-	            	incrementWorkingTuple(sublists, sortedSublist);
+	            if (groups > 1) {
+	            	int fanIn = maxSortIndex/groups;
+	            	if (LogManager.isMessageToBeRecorded(org.teiid.logging.LogConstants.CTX_DQP, MessageLevel.TRACE)) {
+		            	LogManager.logTrace(org.teiid.logging.LogConstants.CTX_DQP, "Merging", groups, "groups of", fanIn, "sublists out of", activeTupleBuffers.size()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		            }
+	            	List<Callable<TupleBuffer>> tasks = new ArrayList<Callable<TupleBuffer>>(groups);
+	            	for (int i = 0; i < groups; i++) {
+	            		final List<TupleBuffer> toMerge = new ArrayList<TupleBuffer>(activeTupleBuffers.subList(i*fanIn, (i+1)*fanIn));
+	            		tasks.add(new Callable<TupleBuffer>() {
+	            			@Override
+	            			public TupleBuffer call() throws TeiidComponentException, TeiidProcessingException {
+	            				return merge(toMerge);
+	            			}
+	            		});
+	            	}
+	            	List<TupleBuffer> merged = invokeAll(tasks);
+	            	removeSublists(groups * fanIn);
+	            	this.activeTupleBuffers.addAll(merged);
+	            	continue;
 	            }
 	            
-	            // iteratively process the lowest tuple
-	            while (sublists.size() > 0) {
-	            	SortedSublist sortedSublist = sublists.remove(sublists.size() - 1);
-	        		merged.addTuple(sortedSublist.tuple);
-	            	incrementWorkingTuple(sublists, sortedSublist);
-	            }                
-	
-	            // Remove merged sublists
-	            for(int i=0; i<maxSortIndex; i++) {
-	            	TupleBuffer id = activeTupleBuffers.remove(0);
-            		id.remove();
+            	if (LogManager.isMessageToBeRecorded(org.teiid.logging.LogConstants.CTX_DQP, MessageLevel.TRACE)) {
+	            	LogManager.logTrace(org.teiid.logging.LogConstants.CTX_DQP, "Merging", maxSortIndex, "sublists out of", activeTupleBuffers.size()); //$NON-NLS-1$ //$NON-NLS-2$
 	            }
-	            merged.saveBatch();
+            	TupleBuffer merged = merge(activeTupleBuffers.subList(0, maxSortIndex));
+	            removeSublists(maxSortIndex);
 	            this.activeTupleBuffers.add(merged);           
     		}
         } finally {
@@ -473,6 +592,43 @@ public class SortUtility {
         return;
     }
 
+    /**
+     * Merge the given sorted sublists into a new sublist
+     */
+	private TupleBuffer merge(List<TupleBuffer> toMerge) throws TeiidComponentException, TeiidProcessingException {
+		ArrayList<SortedSublist> sublists = new ArrayList<SortedSublist>(toMerge.size());
+		TupleBuffer merged = createTupleBuffer();
+		
+		// initialize the sublists with the min value
+        for(int i = 0; i<toMerge.size(); i++) { 
+         	TupleBuffer activeID = toMerge.get(i);
+         	SortedSublist sortedSublist = new SortedSublist();
+        	sortedSublist.its = activeID.createIndexedTupleSource();
+        	sortedSublist.its.setNoBlocking(true);
+        	sortedSublist.index = i;
+        	incrementWorkingTuple(sublists, sortedSublist);
+        }
+        
+        // iteratively process the lowest tuple
+        while (sublists.size() > 0) {
+        	SortedSublist sortedSublist = sublists.remove(sublists.size() - 1);
+    		merged.addTuple(sortedSublist.tuple);
+        	incrementWorkingTuple(sublists, sortedSublist);
+        }                
+        merged.saveBatch();
+        return merged;
+	}
+
+	/**
+	 * Remove merged sublists
+	 */
+	private void removeSublists(int count) {
+		for(int i=0; i<count; i++) {
+        	TupleBuffer id = activeTupleBuffers.remove(0);
+    		id.remove();
+        }
+	}
+
 	private void incrementWorkingTuple(ArrayList<SortedSublist> subLists, SortedSublist sortedSublist) throws TeiidComponentException, TeiidProcessingException {
 		while (true) {
 			sortedSublist.tuple = null;
@@ -526,10 +682,28 @@ public class SortUtility {
 		this.stableSort = stableSort;
 	}
 	
+	/**
+	 * Allow the sort to use additional threads from the context executor, bounded by 
+	 * the user request source concurrency.  Without an executor the sort is sequential.
+	 */
+	public void setCommandContext(CommandContext context) {
+		this.context = context;
+		this.executor = context.getExecutor();
+		if (this.executor != null) {
+			this.parallelism = Math.max(1, Math.min(MAX_SORT_THREADS, context.getUserRequestSourceConcurrency()));
+		} else {
+			this.parallelism = 1;
+		}
+	}
+	
 	void setBatchSize(int batchSize) {
 		this.batchSize = batchSize;
 	}
 	
+	void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+	
 	public boolean isDoneReading() {
 		return doneReading;
 	}
@@ -22,7 +22,10 @@
 
 package org.teiid.query.processor.relational;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
 
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
@@ -31,15 +34,182 @@ import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.util.PropertiesUtils;
+import org.teiid.dqp.internal.process.DQPCore.CompletionListener;
+import org.teiid.dqp.internal.process.FutureWork;
+import org.teiid.dqp.internal.process.RequestWorkItem;
+import org.teiid.dqp.service.TransactionContext;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.processor.ProcessorDataManager;
+import org.teiid.query.processor.QueryProcessor.ExpiredTimeSliceException;
+import org.teiid.query.sql.LanguageObject;
+import org.teiid.query.sql.lang.QueryCommand;
+import org.teiid.query.sql.visitor.ReferenceCollectorVisitor;
+import org.teiid.query.sql.visitor.ValueIteratorProviderCollectorVisitor;
 import org.teiid.query.util.CommandContext;
 
 
 public class UnionAllNode extends RelationalNode {
+	
+	private static final boolean PARALLEL = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid.parallelUnion", true); //$NON-NLS-1$
+	private static final int MAX_QUEUED_BATCHES = 2;
+	private static final int WORK_PRIORITY = 100;
+	
+	/**
+	 * Processes a single child on the engine pool, queuing its batches for the union.
+	 * The number of concurrently executing children is bounded by the 
+	 * {@link RequestWorkItem} via the user request source concurrency.
+	 */
+	private final class ChildWork implements Callable<Void>, CompletionListener<Void> {
+		private RelationalNode child;
+		private RequestWorkItem workItem;
+		private LinkedList<TupleBatch> batches = new LinkedList<TupleBatch>();
+		private FutureWork<Void> future;
+		private boolean scheduled;
+		private boolean executing;
+		private boolean signal;
+		private boolean done;
+		private boolean closed;
+		private boolean closeChild;
+		private Throwable failure;
+		
+		ChildWork(RelationalNode child, RequestWorkItem workItem) {
+			this.child = child;
+			this.workItem = workItem;
+		}
+
+		void schedule() {
+			synchronized (this) {
+				if (scheduled || done || closed || failure != null || batches.size() >= MAX_QUEUED_BATCHES) {
+					return;
+				}
+				scheduled = true;
+			}
+			FutureWork<Void> work = workItem.addWork(this, this, WORK_PRIORITY);
+			synchronized (this) {
+				future = work;
+			}
+		}
+		
+		@Override
+		public Void call() {
+			synchronized (this) {
+				if (closed) {
+					return null;
+				}
+				executing = true;
+			}
+			CommandContext.pushThreadLocalContext(getContext());
+			try {
+				while (true) {
+					synchronized (this) {
+						if (closed || batches.size() >= MAX_QUEUED_BATCHES) {
+							break;
+						}
+					}
+					TupleBatch batch = child.nextBatch();
+					synchronized (this) {
+						batches.add(batch);
+						done = batch.getTerminationFlag();
+					}
+					workItem.moreWork();
+					if (done) {
+						break;
+					}
+				}
+			} catch (BlockedException e) {
+				//the data tier will signal when more results are available
+				if (e == BlockedException.BLOCKED_ON_MEMORY_EXCEPTION || e instanceof ExpiredTimeSliceException) {
+					synchronized (this) {
+						signal = true;
+					}
+				}
+			} catch (Throwable e) {
+				synchronized (this) {
+					failure = e;
+				}
+			} finally {
+				boolean close = false;
+				synchronized (this) {
+					executing = false;
+					close = closeChild;
+				}
+				if (close) {
+					closeChild(child);
+				}
+				CommandContext.popThreadLocalContext();
+			}
+			return null;
+		}
+		
+		@Override
+		public void onCompletion(FutureWork<Void> work) {
+			synchronized (this) {
+				scheduled = false;
+				if (!signal && failure == null) {
+					return;
+				}
+				signal = false;
+			}
+			workItem.moreWork();
+		}
+		
+		TupleBatch nextBatch() throws BlockedException, TeiidComponentException, TeiidProcessingException {
+			TupleBatch batch = null;
+			synchronized (this) {
+				if (failure != null) {
+					if (failure instanceof TeiidComponentException) {
+						throw (TeiidComponentException)failure;
+					}
+					if (failure instanceof TeiidProcessingException) {
+						throw (TeiidProcessingException)failure;
+					}
+					if (failure instanceof RuntimeException) {
+						throw (RuntimeException)failure;
+					}
+					throw new TeiidComponentException(failure);
+				}
+				batch = batches.poll();
+				if (batch == null && scheduled) {
+					//make sure that we're notified when the current work completes
+					signal = true;
+				}
+			}
+			schedule();
+			if (batch == null) {
+				throw BlockedException.block(getContext().getRequestId(), "Blocking on parallel union source.", child.getID()); //$NON-NLS-1$
+			}
+			return batch;
+		}
+		
+		/**
+		 * Stop processing without waiting on executing work.  If the child is
+		 * still being processed it is marked as closed, so that the parent close
+		 * skips it, and is closed by the executing thread when it finishes.
+		 */
+		void close() {
+			FutureWork<Void> work = null;
+			synchronized (this) {
+				closed = true;
+				batches.clear();
+				work = future;
+				if (executing) {
+					closeChild = true;
+					child.markClosed();
+				}
+			}
+			if (work != null) {
+				work.cancel(false);
+			}
+		}
+	}
 
     private static final int SMALL_LIMIT = 10;
 	private boolean[] sourceDone;
     private boolean[] sourceOpen;
+    private ChildWork[] childWork;
     
     private int outputRow = 1;
     private int reserved;
@@ -54,6 +224,7 @@ public class UnionAllNode extends RelationalNode {
         
         sourceDone = null;
         sourceOpen = null;
+        childWork = null;
         outputRow = 1;   
     }    
     
@@ -121,6 +292,118 @@ public class UnionAllNode extends RelationalNode {
     	
         // Open the children
         super.open();
+        
+        childWork = createChildWork();
+        if (childWork != null) {
+        	for (ChildWork work : childWork) {
+        		if (work != null) {
+        			//account for the additional queued batch
+        			reserved += getBufferManager().reserveBuffers(schemaSize, BufferReserveMode.FORCE);
+        			work.schedule();
+        		}
+        	}
+        }
+	}
+	
+	/**
+	 * Determine which children should be processed in parallel.  Only children that require local 
+	 * processing benefit, since access nodes are already executed asynchronously by the data tier.
+	 * @return the work for each parallel child or null if processing should be serial
+	 */
+	private ChildWork[] createChildWork() {
+		if (!PARALLEL) {
+			return null;
+		}
+		CommandContext context = getContext();
+		RequestWorkItem workItem = context.getWorkItem();
+		if (workItem == null || context.getUserRequestSourceConcurrency() < 2 
+				|| workItem.getDqpWorkContext() == null || workItem.getDqpWorkContext().useCallingThread()) {
+			return null;
+		}
+		TransactionContext tc = context.getTransactionContext();
+		if (tc != null && tc.getTransaction() != null) {
+			return null;
+		}
+		RelationalNode[] children = getChildren();
+		ChildWork[] result = new ChildWork[getChildCount()];
+		int count = 0;
+		for (int i = 0; i < result.length; i++) {
+			if (!(children[i] instanceof AccessNode) && isParallelSafe(children[i])) {
+				result[i] = new ChildWork(children[i], workItem);
+				count++;
+			}
+		}
+		if (count < 2) {
+			return null;
+		}
+		return result;
+	}
+	
+	/**
+	 * Close a child that was marked as closed by {@link ChildWork#close()}
+	 */
+	static void closeChild(RelationalNode child) {
+		child.closeDirect();
+		for (RelationalNode grandChild : child.getChildren()) {
+			if (grandChild == null) {
+				break;
+			}
+			try {
+				grandChild.close();
+			} catch (TeiidComponentException e) {
+				LogManager.logDetail(LogConstants.CTX_DQP, e, "Error closing parallel union source"); //$NON-NLS-1$
+			}
+		}
+	}
+	
+	/**
+	 * Only allow the common relational operations that do not have side effects or 
+	 * dependencies on the processing thread.  Access nodes that read shared with
+	 * sources or temp tables, or that evaluate references against the variable context,
+	 * must remain on the processing thread.
+	 */
+	static boolean isParallelSafe(RelationalNode node) {
+		Class<?> clazz = node.getClass();
+		if (clazz != AccessNode.class && clazz != ProjectNode.class && clazz != SelectNode.class 
+				&& clazz != JoinNode.class && clazz != GroupingNode.class && clazz != SortNode.class 
+				&& clazz != DupRemoveNode.class && clazz != LimitNode.class && clazz != UnionAllNode.class) {
+			return false;
+		}
+		if (node instanceof JoinNode && ((JoinNode)node).isDependent()) {
+			//dependent values are shared through the variable context
+			return false;
+		}
+		if (node instanceof AccessNode) {
+			AccessNode accessNode = (AccessNode)node;
+			if (accessNode.info != null || accessNode.isShouldEvaluate() || accessNode.getSubPlans() != null
+					|| TempMetadataAdapter.TEMP_MODEL.getID().equals(accessNode.getModelName())
+					|| !(accessNode.getCommand() instanceof QueryCommand)) {
+				return false;
+			}
+		}
+		if (node instanceof SubqueryAwareRelationalNode) {
+			Collection<? extends LanguageObject> objects = ((SubqueryAwareRelationalNode)node).getObjects();
+			if (objects != null) {
+				if (!ValueIteratorProviderCollectorVisitor.getValueIteratorProviders(objects).isEmpty()) {
+					return false;
+				}
+				for (LanguageObject object : objects) {
+					if (object != null && !ReferenceCollectorVisitor.getReferences(object).isEmpty()) {
+						//references are evaluated against the variable context
+						return false;
+					}
+				}
+			}
+		}
+		for (RelationalNode child : node.getChildren()) {
+			if (child == null) {
+				break;
+			}
+			if (!isParallelSafe(child)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
     public TupleBatch nextBatchDirect() 
@@ -144,7 +427,11 @@ public class UnionAllNode extends RelationalNode {
                 
                 if(batch == null) {
                     try {
-                        batch = children[i].nextBatch();
+                    	if (childWork != null && childWork[i] != null) {
+                    		batch = childWork[i].nextBatch();
+                    	} else {
+                    		batch = children[i].nextBatch();
+                    	}
                         
                         // Got a batch
                         if(batch.getTerminationFlag() == true) {
@@ -220,6 +507,14 @@ public class UnionAllNode extends RelationalNode {
     
     @Override
     public void closeDirect() {
+    	if (childWork != null) {
+    		for (ChildWork work : childWork) {
+    			if (work != null) {
+    				work.close();
+    			}
+    		}
+    		childWork = null;
+    	}
     	if (reserved > 0) {
 	    	getBufferManager().releaseBuffers(reserved);
 	    	reserved = 0;
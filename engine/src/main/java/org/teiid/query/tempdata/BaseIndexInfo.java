@@ -56,6 +56,7 @@ public class BaseIndexInfo<T extends SearchableTable> {
 	List<Object> lower = null;
 	List<Object> upper = null;
 	ArrayList<List<Object>> valueSet = new ArrayList<List<Object>>();
+	int rangePrefix;
 	T table;
 	Boolean ordering;
 	boolean covering;
@@ -236,6 +237,9 @@ public class BaseIndexInfo<T extends SearchableTable> {
 			break;
 		case CompareCriteria.GE:
 		case CompareCriteria.GT:
+			if (isEqualityPrefix(i)) {
+				useRangeWithPrefix(i);
+			}
 			if (valueSet.isEmpty()) {
 				if (i == 0) {
 					lower = new ArrayList<Object>(table.getPkLength());
@@ -247,6 +251,9 @@ public class BaseIndexInfo<T extends SearchableTable> {
 			break;
 		case CompareCriteria.LE:
 		case CompareCriteria.LT:
+			if (isEqualityPrefix(i)) {
+				useRangeWithPrefix(i);
+			}
 			if (valueSet.isEmpty()) {
 				if (i == 0) {
 					upper = new ArrayList<Object>(table.getPkLength());
@@ -259,6 +266,25 @@ public class BaseIndexInfo<T extends SearchableTable> {
 		}
 	}
 
+	/**
+	 * @return true if there is a single equality condition covering exactly the key columns before i
+	 */
+	private boolean isEqualityPrefix(int i) {
+		return i > 0 && valueSet.size() == 1 && valueSet.get(0).size() == i;
+	}
+	
+	/**
+	 * Convert the equality prefix into a range so that a range condition on column i 
+	 * can be used as well.  The partial key bounds cover all the values with the prefix.
+	 */
+	private void useRangeWithPrefix(int i) {
+		List<Object> prefix = valueSet.get(0);
+		valueSet.clear();
+		lower = new ArrayList<Object>(prefix);
+		upper = new ArrayList<Object>(prefix);
+		rangePrefix = i;
+	}
+	
 	private void buildSearchRow(int i, Object match, Object value2,
 			List<Object> toSearch) {
 		if (toSearch.size() != i) {
@@ -48,6 +48,7 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.StringUtil;
 import org.teiid.dqp.internal.process.RequestWorkItem;
 import org.teiid.dqp.message.RequestID;
 import org.teiid.language.SQLConstants;
@@ -101,6 +102,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		private long ttl = -1;
 		private boolean valid;
 		private boolean asynch; //sub state of loading
+		private Object deltaWatermark;
 		private Map<RequestID, WeakReference<RequestWorkItem>> waiters = new HashMap<RequestID, WeakReference<RequestWorkItem>>(2);
 		
 		protected MatTableInfo() {}
@@ -190,6 +192,17 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 			return ttl;
 		}
 		
+		/**
+		 * @return the max value of the delta column as of the last load or delta refresh
+		 */
+		public synchronized Object getDeltaWatermark() {
+			return deltaWatermark;
+		}
+		
+		public synchronized void setDeltaWatermark(Object deltaWatermark) {
+			this.deltaWatermark = deltaWatermark;
+		}
+		
 		public VDBMetaData getVdbMetaData() {
 			return vdbMetaData;
 		}
@@ -505,6 +518,35 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		}
 		return pkColumns;
 	}
+	
+	/**
+	 * Resolve the {@link MaterializationMetadataRepository#MATVIEW_INDEX_INCLUDE} columns of the index
+	 * @return the include columns or null if none are specified
+	 */
+	public static List<ElementSymbol> resolveIncludeColumns(QueryMetadataInterface metadata, List<ElementSymbol> allColumns, Object index) 
+			throws TeiidComponentException, QueryMetadataException {
+		String include = metadata.getExtensionProperty(index, MaterializationMetadataRepository.MATVIEW_INDEX_INCLUDE, false);
+		if (include == null) {
+			return null;
+		}
+		List<ElementSymbol> includeColumns = new ArrayList<ElementSymbol>();
+		for (String name : StringUtil.split(include, ",")) { //$NON-NLS-1$
+			name = name.trim();
+			ElementSymbol match = null;
+			for (ElementSymbol es : allColumns) {
+				if (es.getShortName().equalsIgnoreCase(name)) {
+					match = es;
+					break;
+				}
+			}
+			if (match == null) {
+				LogManager.logWarning(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31166, name, metadata.getFullName(index)));
+				continue;
+			}
+			includeColumns.add(match);
+		}
+		return includeColumns;
+	}
 
 	//begin replication methods
 	
@@ -352,6 +352,8 @@ public class TempTable implements Cloneable, SearchableTable {
         	this.uniqueColIndex = primaryKeyLength;
         	tree = bm.createSTree(columns, sessionID, primaryKeyLength);
         }
+		//the table is owned by its store rather than the creating request
+		this.tree.detachAccount();
 		this.tree.setMinStorageSize(0);
 		this.columnMap = RelationalNode.createLookupMap(columns);
 		this.columns = columns;
@@ -408,26 +410,43 @@ public class TempTable implements Cloneable, SearchableTable {
 	}
 	
 	void addIndex(List<ElementSymbol> indexColumns, boolean unique) throws TeiidComponentException, TeiidProcessingException {
+		addIndex(indexColumns, unique, null);
+	}
+	
+	/**
+	 * Add a secondary index.  The include columns are stored with the index, but are not part of the key, 
+	 * so that queries projecting and filtering only on the index and include columns do not need to access the base tree. 
+	 */
+	void addIndex(List<ElementSymbol> indexColumns, boolean unique, List<ElementSymbol> includeColumns) throws TeiidComponentException, TeiidProcessingException {
 		List<ElementSymbol> keyColumns = columns.subList(0, tree.getKeyLength());
 		if (keyColumns.equals(indexColumns) || (indexTables != null && indexTables.containsKey(indexColumns))) {
 			return;
 		}
-		TempTable indexTable = createIndexTable(indexColumns, unique);
+		TempTable indexTable = createIndexTable(indexColumns, unique, includeColumns);
 		//TODO: ordered insert optimization
-		TupleSource ts = createTupleSource(indexTable.getColumns(), null, null);
+		//read directly from the primary tree, not the index being built
+		TupleSource ts = createTupleSource(indexTable.getColumns(), null, null, new IndexInfo(this, indexTable.getColumns(), null, null, true), false);
 		indexTable.insert(ts, indexTable.getColumns(), false, null);
 		indexTable.getTree().compact();
 	}
 
 	private TempTable createIndexTable(List<ElementSymbol> indexColumns,
-			boolean unique) {
+			boolean unique, List<ElementSymbol> includeColumns) {
 		List<ElementSymbol> allColumns = new ArrayList<ElementSymbol>(indexColumns);
 		for (ElementSymbol elementSymbol : columns.subList(0, tree.getKeyLength())) {
 			if (allColumns.indexOf(elementSymbol) < 0) {
 				allColumns.add(elementSymbol);
 			}
 		}
-		TempTable indexTable = new TempTable(new TempMetadataID("idx", Collections.EMPTY_LIST), this.bm, allColumns, allColumns.size(), this.sessionID); //$NON-NLS-1$
+		int keyLength = allColumns.size();
+		if (includeColumns != null) {
+			for (ElementSymbol elementSymbol : includeColumns) {
+				if (allColumns.indexOf(elementSymbol) < 0) {
+					allColumns.add(elementSymbol);
+				}
+			}
+		}
+		TempTable indexTable = new TempTable(new TempMetadataID("idx", Collections.EMPTY_LIST), this.bm, allColumns, keyLength, this.sessionID); //$NON-NLS-1$
 		indexTable.setPreferMemory(this.tree.isPreferMemory());
 		indexTable.lock = this.lock;
 		if (unique) {
@@ -435,8 +454,8 @@ public class TempTable implements Cloneable, SearchableTable {
 		}
 		if (indexTables == null) {
 			indexTables = new LinkedHashMap<List<ElementSymbol>, TempTable>();
-			indexTables.put(indexColumns, indexTable);
 		}
+		indexTables.put(indexColumns, indexTable);
 		indexTable.setUpdatable(this.updatable);
 		return indexTable;
 	}
@@ -463,14 +482,21 @@ public class TempTable implements Cloneable, SearchableTable {
 		}
 		IndexInfo primary = new IndexInfo(this, projectedCols, condition, orderBy, true);
 		IndexInfo ii = primary;
-		if (indexTables != null && (condition != null || orderBy != null) && ii.valueSet.size() != 1) {
+		if (indexTables != null && ii.valueSet.size() != 1) {
 			LogManager.logDetail(LogConstants.CTX_DQP, "Considering indexes on table", this, "for query", projectedCols, condition, orderBy); //$NON-NLS-1$ //$NON-NLS-2$
 			int rowCost = this.tree.getRowCount();
 			long bestCost = estimateCost(orderBy, ii, rowCost);
+			//a count only needs the criteria columns to be covered
+			List<? extends Expression> requiredCols = projectedCols;
+			if (agg) {
+				requiredCols = Collections.emptyList();
+			}
 			for (TempTable table : this.indexTables.values()) {
-				IndexInfo secondary = new IndexInfo(table, projectedCols, condition, orderBy, false);
+				IndexInfo secondary = new IndexInfo(table, requiredCols, condition, orderBy, false);
 				long cost = estimateCost(orderBy, secondary, rowCost);
-				if (cost < bestCost) {
+				if (cost < bestCost 
+						|| (cost == bestCost && secondary.covering && table.columns.size() < ii.table.columns.size())) {
+					//prefer the narrower covering index for the same cost
 					ii = secondary;
 					bestCost = cost;
 				}
@@ -565,12 +591,18 @@ public class TempTable implements Cloneable, SearchableTable {
 				additionalCost = rowCost - initialCost;
 				rowCost = initialCost;
 			}
-		} else if (ii.upper != null) {
-			additionalCost = (64 - Long.numberOfLeadingZeros(initialCost - 1));
-			rowCost /= 3;
-		} else if (ii.lower != null) {
+		} else if (ii.upper != null || ii.lower != null) {
 			additionalCost = (64 - Long.numberOfLeadingZeros(initialCost - 1));
 			rowCost /= 3;
+			if (ii.table.uniqueColIndex > 0 && ii.rangePrefix >= ii.table.uniqueColIndex) {
+				//the equality prefix is unique
+				rowCost = 1;
+			} else {
+				//each equality prefix column further restricts the range
+				for (int i = 0; i < ii.rangePrefix && rowCost > 1; i++) {
+					rowCost /= 3;
+				}
+			}
 		}
 		if (rowCost > 1 && (!ii.covering || (orderBy != null && ii.ordering == null))) {
 			//pk order or non-covered ordering
@@ -814,6 +846,11 @@ public class TempTable implements Cloneable, SearchableTable {
 					for (ElementSymbol es : entry.getKey()) {
 						oos.writeInt(this.columnMap.get(es));
 					}
+					List<ElementSymbol> includeColumns = entry.getValue().getIncludeColumns();
+					oos.writeInt(includeColumns.size());
+					for (ElementSymbol es : includeColumns) {
+						oos.writeInt(this.columnMap.get(es));
+					}
 					entry.getValue().writeTo(oos);
 				}
 			}
@@ -833,7 +870,12 @@ public class TempTable implements Cloneable, SearchableTable {
 				int colIndex = ois.readInt();
 				indexColumns.add(this.columns.get(colIndex));
 			}
-			TempTable tt = this.createIndexTable(indexColumns, unique);
+			int numInclude = ois.readInt();
+			ArrayList<ElementSymbol> includeColumns = new ArrayList<ElementSymbol>(numInclude);
+			for (int j = 0; j < numInclude; j++) {
+				includeColumns.add(this.columns.get(ois.readInt()));
+			}
+			TempTable tt = this.createIndexTable(indexColumns, unique, includeColumns);
 			tt.readFrom(ois);
 		}
 	}
@@ -848,8 +890,7 @@ public class TempTable implements Cloneable, SearchableTable {
 				}
 				if (indexTables != null) {
 					for (TempTable index : this.indexTables.values()) {
-						tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), result);
-						index.tree.remove(tuple);
+						index.tree.remove(RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(this.columnMap, index.columns), result));
 					}
 				}
 				tid.getTableData().dataModified(1);
@@ -858,8 +899,12 @@ public class TempTable implements Cloneable, SearchableTable {
 			List<?> result = tree.insert(tuple, InsertMode.UPDATE, -1);
 			if (indexTables != null) {
 				for (TempTable index : this.indexTables.values()) {
-					tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), tuple);
-					index.tree.insert(tuple, InsertMode.UPDATE, -1);
+					int[] projection = RelationalNode.getProjectionIndexes(this.columnMap, index.columns);
+					if (result != null) {
+						//remove the entry for the old values
+						index.tree.remove(RelationalNode.projectTuple(projection, result));
+					}
+					index.tree.insert(RelationalNode.projectTuple(projection, tuple), InsertMode.UPDATE, -1);
 				}
 			}
 			tid.getTableData().dataModified(1);
@@ -888,6 +933,13 @@ public class TempTable implements Cloneable, SearchableTable {
 		}
 	}
 	
+	/**
+	 * @return the non-key columns of an index table
+	 */
+	private List<ElementSymbol> getIncludeColumns() {
+		return this.columns.subList(this.tree.getKeyLength(), this.columns.size());
+	}
+	
 	CacheHint getCacheHint() {
 		return this.tid.getCacheHint();
 	}
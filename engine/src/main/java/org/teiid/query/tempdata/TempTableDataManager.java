@@ -41,6 +41,7 @@ import org.teiid.api.exception.query.QueryValidatorException;
 import org.teiid.client.security.SessionToken;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.CoreConstants;
@@ -66,6 +67,7 @@ import org.teiid.logging.LogManager;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
+import org.teiid.query.metadata.MaterializationMetadataRepository;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
@@ -76,6 +78,7 @@ import org.teiid.query.processor.CollectionTupleSource;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.processor.RegisterRequestParameter;
+import org.teiid.query.processor.relational.RelationalNode;
 import org.teiid.query.resolver.util.ResolverUtil;
 import org.teiid.query.sql.lang.*;
 import org.teiid.query.sql.symbol.Constant;
@@ -329,6 +332,7 @@ public class TempTableDataManager implements ProcessorDataManager {
 					LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Cache hint modified the query determinism from ",determinismLevel, " to ", hint.getDeterminism() }); //$NON-NLS-1$ //$NON-NLS-2$
 					determinismLevel = hint.getDeterminism();
 				}
+				tb.detachAccount();
 				cache.put(cid, determinismLevel, cr, hint != null?hint.getTtl():null);
 				context.setDeterminismLevel(determinismLevel);
 				success = true;
@@ -366,6 +370,12 @@ public class TempTableDataManager implements ProcessorDataManager {
 			}
 			GroupSymbol matTable = new GroupSymbol(matTableName);
 			matTable.setMetadataID(matTableId);
+			if (!invalidate) {
+				TupleSource ts = loadGlobalTableDelta(context, matTable, matTableName, globalStore);
+				if (ts != null) {
+					return ts;
+				}
+			}
 			return loadGlobalTable(context, matTable, matTableName, globalStore);
 		} else if (StringUtil.endsWithIgnoreCase(proc.getProcedureCallableName(), REFRESHMATVIEWROWS)) {
 			final Object groupID = validateMatView(metadata, (String)((Constant)proc.getParameter(2).getExpression()).getValue());
@@ -708,8 +718,11 @@ public class TempTableDataManager implements ProcessorDataManager {
 		final List<ElementSymbol> allColumns = ResolverUtil.resolveElementsInGroup(group, metadata); 
 		final TempTable table = globalStore.createMatTable(tableName, group);
 		table.setUpdatable(false);
+		final Object viewId = ((TempMetadataID)group.getMetadataID()).getOriginalMetadataID();
+		final int deltaIndex = getDeltaColumnIndex(metadata, viewId, allColumns);
 		return new ProxyTupleSource() {
 			TupleSource insertTupleSource;
+			DeltaWatermarkTupleSource watermark;
 			boolean success;
 			QueryProcessor qp;
 			boolean closed;
@@ -725,6 +738,10 @@ public class TempTableDataManager implements ProcessorDataManager {
 						String transformation = metadata.getVirtualPlan(group.getMetadataID()).getQuery();
 						qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
 						insertTupleSource = new BatchCollector.BatchProducerTupleSource(qp);
+						if (deltaIndex >= 0) {
+							watermark = new DeltaWatermarkTupleSource(insertTupleSource, deltaIndex, null);
+							insertTupleSource = watermark;
+						}
 					}
 					table.insert(insertTupleSource, allColumns, false, null);
 					table.getTree().compact();
@@ -734,11 +751,11 @@ public class TempTableDataManager implements ProcessorDataManager {
 					//TODO: could pre-process indexes to remove overlap
 					for (Object index : metadata.getIndexesInGroup(group.getMetadataID())) {
 						List<ElementSymbol> columns = GlobalTableStoreImpl.resolveIndex(metadata, allColumns, index);
-						table.addIndex(columns, false);
+						table.addIndex(columns, false, GlobalTableStoreImpl.resolveIncludeColumns(metadata, allColumns, index));
 					}
 					for (Object key : metadata.getUniqueKeysInGroup(group.getMetadataID())) {
 						List<ElementSymbol> columns = GlobalTableStoreImpl.resolveIndex(metadata, allColumns, key);
-						table.addIndex(columns, true);
+						table.addIndex(columns, true, GlobalTableStoreImpl.resolveIncludeColumns(metadata, allColumns, key));
 					}
 					CacheHint hint = table.getCacheHint();
 					if (hint != null && table.getPkLength() > 0) {
@@ -748,6 +765,9 @@ public class TempTableDataManager implements ProcessorDataManager {
 						LogManager.logInfo(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31143, determinism, tableName)); //$NON-NLS-1$
 					}
 					globalStore.loaded(tableName, table);
+					if (watermark != null) {
+						globalStore.getMatTableInfo(tableName).setDeltaWatermark(watermark.getWatermark());
+					}
 					success = true;
 					LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30014, tableName, rowCount));
 					return CollectionTupleSource.createUpdateCountTupleSource(rowCount);
@@ -783,6 +803,208 @@ public class TempTableDataManager implements ProcessorDataManager {
 		};
 	}
 
+	/**
+	 * Apply the rows returned by the {@link MaterializationMetadataRepository#MATVIEW_DELTA_QUERY} to a copy of the 
+	 * current table.  Readers continue to use the current table until the copy is swapped in.
+	 * <br>
+	 * The delta rows are buffered, then the copy is taken, updated, and swapped in under the same lock as 
+	 * {@link GlobalTableStore#updateMatViewRow(String, List, boolean)} so that intervening row refreshes are not lost. 
+	 * @return the tuplesource performing the refresh or null if a full load is required
+	 */
+	private TupleSource loadGlobalTableDelta(final CommandContext context,
+			final GroupSymbol group, final String tableName, final GlobalTableStore globalStore)
+			throws TeiidComponentException, TeiidProcessingException {
+		final QueryMetadataInterface metadata = context.getMetadata();
+		final Object viewId = ((TempMetadataID)group.getMetadataID()).getOriginalMetadataID();
+		if (viewId == null) {
+			return null;
+		}
+		final String deltaQuery = metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.MATVIEW_DELTA_QUERY, false);
+		if (deltaQuery == null) {
+			return null;
+		}
+		final MatTableInfo info = globalStore.getMatTableInfo(tableName);
+		TempTable current = globalStore.getTempTable(tableName);
+		if (!info.isValid() || current == null || current.getPkLength() == 0 || metadata.getFunctionBasedExpressions(group.getMetadataID()) != null) {
+			LogManager.logDetail(LogConstants.CTX_MATVIEWS, "A delta refresh is not possible, performing a full load of", tableName); //$NON-NLS-1$
+			return null;
+		}
+		final List<ElementSymbol> allColumns = ResolverUtil.resolveElementsInGroup(group, metadata);
+		final int deltaIndex = getDeltaColumnIndex(metadata, viewId, allColumns);
+		final Object watermark = info.getDeltaWatermark();
+		if (deltaIndex < 0) {
+			if (metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.MATVIEW_DELTA_COLUMN, false) != null) {
+				return null;
+			}
+		} else if (watermark == null) {
+			LogManager.logDetail(LogConstants.CTX_MATVIEWS, "No delta watermark is known, performing a full load of", tableName); //$NON-NLS-1$
+			return null;
+		}
+		LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31168, tableName, watermark));
+		final int[] projection = RelationalNode.getProjectionIndexes(RelationalNode.createLookupMap(allColumns), current.getColumns());
+		final List<ElementSymbol> bufferColumns = new ArrayList<ElementSymbol>(current.getColumns());
+		ElementSymbol deleteColumn = new ElementSymbol("delete"); //$NON-NLS-1$
+		deleteColumn.setType(DataTypeManager.DefaultDataClasses.BOOLEAN);
+		bufferColumns.add(deleteColumn);
+		return new ProxyTupleSource() {
+			TupleSource deltaTupleSource;
+			DeltaWatermarkTupleSource newWatermark;
+			QueryProcessor qp;
+			TupleBuffer buffer;
+			boolean[] convert;
+			int rowCount;
+			boolean success;
+			boolean closed;
+			
+			@Override
+			protected TupleSource createTupleSource() throws TeiidComponentException,
+					TeiidProcessingException {
+				try {
+					if (deltaTupleSource == null) {
+						String fullName = metadata.getFullName(viewId);
+						Object[] params = deltaIndex < 0 ? new Object[0] : new Object[] {watermark};
+						qp = context.getQueryProcessorFactory().createQueryProcessor(deltaQuery, fullName.toUpperCase(), context, params);
+						List<? extends Expression> output = qp.getOutputElements();
+						if (output.size() != allColumns.size() 
+								&& (output.size() != allColumns.size() + 1 || output.get(allColumns.size()).getType() != DataTypeManager.DefaultDataClasses.BOOLEAN)) {
+							throw new QueryProcessingException(QueryPlugin.Event.TEIID31169, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31169, fullName, allColumns.size()));
+						}
+						convert = new boolean[allColumns.size()];
+						for (int i = 0; i < convert.length; i++) {
+							convert[i] = output.get(i).getType() != allColumns.get(i).getType();
+						}
+						deltaTupleSource = new BatchCollector.BatchProducerTupleSource(qp);
+						buffer = bufferManager.createTupleBuffer(bufferColumns, context.getConnectionId(), TupleSourceType.PROCESSOR);
+						buffer.setForwardOnly(true);
+						if (deltaIndex >= 0) {
+							newWatermark = new DeltaWatermarkTupleSource(deltaTupleSource, deltaIndex, watermark);
+							deltaTupleSource = newWatermark;
+						}
+					}
+					List<?> tuple = null;
+					while ((tuple = deltaTupleSource.nextTuple()) != null) {
+						boolean delete = tuple.size() > allColumns.size() && Boolean.TRUE.equals(tuple.get(allColumns.size()));
+						List<Object> row = new ArrayList<Object>(allColumns.size());
+						for (int i = 0; i < convert.length; i++) {
+							Object value = tuple.get(i);
+							if (convert[i]) {
+								value = DataTypeManager.transformValue(value, allColumns.get(i).getType());
+							}
+							row.add(value);
+						}
+						List<Object> bufferRow = new ArrayList<Object>(bufferColumns.size());
+						bufferRow.addAll(RelationalNode.projectTuple(projection, row));
+						bufferRow.add(delete);
+						buffer.addTuple(bufferRow);
+					}
+					buffer.close();
+					context.setDeterminismLevel(qp.getContext().getDeterminismLevel());
+					synchronized (globalStore.getGlobalTempTableMetadataId(tableName)) {
+						//copy on write clone, so that the current readers are not affected
+						TempTable table = globalStore.getTempTable(tableName).clone();
+						TupleSource ts = buffer.createIndexedTupleSource(true);
+						while ((tuple = ts.nextTuple()) != null) {
+							boolean delete = Boolean.TRUE.equals(tuple.get(bufferColumns.size() - 1));
+							if (table.updateTuple(tuple.subList(0, bufferColumns.size() - 1), delete) != null || !delete) {
+								rowCount++;
+							}
+						}
+						globalStore.loaded(tableName, table);
+					}
+					if (newWatermark != null) {
+						info.setDeltaWatermark(newWatermark.getWatermark());
+					}
+					success = true;
+					LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31170, tableName, rowCount));
+					return CollectionTupleSource.createUpdateCountTupleSource(rowCount);
+				} catch (BlockedException e) {
+					throw e;
+				} catch (Exception e) {
+					LogManager.logError(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30015, tableName));
+					closeSource();
+					rethrow(e);
+					throw new AssertionError();
+				}
+			}
+			
+			@Override
+			public void closeSource() {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				if (!success) {
+					globalStore.failedLoad(tableName);
+				}
+				if (qp != null) {
+					qp.closeProcessing();
+				}
+				if (buffer != null) {
+					buffer.remove();
+				}
+				super.closeSource();
+			}
+		};
+	}
+	
+	/**
+	 * @return the index of the {@link MaterializationMetadataRepository#MATVIEW_DELTA_COLUMN} or -1 if not specified or not valid
+	 */
+	private static int getDeltaColumnIndex(QueryMetadataInterface metadata, Object viewId, List<ElementSymbol> allColumns) 
+			throws TeiidComponentException, QueryMetadataException {
+		if (viewId == null) {
+			return -1;
+		}
+		String deltaColumn = metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.MATVIEW_DELTA_COLUMN, false);
+		if (deltaColumn == null) {
+			return -1;
+		}
+		for (int i = 0; i < allColumns.size(); i++) {
+			if (allColumns.get(i).getShortName().equalsIgnoreCase(deltaColumn.trim())) {
+				return i;
+			}
+		}
+		LogManager.logWarning(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31167, deltaColumn, metadata.getFullName(viewId)));
+		return -1;
+	}
+	
+	/**
+	 * Tracks the max value of the delta column as rows are read
+	 */
+	static class DeltaWatermarkTupleSource implements TupleSource {
+		private TupleSource ts;
+		private int index;
+		private Object watermark;
+		
+		public DeltaWatermarkTupleSource(TupleSource ts, int index, Object watermark) {
+			this.ts = ts;
+			this.index = index;
+			this.watermark = watermark;
+		}
+		
+		@Override
+		public List<?> nextTuple() throws TeiidComponentException,
+				TeiidProcessingException {
+			List<?> tuple = ts.nextTuple();
+			if (tuple != null) {
+				Object value = tuple.get(index);
+				if (value != null && (watermark == null || Constant.COMPARATOR.compare(value, watermark) > 0)) {
+					watermark = value;
+				}
+			}
+			return tuple;
+		}
+		
+		@Override
+		public void closeSource() {
+			ts.closeSource();
+		}
+		
+		public Object getWatermark() {
+			return watermark;
+		}
+	}
+
 	public Object lookupCodeValue(CommandContext context, String codeTableName,
 			String returnElementName, String keyElementName, Object keyValue)
 			throws BlockedException, TeiidComponentException,
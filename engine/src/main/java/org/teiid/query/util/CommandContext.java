@@ -41,6 +41,7 @@ import org.teiid.adminapi.DataPolicy;
 import org.teiid.adminapi.impl.SessionMetadata;
 import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.api.exception.query.QueryProcessingException;
+import org.teiid.common.buffer.BufferAccount;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.TeiidComponentException;
@@ -72,6 +73,7 @@ import org.teiid.net.ServerConnection;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
+import org.teiid.query.optimizer.relational.PlanFeedbackStore;
 import org.teiid.query.parser.ParseInfo;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.sql.symbol.ElementSymbol;
@@ -102,6 +104,7 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	    private int vdbVersion;
 	    private QueryMetadataInterface metadata; 
 	    private GlobalTableStore globalTables;
+	    private PlanFeedbackStore planFeedback;
 		private SessionMetadata session;
 		private ClassLoader classLoader;	    
 		private DQPWorkContext dqpWorkContext;
@@ -164,7 +167,7 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	    
 	    private int userRequestSourceConcurrency;
 	    private Subject subject;
-	    private HashSet<Object> dataObjects;
+	    private Set<Object> dataObjects;
 
 		private RequestID requestId;
 		
@@ -183,6 +186,7 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	    private boolean returnAutoGeneratedKeys;
 	    private GeneratedKeysImpl generatedKeys;
 	    private long reservedBuffers;
+	    private BufferAccount bufferAccount;
 
 		private AuthorizationValidator authorizationValidator;
 		
@@ -199,7 +203,7 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
     private LinkedList<String> recursionStack;
     private boolean nonBlocking;
     private HashSet<Object> planningObjects;
-    private HashSet<Object> dataObjects = this.globalState.dataObjects;
+    private Set<Object> dataObjects = this.globalState.dataObjects;
     private TupleSourceCache tupleSourceCache;
     private VDBState vdbState = new VDBState();
     private Determinism[] determinismLevel = new Determinism[] {Determinism.DETERMINISTIC};
@@ -297,6 +301,7 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
     	VDBMetaData vdb = newWorkContext.getVDB();
 		GlobalTableStore actualGlobalStore = vdb.getAttachment(GlobalTableStore.class);
 		this.vdbState.globalTables = actualGlobalStore;
+		this.vdbState.planFeedback = vdb.getAttachment(PlanFeedbackStore.class);
 		this.vdbState.session = newWorkContext.getSession();
 		this.vdbState.classLoader = vdb.getAttachment(ClassLoader.class);
 		this.vdbState.vdbName = vdb.getName();
@@ -561,6 +566,17 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
     	vdbState.globalTables = tempTableStore;
     }
     
+    /**
+     * @return the store of observed source cardinalities or null if feedback is not in use
+     */
+    public PlanFeedbackStore getPlanFeedbackStore() {
+    	return vdbState.planFeedback;
+    }
+    
+    public void setPlanFeedbackStore(PlanFeedbackStore planFeedback) {
+    	vdbState.planFeedback = planFeedback;
+    }
+    
     public boolean isNonBlocking() {
 		return nonBlocking;
 	}
@@ -647,7 +663,11 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 		return dataObjects;
 	}
 	
-	public void setDataObjects(HashSet<Object> dataObjectsAccessed) {
+	/**
+	 * Set the collection of accessed data objects.  The set should be thread-safe if 
+	 * the plan may process access nodes on other threads, such as with a parallel union.
+	 */
+	public void setDataObjects(Set<Object> dataObjectsAccessed) {
 		this.dataObjects = dataObjectsAccessed;
 	}
 	
@@ -970,7 +990,33 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	}
 
 	public long addAndGetReservedBuffers(int i) {
-		return globalState.reservedBuffers += i;
+		synchronized (this.globalState) {
+			return globalState.reservedBuffers += i;
+		}
+	}
+	
+	/**
+	 * Get the {@link BufferAccount} for this request.  It is a child of the
+	 * session account if a session is available.
+	 */
+	public BufferAccount getBufferAccount() {
+		synchronized (this.globalState) {
+			if (this.globalState.bufferAccount == null) {
+				BufferAccount sessionAccount = null;
+				SessionMetadata session = getSession();
+				if (session != null) {
+					synchronized (session) {
+						sessionAccount = session.getAttachment(BufferAccount.class);
+						if (sessionAccount == null) {
+							sessionAccount = new BufferAccount(null);
+							session.addAttchment(BufferAccount.class, sessionAccount);
+						}
+					}
+				}
+				this.globalState.bufferAccount = new BufferAccount(sessionAccount);
+			}
+			return this.globalState.bufferAccount;
+		}
 	}
 
 	@Override
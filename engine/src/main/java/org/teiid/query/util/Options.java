@@ -38,6 +38,9 @@ public class Options {
 	public static final String SANITIZE_MESSAGES = "org.teiid.sanitizeMessages"; //$NON-NLS-1$
 	public static final String REQUIRE_COLLATION = "org.teiid.requireTeiidCollation"; //$NON-NLS-1$
 	public static final String DEFAULT_NULL_ORDER = "org.teiid.defaultNullOrder"; //$NON-NLS-1$
+	public static final String PLAN_FEEDBACK = "org.teiid.planFeedback"; //$NON-NLS-1$
+	public static final String DEPENDENT_JOIN_MAX_QUERIES = "org.teiid.dependentJoinMaxQueries"; //$NON-NLS-1$
+	public static final String JOIN_FILTER_MAX_ROWS = "org.teiid.joinFilterMaxRows"; //$NON-NLS-1$
 
 	private Properties properties;
 	private boolean subqueryUnnestDefault = false;
@@ -48,6 +51,9 @@ public class Options {
 	private float dependentJoinPushdownThreshold = 0;
 	private boolean requireTeiidCollation;
 	private NullOrder defaultNullOrder = NullOrder.LOW;
+	private boolean planFeedback = true;
+	private int dependentJoinMaxQueries = 100;
+	private int joinFilterMaxRows = 1 << 20;
 	
 	public Properties getProperties() {
 		return properties;
@@ -162,5 +168,44 @@ public class Options {
 		this.defaultNullOrder = b;
 		return this;
 	}
+	
+	public boolean isPlanFeedback() {
+		return planFeedback;
+	}
+	
+	public void setPlanFeedback(boolean planFeedback) {
+		this.planFeedback = planFeedback;
+	}
+	
+	public Options planFeedback(boolean b) {
+		this.planFeedback = b;
+		return this;
+	}
+	
+	public int getDependentJoinMaxQueries() {
+		return dependentJoinMaxQueries;
+	}
+	
+	public void setDependentJoinMaxQueries(int dependentJoinMaxQueries) {
+		this.dependentJoinMaxQueries = dependentJoinMaxQueries;
+	}
+	
+	public Options dependentJoinMaxQueries(int i) {
+		this.dependentJoinMaxQueries = i;
+		return this;
+	}
+	
+	public int getJoinFilterMaxRows() {
+		return joinFilterMaxRows;
+	}
+	
+	public void setJoinFilterMaxRows(int joinFilterMaxRows) {
+		this.joinFilterMaxRows = joinFilterMaxRows;
+	}
+	
+	public Options joinFilterMaxRows(int i) {
+		this.joinFilterMaxRows = i;
+		return this;
+	}
 
 }
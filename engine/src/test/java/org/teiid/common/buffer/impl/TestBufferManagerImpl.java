@@ -24,8 +24,21 @@ package org.teiid.common.buffer.impl;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Test;
+import org.teiid.adminapi.impl.SessionMetadata;
+import org.teiid.common.buffer.BufferAccount;
 import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.STree;
+import org.teiid.common.buffer.STree.InsertMode;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.util.CommandContext;
 
 public class TestBufferManagerImpl {
 	
@@ -50,4 +63,129 @@ public class TestBufferManagerImpl {
         assertEquals(24576, bufferManager.reserveBuffers(1024000, BufferReserveMode.NO_WAIT));
     }
 
+    @Test public void testBufferAccount() throws Exception {
+        BufferManagerImpl bufferManager = new BufferManagerImpl();
+        bufferManager.setCache(new MemoryStorageManager());
+        bufferManager.initialize();
+        
+        CommandContext context = new CommandContext();
+        context.setSession(new SessionMetadata());
+        CommandContext.pushThreadLocalContext(context);
+        try {
+        	TupleBuffer tb = createBuffer(bufferManager, 1000);
+	        BufferAccount account = context.getBufferAccount();
+	        assertTrue(account.getSizeEstimate() > 0);
+	        assertEquals(account.getSizeEstimate(), account.getHeapBytes());
+	        assertEquals(account.getSizeEstimate(), account.getParent().getSizeEstimate());
+	        
+	        tb.remove();
+	        assertEquals(0, account.getSizeEstimate());
+	        assertEquals(0, account.getHeapBytes());
+	        assertTrue(account.getMaxSizeEstimate() > 0);
+        } finally {
+        	CommandContext.popThreadLocalContext();
+        }
+    }
+    
+    @Test(expected=TeiidComponentException.class) public void testRequestQuota() throws Exception {
+        BufferManagerImpl bufferManager = new BufferManagerImpl();
+        bufferManager.setCache(new MemoryStorageManager());
+        bufferManager.setMaxRequestBufferSizeEstimate(1 << 14);
+        bufferManager.initialize();
+        
+        CommandContext.pushThreadLocalContext(new CommandContext());
+        try {
+        	createBuffer(bufferManager, 10000);
+        } finally {
+        	CommandContext.popThreadLocalContext();
+        }
+    }
+
+    @Test public void testDetachAccountWithMemoryBatches() throws Exception {
+        BufferManagerImpl bufferManager = new BufferManagerImpl();
+        bufferManager.setCache(new MemoryStorageManager());
+        bufferManager.initialize();
+        
+        CommandContext context = new CommandContext();
+        context.setSession(new SessionMetadata());
+        CommandContext.pushThreadLocalContext(context);
+        try {
+        	TupleBuffer tb = createBuffer(bufferManager, 1000);
+	        BufferAccount session = context.getBufferAccount().getParent();
+	        assertTrue(session.getHeapBytes() > 0);
+	        //the batches are still in memory
+	        tb.detachAccount();
+	        assertEquals(0, session.getSizeEstimate());
+	        assertEquals(0, session.getHeapBytes());
+	        assertEquals(0, session.getMemoryBufferBytes());
+	        
+	        //freeing the batches later should not change the account
+	        tb.remove();
+	        assertEquals(0, session.getSizeEstimate());
+	        assertEquals(0, session.getHeapBytes());
+        } finally {
+        	CommandContext.popThreadLocalContext();
+        }
+    }
+
+    @Test public void testDetachAccount() throws Exception {
+        BufferManagerImpl bufferManager = new BufferManagerImpl();
+        bufferManager.setCache(new MemoryStorageManager());
+        bufferManager.setMaxSessionBufferSizeEstimate(1 << 16);
+        bufferManager.initialize();
+        
+        SessionMetadata session = new SessionMetadata();
+        CommandContext context = new CommandContext();
+        context.setSession(session);
+        CommandContext.pushThreadLocalContext(context);
+        TupleBuffer tb = null;
+        STree tree = null;
+        try {
+        	tb = createBuffer(bufferManager, 1000);
+	        BufferAccount account = context.getBufferAccount();
+	        assertTrue(account.getParent().getSizeEstimate() > 0);
+	        //handed to a cache
+	        tb.detachAccount();
+	        assertEquals(0, account.getSizeEstimate());
+	        assertEquals(0, account.getParent().getSizeEstimate());
+	        
+	        //a table store tree is detached before it has batches
+	        ElementSymbol x = new ElementSymbol("x"); //$NON-NLS-1$
+			x.setType(DataTypeManager.DefaultDataClasses.STRING);
+	        tree = bufferManager.createSTree(Arrays.asList(x), "x", 1); //$NON-NLS-1$
+	        tree.detachAccount();
+	        for (int i = 0; i < 1000; i++) {
+	        	tree.insert(Arrays.asList(String.valueOf(i)), InsertMode.NEW, -1);
+	        }
+	        assertEquals(0, account.getParent().getSizeEstimate());
+        } finally {
+        	CommandContext.popThreadLocalContext();
+        }
+        
+        //a later request in the session is not charged for the detached buffers
+        context = new CommandContext();
+        context.setSession(session);
+        CommandContext.pushThreadLocalContext(context);
+        try {
+        	createBuffer(bufferManager, 1000).remove();
+        } finally {
+        	CommandContext.popThreadLocalContext();
+        }
+        tb.remove();
+        tree.remove();
+    }
+
+	private TupleBuffer createBuffer(BufferManagerImpl bufferManager, int rows)
+			throws TeiidComponentException {
+		ElementSymbol x = new ElementSymbol("x"); //$NON-NLS-1$
+		x.setType(DataTypeManager.DefaultDataClasses.STRING);
+		List<ElementSymbol> schema = Arrays.asList(x);
+		TupleBuffer tb = bufferManager.createTupleBuffer(schema, "x", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+		for (int i = 0; i < rows; i++) {
+			tb.addTuple(Arrays.asList(String.valueOf(i)));
+		}
+		tb.saveBatch();
+		return tb;
+	}
+
 }
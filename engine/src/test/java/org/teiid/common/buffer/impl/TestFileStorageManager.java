@@ -203,5 +203,26 @@ public class TestFileStorageManager {
        	assertEquals(-1, c);
        	in.close();        
     }	
+    
+    @Test public void testLargeReads() throws Exception {
+    	FileStorageManager sm = getStorageManager(null, null); 
+        FileStore store = sm.createFileStore("0");
+        byte[] bytesOrig = new byte[30000];
+        r.nextBytes(bytesOrig);
+        store.write(bytesOrig, 0, bytesOrig.length);
+        
+        InputStream in = store.createInputStream(10, 25000);
+        byte[] readContent = new byte[25000];
+        assertEquals(bytesOrig[10], (byte)in.read());
+        //buffered
+        int c = in.read(readContent, 1, 20000);
+        assertEquals(8191, c);
+        //direct, limited by the stream length
+        c += in.read(readContent, 1 + c, 20000);
+        assertEquals(24999, c);
+        readContent[0] = bytesOrig[10];
+        assertEquals(-1, in.read(readContent, 0, 20000));
+        assertTrue(Arrays.equals(Arrays.copyOfRange(bytesOrig, 10, 25010), readContent));
+    }
 	
 }
@@ -25,6 +25,7 @@ package org.teiid.dqp.internal.process;
 import static org.junit.Assert.*;
 
 import java.sql.ResultSet;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -474,6 +475,65 @@ public class TestDQPCore {
     	assertTrue(agds.getExecuteCount().get() <= 2);
     }
     
+    @Test public void testParallelUnion() throws Exception {
+    	agds.setSleep(10);
+    	agds.setRows(100);
+    	core.setUserRequestSourceConcurrency(4);
+    	StringBuffer sql = new StringBuffer("select count(x), count(distinct x) from ("); //$NON-NLS-1$
+    	int branches = 10;
+    	for (int i = 0; i < branches; i++) {
+    		if (i > 0) {
+    			sql.append(" union all "); //$NON-NLS-1$
+    		}
+    		//concat is not supported, so each branch requires local processing
+    		sql.append("select stringkey || ").append(i).append(" as x from bqt1.smalla"); //$NON-NLS-1$ //$NON-NLS-2$
+    	}
+    	sql.append(") as v"); //$NON-NLS-1$
+    	ResultsMessage rm = helpExecute(sql.toString(), "a", 1, false); //$NON-NLS-1$
+    	assertEquals(Arrays.asList(1000, 10), rm.getResultsList().get(0));
+    }
+    
+    @Test(expected=TeiidProcessingException.class) public void testParallelUnionException() throws Exception {
+    	agds.throwExceptionOnExecute = true;
+    	core.setUserRequestSourceConcurrency(4);
+    	helpExecute("select count(*) from (select stringkey || 1 from bqt1.smalla union all select stringkey || 2 from bqt1.smallb) as v", "a"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    
+    @Test public void testRsCacheParallelLimitedUnion() throws Exception {
+    	core.setUserRequestSourceConcurrency(4);
+    	StringBuffer sql = new StringBuffer("select count(x) from ("); //$NON-NLS-1$
+    	for (int i = 0; i < 4; i++) {
+    		if (i > 0) {
+    			sql.append(" union all "); //$NON-NLS-1$
+    		}
+    		//the nested limited unions open their children from the parallel union work
+    		sql.append("(select stringkey || ").append(i).append(" as x from bqt1.smalla union all select stringkey || ").append(i).append(" from bqt1.smallb limit 5)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    	}
+    	sql.append(") as v"); //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage(sql.toString());
+        reqMsg.setUseResultSetCache(true);
+        ResultsMessage rm = execute("1", 1, reqMsg); //$NON-NLS-1$
+        assertEquals(Arrays.asList(20), rm.getResultsList().get(0));
+
+        reqMsg = exampleRequestMessage(sql.toString());
+        reqMsg.setUseResultSetCache(true);
+        rm = execute("1", 1, reqMsg); //$NON-NLS-1$
+        assertEquals(Arrays.asList(20), rm.getResultsList().get(0));
+        assertEquals(1, this.core.getRsCache().getCacheHitCount());
+
+        Thread.sleep(100);
+
+        //the accessed data objects were recorded, so the update invalidates the entry
+        reqMsg = exampleRequestMessage("delete from bqt1.smalla"); //$NON-NLS-1$
+        execute("1", 1, reqMsg); //$NON-NLS-1$
+
+        reqMsg = exampleRequestMessage(sql.toString());
+        reqMsg.setUseResultSetCache(true);
+        rm = execute("1", 1, reqMsg); //$NON-NLS-1$
+        assertEquals(Arrays.asList(20), rm.getResultsList().get(0));
+        assertEquals(1, this.core.getRsCache().getCacheHitCount());
+    }
+
     @Test public void testSourceConcurrencyWithLimitedUnion() throws Exception {
     	agds.setSleep(100);
     	helpTestSourceConcurrencyWithLimitedUnion();
@@ -644,6 +704,60 @@ public class TestDQPCore {
         assertEquals(1, this.core.getRsCache().getCacheHitCount());
     }
     
+    @Test public void testRsCacheDerivedResults() throws Exception {
+        String userName = "1"; //$NON-NLS-1$
+        int sessionid = 1; //$NON-NLS-1$
+        agds.setUseIntCounter(true);
+        RequestMessage reqMsg = exampleRequestMessage("select intkey FROM bqt1.smalla"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        ResultsMessage rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size());
+        assertEquals(1, agds.getExecuteCount().get());
+        //the results may be returned before the entry is added and the buffer is final 
+        for (int i = 0; i < 100 && this.core.getRsCache().getCachePutCount() < 2; i++) {
+        	Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        
+        reqMsg = exampleRequestMessage("select intkey FROM bqt1.smalla order by intkey desc limit 1, 2"); //$NON-NLS-1$
+        reqMsg.setExecutionId(101);
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(Arrays.asList(Arrays.asList(8), Arrays.asList(7)), rm.getResultsList());
+        
+        reqMsg = exampleRequestMessage("select intkey FROM bqt1.smalla limit 3"); //$NON-NLS-1$
+        reqMsg.setExecutionId(102);
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(3, rm.getResultsList().size());
+        assertEquals(1, agds.getExecuteCount().get());
+        
+        //not a projected column
+        reqMsg = exampleRequestMessage("select intkey FROM bqt1.smalla order by stringkey limit 3"); //$NON-NLS-1$
+        reqMsg.setExecutionId(103);
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(3, rm.getResultsList().size());
+        assertEquals(2, agds.getExecuteCount().get());
+    }
+    
+    @Test public void testRsCacheSingleProducer() throws Exception {
+        agds.setSleep(50);
+        RequestMessage reqMsg = exampleRequestMessage("select * FROM bqt1.smalla"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        RequestMessage reqMsg1 = exampleRequestMessage("select * FROM bqt1.smalla"); //$NON-NLS-1$
+        reqMsg1.setExecutionId(101);
+        reqMsg1.setUseResultSetCache(true);
+        DQPWorkContext.getWorkContext().getSession().setSessionId("1"); //$NON-NLS-1$
+        DQPWorkContext.getWorkContext().getSession().setUserName("1"); //$NON-NLS-1$
+        Future<ResultsMessage> message = core.executeRequest(reqMsg.getExecutionId(), reqMsg);
+        Future<ResultsMessage> message1 = core.executeRequest(reqMsg1.getExecutionId(), reqMsg1);
+        assertEquals(10, message.get(5000, TimeUnit.MILLISECONDS).getResultsList().size());
+        assertEquals(10, message1.get(5000, TimeUnit.MILLISECONDS).getResultsList().size());
+        assertEquals(1, agds.getExecuteCount().get());
+        assertEquals(1, this.core.getRsCache().getCacheHitCount());
+    }
+    
     @Test public void testLobConcurrency() throws Exception {
     	RequestMessage reqMsg = exampleRequestMessage("select to_bytes(stringkey, 'utf-8') FROM BQT1.SmallA"); 
         reqMsg.setTxnAutoWrapMode(RequestMessage.TXN_WRAP_OFF);
@@ -25,13 +25,18 @@ import static org.junit.Assert.*;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
 
+import java.util.List;
+
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.teiid.adminapi.impl.SessionMetadata;
 import org.teiid.cache.Cachable;
+import org.teiid.cache.CacheConfiguration;
+import org.teiid.cache.CacheConfiguration.Policy;
 import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
+import org.teiid.dqp.internal.process.SessionAwareCache.EntryStatistics;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.parser.ParseInfo;
 
@@ -62,6 +67,27 @@ public class TestSessionAwareCache {
 		assertTrue(result==c);
 	}
 	
+	@Test
+	public void testSingleProducer() {
+		SessionAwareCache<Cachable> cache = new SessionAwareCache<Cachable>("resultset", DefaultCacheFactory.INSTANCE, SessionAwareCache.Type.RESULTSET, 0);
+		
+		CacheID id = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM FOO");
+		Runnable r = Mockito.mock(Runnable.class);
+		assertFalse(cache.isBeingProduced(id, r));
+		
+		//a different session should still wait
+		CacheID id1 = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM FOO");
+		assertTrue(cache.isBeingProduced(id1, r));
+		
+		Mockito.verify(r, times(0)).run();
+		cache.doneProducing(id);
+		Mockito.verify(r, times(1)).run();
+		
+		assertFalse(cache.isBeingProduced(id1, r));
+		cache.doneProducing(id1);
+		Mockito.verify(r, times(1)).run();
+	}
+	
 	@Test
 	public void testUserSpecfic() {
 		
@@ -164,6 +190,93 @@ public class TestSessionAwareCache {
 		assertNull(cache.get(id));
 	}
 
+	@Test public void testSizeAndCostEviction() {
+		SessionAwareCache<Cachable> cache = new SessionAwareCache<Cachable>("resultset", DefaultCacheFactory.INSTANCE, SessionAwareCache.Type.RESULTSET, 0);
+		cache.setMaxSizeTotal(1000);
+		
+		//large and cheap
+		CacheID large = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM FOO");
+		cache.put(large, Determinism.SESSION_DETERMINISTIC, mockCachable(900, 10), null);
+		
+		//small and expensive
+		CacheID small = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM BAR");
+		cache.put(small, Determinism.SESSION_DETERMINISTIC, mockCachable(10, 1000), null);
+		
+		assertEquals(910, cache.getSizeEstimateTotal());
+		
+		//should evict the large entry
+		CacheID other = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM BAZ");
+		cache.put(other, Determinism.SESSION_DETERMINISTIC, mockCachable(200, 100), null);
+		
+		assertNull(cache.get(large));
+		assertNotNull(cache.get(small));
+		assertNotNull(cache.get(other));
+		assertEquals(210, cache.getSizeEstimateTotal());
+		
+		//too large to cache
+		cache.put(large, Determinism.SESSION_DETERMINISTIC, mockCachable(2000, 10), null);
+		assertNull(cache.get(large));
+		assertEquals(210, cache.getSizeEstimateTotal());
+	}
+	
+	@Test public void testHitStatistics() {
+		SessionAwareCache<Cachable> cache = new SessionAwareCache<Cachable>("resultset", DefaultCacheFactory.INSTANCE, SessionAwareCache.Type.RESULTSET, 0);
+		cache.setMaxEntries(2);
+		
+		CacheID id = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM FOO");
+		Cachable result = mockCachable(100, 10);
+		cache.put(id, Determinism.SESSION_DETERMINISTIC, result, null);
+		//the same value under another key is counted once
+		CacheID id1 = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT e1 FROM FOO");
+		cache.put(id1, Determinism.SESSION_DETERMINISTIC, result, null);
+		assertEquals(100, cache.getSizeEstimateTotal());
+		
+		cache.get(id);
+		cache.get(id1);
+		
+		List<EntryStatistics> stats = cache.getEntryStatistics();
+		assertEquals(1, stats.size());
+		assertEquals(2, stats.get(0).getHitCount());
+		assertEquals(2, stats.get(0).getIds().size());
+		
+		//the entries should be evicted together
+		CacheID id2 = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM BAR");
+		cache.put(id2, Determinism.SESSION_DETERMINISTIC, mockCachable(100, 10), null);
+		assertNull(cache.get(id));
+		assertNull(cache.get(id1));
+		assertEquals(1, cache.getEntryStatistics().size());
+		
+		cache.remove(id2, Determinism.SESSION_DETERMINISTIC);
+		assertEquals(0, cache.getEntryStatistics().size());
+		assertEquals(0, cache.getSizeEstimateTotal());
+	}
+	
+	@Test public void testStatisticsRemovedOnMiss() {
+		//the underlying cache only holds a single entry
+		DefaultCacheFactory cacheFactory = new DefaultCacheFactory(new CacheConfiguration(Policy.LRU, 60, 1, "default")); //$NON-NLS-1$
+		SessionAwareCache<Cachable> cache = new SessionAwareCache<Cachable>("resultset", cacheFactory, SessionAwareCache.Type.RESULTSET, 0);
+		
+		CacheID id = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM FOO");
+		cache.put(id, Determinism.SESSION_DETERMINISTIC, mockCachable(100, 10), null);
+		CacheID id1 = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM BAR");
+		cache.put(id1, Determinism.SESSION_DETERMINISTIC, mockCachable(50, 10), null);
+		assertEquals(2, cache.getEntryStatistics().size());
+		assertEquals(150, cache.getSizeEstimateTotal());
+		
+		//dropped by the underlying cache
+		assertNull(cache.get(id));
+		assertEquals(1, cache.getEntryStatistics().size());
+		assertEquals(50, cache.getSizeEstimateTotal());
+		assertNotNull(cache.get(id1));
+	}
+	
+	private static Cachable mockCachable(long size, long cost) {
+		Cachable result = Mockito.mock(Cachable.class);
+		Mockito.stub(result.getSizeEstimate()).toReturn(size);
+		Mockito.stub(result.getCost()).toReturn(cost);
+		return result;
+	}
+
 	public static DQPWorkContext buildWorkContext() {
 		DQPWorkContext workContext = new DQPWorkContext();
 		SessionMetadata session = new SessionMetadata();
@@ -24,6 +24,8 @@ package org.teiid.query.function;
 
 import static org.junit.Assert.*;
 
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -76,6 +78,10 @@ public class TestFunctionTree {
     	return new String(bytes);
     }
     
+    public static String contextClassLoader(String prefix) {
+    	return prefix + Thread.currentThread().getContextClassLoader().getClass().getName();
+    }
+    
     @Test public void testLoadErrors() {
     	FunctionMethod method = new FunctionMethod(
     			"dummy", null, null, PushDown.CAN_PUSHDOWN, null, "noMethod",  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ 
@@ -176,6 +182,25 @@ public class TestFunctionTree {
     	assertEquals(hello, fd.invokeFunction(new Object[] {new BinaryType(hello.getBytes())}, null, null));
     }
     
+    @Test public void testContextClassLoader() throws Exception {
+    	FunctionMethod method = new FunctionMethod(
+    			"dummy", null, null, PushDown.CANNOT_PUSHDOWN, TestFunctionTree.class.getName(), "contextClassLoader",  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ 
+	 	    	Arrays.asList(new FunctionParameter("in", DataTypeManager.DefaultDataTypes.STRING)), //$NON-NLS-1$ 
+	 	    	new FunctionParameter("output", DataTypeManager.DefaultDataTypes.STRING), //$NON-NLS-1$
+	 	    	true, Determinism.DETERMINISTIC);
+    	UDFSource source = new UDFSource(Arrays.asList(method));
+    	ClassLoader cl = new URLClassLoader(new URL[0], TestFunctionTree.class.getClassLoader());
+    	source.setClassLoader(cl);
+    	FunctionTree sys = RealMetadataFactory.SFM.getSystemFunctions();
+    	FunctionLibrary fl = new FunctionLibrary(sys, new FunctionTree("foo", source, true));
+    	FunctionDescriptor fd = fl.findFunction("dummy", new Class<?>[] {DataTypeManager.DefaultDataClasses.STRING});
+    	ClassLoader original = Thread.currentThread().getContextClassLoader();
+    	for (int i = 0; i < 2; i++) {
+    		assertEquals("x" + URLClassLoader.class.getName(), fd.invokeFunction(new Object[] {"x"}, null, null));
+    		assertSame(original, Thread.currentThread().getContextClassLoader());
+    	}
+    }
+    
     @Test public void testMultiPartName() throws Exception {
     	FunctionMethod method = new FunctionMethod(
     			"x.y.dummy", null, null, PushDown.CANNOT_PUSHDOWN, TestFunctionTree.class.getName(), "toString",  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ 
@@ -112,6 +112,18 @@ public class TestDDLStringVisitor {
 		helpTest(ddl, expected);
 	}	
 	
+	@Test
+	public void testColumnStatistics() throws Exception {
+		String ddl = "CREATE FOREIGN TABLE G1( e1 integer OPTIONS (HISTOGRAM '''1'', ''5'',''9''', MOST_COMMON_VALUES '''0''', MOST_COMMON_FREQUENCIES '.5'), e2 varchar OPTIONS (HISTOGRAM '''a,b'',''it''''s'''))";
+		String expected = "CREATE FOREIGN TABLE G1 (\n" + 
+				"	e1 integer OPTIONS (HISTOGRAM '''1'',''5'',''9''', MOST_COMMON_VALUES '''0''', MOST_COMMON_FREQUENCIES '0.5'),\n" + 
+				"	e2 string OPTIONS (HISTOGRAM '''a,b'',''it''''s''')\n" + 
+				");";
+		helpTest(ddl, expected);
+		Column e2 = TestDDLParser.helpParse(ddl, "model").getSchema().getTable("G1").getColumnByName("e2");
+		assertEquals(Arrays.asList("a,b", "it's"), e2.getHistogram());
+	}
+	
 	@Test
 	public void testConstraints2() throws Exception {
 		String ddl = "CREATE FOREIGN TABLE G1( e1 integer, e2 varchar, e3 date, " +
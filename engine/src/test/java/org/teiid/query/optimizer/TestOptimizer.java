@@ -387,6 +387,8 @@ public class TestOptimizer {
                 } 
             } else if (strategy instanceof NestedTableJoinStrategy) {
             	updateCounts(NestedTableJoinStrategy.class, counts, types);
+            } else if (strategy instanceof HashJoinStrategy) {
+            	updateCounts(HashJoinStrategy.class, counts, types);
             }
             if (((JoinNode)relationalNode).isDependent()) {
                 updateCounts(DependentJoin.class, counts, types);
@@ -2980,7 +2982,7 @@ public class TestOptimizer {
             0,      // DupRemove
             0,      // Grouping
             0,      // NestedLoopJoinStrategy
-            1,      // MergeJoinStrategy
+            0,      // MergeJoinStrategy
             0,      // Null
             0,      // PlanExecution
             3,      // Project
@@ -2988,6 +2990,8 @@ public class TestOptimizer {
             0,      // Sort
             0       // UnionAll
         });         
+        //neither side can be sorted by the source, so a hash join is used
+        checkNodeTypes(plan, new int[] {1}, new Class<?>[] {HashJoinStrategy.class});
     } 
 
     /** should be one dependent join */
@@ -3019,7 +3023,7 @@ public class TestOptimizer {
             0,      // DupRemove
             0,      // Grouping
             0,      // NestedLoopJoinStrategy
-            2,      // MergeJoinStrategy
+            1,      // MergeJoinStrategy
             0,      // Null
             0,      // PlanExecution
             1,      // Project
@@ -3027,6 +3031,7 @@ public class TestOptimizer {
             0,      // Sort
             0       // UnionAll
         });         
+        checkNodeTypes(plan, new int[] {1}, new Class<?>[] {HashJoinStrategy.class});
     } 
 
     @Test public void testLargeSetCriteria() throws TeiidComponentException, TeiidProcessingException {
@@ -175,7 +175,7 @@ public class TestSortOptimization {
                 0,      // DependentAccess
                 0,      // DependentSelect
                 0,      // DependentProject
-                0,      // DupRemove
+                1,      // DupRemove
                 1,      // Grouping
                 0,      // NestedLoopJoinStrategy
                 0,      // MergeJoinStrategy
@@ -186,7 +186,7 @@ public class TestSortOptimization {
                 0,      // Sort
                 0       // UnionAll
             });
-        checkNodeTypes(plan, new int[] {1}, new Class[] {DupRemoveSortNode.class});
+        checkNodeTypes(plan, new int[] {0}, new Class[] {DupRemoveSortNode.class});
     }
 
     @Test public void testSortGroupCombination() { 
@@ -421,7 +421,7 @@ public class TestSortOptimization {
                 0,      // DependentAccess
                 0,      // DependentSelect
                 0,      // DependentProject
-                0,      // DupRemove
+                1,      // DupRemove
                 0,      // Grouping
                 0,      // NestedLoopJoinStrategy
                 0,      // MergeJoinStrategy
@@ -432,7 +432,7 @@ public class TestSortOptimization {
                 1,      // Sort
                 1       // UnionAll
             });
-        checkNodeTypes(plan, new int[] {1}, new Class[] {DupRemoveSortNode.class});
+        checkNodeTypes(plan, new int[] {0}, new Class[] {DupRemoveSortNode.class});
     }
     
     /**
@@ -454,7 +454,7 @@ public class TestSortOptimization {
                 0,      // DependentAccess
                 0,      // DependentSelect
                 0,      // DependentProject
-                0,      // DupRemove
+                1,      // DupRemove
                 0,      // Grouping
                 0,      // NestedLoopJoinStrategy
                 0,      // MergeJoinStrategy
@@ -465,7 +465,7 @@ public class TestSortOptimization {
                 1,      // Sort
                 1       // UnionAll
             });
-        checkNodeTypes(plan, new int[] {1}, new Class[] {DupRemoveSortNode.class});
+        checkNodeTypes(plan, new int[] {0}, new Class[] {DupRemoveSortNode.class});
     }
     
     @Test public void testUnionWithAggregation() throws Exception{
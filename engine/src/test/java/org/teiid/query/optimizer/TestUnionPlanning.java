@@ -322,7 +322,7 @@ public class TestUnionPlanning {
             0,      // DependentAccess
             0,      // DependentSelect
             0,      // DependentProject
-            0,      // DupRemove
+            1,      // DupRemove
             0,      // Grouping
             0,      // NestedLoopJoinStrategy
             1,      // MergeJoinStrategy
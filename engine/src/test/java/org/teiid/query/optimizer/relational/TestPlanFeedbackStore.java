@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.optimizer.relational;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.dqp.internal.process.PreparedPlan;
+import org.teiid.metadata.Column;
+import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.metadata.TransformationMetadata;
+import org.teiid.query.optimizer.TestOptimizer;
+import org.teiid.query.optimizer.relational.rules.NewCalculateCostUtil;
+import org.teiid.query.processor.ProcessorPlan;
+import org.teiid.query.processor.relational.AccessNode;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.processor.relational.RelationalPlan;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+
+@SuppressWarnings("nls")
+public class TestPlanFeedbackStore {
+	
+	private static ProcessorPlan helpPlan(String sql, QueryMetadataInterface metadata, PlanFeedbackStore store) throws Exception {
+		Command command = TestOptimizer.helpGetCommand(sql, metadata, null);
+		CommandContext cc = new CommandContext();
+		cc.setPlanFeedbackStore(store);
+		return TestOptimizer.getPlan(command, metadata, TestOptimizer.getGenericFinder(), null, true, cc);
+	}
+	
+	private static void collectAccessNodes(RelationalNode node, List<AccessNode> nodes) {
+		if (node == null) {
+			return;
+		}
+		if (node instanceof AccessNode) {
+			nodes.add((AccessNode)node);
+		}
+		for (RelationalNode child : node.getChildren()) {
+			collectAccessNodes(child, nodes);
+		}
+	}
+	
+	private static List<AccessNode> getAccessNodes(ProcessorPlan plan) {
+		List<AccessNode> nodes = new ArrayList<AccessNode>();
+		collectAccessNodes(((RelationalPlan)plan).getRootNode(), nodes);
+		return nodes;
+	}
+	
+	@Test public void testKeyIgnoresLiterals() throws Exception {
+		QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+		String key = PlanFeedbackStore.getKey(TestOptimizer.helpGetCommand("select e1 from pm1.g1 where e2 = 1 and e1 = 'a'", metadata, null));
+		assertEquals("pm1.g1 WHERE pm1.g1.e1 = ? AND pm1.g1.e2 = ?", key);
+		assertEquals(key, PlanFeedbackStore.getKey(TestOptimizer.helpGetCommand("select e3 from pm1.g1 where e1 = 'b' and e2 = 2", metadata, null)));
+		assertNull(PlanFeedbackStore.getKey(TestOptimizer.helpGetCommand("select max(e1) from pm1.g1", metadata, null)));
+		assertNull(PlanFeedbackStore.getKey(TestOptimizer.helpGetCommand("select e1 from vm1.g1", metadata, null)));
+	}
+	
+	@Test public void testNoKeyWithColumnStatistics() throws Exception {
+		TransformationMetadata metadata = RealMetadataFactory.example1();
+		Column e2 = metadata.getElementID("pm1.g1.e2");
+		e2.setMostCommonValues(Arrays.asList("100"));
+		e2.setMostCommonFrequencies(Arrays.asList(.2f));
+		//the per value estimates are used instead
+		assertNull(PlanFeedbackStore.getKey(TestOptimizer.helpGetCommand("select e1 from pm1.g1 where e2 = 1", metadata, null)));
+		assertNotNull(PlanFeedbackStore.getKey(TestOptimizer.helpGetCommand("select e1 from pm1.g1 where e1 = 'a'", metadata, null)));
+	}
+	
+	@Test public void testObservedCardinalityUsedInPlanning() throws Exception {
+		QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+		String sql = "select pm1.g1.e1 from pm1.g1, pm2.g1 where pm1.g1.e1 = pm2.g1.e1 and pm1.g1.e2 = 1";
+		PlanFeedbackStore store = new PlanFeedbackStore();
+		
+		ProcessorPlan plan = helpPlan(sql, metadata, store);
+		String key = null;
+		for (AccessNode node : getAccessNodes(plan)) {
+			if (node.getFeedbackKey().startsWith("pm1.g1")) {
+				key = node.getFeedbackKey();
+				assertEquals(NewCalculateCostUtil.UNKNOWN_VALUE, node.getEstimateNodeCardinality().floatValue(), 0);
+			}
+		}
+		assertNotNull(key);
+		
+		store.recordCardinality(key, 1234);
+		plan = helpPlan(sql, metadata, store);
+		boolean found = false;
+		for (AccessNode node : getAccessNodes(plan)) {
+			if (key.equals(node.getFeedbackKey())) {
+				assertEquals(1234f, node.getEstimateNodeCardinality().floatValue(), 0);
+				found = true;
+			}
+		}
+		assertTrue(found);
+	}
+	
+	@Test public void testMisestimated() {
+		PlanFeedbackStore store = new PlanFeedbackStore();
+		assertFalse(store.isMisestimated("x", 10));
+		store.recordCardinality("x", 1000);
+		assertTrue(store.isMisestimated("x", -1));
+		assertTrue(store.isMisestimated("x", 10));
+		assertFalse(store.isMisestimated("x", 500));
+		store.recordCardinality("x", 0);
+		assertEquals(500f, store.getCardinality("x"), 0);
+	}
+	
+	@Test public void testPreparedPlanStale() throws Exception {
+		QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+		PlanFeedbackStore store = new PlanFeedbackStore();
+		ProcessorPlan plan = helpPlan("select e1 from pm1.g1 where e2 = ?", metadata, store);
+		PreparedPlan pp = new PreparedPlan();
+		pp.setPlan(plan, new CommandContext());
+		assertFalse(pp.isStale(store));
+		store.recordCardinality(getAccessNodes(plan).get(0).getFeedbackKey(), 5000);
+		//too soon to replan
+		assertFalse(pp.isStale(store));
+		store.setMinReplanInterval(0);
+		assertTrue(pp.isStale(store));
+	}
+
+}
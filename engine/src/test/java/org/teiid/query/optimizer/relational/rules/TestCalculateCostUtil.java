@@ -617,6 +617,32 @@ public class TestCalculateCostUtil {
         helpTestEstimateCost(critString, 100, 33, metadata);
     }
 
+    @Test public void testEstimateCostOfCriteriaHistogram() throws Exception {
+        TransformationMetadata metadata = helpGetHistogramMetadata();
+        helpTestEstimateCost("pm1.g1.e2 < 15", 1000, 300, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 >= 15", 1000, 700, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 > 100", 1000, 1, metadata); //$NON-NLS-1$
+    }
+
+    @Test public void testEstimateCostOfCriteriaMostCommonValues() throws Exception {
+        TransformationMetadata metadata = helpGetHistogramMetadata();
+        helpTestEstimateCost("pm1.g1.e2 = 100", 1000, 200, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 <> 100", 1000, 800, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 in (100, 5)", 1000, 240, metadata); //$NON-NLS-1$
+        //outside of the histogram range
+        helpTestEstimateCost("pm1.g1.e2 = 50", 1000, 1, metadata); //$NON-NLS-1$
+    }
+    
+    private TransformationMetadata helpGetHistogramMetadata() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+        e2.setHistogram(Arrays.asList("0", "10", "20", "30", "40")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        e2.setMostCommonValues(Arrays.asList("100")); //$NON-NLS-1$
+        e2.setMostCommonFrequencies(Arrays.asList(.2f));
+        e2.setDistinctValues(21);
+        return metadata;
+    }
+
     @Test public void testNDVEstimate() throws Exception {
         String crit = "US.accounts.account = 10"; //$NON-NLS-1$
         
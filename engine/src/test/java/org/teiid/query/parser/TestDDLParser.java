@@ -821,6 +821,12 @@ public class TestDDLParser {
 		assertEquals("y", c.getProperty("x", false));
 	}	
 	
+	@Test(expected=MetadataException.class)
+	public void testInvalidHistogram() throws Exception {
+		String ddl = "CREATE FOREIGN TABLE G1( e1 integer OPTIONS (HISTOGRAM '1, 2'))";
+		helpParse(ddl, "model");
+	}
+	
 	@Test
 	public void testAlterProcedureOptions() throws Exception {
 		String ddl = "CREATE FOREIGN PROCEDURE myProc(OUT p1 boolean, p2 varchar, INOUT p3 decimal) " +
@@ -40,10 +40,12 @@ import org.teiid.core.types.ArrayImpl;
 import org.teiid.core.types.BinaryType;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.metadata.AggregateAttributes;
+import org.teiid.metadata.Column;
 import org.teiid.metadata.FunctionMethod;
 import org.teiid.metadata.FunctionParameter;
 import org.teiid.metadata.MetadataStore;
 import org.teiid.metadata.Schema;
+import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.TestAggregatePushdown;
@@ -1184,4 +1186,28 @@ public class TestAggregateProcessing {
 	}
 
 	
+	@Test public void testHashAggregation() throws Exception {
+		String sql = "SELECT e2, count(*) AS c FROM pm1.g1 GROUP BY e2 ORDER BY c, e2"; //$NON-NLS-1$
+
+		List[] expected = new List[] {
+				Arrays.asList(2, 1),
+				Arrays.asList(3, 1),
+				Arrays.asList(0, 2),
+				Arrays.asList(1, 2),
+		};
+
+		TransformationMetadata metadata = RealMetadataFactory.example1();
+		RealMetadataFactory.setCardinality("pm1.g1", 1000, metadata); //$NON-NLS-1$
+		Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+		e2.setDistinctValues(4);
+		
+		FakeDataManager dataManager = new FakeDataManager();
+		FakeDataStore.sampleData1(dataManager, metadata);
+
+		ProcessorPlan plan = helpGetPlan(sql, metadata);
+		assertTrue(plan.getDescriptionProperties().toString().contains(AnalysisRecord.PROP_HASH_MODE));
+
+		helpProcess(plan, dataManager, expected);
+	}
+
 }
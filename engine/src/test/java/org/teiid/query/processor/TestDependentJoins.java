@@ -27,6 +27,7 @@ import static org.junit.Assert.*;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 import org.teiid.api.exception.query.QueryMetadataException;
@@ -51,6 +52,7 @@ import org.teiid.query.processor.relational.RelationalPlan;
 import org.teiid.query.sql.lang.Command;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 import org.teiid.translator.ExecutionFactory.NullOrder;
 
 @SuppressWarnings({"rawtypes", "unchecked", "nls"})
@@ -990,6 +992,50 @@ public class TestDependentJoins {
         TestProcessor.helpProcess(plan, dataManager, expected);
     }
 
+    @Test public void testAdaptiveBackoffOverMaxQueries() throws Exception {
+    	String sql = "SELECT pm1.g1.e1 FROM pm1.g1, pm3.g1 WHERE pm1.g1.e1=pm3.g1.e1"; //$NON-NLS-1$
+
+        HardcodedDataManager dataManager = new HardcodedDataManager();
+        dataManager.addData("SELECT pm3.g1.e1 FROM pm3.g1 ORDER BY pm3.g1.e1", new List<?>[] {Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("c")});
+        dataManager.addData("SELECT pm1.g1.e1 FROM pm1.g1", new List<?>[] {Arrays.asList("a"), Arrays.asList("d")});
+
+        TransformationMetadata fakeMetadata = RealMetadataFactory.example4();
+        fakeMetadata.getGroupID("pm1.g1").getAccessPatterns().clear();
+        RealMetadataFactory.setCardinality("pm1.g1", 1000, fakeMetadata);
+    	fakeMetadata.getElementID("pm1.g1.e1").setDistinctValues(40);
+        RealMetadataFactory.setCardinality("pm3.g1", 1, fakeMetadata);
+    	fakeMetadata.getElementID("pm3.g1.e1").setDistinctValues(1);
+        FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+        BasicSourceCapabilities depcaps = new BasicSourceCapabilities();
+        depcaps.setCapabilitySupport(Capability.CRITERIA_IN, true);
+        depcaps.setSourceProperty(Capability.MAX_IN_CRITERIA_SIZE, 1);
+        depcaps.setSourceProperty(Capability.MAX_DEPENDENT_PREDICATES, 1);
+
+        BasicSourceCapabilities caps = new BasicSourceCapabilities();
+        caps.setCapabilitySupport(Capability.QUERY_ORDERBY, true);
+        caps.setSourceProperty(Capability.QUERY_ORDERBY_DEFAULT_NULL_ORDER, NullOrder.HIGH);
+
+        capFinder.addCapabilities("pm3", caps); //$NON-NLS-1$
+        capFinder.addCapabilities("pm1", depcaps); //$NON-NLS-1$
+
+        ProcessorPlan plan = TestOptimizer.helpPlan(sql, fakeMetadata, new String[] {
+        		"SELECT pm1.g1.e1 FROM pm1.g1 WHERE pm1.g1.e1 IN (<dependent values>)", 
+        		"SELECT pm3.g1.e1 FROM pm3.g1 ORDER BY pm3.g1.e1"
+        }, capFinder, ComparisonMode.EXACT_COMMAND_STRING);
+
+        CommandContext cc = TestProcessor.createCommandContext();
+        //the 3 independent values would require 3 source queries
+        cc.setOptions(new Options().dependentJoinMaxQueries(2));
+        TestProcessor.helpProcess(plan, cc, dataManager, new List[] {Arrays.asList("a")});
+        
+        //the dependent criteria was not used
+        Set<String> queries = new HashSet<String>();
+        for (Command command : dataManager.getCommandHistory()) {
+        	queries.add(command.toString());
+        }
+        assertEquals(new HashSet<String>(Arrays.asList("SELECT pm3.g1.e1 FROM pm3.g1 ORDER BY pm3.g1.e1", "SELECT pm1.g1.e1 FROM pm1.g1")), queries);
+    }
+
 	private FakeDataManager helpTestBackoff(boolean setNdv) throws Exception,
 			QueryMetadataException, TeiidComponentException,
 			TeiidProcessingException {
@@ -162,6 +162,21 @@ public class TestMaterialization {
 		execute("SELECT * from vgroup5 where y is null and z = 2");
 	}
 	
+	@Test public void testIncludeColumnsSecondaryIndex() throws Exception {
+		execute("SELECT y, z from vgroup8 where y in ('zne', 'zwo') order by y desc", Arrays.asList("zwo", 1), Arrays.asList("zne", 1));
+		execute("SELECT count(*) from vgroup8 where y is null", Arrays.asList(1));
+		execute("SELECT y from vgroup8 where z = 1 and y > 'zne'", Arrays.asList("zwo"));
+		
+		//the include columns should survive replication
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		String matTableName = RelationalPlanner.MAT_PREFIX + "MATVIEW.VGROUP8";
+		this.globalStore.getState(matTableName, baos);
+		this.globalStore.failedLoad(matTableName);
+		this.globalStore.setState(matTableName, new ByteArrayInputStream(baos.toByteArray()));
+		execute("SELECT y, z from vgroup8 where y = 'zne'", Arrays.asList("zne", 1));
+		assertEquals(1, hdm.getCommandHistory().size());
+	}
+	
 	@Test public void testNonCoveringSecondaryIndexWithoutPrimaryKey() throws Exception {
 		execute("SELECT * from vgroup6 where y in ('zne', 'zwo') order by y desc", Arrays.asList("two", "zwo"), Arrays.asList("one", "zne"));
 		execute("SELECT * from vgroup6 where y is null", Arrays.asList((String)null, (String)null));
@@ -78,6 +78,7 @@ import org.teiid.query.optimizer.capabilities.FakeCapabilitiesFinder;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
 import org.teiid.query.optimizer.relational.rules.RuleChooseDependent;
 import org.teiid.query.parser.QueryParser;
+import org.teiid.query.processor.relational.AccessNode;
 import org.teiid.query.processor.relational.JoinNode;
 import org.teiid.query.processor.relational.RelationalNode;
 import org.teiid.query.processor.relational.RelationalPlan;
@@ -7809,5 +7810,30 @@ public class TestProcessor {
         helpProcess(plan, hdm, expected);
     } 
     
+    @Test public void testJoinFilter() throws Exception {
+        String sql = "select pm1.g1.e1, pm2.g1.e2 from pm1.g1 left outer join pm2.g1 on pm1.g1.e1 = pm2.g1.e1 option makenotdep pm2.g1"; //$NON-NLS-1$
+
+        List[] expected = new List[] {
+        		Arrays.asList(null, null),
+        		Arrays.asList("a", 1), //$NON-NLS-1$
+        		Arrays.asList("b", null), //$NON-NLS-1$
+        };
+
+        HardcodedDataManager hdm = new HardcodedDataManager();
+        hdm.addData("SELECT pm1.g1.e1 FROM pm1.g1", Arrays.asList("a"), Arrays.asList("b"), Arrays.asList((String)null)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        hdm.addData("SELECT pm2.g1.e1, pm2.g1.e2 FROM pm2.g1", Arrays.asList("a", 1), Arrays.asList("c", 2), Arrays.asList(null, 3)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        QueryMetadataInterface metadata = RealMetadataFactory.example1();
+        RealMetadataFactory.setCardinality("pm1.g1", 3, metadata); //$NON-NLS-1$
+        ProcessorPlan plan = helpGetPlan(sql, metadata, new DefaultCapabilitiesFinder(new BasicSourceCapabilities()));
+        
+        CommandContext cc = createCommandContext();
+        cc.setCollectNodeStatistics(true);
+        doProcess(plan, hdm, expected, cc);
+        //the unmatched right rows should not be output by the access node
+        JoinNode join = (JoinNode)((RelationalPlan)plan).getRootNode().getChildren()[0];
+        AccessNode right = (AccessNode)join.getChildren()[1];
+        assertEquals(1, right.getNodeStatistics().getNodeOutputRows());
+    }
+    
     private static final boolean DEBUG = false;
 }
@@ -93,7 +93,7 @@ public class TestSetProcessing {
                 0,      // DependentAccess
                 0,      // DependentSelect
                 0,      // DependentProject
-                0,      // DupRemove
+                1,      // DupRemove
                 0,      // Grouping
                 0,      // NestedLoopJoinStrategy
                 1,      // MergeJoinStrategy
@@ -375,6 +375,15 @@ public class TestTempTables extends TempTableTestHarness {
 		execute("select * from x where e1 = 'b'", new List[] {Arrays.asList("b", 2), Arrays.asList("b", 3)}); //$NON-NLS-1$
 	}
 	
+	@Test public void testCompositeKeyPrefixRange() throws Exception {
+		sampleTable();
+		execute("select * from x where e1 = 'b' and e2 > 2", new List[] {Arrays.asList("b", 3)}); //$NON-NLS-1$
+		execute("select * from x where e1 = 'b' and e2 <= 2", new List[] {Arrays.asList("b", 2)}); //$NON-NLS-1$
+		execute("select * from x where e1 = 'b' and e2 > 1 and e2 < 3", new List[] {Arrays.asList("b", 2)}); //$NON-NLS-1$
+		execute("select * from x where e1 = 'b' and e2 > 3", new List[0]); //$NON-NLS-1$
+		execute("select * from x where e1 = 'b' and e2 >= 2 order by e1 desc, e2 desc", new List[] {Arrays.asList("b", 3), Arrays.asList("b", 2)}); //$NON-NLS-1$
+	}
+	
 	@Test public void testCompositeKeyPartial1() throws Exception {
 		sampleTable();
 		execute("select * from x where e1 < 'c'", new List[] {Arrays.asList("a", 1), Arrays.asList("b", 2), Arrays.asList("b", 3)}); //$NON-NLS-1$
@@ -38,6 +38,7 @@ import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.query.eval.CompiledExpression;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.sql.lang.*;
 import org.teiid.query.sql.symbol.Constant;
@@ -523,4 +524,25 @@ public class TestCriteriaEvaluator {
     	assertTrue(Evaluator.evaluate(crit));
     }
 
+    @Test public void testCompiledCriteria() throws Exception {
+    	ElementSymbol e1 = new ElementSymbol("e1"); //$NON-NLS-1$
+    	ElementSymbol e2 = new ElementSymbol("e2"); //$NON-NLS-1$
+    	Map<ElementSymbol, Integer> elementMap = new HashMap<ElementSymbol, Integer>();
+    	elementMap.put(e1, 0);
+    	elementMap.put(e2, 1);
+    	Criteria crit = new CompoundCriteria(CompoundCriteria.OR, 
+    			new CompareCriteria(e1, CompareCriteria.GT, new Constant(1)), 
+    			new NotCriteria(new MatchCriteria(e2, new Constant("a%")))); //$NON-NLS-1$
+    	Evaluator eval = new Evaluator(elementMap, null, null);
+    	CompiledExpression compiled = CompiledExpression.compile(crit, elementMap);
+    	List<?>[] tuples = new List<?>[] {Arrays.asList(2, "a"), Arrays.asList(1, "a"), Arrays.asList(1, "b"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ 
+    			Arrays.asList(null, "a"), Arrays.asList(null, "b"), Arrays.asList(1, null)}; //$NON-NLS-1$ //$NON-NLS-2$
+    	for (List<?> tuple : tuples) {
+    		assertEquals(eval.evaluate(crit, tuple), compiled.matches(eval, tuple));
+    		assertEquals(eval.evaluate(crit, tuple), compiled.evaluate(eval, tuple));
+    	}
+    	assertFalse(compiled.matches(eval, tuples[1]));
+    	assertTrue(compiled.matches(eval, tuples[4]));
+    }
+
 }
@@ -27,6 +27,8 @@ import static org.junit.Assert.*;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +42,7 @@ import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.function.FunctionDescriptor;
 import org.teiid.query.function.aggregate.AggregateFunction;
 import org.teiid.query.processor.FakeDataManager;
@@ -108,12 +111,12 @@ public class TestGroupingNode {
         node.open();
         
         int currentRow = 1;
+        List<List> actual = new ArrayList<List>();
         while(true) {
             try {
                 TupleBatch batch = node.nextBatch();
                 for(int row = currentRow; row <= batch.getEndRow(); row++) {
-                    List tuple = batch.getTuple(row);
-                    assertEquals("Rows don't match at " + row, expected[row-1], tuple); //$NON-NLS-1$
+                    actual.add(batch.getTuple(row));
                 }
                 currentRow += batch.getRowCount();
                 if(batch.getTerminationFlag()) {
@@ -123,7 +126,22 @@ public class TestGroupingNode {
                 //ignore
             }
         }
-        assertEquals(expected.length, currentRow -1);
+        List<List> expectedList = new ArrayList<List>(Arrays.asList(expected));
+        if (node.isUseHash()) {
+        	//hash output is not in grouping order
+        	Comparator<List> comparator = new Comparator<List>() {
+        		@Override
+        		public int compare(List o1, List o2) {
+        			return o1.toString().compareTo(o2.toString());
+        		}
+			};
+        	Collections.sort(actual, comparator);
+        	Collections.sort(expectedList, comparator);
+        }
+        for (int row = 0; row < Math.min(actual.size(), expectedList.size()); row++) {
+        	assertEquals("Rows don't match at " + (row + 1), expectedList.get(row), actual.get(row)); //$NON-NLS-1$
+        }
+        assertEquals(expected.length, actual.size());
     }
     
 	// ################################## ACTUAL TESTS ################################
@@ -420,6 +438,70 @@ public class TestGroupingNode {
         helpProcess(mgr, node, context, expected, null);
     }
 
+    @Test public void testHashAggregation() throws Exception {
+        BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
+
+        GroupingNode node = getHashGroupingNode();
+        CommandContext context = new CommandContext("pid", "test", null, null,  1);               //$NON-NLS-1$ //$NON-NLS-2$
+        
+        List[] expected = new List[] {
+            Arrays.asList(new Object[] { null, new Integer(2), new Long(3) }),
+            Arrays.asList(new Object[] { new Integer(0), new Integer(1), new Long(4) }),
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1), new Long(2) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(4), new Long(5) }),
+            Arrays.asList(new Object[] { new Integer(3), new Integer(1), new Long(0) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(3), new Long(5) }),
+            Arrays.asList(new Object[] { new Integer(5), new Integer(1), new Long(3) }),
+            Arrays.asList(new Object[] { new Integer(6), new Integer(2), new Long(7) })
+        };
+                
+        helpProcess(mgr, node, context, expected, null);
+        assertEquals(Arrays.asList("true"), node.getDescriptionProperties().getProperty(AnalysisRecord.PROP_HASH_MODE).getValues()); //$NON-NLS-1$
+    }
+    
+    /**
+     * Uses a small batch size and no reserve so that the groups spill to partitions
+     */
+    @Test public void testHashAggregationSpill() throws Exception {
+    	BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(1, 2);
+
+        GroupingNode node = getHashGroupingNode();
+        CommandContext context = new CommandContext("pid", "test", null, null,  1);               //$NON-NLS-1$ //$NON-NLS-2$
+        
+        int rows = 1000;
+        List[] tuples = new List[rows];
+        for (int i = 0; i < rows; i++) {
+        	tuples[i] = Arrays.asList(i%100, i);
+        }
+        List[] expected = new List[100];
+        for (int i = 0; i < expected.length; i++) {
+        	expected[i] = Arrays.asList(i, 10, (long)(i*10 + 4500));
+        }
+        FakeTupleSource dataSource = new FakeTupleSource(createTupleSource1().getSchema(), tuples);
+        long reserve = mgr.getReserveBatchBytes();
+        helpProcess(mgr, node, context, expected, dataSource, null);
+        assertEquals(reserve, mgr.getReserveBatchBytes());
+    }
+
+	private GroupingNode getHashGroupingNode() {
+		GroupingNode node = new GroupingNode(1);
+        List outputElements = new ArrayList();
+        ElementSymbol col1 = new ElementSymbol("col1"); //$NON-NLS-1$
+        col1.setType(Integer.class);
+        ElementSymbol col2 = new ElementSymbol("col2"); //$NON-NLS-1$
+        col2.setType(Integer.class);
+        outputElements.add(col1);
+        outputElements.add(new AggregateSymbol("COUNT", false, null)); //$NON-NLS-1$
+        outputElements.add(new AggregateSymbol("SUM", false, col2)); //$NON-NLS-1$
+        node.setElements(outputElements);
+        
+        List groupingElements = new ArrayList();
+        groupingElements.add(col1); 
+        node.setOrderBy(new OrderBy(groupingElements).getOrderByItems());
+        node.setUseHash(true);
+		return node;
+	}
+
 	private GroupingNode getExampleGroupingNode() {
 		GroupingNode node = new GroupingNode(1);
         List outputElements = new ArrayList();
@@ -26,6 +26,8 @@ import static org.junit.Assert.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -80,6 +82,8 @@ public class TestJoinNode {
     private BlockingFakeRelationalNode rightNode;
     
     private FakeDataManager dataMgr;
+    
+    private boolean unordered;
 
     @Before public void setup() {
     	leftTuples = createTuples1();
@@ -273,11 +277,16 @@ public class TestJoinNode {
 		join.open();
         
         int currentRow = 1;
+        List<List> actual = new ArrayList<List>();
         while(true) {
             try {
                 TupleBatch batch = join.nextBatch();
                 for(;currentRow <= batch.getEndRow(); currentRow++) {
                     List tuple = batch.getTuple(currentRow);
+                    if (unordered) {
+                    	actual.add(tuple);
+                    	continue;
+                    }
                     assertEquals("Rows don't match at " + currentRow, expectedResults[currentRow-1], tuple); //$NON-NLS-1$
                 }
                 if(batch.getTerminationFlag()) {
@@ -288,6 +297,18 @@ public class TestJoinNode {
             }
         }
         assertEquals(expectedResults.length, currentRow - 1);
+        if (unordered) {
+        	List<List> expectedList = new ArrayList<List>(Arrays.asList(expectedResults));
+        	Comparator<Object> comparator = new Comparator<Object>() {
+        		@Override
+        		public int compare(Object o1, Object o2) {
+        			return String.valueOf(o1).compareTo(String.valueOf(o2));
+        		}
+			};
+        	Collections.sort(expectedList, comparator);
+        	Collections.sort(actual, comparator);
+        	assertEquals(expectedList, actual);
+        }
         join.close();
 	}
     
@@ -795,6 +816,72 @@ public class TestJoinNode {
         helpTestJoinDirect(expected, 10, 1);
 	}
     
+    @Test public void testHashJoin() throws Exception {
+        joinType = JoinType.JOIN_INNER;
+        expected = new List[] {
+        	Arrays.asList(1, 1),    
+            Arrays.asList(2, 2),    
+            Arrays.asList(2, 2),    
+            Arrays.asList(4, 4),    
+            Arrays.asList(4, 4),    
+            Arrays.asList(4, 4),    
+            Arrays.asList(4, 4)            
+        };
+        unordered = true;
+        for (int batchSize : new int[] {1, 10, 100}) {
+	        helpCreateJoin();
+	        this.joinStrategy = new HashJoinStrategy();
+	        this.join.setJoinStrategy(joinStrategy);
+	        helpTestJoinDirect(expected, batchSize, 100000);
+        }
+    }
+    
+    @Test public void testHashJoinLeftOuter() throws Exception {
+        joinType = JoinType.JOIN_LEFT_OUTER;
+        this.leftTuples = createTuples2();
+        this.rightTuples = createTuples1();
+        expected = new List[] {
+        	Arrays.asList(null, null),    
+            Arrays.asList(1, 1),    
+            Arrays.asList(2, 2),    
+            Arrays.asList(2, 2),    
+            Arrays.asList(4, 4),    
+            Arrays.asList(4, 4),            
+            Arrays.asList(4, 4),    
+            Arrays.asList(4, 4),    
+            Arrays.asList(6, null),
+            Arrays.asList(7, null),    
+            Arrays.asList(7, null)    
+        };
+        unordered = true;
+        helpCreateJoin();
+        this.joinStrategy = new HashJoinStrategy();
+        this.join.setJoinStrategy(joinStrategy);
+        helpTestJoinDirect(expected, 2, 100000);
+    }
+    
+    /**
+     * Uses a minimal processing size to force the partitioning of both sides
+     */
+    @Test public void testHashJoinPartitioned() throws Exception {
+        joinType = JoinType.JOIN_LEFT_OUTER;
+        int rows = 1000;
+        this.leftTuples = createTuples(0, rows);
+        this.rightTuples = new List[rows/2];
+        for (int i = 0; i < rightTuples.length; i++) {
+        	rightTuples[i] = Arrays.asList(i * 2);
+        }
+        expected = new List[rows];
+        for (int i = 0; i < rows; i++) {
+        	expected[i] = Arrays.asList(i, i%2==0?i:null);
+        }
+        unordered = true;
+        helpCreateJoin();
+        this.joinStrategy = new HashJoinStrategy();
+        this.join.setJoinStrategy(joinStrategy);
+        helpTestJoinDirect(expected, 10, 1);
+    }
+
     @Test public void testMergeJoinOptimizationMultiBatch() throws Exception {
     	helpTestEnhancedSortMergeJoin(10);
     }
@@ -29,7 +29,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
 import org.teiid.common.buffer.BlockedException;
@@ -302,8 +305,8 @@ public class TestSortNode {
         BasicSourceCapabilities caps = new BasicSourceCapabilities();
         capFinder.addCapabilities("pm1", caps); //$NON-NLS-1$
 
-        // Create query 
-        String sql = "select e1 from (select e1, e2 from pm1.g1 union select e1, e2 from pm1.g2 limit 1) as x order by e2"; //$NON-NLS-1$
+        // Create query - the bigdecimal column is not hashable, so the union dup removal is sorted
+        String sql = "select e1 from (select e1, convert(e2, bigdecimal) as e2 from pm1.g1 union select e1, e2 from pm1.g2 limit 1) as x order by e2"; //$NON-NLS-1$
 
         ProcessorPlan plan = helpPlan(sql, RealMetadataFactory.example1Cached(), null, capFinder, 
                                       new String[] {"SELECT pm1.g1.e1, pm1.g1.e2 FROM pm1.g1", "SELECT pm1.g2.e1, pm1.g2.e2 FROM pm1.g2"}, ComparisonMode.EXACT_COMMAND_STRING); //$NON-NLS-1$
@@ -317,6 +320,136 @@ public class TestSortNode {
         TestProcessor.helpProcess(plan, dataMgr, new List[]{Collections.singletonList(null)});
     }
     
+    @Test public void testUnionUsingHashDupRemove() throws TeiidException { 
+        FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+        BasicSourceCapabilities caps = new BasicSourceCapabilities();
+        capFinder.addCapabilities("pm1", caps); //$NON-NLS-1$
+
+        // Create query 
+        String sql = "select e1 from (select e1, e2 from pm1.g1 union select e1, e2 from pm1.g2 limit 1) as x order by e2"; //$NON-NLS-1$
+
+        ProcessorPlan plan = helpPlan(sql, RealMetadataFactory.example1Cached(), null, capFinder, 
+                                      new String[] {"SELECT pm1.g1.e1, pm1.g1.e2 FROM pm1.g1", "SELECT pm1.g2.e1, pm1.g2.e2 FROM pm1.g2"}, ComparisonMode.EXACT_COMMAND_STRING); //$NON-NLS-1$
+        
+        //the union uses hash dup removal, so only the order by is sorted
+        checkNodeTypes(plan, new int[] {0}, new Class[] {DupRemoveSortNode.class});
+        checkNodeTypes(plan, new int[] {1}, new Class[] {DupRemoveNode.class});
+        checkNodeTypes(plan, new int[] {1}, new Class[] {SortNode.class});
+        
+        FakeDataManager dataMgr = new FakeDataManager();
+        dataMgr.setBlockOnce();
+        FakeDataStore.sampleData1(dataMgr, RealMetadataFactory.example1Cached());
+        TestProcessor.helpProcess(plan, dataMgr, new List[]{Collections.singletonList("a")});
+    }
+    
+    private List<List<?>> helpTestHashDupRemove(long processingBytes) throws TeiidComponentException, TeiidProcessingException {
+        BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(processingBytes, 10);
+        long reserve = mgr.getReserveBatchBytes();
+        CommandContext context = new CommandContext ("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        List[] data = new List[1000];
+        for (int i = 0; i < data.length; i++) {
+        	data[i] = Arrays.asList(i%300);
+        }
+        BlockingFakeRelationalNode dataNode = new BlockingFakeRelationalNode(2, data);
+        dataNode.setReturnPeriod(3);
+        dataNode.setElements(Arrays.asList(es1));
+        dataNode.initialize(context, mgr, null);    
+        
+        DupRemoveNode dupNode = new DupRemoveNode(1);
+        dupNode.setUseHash(true);
+        dupNode.setElements(Arrays.asList(es1));
+        dupNode.addChild(dataNode);        
+        dupNode.initialize(context, mgr, null);    
+        
+        dupNode.open();
+        List<List<?>> result = new ArrayList<List<?>>();
+        while(true) {
+        	try {
+	            TupleBatch batch = dupNode.nextBatch();
+	            result.addAll(batch.getTuples());
+	            if(batch.getTerminationFlag()) {
+	                break;
+	            }
+        	} catch (BlockedException e) {
+        		
+        	}
+        }
+        dupNode.close();
+        assertEquals(300, result.size());
+        assertEquals(reserve, mgr.getReserveBatchBytes());
+        return result;
+    }
+    
+    @Test public void testHashDupRemove() throws Exception {
+    	List<List<?>> result = helpTestHashDupRemove(100000);
+    	//in memory the first occurrence of each row is output in order
+    	for (int i = 0; i < result.size(); i++) {
+    		assertEquals(Arrays.asList(i), result.get(i));
+    	}
+    }
+    
+    @Test public void testHashDupRemoveSpill() throws Exception {
+    	List<List<?>> result = helpTestHashDupRemove(1);
+    	TreeSet<Integer> values = new TreeSet<Integer>();
+    	for (List<?> tuple : result) {
+    		values.add((Integer)tuple.get(0));
+    	}
+    	assertEquals(300, values.size());
+    	assertEquals(Integer.valueOf(299), values.last());
+    }
+
+    @Test public void testParallelSort() throws Exception {
+    	ExecutorService executor = Executors.newFixedThreadPool(2);
+    	try {
+    		helpTestParallelSort(executor, 4);
+    	} finally {
+    		executor.shutdownNow();
+    	}
+    }
+    
+    @Test public void testParallelSortWithoutExecutor() throws Exception {
+    	//should fall back to a sequential sort
+    	helpTestParallelSort(null, -1);
+    }
+
+	private void helpTestParallelSort(ExecutorService executor, int parallelism) throws TeiidComponentException, TeiidProcessingException {
+		ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        //small enough to require a multi-pass merge
+        BufferManagerImpl bm = BufferManagerFactory.getTestBufferManager(30000, 50);
+        long reserve = bm.getReserveBatchBytes();
+        TupleBuffer tsid = bm.createTupleBuffer(Arrays.asList(es1), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        Random r = new Random(0);
+        int rows = 100000;
+        for (int i = 0; i < rows; i++) {
+        	tsid.addTuple(Arrays.asList(r.nextInt()));
+        }
+    	tsid.close();
+    	CommandContext context = new CommandContext ("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+    	context.setUserRequestSourceConcurrency(4);
+    	context.setExecutor(executor);
+    	SortUtility su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.TRUE), Mode.SORT, bm, "test", tsid.getSchema()); //$NON-NLS-1$
+    	su.setCommandContext(context);
+    	if (parallelism > 0) {
+    		su.setParallelism(parallelism);
+    	}
+    	TupleBuffer out = su.sort();
+    	assertEquals(rows, out.getRowCount());
+    	TupleSource ts = out.createIndexedTupleSource();
+    	Integer last = Integer.MIN_VALUE;
+    	for (int i = 0; i < rows; i++) {
+    		Integer value = (Integer)ts.nextTuple().get(0);
+    		assertTrue(last <= value);
+    		last = value;
+    	}
+    	assertNull(ts.nextTuple());
+    	out.remove();
+    	assertEquals(reserve, bm.getReserveBatchBytes());
+	}
+    
     @Test public void testStableSort() throws Exception {
     	ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
         es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
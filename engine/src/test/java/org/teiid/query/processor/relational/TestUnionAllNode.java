@@ -36,8 +36,14 @@ import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.processor.FakeDataManager;
+import org.teiid.query.processor.RegisterRequestParameter;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.Query;
+import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Reference;
 import org.teiid.query.util.CommandContext;
 
 
@@ -225,4 +231,29 @@ public class TestUnionAllNode {
         helpTestUnionConfigs(3, 1, 6, 1, expected);       
     }    
 
+    @Test public void testParallelSafe() throws Exception {
+    	AccessNode access = new AccessNode(1);
+    	access.setCommand(new Query());
+    	SelectNode select = new SelectNode(2);
+    	select.setCriteria(new CompareCriteria(new ElementSymbol("e1"), CompareCriteria.EQ, new Constant(1))); //$NON-NLS-1$
+    	select.addChild(access);
+    	assertTrue(UnionAllNode.isParallelSafe(select));
+    	
+    	//references use the variable context
+    	select.setCriteria(new CompareCriteria(new ElementSymbol("e1"), CompareCriteria.EQ, new Reference(0))); //$NON-NLS-1$
+    	assertFalse(UnionAllNode.isParallelSafe(select));
+    	select.setCriteria(new CompareCriteria(new ElementSymbol("e1"), CompareCriteria.EQ, new Constant(1))); //$NON-NLS-1$
+    	
+    	access.setModelName(TempMetadataAdapter.TEMP_MODEL.getID());
+    	assertFalse(UnionAllNode.isParallelSafe(select));
+    	access.setModelName("pm1"); //$NON-NLS-1$
+    	
+    	access.info = new RegisterRequestParameter.SharedAccessInfo();
+    	assertFalse(UnionAllNode.isParallelSafe(select));
+    	access.info = null;
+    	
+    	access.setShouldEvaluateExpressions(true);
+    	assertFalse(UnionAllNode.isParallelSafe(select));
+    }
+    
 }
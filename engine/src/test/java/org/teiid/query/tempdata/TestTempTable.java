@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.tempdata;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.query.metadata.TempMetadataID;
+import org.teiid.query.processor.CollectionTupleSource;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+@SuppressWarnings({"nls", "unchecked"})
+public class TestTempTable {
+
+	private static List<List<?>> getTuples(TupleSource ts) throws Exception {
+		List<List<?>> result = new ArrayList<List<?>>();
+		List<?> tuple = null;
+		while ((tuple = ts.nextTuple()) != null) {
+			result.add(tuple);
+		}
+		ts.closeSource();
+		return result;
+	}
+
+	@Test public void testIncludeColumnsCoveringIndex() throws Exception {
+		ElementSymbol x = new ElementSymbol("x");
+		x.setType(String.class);
+		ElementSymbol y = new ElementSymbol("y");
+		y.setType(String.class);
+		ElementSymbol z = new ElementSymbol("z");
+		z.setType(Integer.class);
+		ElementSymbol w = new ElementSymbol("w");
+		w.setType(String.class);
+		List<ElementSymbol> columns = new ArrayList<ElementSymbol>(Arrays.asList(x, y, z, w));
+		TempTable tt = new TempTable(new TempMetadataID("t", Collections.EMPTY_LIST), BufferManagerFactory.getStandaloneBufferManager(), columns, 1, "1");
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < 100; i++) {
+			rows.add(Arrays.asList(String.valueOf(i), "y" + i, i, "w" + i));
+		}
+		tt.insert(new CollectionTupleSource(rows.iterator()), columns, false, null);
+		tt.addIndex(Arrays.asList(y), false, Arrays.asList(z));
+
+		//remove the row from only the base tree
+		assertNotNull(tt.getTree().remove(Arrays.asList("5")));
+
+		Criteria crit = new CompareCriteria(y, CompareCriteria.EQ, new Constant("y5"));
+		//the include column is read from the index without accessing the base tree
+		assertEquals(Arrays.asList(Arrays.asList("y5", 5)), getTuples(tt.createTupleSource(Arrays.asList(y, z), crit, null)));
+		//a column that is not included requires the base tree
+		assertEquals(Collections.emptyList(), getTuples(tt.createTupleSource(Arrays.asList(y, w), crit, null)));
+	}
+
+}
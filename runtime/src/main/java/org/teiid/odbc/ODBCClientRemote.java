@@ -67,11 +67,17 @@ public interface ODBCClientRemote {
 
 	//	RowDescription (B)
 	//	NoData (B)
-	void sendResultSetDescription(List<PgColInfo> cols);
+	void sendResultSetDescription(List<PgColInfo> cols, int[] resultColumnFormat);
 	
 	//	DataRow (B)
 	//	CommandComplete (B)
-	void sendResults(String sql, ResultSetImpl rs, List<PgColInfo> cols, ResultsFuture<Integer> result, int rowCount, boolean describeRows);
+	void sendResults(String sql, ResultSetImpl rs, List<PgColInfo> cols, int[] resultColumnFormat, ResultsFuture<Integer> result, int rowCount, boolean describeRows);
+	
+	//	CopyOutResponse (B)
+	//	CopyData (B)
+	//	CopyDone (B)
+	//	CommandComplete (B)
+	void sendCopyOut(ResultSetImpl rs, List<PgColInfo> cols, boolean binary, ResultsFuture<Integer> result);
 	
 	void sendCommandComplete(String sql, Integer count);	
 
@@ -150,6 +150,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 	private static Pattern movePattern = Pattern.compile("MOVE (\\d+) IN \"(\\w+)\".*", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	private static Pattern closePattern = Pattern.compile("CLOSE \"(\\w+)\"", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	
+	private static Pattern copyOutPattern = Pattern.compile("COPY\\s+(?:\\((.*)\\)|([\\w.\"]+)(?:\\s*\\(([^)]*)\\))?)\\s+TO\\s+STDOUT(?:\\s+(?:WITH\\s+)?(?:(BINARY)|\\(\\s*FORMAT\\s+(\\w+)\\s*\\)))?\\s*", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	private static Pattern deallocatePattern = Pattern.compile("DEALLOCATE(?:\\s+PREPARE)?\\s+(.*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	private static Pattern releasePattern = Pattern.compile("RELEASE (\\w+\\d?_*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	private static Pattern savepointPattern = Pattern.compile("SAVEPOINT (\\w+\\d?_*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
@@ -349,7 +350,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		if (rows < 1) {
 			throw new SQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40112, cursorName, rows));
 		}
-		this.client.sendResults("FETCH", cursor.rs, cursor.prepared.columnMetadata, completion, rows, true); //$NON-NLS-1$
+		this.client.sendResults("FETCH", cursor.rs, cursor.prepared.columnMetadata, null, completion, rows, true); //$NON-NLS-1$
 	}
 	
 	private void cursorMove(String prepareName, final int rows, final ResultsFuture<Integer> completion) throws SQLException {
@@ -433,7 +434,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
     			try {
 	                if (future.get()) {
                 		List<PgColInfo> cols = getPgColInfo(stmt.getResultSet().getMetaData());
-                        client.sendResults(sql, stmt.getResultSet(), cols, completion, -1, true);
+                        client.sendResults(sql, stmt.getResultSet(), cols, null, completion, -1, true);
 	                } else {
 	                	client.sendUpdateCount(sql, stmt.getUpdateCount());
 	                	setEncoding();
@@ -609,7 +610,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 
 	private void sendCursorResults(final Portal cursor, final int fetchSize) {
 		ResultsFuture<Integer> result = new ResultsFuture<Integer>();
-		this.client.sendResults(null, cursor.rs, cursor.prepared.columnMetadata, result, fetchSize, false);
+		this.client.sendResults(null, cursor.rs, cursor.prepared.columnMetadata, cursor.resultColumnFormat, result, fetchSize, false);
 		result.addCompletionListener(new ResultsFuture.CompletionListener<Integer>() {
 			public void onCompletion(ResultsFuture<Integer> future) {
 				try {
@@ -777,7 +778,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		
 		// followed by a RowDescription message describing the rows that will be returned when the statement  
 		// is eventually executed (or a NoData message if the statement will not return rows).
-		this.client.sendResultSetDescription(query.columnMetadata);
+		this.client.sendResultSetDescription(query.columnMetadata, null);
 	}
 	
 	private void errorOccurred(String error) {
@@ -806,7 +807,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 			errorOccurred(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40078, bindName));
 		}
 		else {
-			this.client.sendResultSetDescription(query.prepared.columnMetadata);
+			this.client.sendResultSetDescription(query.prepared.columnMetadata, query.resultColumnFormat);
 		}
 	}
 
@@ -932,6 +933,61 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		}
 	}
 	
+    /**
+     * Execute the query for a COPY TO STDOUT, which is streamed to the client 
+     * as CopyData rather than DataRow messages
+     */
+    private void copyOut(Matcher m, final ResultsFuture<Integer> completion) throws SQLException {
+    	String sql = m.group(1);
+    	if (sql == null) {
+    		String columns = m.group(3);
+    		if (columns == null || columns.trim().length() == 0) {
+    			columns = "*"; //$NON-NLS-1$
+    		}
+    		sql = "SELECT " + columns + " FROM " + m.group(2); //$NON-NLS-1$ //$NON-NLS-2$
+    	}
+    	boolean binary = m.group(4) != null;
+    	String format = m.group(5);
+    	if (format != null) {
+    		if (format.equalsIgnoreCase("binary")) { //$NON-NLS-1$
+    			binary = true;
+    		} else if (!format.equalsIgnoreCase("text")) { //$NON-NLS-1$
+    			throw new SQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40143, format));
+    		}
+    	}
+    	final boolean binaryFormat = binary;
+    	final StatementImpl stmt = connection.createStatement();
+        executionFuture = stmt.submitExecute(fixSQL(sql), null);
+        completion.addCompletionListener(new ResultsFuture.CompletionListener<Integer>() {
+        	public void onCompletion(ResultsFuture<Integer> future) {
+        		try {
+					stmt.close();
+				} catch (SQLException e) {
+					LogManager.logDetail(LogConstants.CTX_ODBC, e, "Error closing statement"); //$NON-NLS-1$
+				}
+        	}
+        });
+        executionFuture.addCompletionListener(new ResultsFuture.CompletionListener<Boolean>() {
+    		@Override
+    		public void onCompletion(ResultsFuture<Boolean> future) {
+    			executionFuture = null;
+    			try {
+	                if (future.get()) {
+                		List<PgColInfo> cols = getPgColInfo(stmt.getResultSet().getMetaData());
+                        client.sendCopyOut(stmt.getResultSet(), cols, binaryFormat, completion);
+	                } else {
+	                	client.sendCommandComplete("COPY", 0); //$NON-NLS-1$
+	                	completion.getResultsReceiver().receiveResults(0);
+	                }
+    			} catch (Throwable e) {
+    				if (!completion.isDone()) {
+    					completion.getResultsReceiver().exceptionOccurred(e);
+    				}
+    			}
+    		}
+		});    	
+    }
+	
 	public String getEncoding() {
 		return this.connection.getExecutionProperty(PgBackendProtocol.CLIENT_ENCODING);
 	}
@@ -1010,6 +1066,9 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		    				cursorClose(m.group(1));
 		    				results.getResultsReceiver().receiveResults(1);
 		    			}
+		    			else if ((m = copyOutPattern.matcher(sql)).matches()) {
+		    				copyOut(m, results);
+		    			}
 		    			else if ((m = deallocatePattern.matcher(sql)).matches()) { 
 		    				String plan_name = m.group(1);
 		    				plan_name = SQLParserUtil.normalizeId(plan_name);
@@ -89,6 +89,7 @@ public class EmbeddedConfiguration extends DQPConfiguration {
 	private String bufferDirectory;
 	private CacheFactory cacheFactory;
 	private int maxResultSetCacheStaleness = 60;
+	private long maxResultSetCacheSize = SessionAwareCache.DEFAULT_MAX_RESULTSET_SIZE;
 	private String infinispanConfigFile = "infinispan-config.xml"; //$NON-NLS-1$
 	private String jgroupsConfigFile;
 	private List<SocketConfiguration> transports;
@@ -214,6 +215,15 @@ public class EmbeddedConfiguration extends DQPConfiguration {
 	public void setMaxResultSetCacheStaleness(int maxResultSetCacheStaleness) {
 		this.maxResultSetCacheStaleness = maxResultSetCacheStaleness;
 	}
+	public long getMaxResultSetCacheSize() {
+		return maxResultSetCacheSize;
+	}
+	/**
+	 * Set the max total estimated size in bytes of the cached results, -1 for no limit
+	 */
+	public void setMaxResultSetCacheSize(long maxResultSetCacheSize) {
+		this.maxResultSetCacheSize = maxResultSetCacheSize;
+	}
 	public String getJgroupsConfigFile() {
 		return jgroupsConfigFile;
 	}
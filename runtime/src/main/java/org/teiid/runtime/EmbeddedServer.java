@@ -359,6 +359,7 @@ public class EmbeddedServer extends AbstractVDBDeployer implements EventDistribu
 		rs = new SessionAwareCache<CachedResults>("resultset", config.getCacheFactory(), SessionAwareCache.Type.RESULTSET, config.getMaxResultSetCacheStaleness()); //$NON-NLS-1$
 		ppc = new SessionAwareCache<PreparedPlan>("preparedplan", config.getCacheFactory(), SessionAwareCache.Type.PREPAREDPLAN, 0); //$NON-NLS-1$
 		rs.setTupleBufferCache(bs.getTupleBufferCache());
+		rs.setMaxSizeTotal(config.getMaxResultSetCacheSize());
 		this.dqp.setResultsetCache(rs);
 
 		ppc.setTupleBufferCache(bs.getTupleBufferCache());
@@ -150,5 +150,7 @@ public class RuntimePlugin {
         TEIID40140,
         TEIID40141, 
         TEIID40142,
+        TEIID40143,
+        TEIID40144,
     }
 }
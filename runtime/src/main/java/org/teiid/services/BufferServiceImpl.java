@@ -69,6 +69,8 @@ public class BufferServiceImpl implements BufferService, Serializable {
     private long memoryBufferSpace = -1;
     private int maxStorageObjectSize = BufferFrontedFileStoreCache.DEFAuLT_MAX_OBJECT_SIZE;
     private boolean memoryBufferOffHeap;
+    private long maxRequestBufferKb = -1;
+    private long maxSessionBufferKb = -1;
 	private FileStorageManager fsm;
 	private BufferFrontedFileStoreCache fsc;
 	private int workingMaxReserveKb;
@@ -90,6 +92,12 @@ public class BufferServiceImpl implements BufferService, Serializable {
             this.bufferMgr.setMaxReserveKB(this.maxReserveKb);
             this.bufferMgr.setMaxProcessingKB(this.maxProcessingKb);
             this.bufferMgr.setInlineLobs(inlineLobs);
+            if (this.maxRequestBufferKb >= 0) {
+            	this.bufferMgr.setMaxRequestBufferSizeEstimate(this.maxRequestBufferKb<<10);
+            }
+            if (this.maxSessionBufferKb >= 0) {
+            	this.bufferMgr.setMaxSessionBufferSizeEstimate(this.maxSessionBufferKb<<10);
+            }
             this.bufferMgr.initialize();
             
             // If necessary, add disk storage manager
@@ -227,6 +235,30 @@ public class BufferServiceImpl implements BufferService, Serializable {
 		this.maxReserveKb = maxReserveKb;
 	}
     
+    public long getMaxRequestBufferKb() {
+		return maxRequestBufferKb;
+	}
+    
+    /**
+     * Set the limit on the estimated size of the batches held by a single request
+     * @param maxRequestBufferKb -1 for the default
+     */
+    public void setMaxRequestBufferKb(long maxRequestBufferKb) {
+		this.maxRequestBufferKb = maxRequestBufferKb;
+	}
+    
+    public long getMaxSessionBufferKb() {
+		return maxSessionBufferKb;
+	}
+    
+    /**
+     * Set the limit on the estimated size of the batches held by all requests of a session
+     * @param maxSessionBufferKb -1 for the default
+     */
+    public void setMaxSessionBufferKb(long maxSessionBufferKb) {
+		this.maxSessionBufferKb = maxSessionBufferKb;
+	}
+    
 	public long getMaxBufferSpace() {
 		return maxBufferSpace;
 	}
@@ -22,9 +22,7 @@
  */
 package org.teiid.transport;
 
-import java.io.BufferedOutputStream;
 import java.io.ObjectOutputStream;
-import java.io.OutputStream;
 import java.io.StreamCorruptedException;
 import java.util.List;
 
@@ -79,7 +77,6 @@ public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
     
     private Object result;
     private int streamIndex;
-    private OutputStream stream;
     private List<StreamFactoryReference> streams;
     private StorageManager storageManager;
     private FileStore store;
@@ -128,15 +125,13 @@ public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
 	        }
 	        buffer.skipBytes(2);
 	        
-	        if (stream == null) {
+	        if (store == null) {
 	        	store = storageManager.createFileStore("temp-stream"); //$NON-NLS-1$
 		        StreamFactoryReference sfr = streams.get(streamIndex);
 		        sfr.setStreamFactory(new FileStoreInputStreamFactory(store, Streamable.ENCODING));
-		        this.stream = new BufferedOutputStream(store.createOutputStream());
 	        }
 	        if (dataLen == 0) {
-	        	stream.close();
-	        	stream = null;
+	        	store = null;
 	        	streamIndex++;
 		        continue;
 	        }
@@ -147,7 +142,15 @@ public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
 	        	}
 	        }
 	        if (error == null) {
-	        	buffer.readBytes(this.stream, dataLen);
+	        	if (buffer.hasArray()) {
+	        		//write directly from the frame buffer
+	        		store.write(buffer.array(), buffer.arrayOffset() + buffer.readerIndex(), dataLen);
+	        		buffer.skipBytes(dataLen);
+	        	} else {
+	        		byte[] bytes = new byte[dataLen];
+	        		buffer.readBytes(bytes);
+	        		store.write(bytes, 0, dataLen);
+	        	}
 	        } else {
 	        	buffer.skipBytes(dataLen);
 	        }
@@ -155,7 +158,6 @@ public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
         Object toReturn = result;
         result = null;
         streams = null;
-        stream = null;
         store = null;
         if (error != null) {
         	StreamCorruptedException sce = error;
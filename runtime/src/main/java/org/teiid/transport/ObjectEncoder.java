@@ -25,11 +25,11 @@ package org.teiid.transport;
 import static org.jboss.netty.buffer.ChannelBuffers.*;
 import static org.jboss.netty.channel.Channels.*;
 
-import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferFactory;
 import org.jboss.netty.buffer.ChannelBufferOutputStream;
 import org.jboss.netty.channel.ChannelDownstreamHandler;
 import org.jboss.netty.channel.ChannelEvent;
@@ -38,7 +38,6 @@ import org.jboss.netty.channel.ChannelPipelineCoverage;
 import org.jboss.netty.channel.Channels;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.handler.stream.ChunkedInput;
-import org.jboss.netty.handler.stream.ChunkedStream;
 import org.teiid.core.util.ExternalizeUtil;
 import org.teiid.netty.handler.codec.serialization.CompactObjectOutputStream;
 import org.teiid.netty.handler.codec.serialization.ObjectDecoderInputStream;
@@ -139,28 +138,73 @@ public class ObjectEncoder implements ChannelDownstreamHandler {
         encoded.setInt(0, encoded.writerIndex() - 4);
         write(ctx, e.getFuture(), encoded, e.getRemoteAddress());
 		for (InputStream is : oout.getStreams()) {
-			Channels.write(ctx.getChannel(), new AnonymousChunkedStream(new BufferedInputStream(is, CHUNK_SIZE)));
+			Channels.write(ctx.getChannel(), new AnonymousChunkedStream(is, ctx.getChannel().getConfig().getBufferFactory()));
 		}
     }
     
-    static class AnonymousChunkedStream extends ChunkedStream {
+    /**
+     * Writes the stream as length prefixed chunks followed by a 0 length.
+     * <br>
+     * Each chunk, including the prefix and terminator, is read from the stream directly 
+     * into a single buffer from the channel's factory so that there is no intermediate copy.
+     */
+    static class AnonymousChunkedStream implements ChunkedInput {
+    	
+    	private InputStream in;
+    	private ChannelBufferFactory factory;
+    	private int next = -1;
+    	private boolean done;
 
-		public AnonymousChunkedStream(InputStream in) {
-			super(in, CHUNK_SIZE);
+		public AnonymousChunkedStream(InputStream in, ChannelBufferFactory factory) {
+			this.in = in;
+			this.factory = factory;
+		}
+		
+		@Override
+		public boolean hasNextChunk() throws Exception {
+			return !done;
+		}
+		
+		@Override
+		public boolean isEndOfInput() throws Exception {
+			return done;
 		}
     	
 		@Override
 		public Object nextChunk() throws Exception {
-			ChannelBuffer cb = (ChannelBuffer)super.nextChunk();
-			int length = cb.capacity();
-			ChannelBuffer prefix = wrappedBuffer(new byte[2]);
-			prefix.setShort(0, (short)length);
-			if (!hasNextChunk()) {
-				//append a 0 short
-				return wrappedBuffer(prefix, cb, wrappedBuffer(new byte[2]));
+			if (done) {
+				return null;
 			}
-			
-			return wrappedBuffer(prefix, cb);
+			ChannelBuffer chunk = factory.getBuffer(CHUNK_SIZE + 4);
+			chunk.writeShort(0); //length placeholder
+			if (next != -1) {
+				chunk.writeByte(next);
+			}
+			while (chunk.writerIndex() < CHUNK_SIZE + 2) {
+				if (chunk.writeBytes(in, CHUNK_SIZE + 2 - chunk.writerIndex()) == -1) {
+					done = true;
+					break;
+				}
+			}
+			if (!done) {
+				next = in.read();
+				done = next == -1;
+			}
+			int length = chunk.writerIndex() - 2;
+			if (length == 0) {
+				//just the 0 short terminator
+				return chunk;
+			}
+			chunk.setShort(0, length);
+			if (done) {
+				chunk.writeShort(0);
+			}
+			return chunk;
+		}
+		
+		@Override
+		public void close() throws Exception {
+			in.close();
 		}
 		
     }
@@ -22,6 +22,7 @@
 
 import static org.teiid.odbc.PGUtil.*;
 
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
@@ -29,14 +30,22 @@ import java.io.StreamCorruptedException;
 import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
 import java.sql.Array;
 import java.sql.Blob;
+import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.TimeZone;
 
 import javax.net.ssl.SSLEngine;
 
@@ -96,15 +105,18 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	
 	private final class ResultsWorkItem implements Runnable {
 		private final List<PgColInfo> cols;
+		private final boolean[] binary;
 		private final ResultSetImpl rs;
 		private final ResultsFuture<Integer> result;
 		private int rows2Send;
 		private int rowsSent = 0;
 		private int rowsInBuffer = 0;
 		String sql;
+		boolean copy;
 
-		private ResultsWorkItem(List<PgColInfo> cols, ResultSetImpl rs, ResultsFuture<Integer> result, int rows2Send) {
+		private ResultsWorkItem(List<PgColInfo> cols, boolean[] binary, ResultSetImpl rs, ResultsFuture<Integer> result, int rows2Send) {
 			this.cols = cols;
+			this.binary = binary;
 			this.rs = rs;
 			this.result = result;
 			this.rows2Send = rows2Send;
@@ -145,12 +157,15 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 			boolean processNext = true;
 			try {
     			if (future.get()) {
-    				sendDataRow(rs, cols);
+    				if (copy) {
+    					sendCopyRow(rs, cols, binary != null);
+    				} else {
+    					sendDataRow(rs, cols, binary);
+    				}
     				rowsSent++;
     				rowsInBuffer++;
     				boolean done = rowsSent == rows2Send;
-    				flushResults(done);
-    				processNext = !done;
+    				processNext = flushResults(done) && !done;
     				if (done) {
     					if (sql != null) {
     						sendCommandComplete(sql, rowsSent);
@@ -158,6 +173,9 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
     					result.getResultsReceiver().receiveResults(rowsSent);
     				}
     			} else {
+    				if (copy) {
+    					endCopyData();
+    				}
     				sendContents();
     				if (sql != null) {
 		    			sendCommandComplete(sql, rowsSent);
@@ -172,16 +190,65 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 			return processNext;
 		}
 		
-		private void flushResults(boolean force) {
+		/**
+		 * @return false if the results should be resumed after the pending write
+		 */
+		private boolean flushResults(boolean force) {
 			int avgRowsize = dataOut.writerIndex()/rowsInBuffer;
 			if (force || (maxBufferSize - dataOut.writerIndex()) < (avgRowsize*2)) {
-				sendContents();
+				if (!copy) {
+					sendContents();
+					initBuffer(maxBufferSize / 8);
+					rowsInBuffer = 0;
+					return true;
+				}
+				//bulk copies wait for the client to catch up rather than buffering everything in memory
+				boolean writable = ctx.getChannel().isWritable();
+				ChannelFuture written = writable?message.getFuture():Channels.future(ctx.getChannel());
+				sendContents(written);
 				initBuffer(maxBufferSize / 8);
 				rowsInBuffer = 0;
-			}			
+				if (writable || written.isDone()) {
+					return true;
+				}
+				written.addListener(new ChannelFutureListener() {
+					@Override
+					public void operationComplete(ChannelFuture future)
+							throws Exception {
+						if (future.isSuccess()) {
+							ResultsWorkItem.this.run();
+						} else {
+							result.getResultsReceiver().exceptionOccurred(future.getCause());
+						}
+					}
+				});
+				return false;
+			}
+			return true;
+		}
+		
+		/**
+		 * Add the binary trailer and CopyDone
+		 */
+		private void endCopyData() {
+			if (binary != null) {
+				int start = dataOut.writerIndex();
+				startMessage('d', -1);
+				writeShort(-1);
+				dataOut.setInt(start + 1, dataOut.writerIndex() - start - 1);
+			}
+			int start = dataOut.writerIndex();
+			startMessage('c', -1);
+			dataOut.setInt(start + 1, 4);
 		}
 	}
 
+	private static final long MILLIS_PER_DAY = 86400000;
+	private static final long PG_EPOCH_DAYS = 10957; //days from 1970-01-01 to 2000-01-01
+	private static final int NUMERIC_POS = 0x0000;
+	private static final int NUMERIC_NEG = 0x4000;
+	private static final byte[] BINARY_COPY_SIGNATURE = new byte[] {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xff, '\r', '\n', 0};
+	
 	public static final String DEFAULT_ENCODING = "UTF8";
 	public static final String CLIENT_ENCODING = "client_encoding";
 
@@ -199,6 +266,12 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	private boolean requireSecure;
     
 	private volatile ResultsFuture<Boolean> nextFuture;
+	
+	/**
+	 * Messages that the client will not act upon until a later message is 
+	 * received, which are held to be written together with the next message
+	 */
+	private List<ChannelBuffer> deferred = new ArrayList<ChannelBuffer>();
 
 	private SSLConfiguration config;
 
@@ -345,29 +418,163 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		for (int i = 0; i < paramType.length; i++) {
 			writeInt(paramType[i]);
 		}
-		sendMessage();
+		deferMessage();
 	}
 
 	@Override
-	public void sendResultSetDescription(List<PgColInfo> cols) {
-		sendRowDescription(cols);
+	public void sendResultSetDescription(List<PgColInfo> cols, int[] resultColumnFormat) {
+		sendRowDescription(cols, getBinaryColumns(cols, resultColumnFormat));
 	}
 	
 	@Override
-	public void sendResults(String sql, ResultSetImpl rs, List<PgColInfo> cols,
+	public void sendResults(String sql, ResultSetImpl rs, List<PgColInfo> cols, int[] resultColumnFormat,
 			ResultsFuture<Integer> result, int rowCount, boolean describeRows) {
 		if (nextFuture != null) {
 			sendErrorResponse(new IllegalStateException("Pending results have not been sent")); //$NON-NLS-1$
 		}
     	
+		boolean[] binary = getBinaryColumns(cols, resultColumnFormat);
     	if (describeRows) {
-    		sendRowDescription(cols);
+    		sendRowDescription(cols, binary);
     	}
-    	ResultsWorkItem r = new ResultsWorkItem(cols, rs, result, rowCount);
+    	ResultsWorkItem r = new ResultsWorkItem(cols, binary, rs, result, rowCount);
     	r.sql = sql;
     	r.run();    
 	}
 
+	@Override
+	public void sendCopyOut(ResultSetImpl rs, List<PgColInfo> cols, boolean binary,
+			ResultsFuture<Integer> result) {
+		if (nextFuture != null) {
+			sendErrorResponse(new IllegalStateException("Pending results have not been sent")); //$NON-NLS-1$
+		}
+		if (binary) {
+			for (PgColInfo info : cols) {
+				if (!hasBinaryFormat(info.type)) {
+					result.getResultsReceiver().exceptionOccurred(new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40144, info.name)));
+					return;
+				}
+			}
+		}
+		startMessage('H');
+		write(binary?1:0);
+		writeShort(cols.size());
+		for (int i = 0; i < cols.size(); i++) {
+			writeShort(binary?1:0);
+		}
+		deferMessage();
+		boolean[] binaryCols = null;
+		if (binary) {
+			binaryCols = new boolean[cols.size()];
+			Arrays.fill(binaryCols, true);
+			startMessage('d');
+			write(BINARY_COPY_SIGNATURE);
+			writeInt(0); //flags
+			writeInt(0); //header extension length
+			deferMessage();
+		}
+		ResultsWorkItem r = new ResultsWorkItem(cols, binaryCols, rs, result, -1);
+		r.sql = "COPY"; //$NON-NLS-1$
+		r.copy = true;
+		r.run();
+	}
+	
+	/**
+	 * Write a CopyData message for a row in the COPY text or binary format.  Text values 
+	 * are tab delimited with backslash escaping and \N for null.
+	 */
+	private void sendCopyRow(ResultSet rs, List<PgColInfo> cols, boolean binary) throws SQLException, IOException {
+		startMessage('d', -1);
+		int lengthIndex = this.dataOut.writerIndex() - 4;
+		if (binary) {
+			writeShort(cols.size());
+			for (int i = 0; i < cols.size(); i++) {
+				int dataBytesIndex = this.dataOut.writerIndex();
+				writeInt(-1);
+				getBinaryContent(rs, cols.get(i), i+1);
+				if (!rs.wasNull()) {
+					this.dataOut.setInt(dataBytesIndex, this.dataOut.writerIndex() - dataBytesIndex - 4);
+				}
+			}
+		} else {
+			//escape the chars rather than the encoded bytes, which may not be ascii compatible
+			Writer w = this.writer;
+			this.writer = new CopyTextWriter(w);
+			try {
+				for (int i = 0; i < cols.size(); i++) {
+					if (i > 0) {
+						write('\t');
+					}
+					getContent(rs, cols.get(i), i+1);
+					writer.flush();
+					if (rs.wasNull()) {
+						write('\\');
+						write('N');
+					}
+				}
+			} finally {
+				this.writer = w;
+			}
+			write('\n');
+		}
+		this.dataOut.setInt(lengthIndex, this.dataOut.writerIndex() - lengthIndex);
+	}
+	
+	/**
+	 * Escapes backslash, tab, and newline chars for the COPY text format
+	 */
+	private static final class CopyTextWriter extends FilterWriter {
+		
+		CopyTextWriter(Writer out) {
+			super(out);
+		}
+		
+		@Override
+		public void write(int c) throws IOException {
+			String escaped = escape((char)c);
+			if (escaped != null) {
+				out.write(escaped);
+			} else {
+				out.write(c);
+			}
+		}
+		
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			write(new String(cbuf, off, len), 0, len);
+		}
+		
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			int start = off;
+			int end = off + len;
+			for (int i = off; i < end; i++) {
+				String escaped = escape(str.charAt(i));
+				if (escaped == null) {
+					continue;
+				}
+				out.write(str, start, i - start);
+				out.write(escaped);
+				start = i + 1;
+			}
+			out.write(str, start, end - start);
+		}
+		
+		private static String escape(char c) {
+			switch (c) {
+			case '\\':
+				return "\\\\"; //$NON-NLS-1$
+			case '\t':
+				return "\\t"; //$NON-NLS-1$
+			case '\n':
+				return "\\n"; //$NON-NLS-1$
+			case '\r':
+				return "\\r"; //$NON-NLS-1$
+			}
+			return null;
+		}
+	}
+
 	@Override
 	public void sendUpdateCount(String sql, int updateCount) {
 		sendCommandComplete(sql, updateCount);
@@ -376,7 +583,7 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	@Override
 	public void statementClosed() {
 		startMessage('3');
-		sendMessage();
+		deferMessage();
 	}
 
 	@Override
@@ -390,6 +597,12 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	public void flush() {
 		this.dataOut = null;
 		this.writer = null;
+		if (!this.deferred.isEmpty()) {
+			ChannelBuffer cb = ChannelBuffers.wrappedBuffer(this.deferred.toArray(new ChannelBuffer[this.deferred.size()]));
+			this.deferred.clear();
+			Channels.write(this.ctx.getChannel(), cb);
+			return;
+		}
 		Channels.write(this.ctx.getChannel(), null);
 	}
 
@@ -435,15 +648,19 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		sendMessage();
 	}
 
-	private void sendDataRow(ResultSet rs, List<PgColInfo> cols) throws SQLException, IOException {
+	private void sendDataRow(ResultSet rs, List<PgColInfo> cols, boolean[] binary) throws SQLException, IOException {
 		startMessage('D', -1);
 		int lengthIndex = this.dataOut.writerIndex() - 4;
 		writeShort(cols.size());
 		for (int i = 0; i < cols.size(); i++) {
 			int dataBytesIndex = this.dataOut.writerIndex();
 			writeInt(-1);
-			getContent(rs, cols.get(i), i+1);
-			writer.flush();
+			if (binary != null && binary[i]) {
+				getBinaryContent(rs, cols.get(i), i+1);
+			} else {
+				getContent(rs, cols.get(i), i+1);
+				writer.flush();
+			}
 			if (!rs.wasNull()) {
 				int bytes = this.dataOut.writerIndex() - dataBytesIndex - 4;
 				this.dataOut.setInt(dataBytesIndex, bytes);
@@ -554,6 +771,187 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		}
 	}
 	
+	/**
+	 * Determine the columns to send in binary format.  Types without a binary
+	 * encoding are sent as text, which is reflected in the RowDescription.
+	 */
+	static boolean[] getBinaryColumns(List<PgColInfo> cols, int[] resultColumnFormat) {
+		if (cols == null || resultColumnFormat == null || resultColumnFormat.length == 0) {
+			return null;
+		}
+		boolean[] result = new boolean[cols.size()];
+		boolean any = false;
+		for (int i = 0; i < result.length; i++) {
+			//a single format applies to all columns
+			int format = resultColumnFormat[resultColumnFormat.length == 1?0:Math.min(i, resultColumnFormat.length - 1)];
+			if (format == 1 && hasBinaryFormat(cols.get(i).type)) {
+				result[i] = true;
+				any = true;
+			}
+		}
+		return any?result:null;
+	}
+	
+	static boolean hasBinaryFormat(int type) {
+		switch (type) {
+		case PG_TYPE_BOOL:
+		case PG_TYPE_BYTEA:
+		case PG_TYPE_INT2:
+		case PG_TYPE_INT4:
+		case PG_TYPE_INT8:
+		case PG_TYPE_FLOAT4:
+		case PG_TYPE_FLOAT8:
+		case PG_TYPE_NUMERIC:
+		case PG_TYPE_DATE:
+		case PG_TYPE_TIME:
+		case PG_TYPE_TIMESTAMP_NO_TMZONE:
+		case PG_TYPE_VARCHAR:
+		case PG_TYPE_BPCHAR:
+		case PG_TYPE_TEXT:
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Write the binary format of the value.  Date/time values are relative to 2000-01-01 
+	 * and use floating point seconds since integer_datetimes is reported as off.
+	 */
+	private void getBinaryContent(ResultSet rs, PgColInfo col, int column) throws SQLException, TeiidSQLException, IOException {
+		switch (col.type) {
+		case PG_TYPE_BOOL:
+			boolean b = rs.getBoolean(column);
+			if (!rs.wasNull()) {
+				write(b?1:0);
+			}
+			break;
+		case PG_TYPE_INT2:
+			short s = rs.getShort(column);
+			if (!rs.wasNull()) {
+				writeShort(s);
+			}
+			break;
+		case PG_TYPE_INT4:
+			int i = rs.getInt(column);
+			if (!rs.wasNull()) {
+				writeInt(i);
+			}
+			break;
+		case PG_TYPE_INT8:
+			long l = rs.getLong(column);
+			if (!rs.wasNull()) {
+				dataOut.writeLong(l);
+			}
+			break;
+		case PG_TYPE_FLOAT4:
+			float f = rs.getFloat(column);
+			if (!rs.wasNull()) {
+				writeInt(Float.floatToIntBits(f));
+			}
+			break;
+		case PG_TYPE_FLOAT8:
+			double d = rs.getDouble(column);
+			if (!rs.wasNull()) {
+				dataOut.writeLong(Double.doubleToLongBits(d));
+			}
+			break;
+		case PG_TYPE_NUMERIC:
+			BigDecimal bd = rs.getBigDecimal(column);
+			if (bd != null) {
+				writeNumeric(bd);
+			}
+			break;
+		case PG_TYPE_DATE:
+			Date date = rs.getDate(column);
+			if (date != null) {
+				writeInt((int)(floorDiv(localMillis(date.getTime()), MILLIS_PER_DAY) - PG_EPOCH_DAYS));
+			}
+			break;
+		case PG_TYPE_TIME:
+			Time time = rs.getTime(column);
+			if (time != null) {
+				long millis = localMillis(time.getTime());
+				millis -= floorDiv(millis, MILLIS_PER_DAY) * MILLIS_PER_DAY;
+				dataOut.writeLong(Double.doubleToLongBits(millis / 1000d));
+			}
+			break;
+		case PG_TYPE_TIMESTAMP_NO_TMZONE:
+			Timestamp ts = rs.getTimestamp(column);
+			if (ts != null) {
+				long seconds = floorDiv(localMillis(ts.getTime()), 1000) - PG_EPOCH_DAYS * 86400;
+				dataOut.writeLong(Double.doubleToLongBits(seconds + ts.getNanos() / 1000000000d));
+			}
+			break;
+		case PG_TYPE_BYTEA:
+	    	Blob blob = rs.getBlob(column);
+	    	if (blob != null) {
+	    		try {
+		    		write(ObjectConverterUtil.convertToByteArray(blob.getBinaryStream(), this.maxLobSize));
+	    		} catch(OutOfMemoryError e) {
+	    			throw new StreamCorruptedException("data too big: " + e.getMessage()); //$NON-NLS-1$ 
+	    		}
+	    	}
+	    	break;
+		default:
+			//the binary form of character types is the same as the text form
+			getContent(rs, col, column);
+			writer.flush();
+		}
+	}
+	
+	private static long localMillis(long millis) {
+		return millis + TimeZone.getDefault().getOffset(millis);
+	}
+	
+	private static long floorDiv(long x, long y) {
+		long r = x / y;
+		if ((x % y != 0) && ((x ^ y) < 0)) {
+			r--;
+		}
+		return r;
+	}
+	
+	/**
+	 * Write the pg numeric binary form - base 10000 digits with a base 10000 weight
+	 */
+	private void writeNumeric(BigDecimal value) {
+		int sign = value.signum() < 0 ? NUMERIC_NEG : NUMERIC_POS;
+		int dscale = Math.max(0, value.scale());
+		BigInteger unscaled = value.unscaledValue().abs();
+		int scale = value.scale();
+		if (scale < 0) {
+			unscaled = unscaled.multiply(BigInteger.TEN.pow(-scale));
+			scale = 0;
+		}
+		//align the fractional digits to base 10000
+		int pad = (4 - scale % 4) % 4;
+		unscaled = unscaled.multiply(BigInteger.TEN.pow(pad));
+		int fractionalGroups = (scale + pad) / 4;
+		List<Integer> digits = new ArrayList<Integer>(); //least significant first
+		BigInteger base = BigInteger.valueOf(10000);
+		while (unscaled.signum() != 0) {
+			BigInteger[] qr = unscaled.divideAndRemainder(base);
+			digits.add(qr[1].intValue());
+			unscaled = qr[0];
+		}
+		int weight = digits.size() - fractionalGroups - 1;
+		int start = 0;
+		while (start < digits.size() && digits.get(start) == 0) {
+			start++;
+		}
+		int ndigits = digits.size() - start;
+		if (ndigits == 0) {
+			weight = 0;
+		}
+		writeShort(ndigits);
+		writeShort(weight);
+		writeShort(sign);
+		writeShort(dscale);
+		for (int i = digits.size() - 1; i >= start; i--) {
+			writeShort(digits.get(i));
+		}
+	}
+	
 	public static void escapeQuote(Writer sb, String s) throws IOException {
 		sb.append('"');
 		for (int i = 0; i < s.length(); i++) {
@@ -617,16 +1015,17 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		sendMessage();
 	}
 	
-	private void sendRowDescription(List<PgColInfo> cols) {
+	private void sendRowDescription(List<PgColInfo> cols, boolean[] binary) {
 		if (cols == null) {
 			//send NoData
 			startMessage('n');
-			sendMessage();
+			deferMessage();
 			return;
 		}
 		startMessage('T');
 		writeShort(cols.size());
-		for (PgColInfo info : cols) {
+		for (int i = 0; i < cols.size(); i++) {
+			PgColInfo info = cols.get(i);
 			writeString(info.name);
 			// rel ID
 			writeInt(info.reloid);
@@ -638,10 +1037,10 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 			writeShort(getTypeSize(info.type, info.precision));
 			// pg_attribute.atttypmod
 			writeInt(info.mod);
-			// text
-			writeShort(0);
+			// text or binary
+			writeShort(binary != null && binary[i]?1:0);
 		}
-		sendMessage();
+		deferMessage();
 	}
 
 	private int getTypeSize(int pgType, int precision) {
@@ -669,12 +1068,12 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	
 	private void sendParseComplete() {
 		startMessage('1');
-		sendMessage();
+		deferMessage();
 	}
 
 	private void sendBindComplete() {
 		startMessage('2');
-		sendMessage();
+		deferMessage();
 	}
 	
 	@Override
@@ -705,7 +1104,7 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	private void sendAuthenticationOk() {
 		startMessage('R');
 		writeInt(0);
-		sendMessage();
+		deferMessage();
 	}
 
 	private void sendReadyForQuery(boolean inTransaction, boolean failedTransaction) {
@@ -732,14 +1131,14 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		startMessage('K');
 		writeInt(processId);
 		writeInt(screctKey);
-		sendMessage();
+		deferMessage();
 	}
 
 	private void sendParameterStatus(String param, String value) {
 		startMessage('S');
 		writeString(param);
 		writeString(value);
-		sendMessage();
+		deferMessage();
 	}
 	
 	@Override
@@ -805,16 +1204,41 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	}
 
 	private void sendMessage() {
+		setMessageLength();
+		sendContents();
+	}
+
+	private void setMessageLength() {
 		int pos = this.dataOut.writerIndex();
 		this.dataOut.setInt(1, pos - 1);
-		sendContents();
+	}
+	
+	/**
+	 * Hold the message to be sent with the next message.  Should only be used 
+	 * with messages that the client will always follow with a Sync, Flush, 
+	 * or other message requiring a response.
+	 */
+	private void deferMessage() {
+		setMessageLength();
+		this.deferred.add(this.dataOut);
+		this.dataOut = null;
+		this.writer = null;
 	}
 	
 	private void sendContents() {
+		sendContents(this.message.getFuture());
+	}
+	
+	private void sendContents(ChannelFuture future) {
 		ChannelBuffer cb = this.dataOut;
 		this.dataOut = null;
 		this.writer = null;
-		Channels.write(this.ctx, this.message.getFuture(), cb, this.message.getRemoteAddress());
+		if (!this.deferred.isEmpty()) {
+			this.deferred.add(cb);
+			cb = ChannelBuffers.wrappedBuffer(this.deferred.toArray(new ChannelBuffer[this.deferred.size()]));
+			this.deferred.clear();
+		}
+		Channels.write(this.ctx, future, cb, this.message.getRemoteAddress());
 	}
 
 	private static void trace(String... msg) {
@@ -36,6 +36,7 @@ import org.teiid.client.util.ResultsFuture;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.crypto.CryptoException;
+import org.teiid.dqp.internal.process.DQPWorkContext;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.logging.MessageLevel;
@@ -52,6 +53,7 @@ public class ServerWorkItem implements Runnable {
 	private final Serializable messageKey;
     private final Message message;
     private final ClientServiceRegistryImpl csr;
+    private DQPWorkContext workContext;
     
     public ServerWorkItem(ClientInstance socketClientInstance, Serializable messageKey, Message message, ClientServiceRegistryImpl server) {
 		this.socketClientInstance = socketClientInstance;
@@ -67,6 +69,7 @@ public class ServerWorkItem implements Runnable {
 		Message result = null;
 		String loggingContext = null;
 		final boolean encrypt = !(message.getContents() instanceof ServiceInvocationStruct);
+		this.workContext = DQPWorkContext.getWorkContext();
 		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
         try {
         	try {
@@ -147,7 +150,7 @@ public class ServerWorkItem implements Runnable {
 		} else if (e instanceof AdminProcessingException) {
 			logProcessingException(e, context);
 		} else {
-			LogManager.logError(context, e, RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40017, this.socketClientInstance.getWorkContext().getSessionId()));
+			LogManager.logError(context, e, RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40017, this.workContext.getSessionId()));
 		}
 
 		return new ExceptionHolder(e);
@@ -159,7 +162,7 @@ public class ServerWorkItem implements Runnable {
 			cause = cause.getCause();
 		}
 		StackTraceElement elem = cause.getStackTrace()[0];
-		String msg = RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40011, e.getMessage(), this.socketClientInstance.getWorkContext().getSessionId(), e.getClass().getName(), elem);
+		String msg = RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40011, e.getMessage(), this.workContext.getSessionId(), e.getClass().getName(), elem);
 		if (LogManager.isMessageToBeRecorded(context, MessageLevel.DETAIL)) {
 			LogManager.logWarning(context, e, msg);
 		} else {
@@ -28,6 +28,8 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.nio.channels.ClosedChannelException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.teiid.client.security.ILogon;
 import org.teiid.client.util.ExceptionHolder;
@@ -43,6 +45,7 @@ import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.logging.MessageLevel;
 import org.teiid.net.CommunicationException;
+import org.teiid.net.socket.ChannelMessageKey;
 import org.teiid.net.socket.Handshake;
 import org.teiid.net.socket.Message;
 import org.teiid.net.socket.ObjectChannel;
@@ -66,6 +69,8 @@ public class SocketClientInstance implements ChannelListener, ClientInstance {
     private boolean usingEncryption; 
     private DhKeyGenerator keyGen;
     private DQPWorkContext workContext = new DQPWorkContext();
+    //contexts for additional logical connections sharing this socket
+    private Map<Integer, DQPWorkContext> channelContexts = new ConcurrentHashMap<Integer, DQPWorkContext>();
         
     public SocketClientInstance(ObjectChannel objectSocket, ClientServiceRegistryImpl csr, boolean isClientEncryptionEnabled) {
         this.objectSocket = objectSocket;
@@ -168,8 +173,16 @@ public class SocketClientInstance implements ChannelListener, ClientInstance {
 	
 	@Override
 	public void disconnected() {
-		if (workContext.getSessionId() != null) {
-			workContext.runInContext(new Runnable() {
+		logoff(workContext);
+		for (DQPWorkContext channelContext : channelContexts.values()) {
+			logoff(channelContext);
+		}
+		channelContexts.clear();
+	}
+
+	private void logoff(DQPWorkContext context) {
+		if (context.getSessionId() != null) {
+			context.runInContext(new Runnable() {
 				@Override
 				public void run() {
 					try {
@@ -219,8 +232,34 @@ public class SocketClientInstance implements ChannelListener, ClientInstance {
 		if (this.workContext.getSecurityHelper() != null) {
 			this.workContext.getSecurityHelper().clearSecurityContext();
 		}
+		DQPWorkContext context = getWorkContext(packet.getMessageKey());
 		final ServerWorkItem work = new ServerWorkItem(this, packet.getMessageKey(), packet, this.csr);
-		this.workContext.runInContext(work);
+		context.runInContext(work);
+	}
+	
+	/**
+	 * Get the context for the logical connection that sent the message.  
+	 * Channel 0 and unqualified keys use the socket context.
+	 */
+	private DQPWorkContext getWorkContext(Serializable messageKey) {
+		if (!(messageKey instanceof ChannelMessageKey)) {
+			return this.workContext;
+		}
+		int channel = ((ChannelMessageKey)messageKey).getChannel();
+		if (channel == 0) {
+			return this.workContext;
+		}
+		DQPWorkContext context = channelContexts.get(channel);
+		if (context == null) {
+			context = new DQPWorkContext();
+			context.setSecurityHelper(this.workContext.getSecurityHelper());
+			context.setClientAddress(this.workContext.getClientAddress());
+			context.setClientHostname(this.workContext.getClientHostname());
+			context.setClientVersion(this.workContext.getClientVersion());
+			//messages from a socket are processed serially, so there is no race to create the context
+			channelContexts.put(channel, context);
+		}
+		return context;
 	}
 
 	public void shutdown() throws CommunicationException {
@@ -322,6 +322,41 @@ public class TestCommSockets {
 		conn2.close();
 	}
 	
+	@Test public void testSharedSocket() throws Exception {
+		Properties p = new Properties();
+		p.setProperty("org.teiid.sockets.maxConnectionsPerSocket", "2");
+		SocketServerConnection conn = helpEstablishConnection(false, new SSLConfiguration(), p);
+		SocketServerConnection conn2 = helpEstablishConnection(false, new SSLConfiguration(), p);
+		SocketListenerStats stats = listener.getStats();
+		assertEquals(1, stats.sockets);
+		assertEquals(2, this.service.getActiveSessionsCount());
+		assertTrue(conn.isOpen(1000));
+		assertTrue(conn2.isOpen(1000));
+		FakeService fs = conn2.getService(FakeService.class);
+		assertEquals("hello world", ObjectConverterUtil.convertToString(fs.getReader()));
+
+		//over the limit
+		SocketServerConnection conn3 = helpEstablishConnection(false, new SSLConfiguration(), p);
+		stats = listener.getStats();
+		assertEquals(2, stats.sockets);
+
+		conn2.close();
+		assertEquals(2, this.service.getActiveSessionsCount());
+		assertTrue(conn.isOpen(1000));
+		conn.close();
+		conn3.close();
+		assertEquals(0, this.service.getActiveSessionsCount());
+		//the sockets are closed with their last channel
+		stats = listener.getStats();
+		if (stats.sockets > 0) {
+			// there is a timing issue here, since the effect of shutdown on the
+			// server side can be delayed
+			Thread.sleep(500);
+		}
+		stats = listener.getStats();
+		assertEquals(0, stats.sockets);
+	}
+
 	@Test public void testEnableCipherSuites() throws Exception {
 		SSLConfiguration config = new SSLConfiguration();
 		config.setEnabledCipherSuites("x,y,z");
@@ -316,6 +316,84 @@ public class TestMatViews {
 		assertEquals("base", rs.getString(1));
 	}
 	
+	@Test public void testDeltaRefresh() throws Exception {
+		ModelMetaData mmd2 = new ModelMetaData();
+		mmd2.setName("view1");
+		mmd2.setModelType(Type.PHYSICAL);
+		mmd2.setSchemaSourceType("DDL");
+		mmd2.setSchemaText("create foreign table x (col integer, col1 string); CREATE VIEW v1 ( col integer primary key, col1 string ) OPTIONS (MATERIALIZED true, "
+				+ "\"teiid_rel:MATVIEW_DELTA_QUERY\" 'select 2, ''c'', false union all select 1, null, true') AS select col, col1 from x");
+		mmd2.addSourceMapping("a", "a", null);
+		HardCodedExecutionFactory hcef = new HardCodedExecutionFactory();
+		hcef.addData("SELECT x.col, x.col1 FROM x", Arrays.asList(Arrays.asList(1, "a"), Arrays.asList(2, "b")));
+		server.addTranslator("a", hcef);
+		server.deployVDB("delta", mmd2);
+		
+		Connection c = server.getDriver().connect("jdbc:teiid:delta", null);
+		Statement s = c.createStatement();
+		ResultSet rs = s.executeQuery("select * from v1 order by col");
+		assertTrue(rs.next());
+		assertEquals("a", rs.getString(2));
+		
+		//only the changed rows are applied
+		rs = s.executeQuery("select * from (call refreshMatView('view1.v1', false)) p");
+		assertTrue(rs.next());
+		assertEquals(2, rs.getInt(1));
+		rs = s.executeQuery("select * from v1 order by col");
+		assertTrue(rs.next());
+		assertEquals(2, rs.getInt(1));
+		assertEquals("c", rs.getString(2));
+		assertFalse(rs.next());
+		
+		//invalidation forces a full load
+		rs = s.executeQuery("select * from (call refreshMatView('view1.v1', true)) p");
+		assertTrue(rs.next());
+		assertEquals(2, rs.getInt(1));
+		rs = s.executeQuery("select col1 from v1 order by col");
+		assertTrue(rs.next());
+		assertEquals("a", rs.getString(1));
+	}
+	
+	@Test public void testDeltaRefreshWithWatermark() throws Exception {
+		ModelMetaData mmd2 = new ModelMetaData();
+		mmd2.setName("view1");
+		mmd2.setModelType(Type.PHYSICAL);
+		mmd2.setSchemaSourceType("DDL");
+		mmd2.setSchemaText("create foreign table x (col integer, col1 string, updated integer); CREATE VIEW v1 ( col integer primary key, col1 string, updated integer ) OPTIONS (MATERIALIZED true, "
+				+ "\"teiid_rel:MATVIEW_DELTA_COLUMN\" 'updated', \"teiid_rel:MATVIEW_DELTA_QUERY\" 'select col, col1, updated from x where updated > ?') AS select col, col1, updated from x");
+		mmd2.addSourceMapping("a", "a", null);
+		HardCodedExecutionFactory hcef = new HardCodedExecutionFactory();
+		hcef.addData("SELECT x.col, x.col1, x.updated FROM x", Arrays.asList(Arrays.asList(1, "a", 1), Arrays.asList(2, "b", 2)));
+		server.addTranslator("a", hcef);
+		server.deployVDB("delta", mmd2);
+		
+		Connection c = server.getDriver().connect("jdbc:teiid:delta", null);
+		Statement s = c.createStatement();
+		ResultSet rs = s.executeQuery("select * from v1 order by col");
+		assertTrue(rs.next());
+		assertEquals("a", rs.getString(2));
+		
+		hcef.addData("SELECT x.col, x.col1, x.updated FROM x", Arrays.asList(Arrays.asList(1, "a", 1), Arrays.asList(2, "b1", 3), Arrays.asList(3, "c", 4)));
+		
+		//the watermark from the full load is bound, so only the rows after it are applied
+		rs = s.executeQuery("select * from (call refreshMatView('view1.v1', false)) p");
+		assertTrue(rs.next());
+		assertEquals(2, rs.getInt(1));
+		rs = s.executeQuery("select col1 from v1 order by col");
+		assertTrue(rs.next());
+		assertEquals("a", rs.getString(1));
+		assertTrue(rs.next());
+		assertEquals("b1", rs.getString(1));
+		assertTrue(rs.next());
+		assertEquals("c", rs.getString(1));
+		assertFalse(rs.next());
+		
+		//the watermark has advanced past the applied rows
+		rs = s.executeQuery("select * from (call refreshMatView('view1.v1', false)) p");
+		assertTrue(rs.next());
+		assertEquals(0, rs.getInt(1));
+	}
+	
 	@Test public void testSessionScoping() throws Exception {
 		Statement s = conn.createStatement();
 		s.execute("alter view test.randomview as /*+ cache(scope:session) */ select rand() as x, rand() as y");
@@ -24,7 +24,12 @@ package org.teiid.transport;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
@@ -51,6 +56,10 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.postgresql.Driver;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.PGStream;
 import org.postgresql.core.v3.ExtendedQueryExectutorImpl;
 import org.teiid.adminapi.Model.Type;
 import org.teiid.adminapi.impl.ModelMetaData;
@@ -609,5 +618,194 @@ public static class AnonSSLSocketFactory extends SSLSocketFactory {
 		assertTrue(s.execute("select * from tables order by name"));
 		conn.setAutoCommit(true);
 	}
+	
+	@Test public void testCopyOut() throws Exception {
+		CopyManager cm = ((PGConnection)conn).getCopyAPI();
+		StringWriter writer = new StringWriter();
+		assertEquals(2, cm.copyOut("COPY (select 'a\\b' as x, cast(null as string), 1 union all select 'c', 'd', 2) TO STDOUT", writer));
+		assertEquals("a\\\\b\t\\N\t1\nc\td\t2\n", writer.toString());
+	}
+	
+	@Test public void testCopyOutBinary() throws Exception {
+		CopyManager cm = ((PGConnection)conn).getCopyAPI();
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		assertEquals(1, cm.copyOut("COPY (select 1) TO STDOUT WITH BINARY", baos));
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		byte[] signature = new byte[11];
+		dis.readFully(signature);
+		assertEquals("PGCOPY", new String(signature, 0, 6, "US-ASCII"));
+		assertEquals(0, dis.readInt());
+		assertEquals(0, dis.readInt());
+		assertEquals(1, dis.readShort());
+		assertEquals(4, dis.readInt());
+		assertEquals(1, dis.readInt());
+		assertEquals(-1, dis.readShort());
+		assertEquals(-1, dis.read());
+	}
+	
+	/**
+	 * Each row should be sent in its own CopyData message
+	 */
+	@Test public void testCopyOutMessagePerRow() throws Exception {
+		PGStream stream = getStream();
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		writeString(new DataOutputStream(baos), "COPY (select 'a\\tb' as x union all select 'c') TO STDOUT");
+		sendMessage(stream, 'Q', baos);
+		stream.flush();
+		receiveMessage(stream, 'H');
+		assertEquals("a\\\\tb\n", readCopyData(stream));
+		assertEquals("c\n", readCopyData(stream));
+		receiveMessage(stream, 'c');
+		receiveMessage(stream, 'C');
+		receiveMessage(stream, 'Z');
+	}
+	
+	private static String readCopyData(PGStream stream) throws IOException {
+		DataInputStream dis = receiveMessage(stream, 'd');
+		byte[] bytes = new byte[dis.available()];
+		dis.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+	
+	@Test(expected=SQLException.class) public void testCopyOutCsv() throws Exception {
+		CopyManager cm = ((PGConnection)conn).getCopyAPI();
+		cm.copyOut("COPY (select 1) TO STDOUT WITH (FORMAT csv)", new StringWriter());
+	}
+	
+	/**
+	 * The driver only requests binary results for a few types, so the extended query 
+	 * messages are written directly to request the binary format for all columns
+	 */
+	@Test public void testBinaryResults() throws Exception {
+		PGStream stream = getStream();
+		sendExtendedQuery(stream, "select cast('-1234.5678' as bigdecimal), cast('10000.5' as bigdecimal), cast('2012-01-03' as date), cast('12:34:56' as time), cast('2012-01-03 12:34:56.5' as timestamp)");
+		sendSync(stream);
+		receiveMessage(stream, '1');
+		receiveMessage(stream, '2');
+		receiveBinaryRowDescription(stream, 5);
+		DataInputStream dis = receiveMessage(stream, 'D');
+		assertEquals(5, dis.readShort());
+		//numeric - ndigits, weight, sign, dscale, then the base 10000 digits
+		assertEquals(12, dis.readInt());
+		assertEquals(2, dis.readShort());
+		assertEquals(0, dis.readShort());
+		assertEquals(0x4000, dis.readShort());
+		assertEquals(4, dis.readShort());
+		assertEquals(1234, dis.readShort());
+		assertEquals(5678, dis.readShort());
+		assertEquals(14, dis.readInt());
+		assertEquals(3, dis.readShort());
+		assertEquals(1, dis.readShort());
+		assertEquals(0, dis.readShort());
+		assertEquals(1, dis.readShort());
+		assertEquals(1, dis.readShort());
+		assertEquals(0, dis.readShort());
+		assertEquals(5000, dis.readShort());
+		//date - days from 2000-01-01
+		assertEquals(4, dis.readInt());
+		assertEquals(4385, dis.readInt());
+		//time - seconds as a double
+		assertEquals(8, dis.readInt());
+		assertEquals(45296, dis.readDouble(), 0);
+		//timestamp - seconds from 2000-01-01 as a double
+		assertEquals(8, dis.readInt());
+		assertEquals(378909296.5, dis.readDouble(), 0);
+		receiveMessage(stream, 'C');
+		receiveMessage(stream, 'Z');
+	}
+	
+	/**
+	 * Several extended queries sent before a single sync should each be answered in order
+	 */
+	@Test public void testPipelinedExtendedQueries() throws Exception {
+		PGStream stream = getStream();
+		sendExtendedQuery(stream, "select 1");
+		sendExtendedQuery(stream, "select 'a'");
+		sendSync(stream);
+		receiveMessage(stream, '1');
+		receiveMessage(stream, '2');
+		receiveBinaryRowDescription(stream, 1);
+		DataInputStream dis = receiveMessage(stream, 'D');
+		assertEquals(1, dis.readShort());
+		assertEquals(4, dis.readInt());
+		assertEquals(1, dis.readInt());
+		receiveMessage(stream, 'C');
+		receiveMessage(stream, '1');
+		receiveMessage(stream, '2');
+		receiveBinaryRowDescription(stream, 1);
+		dis = receiveMessage(stream, 'D');
+		assertEquals(1, dis.readShort());
+		assertEquals(1, dis.readInt());
+		assertEquals('a', dis.readByte());
+		receiveMessage(stream, 'C');
+		receiveMessage(stream, 'Z');
+	}
+
+	private PGStream getStream() throws SQLException {
+		return ((ExtendedQueryExectutorImpl)((BaseConnection)conn).getQueryExecutor()).stream;
+	}
+	
+	/**
+	 * Send parse, bind requesting binary results, describe, and execute for the unnamed statement and portal
+	 */
+	private static void sendExtendedQuery(PGStream stream, String sql) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		writeString(dos, "");
+		writeString(dos, sql);
+		dos.writeShort(0);
+		sendMessage(stream, 'P', baos);
+		baos.reset();
+		writeString(dos, "");
+		writeString(dos, "");
+		dos.writeShort(0);
+		dos.writeShort(0);
+		dos.writeShort(1);
+		dos.writeShort(1);
+		sendMessage(stream, 'B', baos);
+		baos.reset();
+		dos.writeByte('P');
+		writeString(dos, "");
+		sendMessage(stream, 'D', baos);
+		baos.reset();
+		writeString(dos, "");
+		dos.writeInt(0);
+		sendMessage(stream, 'E', baos);
+	}
+	
+	private static void sendSync(PGStream stream) throws IOException {
+		sendMessage(stream, 'S', new ByteArrayOutputStream());
+		stream.flush();
+	}
+
+	private static void writeString(DataOutputStream dos, String value) throws IOException {
+		dos.write(value.getBytes("UTF-8"));
+		dos.writeByte(0);
+	}
+	
+	private static void sendMessage(PGStream stream, char type, ByteArrayOutputStream content) throws IOException {
+		stream.SendChar(type);
+		stream.SendInteger4(content.size() + 4);
+		stream.Send(content.toByteArray());
+	}
+	
+	private static DataInputStream receiveMessage(PGStream stream, char type) throws IOException {
+		assertEquals(type, (char)stream.ReceiveChar());
+		int length = stream.ReceiveInteger4();
+		return new DataInputStream(new ByteArrayInputStream(stream.Receive(length - 4)));
+	}
+	
+	private static void receiveBinaryRowDescription(PGStream stream, int columns) throws IOException {
+		DataInputStream dis = receiveMessage(stream, 'T');
+		assertEquals(columns, dis.readShort());
+		for (int i = 0; i < columns; i++) {
+			while (dis.readByte() != 0) {
+				//column name
+			}
+			//table oid, attribute number, type oid, type size, type modifier
+			dis.skipBytes(16);
+			assertEquals(1, dis.readShort());
+		}
+	}
 
 }